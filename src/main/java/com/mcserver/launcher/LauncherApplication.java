@@ -22,9 +22,11 @@ public class LauncherApplication extends Application {
     
     private Stage primaryStage;
     private LauncherConfig config;
+    private long startNanos; // 啟動計時起點
     
     @Override
     public void start(Stage stage) {
+        this.startNanos = System.nanoTime();
         this.primaryStage = stage;
         this.config = new LauncherConfig();
         
@@ -80,6 +82,13 @@ public class LauncherApplication extends Application {
         return config;
     }
     
+    /**
+     * 應用程序開始建立視窗的時間 ({@link System#nanoTime()})
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+    
     public static String getVersion() {
         return VERSION;
     }
@@ -15,6 +15,7 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Paths;
 import java.util.ResourceBundle;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
@@ -23,10 +24,17 @@ import java.util.concurrent.Executors;
 import com.mcserver.launcher.auth.MicrosoftAuthenticator;
 import com.mcserver.launcher.config.LauncherConfig;
 import com.mcserver.launcher.download.DownloadManager;
+import com.mcserver.launcher.github.GitHubClient;
 import com.mcserver.launcher.github.ModSyncManager;
 import com.mcserver.launcher.github.UpdateManager;
+import com.mcserver.launcher.image.ProfileTextureService;
+import com.mcserver.launcher.image.ThumbnailService;
+import com.mcserver.launcher.mod.ModManager;
+import com.mcserver.launcher.ui.ModsController;
 import com.mcserver.launcher.ui.SettingsController;
 import com.mcserver.launcher.util.JavaChecker;
+import com.mcserver.launcher.util.Lazy;
+import com.mcserver.launcher.util.StartupOrchestrator;
 
 /**
  * 啟動器主控制器
@@ -40,6 +48,8 @@ public class LauncherController implements Initializable {
     @FXML private Label welcomeLabel;
     @FXML private Label statusLabel;
     @FXML private Button loginButton;
+    @FXML private Button addAccountButton;
+    @FXML private ComboBox<MicrosoftAuthenticator.MinecraftSession> accountSelect;
     @FXML private Button startGameButton;
     @FXML private Button downloadButton;
     @FXML private Button settingsButton;
@@ -61,24 +71,68 @@ public class LauncherController implements Initializable {
     // 狀態變量
     private boolean isLoggedIn = false;
     private String currentUser = null;
-    private MicrosoftAuthenticator authenticator;
-    private ModSyncManager modSyncManager;
-    private UpdateManager updateManager;
-    private DownloadManager downloadManager;
-    private boolean isGameRunning = false; // 遊戲運行狀態標記
+    private volatile MicrosoftAuthenticator authenticator; // 在背景啟動任務中建立
+    private volatile boolean localModsVerified; // 啟動時本地模組是否仍為上次同步的版本 (在背景啟動任務中檢查)
+    // 較重的子系統在第一次使用時才建立
+    private Lazy<ModSyncManager> modSyncManager;
+    private Lazy<UpdateManager> updateManager;
+    private Lazy<DownloadManager> downloadManager;
+    private Lazy<ModManager> modManager;
+    private Lazy<ProfileTextureService> textureService;
+    private StartupOrchestrator startup;
+    private volatile boolean isGameRunning = false; // 遊戲運行狀態標記
+    private boolean updatingAccountList = false; // 程式更新帳號列表時不觸發切換
+    
+    private static final int AVATAR_SIZE = 20;
+    private static final int CAPE_HEIGHT = 64;
     
     /**
      * 設置應用程序引用
+     * 啟動工作以依賴關係宣告，互不依賴的任務並行執行，各任務的耗時記錄在日誌中
      */
     public void setApplication(LauncherApplication application) {
         this.application = application;
-        this.modSyncManager = new ModSyncManager(application.getConfig());
-        this.updateManager = new UpdateManager(application.getConfig());
-        this.downloadManager = new DownloadManager(application.getConfig());
+        LauncherConfig config = application.getConfig();
+        Lazy<GitHubClient> github = Lazy.of(() -> new GitHubClient(config));
+        this.modSyncManager = Lazy.of(() -> new ModSyncManager(config, github.get()));
+        this.updateManager = Lazy.of(() -> new UpdateManager(config, github.get()));
+        this.downloadManager = Lazy.of(() -> new DownloadManager(config));
+        this.modManager = Lazy.of(() -> {
+            ModManager manager = new ModManager(config);
+            CompletableFuture<Void> initialization = manager.initialize();
+            String slotRulesUrl = config.getModSlotRulesUrl();
+            if (slotRulesUrl != null && !slotRulesUrl.isBlank()) {
+                // 掃描完成後才套用遠端規則，避免與讀取 mod-slots.json 同時進行
+                initialization.thenRun(() -> manager.loadSlotRulesFromUrl(slotRulesUrl));
+            }
+            return manager;
+        });
+        this.textureService = Lazy.of(() -> new ProfileTextureService(
+                Paths.get(config.getLauncherDirectory(), "cache", "textures")));
         
-        // 0. 檢查 GitHub 配置
+        startup = new StartupOrchestrator(application.getStartNanos(), Platform::runLater);
+        startup.uiTask("config-check", this::checkGithubConfig);
+        startup.task("java-check", this::checkJavaEnvironment);
+        if (config.isCheckUpdates()) {
+            startup.asyncTask("launcher-update", this::checkForLauncherUpdates);
+        }
+        startup.task("auth-load", this::loadAuthenticator);
+        startup.uiTask("session-restore", this::restoreSession, "auth-load");
+        if (config.isAutoLoadMods()) {
+            // 建立同步管理器需要讀取雜湊索引並恢復中斷的目錄替換，在背景完成後才回到界面線程
+            startup.task("mod-sync-init", this::initModSync);
+            startup.asyncTask("mod-sync", this::performModSync, "mod-sync-init");
+            startup.uiTask("ready", this::markReady, "session-restore", "mod-sync");
+        } else {
+            startup.uiTask("ready", this::markReady, "session-restore");
+        }
+        startup.start();
+    }
+    
+    private void checkGithubConfig() {
         String repo = application.getConfig().getGithubRepo();
         if (repo == null || repo.contains("YOUR_USERNAME")) {
+            // 不阻塞其他界面啟動任務
             Platform.runLater(() -> {
                 Alert alert = new Alert(Alert.AlertType.WARNING);
                 alert.setTitle("配置警告");
@@ -87,118 +141,151 @@ public class LauncherController implements Initializable {
                 alert.showAndWait();
             });
         }
-        
-        // 1. 檢查 Java 環境
-        checkJavaEnvironment();
-        
-        // 2. 檢查啟動器更新
-        if (application.getConfig().isCheckUpdates()) {
-            checkForLauncherUpdates();
-        }
-        
-        // 3. 執行模組同步
-        if (application.getConfig().isAutoLoadMods()) {
-            performModSync();
-        }
-        
-        // 初始化認證器
-        try {
-            this.authenticator = new MicrosoftAuthenticator(application.getConfig());
+    }
+    
+    /**
+     * 讀取並解密帳號庫 (背景線程)
+     */
+    private void loadAuthenticator() {
+        this.authenticator = new MicrosoftAuthenticator(application.getConfig());
+    }
+    
+    /**
+     * 恢復上次的登入狀態
+     */
+    private void restoreSession() {
+        // 檢查是否已經有保存的登入狀態
+        if (authenticator.isLoggedIn()) {
+            MicrosoftAuthenticator.MinecraftSession session = authenticator.getSession();
+            isLoggedIn = true;
+            currentUser = session.getUsername();
+            loginButton.setText("登出");
+            appendLog("已恢復上次會話: " + currentUser);
+            refreshAccountList();
+            updateUIState();
             
-            // 檢查是否已經有保存的登入狀態
-            if (authenticator.isLoggedIn()) {
-                MicrosoftAuthenticator.MinecraftSession session = authenticator.getSession();
-                isLoggedIn = true;
-                currentUser = session.getUsername();
-                loginButton.setText("登出");
-                appendLog("已恢復上次會話: " + currentUser);
-                updateUIState();
-                
-                // 嘗試在後台刷新 Token (自動登入)
-                new Thread(() -> {
-                    try {
-                        appendLog("正在驗證登入狀態...");
-                        String refreshedUser = authenticator.refreshAndAuthenticate();
-                        Platform.runLater(() -> {
-                            currentUser = refreshedUser;
-                            appendLog("自動登入驗證成功: " + refreshedUser);
-                            updateUIState();
-                        });
-                    } catch (Exception e) {
-                        Platform.runLater(() -> {
-                            appendLog("自動登入失效，請重新登入: " + e.getMessage());
-                            handleLogout();
-                        });
-                    }
-                }).start();
+            // 令牌仍有效時不發送任何請求，即將到期的令牌由排程器在背景提前刷新
+            if (!authenticator.hasValidToken()) {
+                appendLog("正在驗證登入狀態...");
             }
-        } catch (Exception e) {
-            System.err.println("認證服務初始化失敗: " + e.getMessage());
-            e.printStackTrace();
+            startTokenRefresh();
         }
     }
     
+    private void markReady() {
+        appendLog("啟動器已就緒 (" + startup.elapsedMillis() + " ms)");
+    }
+    
     private void checkJavaEnvironment() {
-        JavaChecker.checkJavaVersion().thenAccept(isValid -> {
-            if (!isValid) {
-                JavaChecker.showJavaUpdateAlert();
-            }
-        });
+        if (!JavaChecker.checkJavaVersion().join()) {
+            JavaChecker.showJavaUpdateAlert();
+        }
     }
     
-    private void checkForLauncherUpdates() {
-        if (updateManager == null) return;
+    /**
+     * 檢查啟動器更新
+     * @return {@link UpdateManager#findUpdate()} 的 future，檢查完成時即完成 (檢查失敗時以例外完成)；
+     *         之後的下載與校驗不會被等待，結果只寫入日誌，因此不計入啟動時間
+     */
+    private CompletableFuture<?> checkForLauncherUpdates() {
+        UpdateManager updates = updateManager.get();
+        CompletableFuture<UpdateManager.GitHubRelease> check = updates.findUpdate();
         
-        CompletableFuture.runAsync(() -> {
-            try {
-                if (updateManager.checkForUpdates()) {
-                    UpdateManager.GitHubRelease release = updateManager.getLatestRelease();
-                    Platform.runLater(() -> showUpdateDialog(release));
-                }
-            } catch (Exception e) {
-                Platform.runLater(() -> appendLog("檢查更新失敗: " + e.getMessage()));
+        // 新版本在背景下載並校驗，下次啟動時自動套用，不打斷玩家
+        check.thenCompose(release -> {
+            if (release == null) {
+                return CompletableFuture.completedFuture(false);
             }
+            Platform.runLater(() -> appendLog("發現新版本 " + release.tagName + "，正在背景下載..."));
+            return updates.stageUpdate(release, progress -> { }).thenApply(staged -> {
+                if (staged) {
+                    Platform.runLater(() -> appendLog("新版本 " + release.tagName + " 已準備就緒，將在下次啟動時自動套用"));
+                }
+                return staged;
+            });
+        }).exceptionally(e -> {
+            Platform.runLater(() -> appendLog("檢查更新失敗: " + e.getMessage()));
+            return false;
         });
+        return check;
     }
     
-    private void showUpdateDialog(UpdateManager.GitHubRelease release) {
-        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
-        alert.setTitle("發現新版本");
-        alert.setHeaderText("發現新版本: " + release.tagName);
-        alert.setContentText("更新內容:\n" + release.body + "\n\n是否立即更新？");
-        
-        alert.showAndWait().ifPresent(response -> {
-            if (response == ButtonType.OK) {
-                performLauncherUpdate(release);
-            }
-        });
+    /**
+     * 建立同步管理器並檢查本地文件是否仍為上次同步的版本 (背景線程，需要讀取文件狀態)
+     */
+    private void initModSync() {
+        ModSyncManager manager = modSyncManager.get();
+        localModsVerified = application.getConfig().isOfflineFirst() && manager.isLocallyVerified();
     }
     
-    private void performLauncherUpdate(UpdateManager.GitHubRelease release) {
-        lockUI(true, "正在更新啟動器...");
-        updateManager.downloadAndApplyUpdate(release, progress -> {
-            Platform.runLater(() -> {
-                if (progressBar != null) progressBar.setProgress(progress / 100.0);
-            });
-        }).exceptionally(e -> {
-            Platform.runLater(() -> {
-                lockUI(false, "更新失敗");
-                showError("更新失敗", e.getMessage());
+    private CompletableFuture<?> performModSync() {
+        if (isGameRunning) {
+            // 遊戲運行中不能替換模組，只預先下載到暫存目錄
+            appendLog("遊戲正在運行中，將在背景預先下載更新...");
+            return modSyncManager.get().prefetch(
+                status -> Platform.runLater(() -> appendLog(status)),
+                progress -> { }
+            ).exceptionally(ex -> {
+                Platform.runLater(() -> appendLog("預先下載失敗: " + ex.getMessage()));
+                return false;
             });
+        }
+        
+        // 本地文件仍與上次同步的版本一致時立即就緒，不等待網路；更新在背景下載，有變更時才詢問
+        if (localModsVerified) {
+            Platform.runLater(this::checkModUpdatesInBackground);
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        return applyModSync();
+    }
+    
+    /**
+     * 背景下載並校驗模組更新到暫存目錄，不鎖定界面；網路失敗時繼續使用本地已校驗的文件
+     */
+    private void checkModUpdatesInBackground() {
+        appendLog("模組與上次同步時一致，正在背景檢查更新...");
+        modSyncManager.get().prefetch(
+            status -> Platform.runLater(() -> appendLog(status)),
+            progress -> { }
+        ).thenAccept(changed -> Platform.runLater(() -> {
+            if (changed) {
+                promptApplyModUpdate();
+            }
+        })).exceptionally(ex -> {
+            Platform.runLater(() -> appendLog("背景檢查更新失敗，使用本地文件: " + ex.getMessage()));
             return null;
         });
     }
     
-    private void performModSync() {
+    private void promptApplyModUpdate() {
         if (isGameRunning) {
-            showError("無法更新", "遊戲正在運行中，請先關閉遊戲再重啟啟動器以進行更新。");
+            appendLog("模組更新已暫存，下次啟動時會再次詢問");
             return;
         }
-        
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("模組更新");
+        alert.setHeaderText("模組或資源包有更新");
+        alert.setContentText("更新已在背景下載並校驗，是否立即套用？");
+        if (alert.showAndWait().filter(ButtonType.OK::equals).isPresent()) {
+            applyModSync();
+        } else {
+            appendLog("模組更新已暫存，下次啟動時會再次詢問");
+        }
+    }
+    
+    /**
+     * 同步並套用模組更新，期間鎖定界面 (已暫存的文件直接套用，不重新下載)
+     */
+    private CompletableFuture<Void> applyModSync() {
         // 鎖定 UI
-        lockUI(true, "正在檢查更新...");
+        if (Platform.isFxApplicationThread()) {
+            lockUI(true, "正在檢查更新...");
+        } else {
+            Platform.runLater(() -> lockUI(true, "正在檢查更新..."));
+        }
         
-        modSyncManager.syncAll(
+        return modSyncManager.get().syncAll(
             status -> Platform.runLater(() -> appendLog(status)),
             progress -> Platform.runLater(() -> {
                 if (progressBar != null) progressBar.setProgress(progress / 100.0);
@@ -317,6 +404,31 @@ public class LauncherController implements Initializable {
             loginButton.setOnAction(e -> handleLogin());
         }
         
+        // 帳號切換事件
+        if (addAccountButton != null) {
+            addAccountButton.setOnAction(e -> startMicrosoftLogin());
+        }
+        if (accountSelect != null) {
+            accountSelect.setConverter(new javafx.util.StringConverter<>() {
+                @Override
+                public String toString(MicrosoftAuthenticator.MinecraftSession session) {
+                    return session != null ? session.getUsername() : "";
+                }
+                
+                @Override
+                public MicrosoftAuthenticator.MinecraftSession fromString(String text) {
+                    return null;
+                }
+            });
+            accountSelect.setCellFactory(list -> new AccountCell());
+            accountSelect.setButtonCell(new AccountCell());
+            accountSelect.valueProperty().addListener((obs, oldValue, newValue) -> {
+                if (!updatingAccountList && newValue != null) {
+                    handleSwitchAccount(newValue);
+                }
+            });
+        }
+        
         // 啟動遊戲按鈕事件
         if (startGameButton != null) {
             startGameButton.setOnAction(e -> handleLaunchGame());
@@ -341,49 +453,138 @@ public class LauncherController implements Initializable {
     @FXML
     private void handleLogin() {
         if (!isLoggedIn) {
-            if (authenticator == null) {
-                showError("錯誤", "認證服務尚未初始化");
-                return;
-            }
-
-            loginButton.setDisable(true);
-            appendLog("正在啟動微軟登入...");
-            
-            // 在后台线程运行认证，避免阻塞 UI
-            new Thread(() -> {
-                try {
-                    String userName = authenticator.authenticate();
-                    
-                    Platform.runLater(() -> {
-                        isLoggedIn = true;
-                        currentUser = userName;
-                        loginButton.setText("登出");
-                        loginButton.setDisable(false);
-                        appendLog("登入成功: " + currentUser);
-                        updateUIState();
-                    });
-                } catch (Exception e) {
-                    Platform.runLater(() -> {
-                        loginButton.setDisable(false);
-                        appendLog("登入失敗: " + e.getMessage());
-                        showError("登入失敗", e.getMessage());
-                        e.printStackTrace();
-                    });
-                }
-            }).start();
+            startMicrosoftLogin();
         } else {
             handleLogout();
         }
     }
     
+    /**
+     * 以 Device Code Flow 登入新帳號 (已登入時作為新增帳號)，完成後成為目前帳號
+     */
+    private void startMicrosoftLogin() {
+        if (authenticator == null) {
+            showError("錯誤", "認證服務尚未初始化");
+            return;
+        }
+
+        loginButton.setDisable(true);
+        if (addAccountButton != null) {
+            addAccountButton.setDisable(true);
+        }
+        appendLog("正在啟動微軟登入...");
+        
+        // 在后台线程运行认证，避免阻塞 UI
+        new Thread(() -> {
+            try {
+                String userName = authenticator.authenticate();
+                
+                Platform.runLater(() -> {
+                    isLoggedIn = true;
+                    currentUser = userName;
+                    loginButton.setText("登出");
+                    loginButton.setDisable(false);
+                    if (addAccountButton != null) {
+                        addAccountButton.setDisable(false);
+                    }
+                    appendLog("登入成功: " + currentUser);
+                    refreshAccountList();
+                    updateUIState();
+                });
+                startTokenRefresh();
+            } catch (Exception e) {
+                Platform.runLater(() -> {
+                    loginButton.setDisable(false);
+                    if (addAccountButton != null) {
+                        addAccountButton.setDisable(false);
+                    }
+                    appendLog("登入失敗: " + e.getMessage());
+                    showError("登入失敗", e.getMessage());
+                    e.printStackTrace();
+                });
+            }
+        }).start();
+    }
+    
+    /**
+     * 切換帳號：令牌由背景排程保持有效，不需要等待網路
+     */
+    private void handleSwitchAccount(MicrosoftAuthenticator.MinecraftSession session) {
+        MicrosoftAuthenticator.MinecraftSession active = authenticator.getSession();
+        if (active != null && active.getUuid().equals(session.getUuid())) {
+            return;
+        }
+        try {
+            currentUser = authenticator.switchAccount(session.getUuid()).getUsername();
+            appendLog("已切換到帳號: " + currentUser);
+            updateUIState();
+        } catch (IOException e) {
+            appendLog("切換帳號失敗: " + e.getMessage());
+        }
+    }
+    
+    private void refreshAccountList() {
+        if (accountSelect == null || authenticator == null) {
+            return;
+        }
+        updatingAccountList = true;
+        try {
+            MicrosoftAuthenticator.MinecraftSession active = authenticator.getSession();
+            accountSelect.getItems().setAll(authenticator.getAccounts());
+            accountSelect.getItems().stream()
+                    .filter(session -> active != null && session.getUuid().equals(active.getUuid()))
+                    .findFirst()
+                    .ifPresentOrElse(accountSelect::setValue, () -> accountSelect.setValue(null));
+        } finally {
+            updatingAccountList = false;
+        }
+        // 預先渲染所有帳號的頭像，下拉列表與切換時直接從快取顯示
+        for (MicrosoftAuthenticator.MinecraftSession session : accountSelect.getItems()) {
+            textureService.get().prefetchAvatar(session.getSkinUrl(), AVATAR_SIZE);
+        }
+        boolean hasAccounts = !accountSelect.getItems().isEmpty();
+        accountSelect.setVisible(hasAccounts);
+        accountSelect.setManaged(hasAccounts);
+        if (addAccountButton != null) {
+            addAccountButton.setVisible(hasAccounts);
+            addAccountButton.setManaged(hasAccounts);
+        }
+    }
+    
+    /**
+     * 在背景保持登入令牌有效，Refresh Token 失效時才要求重新登入
+     * 失效的帳號保留在列表中並標記為需要重新登入，只有用戶登出時才移除
+     */
+    private void startTokenRefresh() {
+        authenticator.startRefreshScheduler(
+            session -> Platform.runLater(() -> {
+                currentUser = session.getUsername();
+                appendLog("登入令牌已刷新: " + currentUser);
+                refreshAccountList();
+                updateUIState();
+            }),
+            (session, e) -> Platform.runLater(() -> {
+                appendLog(session.getUsername() + " 的自動登入已失效，請重新登入: " + e.getMessage());
+                refreshAccountList();
+                updateUIState();
+            }));
+    }
+    
     private void handleLogout() {
         if (authenticator != null) {
             authenticator.logout();
         }
-        isLoggedIn = false;
-        currentUser = null;
-        loginButton.setText("登入");
-        appendLog("已登出");
+        appendLog("已登出" + (currentUser != null ? ": " + currentUser : ""));
+        if (authenticator != null && authenticator.isLoggedIn()) {
+            // 仍有其他帳號時切換到下一個
+            currentUser = authenticator.getSession().getUsername();
+            appendLog("已切換到帳號: " + currentUser);
+        } else {
+            isLoggedIn = false;
+            currentUser = null;
+            loginButton.setText("登入");
+        }
+        refreshAccountList();
         updateUIState();
     }
     
@@ -394,6 +595,34 @@ public class LauncherController implements Initializable {
             return;
         }
         
+        // 令牌已過期或即將過期 (例如排程器刷新失敗或電腦剛從睡眠恢復) 時先在背景刷新再啟動
+        if (authenticator != null && !authenticator.hasValidToken()) {
+            startGameButton.setDisable(true);
+            appendLog("正在刷新登入令牌...");
+            new Thread(() -> {
+                try {
+                    String userName = authenticator.refreshAndAuthenticate();
+                    Platform.runLater(() -> {
+                        currentUser = userName;
+                        refreshAccountList();
+                        updateUIState();
+                        launchGame();
+                    });
+                } catch (Exception e) {
+                    Platform.runLater(() -> {
+                        appendLog("刷新登入令牌失敗: " + e.getMessage());
+                        showError("啟動失敗", "登入已失效，請重新登入: " + e.getMessage());
+                        refreshAccountList();
+                        updateUIState();
+                    });
+                }
+            }, "launch-token-refresh").start();
+            return;
+        }
+        launchGame();
+    }
+    
+    private void launchGame() {
         appendLog("正在啟動遊戲...");
         
         // 構建啟動參數 (模擬)
@@ -422,11 +651,6 @@ public class LauncherController implements Initializable {
     
     @FXML
     private void handleDownload() {
-        if (downloadManager == null) {
-            showError("錯誤", "下載管理器尚未初始化");
-            return;
-        }
-
         if (isGameRunning) {
             showError("錯誤", "遊戲正在運行中");
             return;
@@ -439,7 +663,7 @@ public class LauncherController implements Initializable {
         String mcVersion = "1.21.1";
         String neoForgeVersion = "21.1.217"; // 使用與 MinecraftLauncher 一致的版本
 
-        downloadManager.downloadAndInstallMinecraftForge(mcVersion, neoForgeVersion, (current, total) -> {
+        downloadManager.get().downloadAndInstallMinecraftForge(mcVersion, neoForgeVersion, (current, total) -> {
              Platform.runLater(() -> {
                  if (progressBar != null) {
                      progressBar.setProgress((double)current / total);
@@ -473,6 +697,14 @@ public class LauncherController implements Initializable {
             if (controller != null && application != null) {
                 LauncherConfig config = application.getConfig();
                 controller.setConfig(config);
+                controller.setGameRunning(() -> isGameRunning);
+                // 同步管理器第一次建立時需要讀取雜湊索引，在背景完成後才啟用還原按鈕
+                CompletableFuture.supplyAsync(modSyncManager::get)
+                        .thenAccept(manager -> Platform.runLater(() -> controller.setModSyncManager(manager)))
+                        .exceptionally(ex -> {
+                            appendLog("無法載入模組同步管理器: " + ex.getMessage());
+                            return null;
+                        });
             }
             
             Stage dialogStage = new Stage();
@@ -499,7 +731,34 @@ public class LauncherController implements Initializable {
     @FXML
     private void handleModsManagement() {
         appendLog("打開模組管理");
-        showInfo("模組管理", "模組管理功能尚未實現");
+        // 縮圖服務只在對話框開啟期間存在，關閉時停止背景線程
+        ThumbnailService thumbnailService = new ThumbnailService(
+                Paths.get(application.getConfig().getLauncherDirectory(), "cache", "thumbnails"));
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/mods.fxml"));
+            Parent dialogRoot = loader.load();
+            
+            ModsController controller = loader.getController();
+            
+            Stage dialogStage = new Stage();
+            dialogStage.initOwner(application != null ? application.getPrimaryStage() : null);
+            dialogStage.initModality(Modality.WINDOW_MODAL);
+            dialogStage.setTitle("模組管理");
+            dialogStage.setScene(new Scene(dialogRoot));
+            
+            if (controller != null) {
+                controller.setDialogStage(dialogStage);
+                controller.setThumbnailService(thumbnailService);
+                controller.setModManager(modManager.get());
+            }
+            
+            dialogStage.showAndWait();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            showError("模組管理錯誤", "無法開啟模組管理視窗: " + ex.getMessage());
+        } finally {
+            thumbnailService.shutdown();
+        }
     }
 
     @FXML
@@ -527,12 +786,16 @@ public class LauncherController implements Initializable {
     }
     
     private void updateUIState() {
+        MicrosoftAuthenticator.MinecraftSession active = authenticator != null ? authenticator.getSession() : null;
+        boolean needsRelogin = active != null && active.needsRelogin();
         if (startGameButton != null) {
-            startGameButton.setDisable(!isLoggedIn);
+            startGameButton.setDisable(!isLoggedIn || needsRelogin);
         }
         
         if (statusLabel != null) {
-            if (isLoggedIn) {
+            if (needsRelogin) {
+                statusLabel.setText("需要重新登入: " + currentUser);
+            } else if (isLoggedIn) {
                 statusLabel.setText("已登入: " + currentUser);
             } else {
                 statusLabel.setText("請登入");
@@ -571,5 +834,73 @@ public class LauncherController implements Initializable {
     
     public void shutdown() {
         appendLog("啟動器正在關閉...");
+        if (startup != null) {
+            startup.cancel();
+        }
+        textureService.ifInitialized(ProfileTextureService::shutdown);
+    }
+    
+    /**
+     * 帳號列表項：用戶名加頭像，頭像已在記憶體快取時同步顯示，否則在背景載入後補上
+     * 有披風的帳號在提示框中顯示披風正面，第一次顯示提示框時才載入
+     */
+    private class AccountCell extends ListCell<MicrosoftAuthenticator.MinecraftSession> {
+        private final ImageView avatar = new ImageView();
+        private final ImageView cape = new ImageView();
+        private final Tooltip capeTooltip = new Tooltip();
+        
+        AccountCell() {
+            avatar.setFitWidth(AVATAR_SIZE);
+            avatar.setFitHeight(AVATAR_SIZE);
+            capeTooltip.setGraphic(cape);
+            capeTooltip.setOnShowing(e -> loadCape());
+        }
+        
+        @Override
+        protected void updateItem(MicrosoftAuthenticator.MinecraftSession session, boolean empty) {
+            super.updateItem(session, empty);
+            if (empty || session == null) {
+                setText(null);
+                setGraphic(null);
+                setTooltip(null);
+                return;
+            }
+            setText(session.needsRelogin() ? session.getUsername() + " (需要重新登入)" : session.getUsername());
+            setGraphic(avatar);
+            String skinUrl = session.getSkinUrl();
+            Image cached = textureService.get().getCachedAvatar(skinUrl, AVATAR_SIZE);
+            avatar.setImage(cached);
+            if (cached == null && skinUrl != null) {
+                textureService.get().requestAvatar(skinUrl, AVATAR_SIZE, image -> {
+                    // 回調時儲存格可能已被重用於其他帳號
+                    if (getItem() != null && skinUrl.equals(getItem().getSkinUrl())) {
+                        avatar.setImage(image);
+                    }
+                });
+            }
+            
+            String capeUrl = session.getCapeUrl();
+            if (capeUrl != null && !capeUrl.isBlank()) {
+                capeTooltip.setText(session.getUsername() + " 的披風");
+                cape.setImage(textureService.get().getCachedCape(capeUrl, CAPE_HEIGHT));
+                setTooltip(capeTooltip);
+            } else {
+                cape.setImage(null);
+                setTooltip(null);
+            }
+        }
+        
+        private void loadCape() {
+            MicrosoftAuthenticator.MinecraftSession session = getItem();
+            if (session == null || cape.getImage() != null) {
+                return;
+            }
+            String capeUrl = session.getCapeUrl();
+            textureService.get().requestCape(capeUrl, CAPE_HEIGHT, image -> {
+                if (getItem() != null && capeUrl.equals(getItem().getCapeUrl())) {
+                    cape.setImage(image);
+                }
+            });
+        }
     }
 }
\ No newline at end of file
@@ -1,7 +1,27 @@
 package com.mcserver.launcher;
 
+import com.mcserver.launcher.github.ModpackManifest;
+import com.mcserver.launcher.github.UpdateBootstrap;
+import com.mcserver.launcher.github.UpdatePatches;
+
+import java.util.Arrays;
+
 public class LauncherMain {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // 發佈者工具: java -jar launcher.jar generate-manifest <模組包目錄> ...
+        if (args.length > 0 && "generate-manifest".equals(args[0])) {
+            ModpackManifest.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // 發佈者工具: java -jar launcher.jar generate-patches <新版本 jar> <舊版本 jar>...
+        if (args.length > 0 && "generate-patches".equals(args[0])) {
+            UpdatePatches.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // 上次運行時已在背景下載並校驗的新版本在這裡接手
+        if (UpdateBootstrap.launchStaged(args)) {
+            return;
+        }
         LauncherApplication.main(args);
     }
 }
@@ -0,0 +1,243 @@
+package com.mcserver.launcher.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.*;
+
+/**
+ * 帳號庫 (auth/accounts.json)
+ * 以 Minecraft UUID 為鍵保存多個帳號的認證鏈 ({@link AuthTokens})，令牌以 AES-GCM 加密後落盤，
+ * 明文只保留用戶名以便在未解密時列出帳號。金鑰為每次安裝隨機產生的 auth/accounts.key，
+ * 只有目前用戶可讀；可防止配置備份、同步或截圖外洩令牌，但無法防禦以同一用戶身份運行的程式。
+ * 無法解密的條目 (例如金鑰遺失或損毀) 原樣保留並寫回，恢復金鑰後即可再次使用；
+ * 此時不會產生新金鑰，以免新舊條目使用不同金鑰。
+ *
+ * 格式:
+ * {
+ *   "formatVersion": 1,
+ *   "active": "uuid",
+ *   "accounts": [{"uuid": "...", "username": "...", "tokens": "base64(iv + 密文)"}]
+ * }
+ */
+public class AccountStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AccountStore.class);
+    
+    public static final int FORMAT_VERSION = 1;
+    
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int KEY_BITS = 256;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    
+    private final Path file;
+    private final Path keyFile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SecureRandom random = new SecureRandom();
+    // 按加入順序排列
+    private final Map<String, AuthTokens> accounts = new LinkedHashMap<>();
+    // 無法解密的原始條目 (UUID -> 條目)，保存時原樣寫回
+    private final Map<String, JsonNode> undecryptable = new LinkedHashMap<>();
+    private String activeId;
+    private SecretKey key;
+    
+    public AccountStore(Path directory) {
+        this.file = directory.resolve("accounts.json");
+        this.keyFile = directory.resolve("accounts.key");
+    }
+    
+    /**
+     * 讀取帳號庫，無法解密的帳號 (例如金鑰遺失) 不會列出，但會保留在文件中
+     */
+    public synchronized void load() throws IOException {
+        accounts.clear();
+        undecryptable.clear();
+        activeId = null;
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        JsonNode root = objectMapper.readTree(file.toFile());
+        int version = root.path("formatVersion").asInt(FORMAT_VERSION);
+        if (version > FORMAT_VERSION) {
+            throw new IOException("不支援的帳號庫格式版本: " + version);
+        }
+        for (JsonNode node : root.path("accounts")) {
+            String id = node.path("uuid").asText("");
+            try {
+                byte[] plain = decrypt(Base64.getDecoder().decode(node.path("tokens").asText()), id);
+                accounts.put(id, AuthTokens.fromJson(objectMapper.readTree(plain)));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                logger.warn("無法解密帳號 {} 的令牌，需要重新登入: {}", node.path("username").asText(id), e.getMessage());
+                undecryptable.put(id, node);
+            }
+        }
+        String active = root.path("active").asText(null);
+        activeId = accounts.containsKey(active) ? active : accounts.keySet().stream().findFirst().orElse(null);
+    }
+    
+    public synchronized List<AuthTokens> getAccounts() {
+        return new ArrayList<>(accounts.values());
+    }
+    
+    public synchronized AuthTokens get(String id) {
+        return accounts.get(id);
+    }
+    
+    public synchronized AuthTokens getActive() {
+        return activeId != null ? accounts.get(activeId) : null;
+    }
+    
+    public synchronized String getActiveId() {
+        return activeId;
+    }
+    
+    public synchronized boolean isEmpty() {
+        return accounts.isEmpty();
+    }
+    
+    /**
+     * 加入或更新帳號 (以 Minecraft UUID 識別)
+     */
+    public synchronized void put(AuthTokens tokens) throws IOException {
+        accounts.put(tokens.getProfile().getUuid(), tokens);
+        // 重新登入後取代無法解密的舊條目
+        undecryptable.remove(tokens.getProfile().getUuid());
+        if (activeId == null) {
+            activeId = tokens.getProfile().getUuid();
+        }
+        save();
+    }
+    
+    public synchronized void setActive(String id) throws IOException {
+        if (!accounts.containsKey(id)) {
+            throw new IllegalArgumentException("帳號不存在: " + id);
+        }
+        activeId = id;
+        save();
+    }
+    
+    /**
+     * 移除帳號，移除的是目前帳號時切換到第一個剩餘帳號
+     */
+    public synchronized void remove(String id) throws IOException {
+        if (accounts.remove(id) == null) {
+            if (undecryptable.remove(id) != null) {
+                save();
+            }
+            return;
+        }
+        if (id.equals(activeId)) {
+            activeId = accounts.keySet().stream().findFirst().orElse(null);
+        }
+        save();
+    }
+    
+    private void save() throws IOException {
+        List<Object> list = new ArrayList<>();
+        for (Map.Entry<String, AuthTokens> entry : accounts.entrySet()) {
+            byte[] plain = entry.getValue().toJson(objectMapper).getBytes(StandardCharsets.UTF_8);
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("uuid", entry.getKey());
+            node.put("username", entry.getValue().getProfile().getUsername());
+            try {
+                node.put("tokens", Base64.getEncoder().encodeToString(encrypt(plain, entry.getKey())));
+            } catch (GeneralSecurityException e) {
+                throw new IOException("無法加密帳號令牌: " + e.getMessage(), e);
+            }
+            list.add(node);
+        }
+        list.addAll(undecryptable.values());
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("formatVersion", FORMAT_VERSION);
+        root.put("active", activeId);
+        root.put("accounts", list);
+        
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(root));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * 以 UUID 作為附加驗證資料，令牌不能被搬到其他帳號的條目下
+     */
+    private byte[] encrypt(byte[] plain, String id) throws GeneralSecurityException, IOException {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.ENCRYPT_MODE, key(true), new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(id.getBytes(StandardCharsets.UTF_8));
+        byte[] encrypted = cipher.doFinal(plain);
+        byte[] result = Arrays.copyOf(iv, IV_LENGTH + encrypted.length);
+        System.arraycopy(encrypted, 0, result, IV_LENGTH, encrypted.length);
+        return result;
+    }
+    
+    private byte[] decrypt(byte[] data, String id) throws GeneralSecurityException, IOException {
+        if (data.length <= IV_LENGTH) {
+            throw new GeneralSecurityException("密文過短");
+        }
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, key(false), new GCMParameterSpec(TAG_BITS, data, 0, IV_LENGTH));
+        cipher.updateAAD(id.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(data, IV_LENGTH, data.length - IV_LENGTH);
+    }
+    
+    /**
+     * 讀取金鑰；只有加密時、且沒有無法解密的條目時才產生新金鑰
+     */
+    private SecretKey key(boolean create) throws GeneralSecurityException, IOException {
+        if (key != null) {
+            return key;
+        }
+        if (Files.isRegularFile(keyFile)) {
+            // 損毀的金鑰文件不覆寫，保留以便手動恢復
+            byte[] encoded;
+            try {
+                encoded = Base64.getDecoder().decode(Files.readString(keyFile).trim());
+            } catch (IllegalArgumentException e) {
+                throw new GeneralSecurityException("帳號金鑰文件已損毀: " + keyFile, e);
+            }
+            if (encoded.length != KEY_BITS / 8) {
+                throw new GeneralSecurityException("帳號金鑰文件已損毀: " + keyFile);
+            }
+            key = new SecretKeySpec(encoded, "AES");
+            return key;
+        }
+        if (!create) {
+            throw new GeneralSecurityException("帳號金鑰不存在: " + keyFile);
+        }
+        if (!undecryptable.isEmpty()) {
+            throw new GeneralSecurityException("帳號金鑰遺失，已保存的帳號無法解密；請恢復 " + keyFile + "，或刪除 " + file + " 後重新登入");
+        }
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(KEY_BITS, random);
+        SecretKey generated = generator.generateKey();
+        
+        Files.createDirectories(keyFile.getParent());
+        Path temp = keyFile.resolveSibling(keyFile.getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(temp, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+        // Windows 上用戶目錄預設只有本人可讀
+        Files.writeString(temp, Base64.getEncoder().encodeToString(generated.getEncoded()));
+        Files.move(temp, keyFile, StandardCopyOption.ATOMIC_MOVE);
+        key = generated;
+        return key;
+    }
+}
@@ -0,0 +1,162 @@
+package com.mcserver.launcher.auth;
+
+import com.mcserver.launcher.config.LauncherConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 認證鏈各步驟的端點
+ * 預設為 Microsoft / Xbox / Minecraft 的正式服務；配置中的 auth.baseUrl 會把所有端點改到同一主機 (保留原路徑)，
+ * auth.endpoints 可單獨覆寫某個端點，以便在本地樁服務上測試或壓測整條認證鏈。
+ * 令牌會發送到這些端點，因此覆寫只接受 https，或指向本機 (loopback) 的 http。
+ */
+public final class AuthEndpoints {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AuthEndpoints.class);
+    
+    public static final String DEVICE_CODE = "deviceCode";
+    public static final String TOKEN = "token";
+    public static final String XBOX_AUTH = "xboxAuth";
+    public static final String XSTS = "xsts";
+    public static final String MINECRAFT_LOGIN = "minecraftLogin";
+    public static final String MINECRAFT_PROFILE = "minecraftProfile";
+    
+    private final String deviceCodeUrl;
+    private final String tokenUrl;
+    private final String xboxAuthUrl;
+    private final String xstsUrl;
+    private final String minecraftLoginUrl;
+    private final String minecraftProfileUrl;
+    
+    public AuthEndpoints(String deviceCodeUrl, String tokenUrl, String xboxAuthUrl, String xstsUrl,
+                         String minecraftLoginUrl, String minecraftProfileUrl) {
+        this.deviceCodeUrl = deviceCodeUrl;
+        this.tokenUrl = tokenUrl;
+        this.xboxAuthUrl = xboxAuthUrl;
+        this.xstsUrl = xstsUrl;
+        this.minecraftLoginUrl = minecraftLoginUrl;
+        this.minecraftProfileUrl = minecraftProfileUrl;
+    }
+    
+    public static AuthEndpoints defaults() {
+        return new AuthEndpoints(
+                "https://login.microsoftonline.com/common/oauth2/v2.0/devicecode",
+                "https://login.microsoftonline.com/common/oauth2/v2.0/token",
+                "https://user.auth.xboxlive.com/user/authenticate",
+                "https://xsts.auth.xboxlive.com/xsts/authorize",
+                "https://api.minecraftservices.com/authentication/login_with_xbox",
+                "https://api.minecraftservices.com/minecraft/profile");
+    }
+    
+    /**
+     * 依配置 (auth.baseUrl、auth.endpoints) 調整預設端點
+     * 不安全的位址會被忽略並保留預設端點；使用非預設端點時記錄警告
+     */
+    public static AuthEndpoints fromConfig(LauncherConfig config) {
+        AuthEndpoints endpoints = defaults();
+        String baseUrl = config.getAuthBaseUrl();
+        if (baseUrl != null && !baseUrl.isBlank()) {
+            if (isAllowedOverride(baseUrl)) {
+                logger.warn("認證端點已改到 {} (auth.baseUrl)", baseUrl);
+                endpoints = endpoints.rebase(baseUrl);
+            } else {
+                logger.warn("忽略不安全的 auth.baseUrl (只接受 https 或本機 http): {}", baseUrl);
+            }
+        }
+        
+        Map<String, String> overrides = new LinkedHashMap<>();
+        if (config.getAuthEndpoints() != null) {
+            config.getAuthEndpoints().forEach((name, url) -> {
+                if (isAllowedOverride(url)) {
+                    logger.warn("認證端點 {} 已覆寫為 {}", name, url);
+                    overrides.put(name, url);
+                } else {
+                    logger.warn("忽略不安全的認證端點 {} (只接受 https 或本機 http): {}", name, url);
+                }
+            });
+        }
+        return endpoints.withOverrides(overrides);
+    }
+    
+    /**
+     * 覆寫位址是否可以接收令牌：https，或主機為本機的 http
+     */
+    static boolean isAllowedOverride(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url.trim());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "";
+        String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : null;
+        if (host == null || host.isEmpty()) {
+            return false;
+        }
+        if (scheme.equals("https")) {
+            return true;
+        }
+        return scheme.equals("http") && isLoopback(host);
+    }
+    
+    private static boolean isLoopback(String host) {
+        return host.equals("localhost") || host.endsWith(".localhost") || host.equals("[::1]")
+                || host.matches("127(\\.\\d{1,3}){3}");
+    }
+    
+    /**
+     * 把所有端點的協議與主機換成 baseUrl，路徑不變
+     */
+    public AuthEndpoints rebase(String baseUrl) {
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        return new AuthEndpoints(
+                base + URI.create(deviceCodeUrl).getRawPath(),
+                base + URI.create(tokenUrl).getRawPath(),
+                base + URI.create(xboxAuthUrl).getRawPath(),
+                base + URI.create(xstsUrl).getRawPath(),
+                base + URI.create(minecraftLoginUrl).getRawPath(),
+                base + URI.create(minecraftProfileUrl).getRawPath());
+    }
+    
+    public AuthEndpoints withOverrides(Map<String, String> overrides) {
+        if (overrides == null || overrides.isEmpty()) {
+            return this;
+        }
+        return new AuthEndpoints(
+                overrides.getOrDefault(DEVICE_CODE, deviceCodeUrl),
+                overrides.getOrDefault(TOKEN, tokenUrl),
+                overrides.getOrDefault(XBOX_AUTH, xboxAuthUrl),
+                overrides.getOrDefault(XSTS, xstsUrl),
+                overrides.getOrDefault(MINECRAFT_LOGIN, minecraftLoginUrl),
+                overrides.getOrDefault(MINECRAFT_PROFILE, minecraftProfileUrl));
+    }
+    
+    public String getDeviceCodeUrl() {
+        return deviceCodeUrl;
+    }
+    
+    public String getTokenUrl() {
+        return tokenUrl;
+    }
+    
+    public String getXboxAuthUrl() {
+        return xboxAuthUrl;
+    }
+    
+    public String getXstsUrl() {
+        return xstsUrl;
+    }
+    
+    public String getMinecraftLoginUrl() {
+        return minecraftLoginUrl;
+    }
+    
+    public String getMinecraftProfileUrl() {
+        return minecraftProfileUrl;
+    }
+}
@@ -0,0 +1,285 @@
+package com.mcserver.launcher.auth;
+
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 認證鏈使用的 HTTP 客戶端
+ * 每個步驟 ({@link Hop}) 有各自的回應逾時；連線錯誤、408、429 與 5xx 以帶抖動的指數退避重試，
+ * 所有步驟共用一個重試預算，Xbox 服務尖峰時多個帳號同時刷新也不會把請求量放大數倍。
+ * 每個步驟記錄請求次數、重試次數與耗時。
+ */
+public class AuthHttpClient implements Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AuthHttpClient.class);
+    
+    private static final Timeout CONNECT_TIMEOUT = Timeout.ofSeconds(5);
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF_MILLIS = 500;
+    private static final long MAX_RETRY_AFTER_MILLIS = 10_000;
+    // 重試預算：每分鐘至少允許 MIN_RETRIES_PER_WINDOW 次重試，請求量大時最多為請求數的 RETRY_RATIO
+    private static final int MIN_RETRIES_PER_WINDOW = 10;
+    private static final double RETRY_RATIO = 0.2;
+    private static final long WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    
+    /**
+     * 認證鏈中的步驟與各自的回應逾時 (秒)
+     */
+    public enum Hop {
+        DEVICE_CODE("Device Code", 10),
+        MICROSOFT_TOKEN("Microsoft 令牌", 15),
+        XBOX_LIVE("Xbox Live", 10),
+        XSTS("XSTS", 10),
+        MINECRAFT_LOGIN("Minecraft 登入", 20),
+        MINECRAFT_PROFILE("Minecraft 用戶資料", 10);
+        
+        private final String displayName;
+        private final int timeoutSeconds;
+        
+        Hop(String displayName, int timeoutSeconds) {
+            this.displayName = displayName;
+            this.timeoutSeconds = timeoutSeconds;
+        }
+        
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+    
+    private final CloseableHttpClient httpClient;
+    private final Map<Hop, HopStats> stats = new EnumMap<>(Hop.class);
+    
+    private long windowStart = System.currentTimeMillis();
+    private int windowRequests;
+    private int windowRetries;
+    
+    public AuthHttpClient(int maxConnectionsPerRoute) {
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnPerRoute(maxConnectionsPerRoute)
+                        .setMaxConnTotal(maxConnectionsPerRoute * 4)
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(CONNECT_TIMEOUT)
+                                .build())
+                        .build())
+                // 重試由本類控制，關閉客戶端內建的重試以免疊加
+                .disableAutomaticRetries()
+                .build();
+        for (Hop hop : Hop.values()) {
+            stats.put(hop, new HopStats());
+        }
+    }
+    
+    /**
+     * 執行請求，可重試的失敗在預算內重試；其他狀態碼原樣返回，由調用者解析錯誤內容
+     */
+    public Response execute(Hop hop, HttpUriRequestBase request) throws IOException {
+        request.setConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofSeconds(hop.timeoutSeconds))
+                .setResponseTimeout(Timeout.ofSeconds(hop.timeoutSeconds))
+                .build());
+        HopStats hopStats = stats.get(hop);
+        
+        for (int attempt = 1; ; attempt++) {
+            recordRequest();
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = httpClient.execute(request, r -> new Response(r.getCode(),
+                        r.getEntity() != null ? EntityUtils.toString(r.getEntity(), StandardCharsets.UTF_8) : "",
+                        r.getFirstHeader("Retry-After")));
+            } catch (IOException e) {
+                hopStats.record(System.nanoTime() - start, false);
+                if (attempt >= MAX_ATTEMPTS || e instanceof InterruptedIOException && Thread.currentThread().isInterrupted()
+                        || !tryAcquireRetry()) {
+                    throw e;
+                }
+                backoff(hop, attempt, -1, e.getMessage());
+                hopStats.recordRetry();
+                continue;
+            }
+            
+            long elapsed = System.nanoTime() - start;
+            boolean retryable = response.status == 408 || response.status == 429 || response.status >= 500;
+            hopStats.record(elapsed, !retryable);
+            logger.debug("{}: HTTP {} ({} ms, 第 {} 次)", hop.displayName, response.status,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), attempt);
+            if (!retryable || attempt >= MAX_ATTEMPTS || !tryAcquireRetry()) {
+                return response;
+            }
+            backoff(hop, attempt, response.retryAfterMillis(), "HTTP " + response.status);
+            hopStats.recordRetry();
+        }
+    }
+    
+    private void backoff(Hop hop, int attempt, long retryAfterMillis, String reason) throws IOException {
+        // 完全抖動：在 [0, 基數 * 2^(n-1)] 中隨機等待，避免多個刷新同時重試
+        long ceiling = BASE_BACKOFF_MILLIS << (attempt - 1);
+        long delay = retryAfterMillis >= 0
+                ? Math.min(retryAfterMillis, MAX_RETRY_AFTER_MILLIS)
+                : ThreadLocalRandom.current().nextLong(ceiling + 1);
+        logger.warn("{} 請求失敗 ({})，{} 毫秒後重試", hop.displayName, reason, delay);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("認證請求被中斷");
+        }
+    }
+    
+    private synchronized void recordRequest() {
+        rollWindow();
+        windowRequests++;
+    }
+    
+    private synchronized boolean tryAcquireRetry() {
+        rollWindow();
+        int allowed = Math.max(MIN_RETRIES_PER_WINDOW, (int) (windowRequests * RETRY_RATIO));
+        if (windowRetries >= allowed) {
+            logger.warn("認證重試預算已用盡 ({} 次 / 分鐘)，不再重試", windowRetries);
+            return false;
+        }
+        windowRetries++;
+        return true;
+    }
+    
+    private void rollWindow() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= WINDOW_MILLIS) {
+            windowStart = now;
+            windowRequests = 0;
+            windowRetries = 0;
+        }
+    }
+    
+    /**
+     * 各步驟的耗時統計
+     */
+    public Map<Hop, HopStats> getStats() {
+        return stats;
+    }
+    
+    /**
+     * 單行摘要，例如 "Xbox Live 2 次 平均 120 ms 最大 150 ms"
+     */
+    public String summary() {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (Map.Entry<Hop, HopStats> entry : stats.entrySet()) {
+            HopStats hop = entry.getValue();
+            if (hop.getCount() > 0) {
+                joiner.add(String.format("%s %d 次 平均 %d ms 最大 %d ms%s", entry.getKey().displayName,
+                        hop.getCount(), hop.getAverageMillis(), hop.getMaxMillis(),
+                        hop.getRetries() > 0 ? " 重試 " + hop.getRetries() + " 次" : ""));
+            }
+        }
+        return joiner.toString();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+    
+    /**
+     * 請求結果
+     */
+    public static final class Response {
+        private final int status;
+        private final String body;
+        private final Header retryAfter;
+        
+        private Response(int status, String body, Header retryAfter) {
+            this.status = status;
+            this.body = body;
+            this.retryAfter = retryAfter;
+        }
+        
+        public int getStatus() {
+            return status;
+        }
+        
+        public String getBody() {
+            return body;
+        }
+        
+        private long retryAfterMillis() {
+            if (retryAfter == null) {
+                return -1;
+            }
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.getValue().trim()));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+    
+    /**
+     * 單個步驟的統計 (每次嘗試各計一次)
+     */
+    public static final class HopStats {
+        private long count;
+        private long failures;
+        private long retries;
+        private long totalNanos;
+        private long maxNanos;
+        private long lastNanos;
+        
+        private synchronized void record(long nanos, boolean success) {
+            count++;
+            if (!success) {
+                failures++;
+            }
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            lastNanos = nanos;
+        }
+        
+        private synchronized void recordRetry() {
+            retries++;
+        }
+        
+        public synchronized long getCount() {
+            return count;
+        }
+        
+        public synchronized long getFailures() {
+            return failures;
+        }
+        
+        public synchronized long getRetries() {
+            return retries;
+        }
+        
+        public synchronized long getAverageMillis() {
+            return count > 0 ? TimeUnit.NANOSECONDS.toMillis(totalNanos / count) : 0;
+        }
+        
+        public synchronized long getMaxMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos);
+        }
+        
+        public synchronized long getLastMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(lastNanos);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.mcserver.launcher.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 認證鏈中每一層的令牌與各自的到期時間
+ * Microsoft (約 1 小時) -> Xbox Live (約 14 天) -> XSTS (約 16 小時) -> Minecraft (24 小時)
+ * 刷新時從第一個即將到期的層開始，只重做之後的步驟；Minecraft 令牌仍有效時不需要任何請求。
+ */
+public final class AuthTokens {
+    
+    private final String microsoftRefreshToken;
+    private final Token microsoftAccess;
+    private final Token xbox;
+    private final Token xsts;
+    private final String userHash;
+    // Minecraft 令牌與用戶資料 (expiresAt 即 Minecraft 令牌的到期時間)
+    private final UserProfile profile;
+    
+    public AuthTokens(String microsoftRefreshToken, Token microsoftAccess, Token xbox, Token xsts,
+                      String userHash, UserProfile profile) {
+        this.microsoftRefreshToken = microsoftRefreshToken;
+        this.microsoftAccess = microsoftAccess;
+        this.xbox = xbox;
+        this.xsts = xsts;
+        this.userHash = userHash;
+        this.profile = profile;
+    }
+    
+    public String getMicrosoftRefreshToken() {
+        return microsoftRefreshToken;
+    }
+    
+    public Token getMicrosoftAccess() {
+        return microsoftAccess;
+    }
+    
+    public Token getXbox() {
+        return xbox;
+    }
+    
+    public Token getXsts() {
+        return xsts;
+    }
+    
+    public String getUserHash() {
+        return userHash;
+    }
+    
+    public UserProfile getProfile() {
+        return profile;
+    }
+    
+    /**
+     * Minecraft 令牌在 margin 之後是否仍有效
+     */
+    public boolean isMinecraftTokenValid(Duration margin) {
+        return profile != null && profile.getAccessToken() != null && !profile.getAccessToken().isEmpty()
+                && profile.getExpiresAt() != null && Instant.now().plus(margin).isBefore(profile.getExpiresAt());
+    }
+    
+    /**
+     * Minecraft 令牌應刷新的時間 (到期前 margin)，沒有令牌時為現在
+     */
+    public Instant refreshDueAt(Duration margin) {
+        if (profile == null || profile.getExpiresAt() == null) {
+            return Instant.now();
+        }
+        return profile.getExpiresAt().minus(margin);
+    }
+    
+    public String toJson(ObjectMapper objectMapper) throws IOException {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("microsoftRefreshToken", microsoftRefreshToken);
+        putToken(data, "microsoftAccess", microsoftAccess);
+        putToken(data, "xbox", xbox);
+        putToken(data, "xsts", xsts);
+        data.put("userHash", userHash);
+        if (profile != null) {
+            Map<String, Object> minecraft = new LinkedHashMap<>();
+            minecraft.put("username", profile.getUsername());
+            minecraft.put("uuid", profile.getUuid());
+            minecraft.put("accessToken", profile.getAccessToken());
+            minecraft.put("expiresAt", profile.getExpiresAt() != null ? profile.getExpiresAt().toString() : null);
+            minecraft.put("skinUrl", profile.getSkinUrl());
+            minecraft.put("capeUrl", profile.getCapeUrl());
+            data.put("minecraft", minecraft);
+        }
+        return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(data);
+    }
+    
+    public static AuthTokens fromJson(JsonNode root) {
+        UserProfile profile = null;
+        JsonNode minecraft = root.path("minecraft");
+        if (minecraft.hasNonNull("username")) {
+            profile = new UserProfile(
+                    minecraft.get("username").asText(),
+                    minecraft.path("uuid").asText(null),
+                    minecraft.path("accessToken").asText(null),
+                    root.path("microsoftRefreshToken").asText(null),
+                    parseInstant(minecraft.path("expiresAt").asText(null)),
+                    null,
+                    minecraft.path("skinUrl").asText(null),
+                    minecraft.path("capeUrl").asText(null));
+        }
+        return new AuthTokens(
+                root.path("microsoftRefreshToken").asText(null),
+                readToken(root.path("microsoftAccess")),
+                readToken(root.path("xbox")),
+                readToken(root.path("xsts")),
+                root.path("userHash").asText(null),
+                profile);
+    }
+    
+    private static void putToken(Map<String, Object> data, String name, Token token) {
+        if (token != null) {
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("value", token.value);
+            node.put("expiresAt", token.expiresAt.toString());
+            data.put(name, node);
+        }
+    }
+    
+    private static Token readToken(JsonNode node) {
+        Instant expiresAt = parseInstant(node.path("expiresAt").asText(null));
+        return node.hasNonNull("value") && expiresAt != null ? new Token(node.get("value").asText(), expiresAt) : null;
+    }
+    
+    static Instant parseInstant(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        try {
+            return Instant.parse(text);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * 帶到期時間的令牌
+     */
+    public static final class Token {
+        private final String value;
+        private final Instant expiresAt;
+        
+        public Token(String value, Instant expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+        
+        public String getValue() {
+            return value;
+        }
+        
+        public Instant getExpiresAt() {
+            return expiresAt;
+        }
+        
+        /**
+         * 在 margin 之後是否仍有效
+         */
+        public boolean isValidFor(Duration margin) {
+            return Instant.now().plus(margin).isBefore(expiresAt);
+        }
+    }
+}
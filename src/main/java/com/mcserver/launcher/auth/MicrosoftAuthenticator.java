@@ -5,8 +5,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mcserver.launcher.config.LauncherConfig;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.NameValuePair;
 import org.apache.hc.core5.http.io.entity.StringEntity;
@@ -30,78 +28,276 @@ import javafx.geometry.Insets;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * 微軟帳號認證處理器
  * 實現 Device Code Flow 流程和 Minecraft 服務認證
+ * 支援多個帳號，每個帳號認證鏈中各層的令牌連同到期時間保存在加密的帳號庫 (見 {@link AccountStore})，
+ * 仍有效的層直接重用；排程器在各帳號的 Minecraft 令牌到期前於背景刷新，啟動遊戲與切換帳號時不需要等待認證。
  */
 public class MicrosoftAuthenticator {
     
     private static final Logger logger = LoggerFactory.getLogger(MicrosoftAuthenticator.class);
     
-    // Microsoft Device Code Flow 端點
-    private static final String DEVICE_CODE_URL = "https://login.microsoftonline.com/common/oauth2/v2.0/devicecode";
-    private static final String MICROSOFT_TOKEN_URL = "https://login.microsoftonline.com/common/oauth2/v2.0/token";
-    
-    // Xbox Live 認證端點
-    private static final String XBOX_AUTH_URL = "https://user.auth.xboxlive.com/user/authenticate";
-    private static final String XBOX_XSTS_URL = "https://xsts.auth.xboxlive.com/xsts/authorize";
-    
-    // Minecraft 服務端點
-    private static final String MINECRAFT_AUTH_URL = "https://api.minecraftservices.com/authentication/login_with_xbox";
-    private static final String MINECRAFT_PROFILE_URL = "https://api.minecraftservices.com/minecraft/profile";
-    
     // 應用程序配置
     private static final String CLIENT_ID = "031fb156-0927-4ff1-9e7e-0c5de9bfa474";
     // Modified Scope: Simplified to core Minecraft permissions to avoid conflict
     private static final String SCOPE = "XboxLive.Signin offline_access";
     
+    // Minecraft 令牌在到期前多久於背景刷新
+    private static final Duration REFRESH_MARGIN = Duration.ofMinutes(10);
+    // 上游令牌剩餘時間不足此值時不再重用
+    private static final Duration HOP_MARGIN = Duration.ofMinutes(5);
+    // 背景刷新失敗 (例如離線) 後的重試間隔
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(2);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(30);
+    
+    // 啟動時同時刷新的帳號數
+    private static final int REFRESH_CONCURRENCY = 4;
+    
     private final LauncherConfig config;
     private final ObjectMapper objectMapper;
-    private final CloseableHttpClient httpClient;
+    private final AuthHttpClient http;
+    // 各步驟的端點 (可在配置中改到本地樁服務)
+    private final AuthEndpoints endpoints;
+    private final AccountStore accounts;
+    // 每個帳號一把鎖：同一帳號的刷新不會重疊，不同帳號可以並行，UI 執行緒不會被刷新阻塞
+    private final Map<String, Object> refreshLocks = new ConcurrentHashMap<>();
     
-    private MinecraftSession currentSession;
+    private ScheduledExecutorService refreshScheduler;
+    private final Map<String, ScheduledFuture<?>> scheduledRefreshes = new HashMap<>();
+    private final Map<String, Integer> failedRefreshes = new HashMap<>();
+    // Refresh Token 已失效、需要重新登入的帳號 (保留在帳號庫中，由用戶決定重新登入或移除)
+    private final Set<String> revokedAccounts = ConcurrentHashMap.newKeySet();
+    private Consumer<MinecraftSession> onRefreshed;
+    private BiConsumer<MinecraftSession, Exception> onRevoked;
     
     public MicrosoftAuthenticator(LauncherConfig config) {
+        this(config, AuthEndpoints.fromConfig(config));
+    }
+    
+    public MicrosoftAuthenticator(LauncherConfig config, AuthEndpoints endpoints) {
         this.config = config;
         this.objectMapper = new ObjectMapper();
-        this.httpClient = HttpClients.createDefault();
-        
-        // 嘗試從配置恢復會話
+        this.http = new AuthHttpClient(REFRESH_CONCURRENCY);
+        this.endpoints = endpoints;
+        Path authDirectory = Paths.get(config.getLauncherDirectory(), "auth");
+        this.accounts = new AccountStore(authDirectory);
+        
+        try {
+            accounts.load();
+            migrateLegacySession(authDirectory.resolve("tokens.json"));
+        } catch (IOException e) {
+            logger.warn("無法讀取帳號庫，需要重新登入", e);
+        }
+        for (AuthTokens account : accounts.getAccounts()) {
+            logger.info("已恢復保存的帳號: {} (令牌{})", account.getProfile().getUsername(),
+                    account.isMinecraftTokenValid(HOP_MARGIN) ? "有效" : "需要刷新");
+        }
+    }
+    
+    /**
+     * 把舊版的單一會話 (明文令牌緩存或配置中的 Refresh Token) 匯入帳號庫，然後刪除明文
+     */
+    private void migrateLegacySession(Path legacyTokenFile) throws IOException {
+        AuthTokens legacy = null;
+        if (Files.isRegularFile(legacyTokenFile)) {
+            legacy = AuthTokens.fromJson(objectMapper.readTree(legacyTokenFile.toFile()));
+        } else if (config.hasValidSession()) {
+            // 首次刷新時補齊各層令牌
+            legacy = new AuthTokens(config.getSessionRefreshToken(), null, null, null, null,
+                    new UserProfile(config.getSessionUsername(), config.getSessionUuid(),
+                            config.getSessionAccessToken(), config.getSessionRefreshToken(), null));
+        }
+        if (legacy != null && legacy.getProfile() != null && legacy.getProfile().getUuid() != null
+                && legacy.getMicrosoftRefreshToken() != null && accounts.get(legacy.getProfile().getUuid()) == null) {
+            accounts.put(legacy);
+            logger.info("已把帳號 {} 遷移到加密的帳號庫", legacy.getProfile().getUsername());
+        }
+        Files.deleteIfExists(legacyTokenFile);
         if (config.hasValidSession()) {
-            this.currentSession = new MinecraftSession(
-                config.getSessionUsername(),
-                config.getSessionUuid(),
-                config.getSessionAccessToken(),
-                config.getSessionRefreshToken()
-            );
-            logger.info("已恢復保存的會話: {}", currentSession.getUsername());
+            config.clearSession();
         }
     }
     
     /**
-     * 嘗試自動登入 (刷新 Token)
+     * 嘗試自動登入 (刷新目前帳號的 Token)
+     * Minecraft 令牌仍有效時直接返回，不發送任何請求；否則從第一個即將到期的層開始重做認證鏈
      */
     public String refreshAndAuthenticate() throws Exception {
-        if (!config.hasValidSession()) {
+        String id = accounts.getActiveId();
+        if (id == null) {
             throw new Exception("沒有保存的會話");
         }
-        
-        logger.info("嘗試使用 Refresh Token 自動登入...");
-        String refreshToken = config.getSessionRefreshToken();
-        
-        // 1. 使用 Refresh Token 獲取新的 Microsoft Access Token
-        TokenResponse tokenResponse = refreshMicrosoftToken(refreshToken);
-        
-        // 2. 繼續標準認證流程
-        return completeAuthenticationFlow(tokenResponse);
+        return refreshAccount(id).getProfile().getUsername();
+    }
+    
+    private AuthTokens refreshAccount(String id) throws Exception {
+        synchronized (refreshLocks.computeIfAbsent(id, key -> new Object())) {
+            AuthTokens current = accounts.get(id);
+            if (current == null) {
+                throw new Exception("帳號已移除");
+            }
+            if (current.isMinecraftTokenValid(REFRESH_MARGIN)) {
+                return current;
+            }
+            
+            logger.info("{} 的 Minecraft 令牌即將到期，正在刷新...", current.getProfile().getUsername());
+            try {
+                return completeAuthenticationFlow(current, false);
+            } catch (SessionRevokedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (current.getMicrosoftAccess() == null && current.getXbox() == null && current.getXsts() == null) {
+                    throw e;
+                }
+                // 緩存的上游令牌可能已被提前撤銷，改用 Refresh Token 重做整條認證鏈
+                logger.debug("使用緩存令牌刷新失敗，重做完整認證鏈", e);
+                return completeAuthenticationFlow(new AuthTokens(current.getMicrosoftRefreshToken(),
+                        null, null, null, null, current.getProfile()), false);
+            }
+        }
+    }
+    
+    /**
+     * 目前帳號的 Minecraft 令牌是否仍可用於啟動遊戲
+     */
+    public boolean hasValidToken() {
+        AuthTokens current = accounts.getActive();
+        return current != null && current.getProfile().getExpiresAt() != null && !current.getProfile().isExpiringSoon();
+    }
+    
+    /**
+     * 所有已保存的帳號 (按加入順序)
+     */
+    public List<MinecraftSession> getAccounts() {
+        List<MinecraftSession> sessions = new ArrayList<>();
+        for (AuthTokens account : accounts.getAccounts()) {
+            sessions.add(toSession(account));
+        }
+        return sessions;
+    }
+    
+    /**
+     * 切換目前帳號，不發送任何請求；令牌已過期時 (例如長時間離線) 立即在背景刷新
+     */
+    public MinecraftSession switchAccount(String uuid) throws IOException {
+        accounts.setActive(uuid);
+        AuthTokens account = accounts.get(uuid);
+        logger.info("已切換到帳號: {}", account.getProfile().getUsername());
+        if (!account.isMinecraftTokenValid(REFRESH_MARGIN)) {
+            scheduleRefresh(uuid);
+        }
+        return toSession(account);
+    }
+    
+    /**
+     * 啟動背景刷新排程：每個帳號在 Minecraft 令牌到期前刷新，刷新後安排下一次。
+     * 啟動時需要刷新的帳號會並行刷新，切換帳號時不需要等待網路。
+     * @param onRefreshed 目前帳號的令牌已刷新 (在排程執行緒上調用)
+     * @param onRevoked   某個帳號的 Refresh Token 已失效，帳號被標記為需要重新登入 (不會移除)；
+     *                    網路錯誤只會延後重試，不會觸發此回調
+     */
+    public synchronized void startRefreshScheduler(Consumer<MinecraftSession> onRefreshed,
+                                                   BiConsumer<MinecraftSession, Exception> onRevoked) {
+        this.onRefreshed = onRefreshed;
+        this.onRevoked = onRevoked;
+        if (refreshScheduler == null) {
+            AtomicInteger threadCounter = new AtomicInteger();
+            refreshScheduler = Executors.newScheduledThreadPool(REFRESH_CONCURRENCY, r -> {
+                Thread thread = new Thread(r, "auth-refresh-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+        failedRefreshes.clear();
+        for (AuthTokens account : accounts.getAccounts()) {
+            scheduleRefresh(account.getProfile().getUuid());
+        }
+    }
+    
+    private synchronized void scheduleRefresh(String id) {
+        AuthTokens current = accounts.get(id);
+        // 已失效的帳號再刷新也只會得到 invalid_grant
+        if (refreshScheduler == null || current == null || revokedAccounts.contains(id)) {
+            return;
+        }
+        ScheduledFuture<?> previous = scheduledRefreshes.remove(id);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        long delay = Math.max(0, Duration.between(Instant.now(), current.refreshDueAt(REFRESH_MARGIN)).toMillis());
+        int failures = failedRefreshes.getOrDefault(id, 0);
+        if (failures > 0) {
+            Duration retry = RETRY_DELAY.multipliedBy(1L << Math.min(failures - 1, 4));
+            delay = Math.max(delay, Math.min(retry.toMillis(), MAX_RETRY_DELAY.toMillis()));
+        }
+        logger.debug("{} 的登入令牌將在 {} 秒後刷新", current.getProfile().getUsername(), delay / 1000);
+        scheduledRefreshes.put(id, refreshScheduler.schedule(() -> runScheduledRefresh(id), delay, TimeUnit.MILLISECONDS));
+    }
+    
+    private void runScheduledRefresh(String id) {
+        try {
+            AuthTokens refreshed = refreshAccount(id);
+            synchronized (this) {
+                failedRefreshes.remove(id);
+            }
+            if (id.equals(accounts.getActiveId()) && onRefreshed != null) {
+                onRefreshed.accept(toSession(refreshed));
+            }
+        } catch (SessionRevokedException e) {
+            AuthTokens account = accounts.get(id);
+            if (account == null) {
+                return;
+            }
+            logger.warn("{} 的登入已失效，需要重新登入: {}", account.getProfile().getUsername(), e.getMessage());
+            revokedAccounts.add(id);
+            synchronized (this) {
+                failedRefreshes.remove(id);
+            }
+            if (onRevoked != null) {
+                onRevoked.accept(toSession(account), e);
+            }
+            return;
+        } catch (Exception e) {
+            synchronized (this) {
+                failedRefreshes.merge(id, 1, Integer::sum);
+            }
+            logger.warn("背景刷新登入令牌失敗，稍後重試: {}", e.getMessage());
+        }
+        scheduleRefresh(id);
+    }
+    
+    private synchronized void cancelRefresh(String id) {
+        ScheduledFuture<?> scheduled = scheduledRefreshes.remove(id);
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        failedRefreshes.remove(id);
     }
 
     private TokenResponse refreshMicrosoftToken(String refreshToken) throws Exception {
-        HttpPost post = new HttpPost(MICROSOFT_TOKEN_URL);
+        HttpPost post = new HttpPost(endpoints.getTokenUrl());
         
         List<NameValuePair> params = new ArrayList<>();
         params.add(new BasicNameValuePair("client_id", CLIENT_ID));
@@ -111,18 +307,20 @@ public class MicrosoftAuthenticator {
         
         post.setEntity(new UrlEncodedFormEntity(params, StandardCharsets.UTF_8));
         
-        try (var response = httpClient.execute(post)) {
-            String responseBody = new String(response.getEntity().getContent().readAllBytes());
-            JsonNode json = objectMapper.readTree(responseBody);
-            
-            if (json.has("access_token") && json.has("refresh_token")) {
-                return new TokenResponse(
-                    json.get("access_token").asText(),
-                    json.get("refresh_token").asText()
-                );
-            } else {
-                throw new Exception("Token 刷新失敗: " + responseBody);
-            }
+        String responseBody = http.execute(AuthHttpClient.Hop.MICROSOFT_TOKEN, post).getBody();
+        JsonNode json = objectMapper.readTree(responseBody);
+        
+        if (json.has("access_token") && json.has("refresh_token")) {
+            return new TokenResponse(
+                json.get("access_token").asText(),
+                json.get("refresh_token").asText(),
+                json.path("expires_in").asLong(3600)
+            );
+        } else if ("invalid_grant".equals(json.path("error").asText())) {
+            // Refresh Token 已過期或被撤銷，只能重新登入
+            throw new SessionRevokedException("Refresh Token 已失效: " + json.path("error_description").asText());
+        } else {
+            throw new Exception("Token 刷新失敗: " + responseBody);
         }
     }
 
@@ -198,11 +396,16 @@ public class MicrosoftAuthenticator {
         logger.info("Microsoft Access Token 獲取成功");
         
         // 步驟 4-6: 完成 Xbox/Minecraft 認證鏈
-        return completeAuthenticationFlow(tokenResponse);
+        AuthTokens account = completeAuthenticationFlow(new AuthTokens(tokenResponse.refreshToken,
+                tokenResponse.toToken(), null, null, null, null), true);
+        String id = account.getProfile().getUuid();
+        accounts.setActive(id);
+        scheduleRefresh(id);
+        return account.getProfile().getUsername();
     }
     
     private DeviceCodeResponse requestDeviceCode() throws Exception {
-        HttpPost post = new HttpPost(DEVICE_CODE_URL);
+        HttpPost post = new HttpPost(endpoints.getDeviceCodeUrl());
         
         List<NameValuePair> params = new ArrayList<>();
         params.add(new BasicNameValuePair("client_id", CLIENT_ID));
@@ -210,32 +413,30 @@ public class MicrosoftAuthenticator {
         
         post.setEntity(new UrlEncodedFormEntity(params, StandardCharsets.UTF_8));
         
-        try (var response = httpClient.execute(post)) {
-            String responseBody = new String(response.getEntity().getContent().readAllBytes());
-            JsonNode json = objectMapper.readTree(responseBody);
-            
-            if (json.has("device_code") && json.has("user_code") && json.has("verification_uri")) {
-                return new DeviceCodeResponse(
-                    json.get("device_code").asText(),
-                    json.get("user_code").asText(),
-                    json.get("verification_uri").asText(),
-                    json.get("expires_in").asInt(),
-                    json.get("interval").asInt()
-                );
-            } else {
-                throw new Exception("無法獲取 Device Code: " + responseBody);
-            }
+        String responseBody = http.execute(AuthHttpClient.Hop.DEVICE_CODE, post).getBody();
+        JsonNode json = objectMapper.readTree(responseBody);
+        
+        if (json.has("device_code") && json.has("user_code") && json.has("verification_uri")) {
+            return new DeviceCodeResponse(
+                json.get("device_code").asText(),
+                json.get("user_code").asText(),
+                json.get("verification_uri").asText(),
+                json.get("expires_in").asInt(),
+                json.get("interval").asInt()
+            );
+        } else {
+            throw new Exception("無法獲取 Device Code: " + responseBody);
         }
     }
     
-    private TokenResponse pollForToken(DeviceCodeResponse deviceCode) throws Exception {
+    TokenResponse pollForToken(DeviceCodeResponse deviceCode) throws Exception {
         long expireTime = System.currentTimeMillis() + (deviceCode.expiresIn * 1000L);
         int interval = deviceCode.interval; // seconds
         
         while (System.currentTimeMillis() < expireTime) {
             Thread.sleep(interval * 1000L);
             
-            HttpPost post = new HttpPost(MICROSOFT_TOKEN_URL);
+            HttpPost post = new HttpPost(endpoints.getTokenUrl());
             List<NameValuePair> params = new ArrayList<>();
             params.add(new BasicNameValuePair("grant_type", "urn:ietf:params:oauth:grant-type:device_code"));
             params.add(new BasicNameValuePair("client_id", CLIENT_ID));
@@ -244,68 +445,109 @@ public class MicrosoftAuthenticator {
             
             post.setEntity(new UrlEncodedFormEntity(params, StandardCharsets.UTF_8));
             
-            try (var response = httpClient.execute(post)) {
-                String responseBody = new String(response.getEntity().getContent().readAllBytes());
-                JsonNode json = objectMapper.readTree(responseBody);
-                
-                if (json.has("access_token")) {
-                    String refreshToken = json.has("refresh_token") ? json.get("refresh_token").asText() : "";
-                    return new TokenResponse(json.get("access_token").asText(), refreshToken);
-                } else if (json.has("error")) {
-                    String error = json.get("error").asText();
-                    if ("authorization_pending".equals(error)) {
-                        // Continue polling
-                        continue;
-                    } else if ("slow_down".equals(error)) {
-                        // Increase interval
-                        interval += 5;
-                        continue;
-                    } else {
-                        throw new Exception("Token 輪詢錯誤: " + error);
-                    }
+            JsonNode json;
+            try {
+                json = objectMapper.readTree(http.execute(AuthHttpClient.Hop.MICROSOFT_TOKEN, post).getBody());
+            } catch (IOException e) {
+                // 網路中斷或服務暫時不可用：用戶可能仍在瀏覽器中登入，繼續輪詢直到 Device Code 過期
+                logger.warn("輪詢登入狀態失敗，稍後重試: {}", e.getMessage());
+                continue;
+            }
+            
+            if (json.has("access_token")) {
+                String refreshToken = json.has("refresh_token") ? json.get("refresh_token").asText() : "";
+                return new TokenResponse(json.get("access_token").asText(), refreshToken,
+                        json.path("expires_in").asLong(3600));
+            } else if (json.has("error")) {
+                String error = json.get("error").asText();
+                if ("authorization_pending".equals(error)) {
+                    // Continue polling
+                    continue;
+                } else if ("slow_down".equals(error)) {
+                    // RFC 8628: 之後的每次輪詢都增加 5 秒間隔
+                    interval += 5;
+                    logger.info("登入服務要求降低輪詢頻率，間隔調整為 {} 秒", interval);
+                    continue;
+                } else if ("authorization_declined".equals(error)) {
+                    throw new Exception("用戶拒絕了登入授權");
+                } else if ("expired_token".equals(error)) {
+                    break;
+                } else {
+                    throw new Exception("Token 輪詢錯誤: " + error);
                 }
             }
         }
         throw new Exception("登入超時，請重試");
     }
     
-    private String completeAuthenticationFlow(TokenResponse microsoftTokens) throws Exception {
-        // 步驟 3: 使用 Microsoft 令牌進行 Xbox Live 認證
-        logger.info("正在進行 Xbox Live 認證...");
-        String xboxToken = authenticateWithXboxLive(microsoftTokens.accessToken);
-        logger.info("步驟 3/5: Xbox Live 認證成功 (XBL Token Acquired)");
-        
-        // 步驟 4: 獲取 XSTS 令牌
-        logger.info("正在獲取 XSTS 安全憑證...");
-        XSTSResponse xstsResponse = getXSTSToken(xboxToken);
-        logger.info("步驟 4/5: XSTS 憑證獲取成功");
+    /**
+     * 完成認證鏈：仍有效的 Microsoft、Xbox Live、XSTS 令牌直接重用，只重做其後的步驟
+     * @param newAccount 新登入的帳號；刷新時帳號若已在此期間被移除則不再寫回
+     */
+    private AuthTokens completeAuthenticationFlow(AuthTokens start, boolean newAccount) throws Exception {
+        long startTime = System.nanoTime();
+        String refreshToken = start.getMicrosoftRefreshToken();
+        AuthTokens.Token microsoftAccess = start.getMicrosoftAccess();
+        AuthTokens.Token xbox = start.getXbox();
+        AuthTokens.Token xsts = start.getXsts();
+        String userHash = start.getUserHash();
+        
+        if (xsts == null || userHash == null || !xsts.isValidFor(HOP_MARGIN)) {
+            if (xbox == null || !xbox.isValidFor(HOP_MARGIN)) {
+                if (microsoftAccess == null || !microsoftAccess.isValidFor(HOP_MARGIN)) {
+                    TokenResponse tokenResponse = refreshMicrosoftToken(refreshToken);
+                    microsoftAccess = tokenResponse.toToken();
+                    refreshToken = tokenResponse.refreshToken;
+                    logger.info("步驟 2/5: Microsoft Access Token 已刷新");
+                }
+                
+                // 步驟 3: 使用 Microsoft 令牌進行 Xbox Live 認證
+                logger.info("正在進行 Xbox Live 認證...");
+                xbox = authenticateWithXboxLive(microsoftAccess.getValue());
+                logger.info("步驟 3/5: Xbox Live 認證成功 (XBL Token Acquired)");
+            }
+            
+            // 步驟 4: 獲取 XSTS 令牌
+            logger.info("正在獲取 XSTS 安全憑證...");
+            XSTSResponse xstsResponse = getXSTSToken(xbox.getValue());
+            xsts = new AuthTokens.Token(xstsResponse.token, xstsResponse.expiresAt);
+            userHash = xstsResponse.userHash;
+            logger.info("步驟 4/5: XSTS 憑證獲取成功");
+        }
         
         // 步驟 5: 使用 XSTS 令牌進行 Minecraft 認證
         logger.info("正在獲取 Minecraft Access Token...");
-        String minecraftToken = authenticateWithMinecraft(xstsResponse);
+        AuthTokens.Token minecraftToken = authenticateWithMinecraft(new XSTSResponse(xsts.getValue(), userHash, xsts.getExpiresAt()));
         logger.info("步驟 5/5: Minecraft Access Token 獲取成功 (這是啟動遊戲的關鍵鑰匙!)");
         
         // 步驟 6: 獲取 Minecraft 用戶資料
-        MinecraftProfile profile = getMinecraftProfile(minecraftToken);
+        MinecraftProfile profile = getMinecraftProfile(minecraftToken.getValue());
         logger.info("用戶資料獲取成功: {}", profile.name);
         
-        // 創建會話
-        currentSession = new MinecraftSession(
-            profile.name,
-            profile.id,
-            minecraftToken,
-            microsoftTokens.refreshToken // 保存 Refresh Token 以便下次自動登入
-        );
-        
-        // 保存會話到配置
-        config.saveSession(currentSession);
+        AuthTokens refreshed = new AuthTokens(refreshToken, microsoftAccess, xbox, xsts, userHash,
+                new UserProfile(profile.name, profile.id, minecraftToken.getValue(), refreshToken,
+                        minecraftToken.getExpiresAt(), null, profile.skinUrl, profile.capeUrl));
+        // 保存到加密的帳號庫
+        if (newAccount || accounts.get(profile.id) != null) {
+            accounts.put(refreshed);
+            revokedAccounts.remove(profile.id);
+        }
         
-        logger.info("=== 認證流程全部完成，已準備好啟動遊戲 ===");
-        return profile.name;
+        logger.info("=== 認證流程全部完成，已準備好啟動遊戲 (耗時 {} ms，令牌有效至 {}) ===",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), minecraftToken.getExpiresAt());
+        logger.debug("認證步驟耗時統計: {}", http.summary());
+        return refreshed;
     }
-
+    
+    private MinecraftSession toSession(AuthTokens tokens) {
+        UserProfile profile = tokens.getProfile();
+        return new MinecraftSession(profile.getUsername(), profile.getUuid(), profile.getAccessToken(),
+                tokens.getMicrosoftRefreshToken(), profile.getSkinUrl(), profile.getCapeUrl(),
+                revokedAccounts.contains(profile.getUuid()));
+    }
+    
     // 內部輔助類
-    private static class DeviceCodeResponse {
+    static class DeviceCodeResponse {
         final String deviceCode;
         final String userCode;
         final String verificationUri;
@@ -321,18 +563,24 @@ public class MicrosoftAuthenticator {
         }
     }
     
-    private static class TokenResponse {
+    static class TokenResponse {
         final String accessToken;
         final String refreshToken;
+        final long expiresIn;
         
-        TokenResponse(String accessToken, String refreshToken) {
+        TokenResponse(String accessToken, String refreshToken, long expiresIn) {
             this.accessToken = accessToken;
             this.refreshToken = refreshToken;
+            this.expiresIn = expiresIn;
+        }
+        
+        AuthTokens.Token toToken() {
+            return new AuthTokens.Token(accessToken, Instant.now().plusSeconds(expiresIn));
         }
     }
     
-    private String authenticateWithXboxLive(String microsoftToken) throws Exception {
-        HttpPost post = new HttpPost(XBOX_AUTH_URL);
+    private AuthTokens.Token authenticateWithXboxLive(String microsoftToken) throws Exception {
+        HttpPost post = new HttpPost(endpoints.getXboxAuthUrl());
         
         String requestBody = "{" +
                 "\"Properties\": {" +
@@ -346,20 +594,18 @@ public class MicrosoftAuthenticator {
         
         post.setEntity(new StringEntity(requestBody, ContentType.APPLICATION_JSON));
         
-        try (var response = httpClient.execute(post)) {
-            String responseBody = new String(response.getEntity().getContent().readAllBytes());
-            JsonNode json = objectMapper.readTree(responseBody);
-            
-            if (json.has("Token")) {
-                return json.get("Token").asText();
-            } else {
-                throw new Exception("Xbox Live 認證失敗: " + responseBody);
-            }
+        String responseBody = http.execute(AuthHttpClient.Hop.XBOX_LIVE, post).getBody();
+        JsonNode json = objectMapper.readTree(responseBody);
+        
+        if (json.has("Token")) {
+            return new AuthTokens.Token(json.get("Token").asText(), notAfter(json));
+        } else {
+            throw new Exception("Xbox Live 認證失敗: " + responseBody);
         }
     }
     
     private XSTSResponse getXSTSToken(String xboxToken) throws Exception {
-        HttpPost post = new HttpPost(XBOX_XSTS_URL);
+        HttpPost post = new HttpPost(endpoints.getXstsUrl());
         
         String requestBody = "{" +
                 "\"Properties\": {" +
@@ -372,22 +618,20 @@ public class MicrosoftAuthenticator {
         
         post.setEntity(new StringEntity(requestBody, ContentType.APPLICATION_JSON));
         
-        try (var response = httpClient.execute(post)) {
-            String responseBody = new String(response.getEntity().getContent().readAllBytes());
-            JsonNode json = objectMapper.readTree(responseBody);
-            
-            if (json.has("Token") && json.has("DisplayClaims")) {
-                String token = json.get("Token").asText();
-                String userHash = json.get("DisplayClaims").get("xui").get(0).get("uhs").asText();
-                return new XSTSResponse(token, userHash);
-            } else {
-                throw new Exception("XSTS 認證失敗: " + responseBody);
-            }
+        String responseBody = http.execute(AuthHttpClient.Hop.XSTS, post).getBody();
+        JsonNode json = objectMapper.readTree(responseBody);
+        
+        if (json.has("Token") && json.has("DisplayClaims")) {
+            String token = json.get("Token").asText();
+            String userHash = json.get("DisplayClaims").get("xui").get(0).get("uhs").asText();
+            return new XSTSResponse(token, userHash, notAfter(json));
+        } else {
+            throw new Exception("XSTS 認證失敗: " + responseBody);
         }
     }
     
-    private String authenticateWithMinecraft(XSTSResponse xstsResponse) throws Exception {
-        HttpPost post = new HttpPost(MINECRAFT_AUTH_URL);
+    private AuthTokens.Token authenticateWithMinecraft(XSTSResponse xstsResponse) throws Exception {
+        HttpPost post = new HttpPost(endpoints.getMinecraftLoginUrl());
         
         String requestBody = "{" +
                 "\"identityToken\": \"XBL3.0 x=" + xstsResponse.userHash + ";" + xstsResponse.token + "\"" +
@@ -395,69 +639,129 @@ public class MicrosoftAuthenticator {
         
         post.setEntity(new StringEntity(requestBody, ContentType.APPLICATION_JSON));
         
-        try (var response = httpClient.execute(post)) {
-            String responseBody = new String(response.getEntity().getContent().readAllBytes());
-            JsonNode json = objectMapper.readTree(responseBody);
-            
-            if (json.has("access_token")) {
-                return json.get("access_token").asText();
-            } else {
-                throw new Exception("Minecraft 認證失敗: " + responseBody);
-            }
+        String responseBody = http.execute(AuthHttpClient.Hop.MINECRAFT_LOGIN, post).getBody();
+        JsonNode json = objectMapper.readTree(responseBody);
+        
+        if (json.has("access_token")) {
+            return new AuthTokens.Token(json.get("access_token").asText(),
+                    Instant.now().plusSeconds(json.path("expires_in").asLong(86400)));
+        } else {
+            throw new Exception("Minecraft 認證失敗: " + responseBody);
         }
     }
     
+    /**
+     * Xbox Live 與 XSTS 令牌的到期時間 (NotAfter)，缺少時保守地視為一小時
+     */
+    private static Instant notAfter(JsonNode json) {
+        Instant expiresAt = AuthTokens.parseInstant(json.path("NotAfter").asText(null));
+        return expiresAt != null ? expiresAt : Instant.now().plus(Duration.ofHours(1));
+    }
+    
     private MinecraftProfile getMinecraftProfile(String minecraftToken) throws Exception {
-        HttpGet get = new HttpGet(MINECRAFT_PROFILE_URL);
+        HttpGet get = new HttpGet(endpoints.getMinecraftProfileUrl());
         get.setHeader("Authorization", "Bearer " + minecraftToken);
         
-        try (var response = httpClient.execute(get)) {
-            String responseBody = new String(response.getEntity().getContent().readAllBytes());
-            JsonNode json = objectMapper.readTree(responseBody);
-            
-            if (json.has("name") && json.has("id")) {
-                return new MinecraftProfile(
-                    json.get("name").asText(),
-                    json.get("id").asText()
-                );
-            } else {
-                throw new Exception("無法獲取 Minecraft 用戶資料: " + responseBody);
+        String responseBody = http.execute(AuthHttpClient.Hop.MINECRAFT_PROFILE, get).getBody();
+        JsonNode json = objectMapper.readTree(responseBody);
+        
+        if (json.has("name") && json.has("id")) {
+            return new MinecraftProfile(
+                json.get("name").asText(),
+                json.get("id").asText(),
+                activeTextureUrl(json.path("skins")),
+                activeTextureUrl(json.path("capes"))
+            );
+        } else {
+            throw new Exception("無法獲取 Minecraft 用戶資料: " + responseBody);
+        }
+    }
+    
+    /**
+     * 用戶資料中目前使用 (state = ACTIVE) 的皮膚或披風 URL
+     */
+    private static String activeTextureUrl(JsonNode textures) {
+        for (JsonNode texture : textures) {
+            if ("ACTIVE".equalsIgnoreCase(texture.path("state").asText()) && texture.hasNonNull("url")) {
+                return texture.get("url").asText();
             }
         }
+        return null;
     }
     
+    /**
+     * 登出目前帳號並從帳號庫移除，仍有其他帳號時切換到第一個
+     * 需要重新登入的帳號也只會在用戶登出時移除
+     */
     public void logout() {
-        currentSession = null;
-        config.clearSession();
+        String id = accounts.getActiveId();
+        if (id != null) {
+            removeAccount(id);
+        }
         logger.info("已登出微軟帳號");
     }
     
+    private void removeAccount(String id) {
+        cancelRefresh(id);
+        revokedAccounts.remove(id);
+        try {
+            accounts.remove(id);
+        } catch (IOException e) {
+            logger.warn("無法更新帳號庫", e);
+        }
+    }
+    
+    /**
+     * 各認證步驟的請求次數與耗時 (用於診斷與壓測)
+     */
+    public Map<AuthHttpClient.Hop, AuthHttpClient.HopStats> getHopStats() {
+        return http.getStats();
+    }
+    
     public MinecraftSession getSession() {
-        return currentSession;
+        AuthTokens active = accounts.getActive();
+        return active != null ? toSession(active) : null;
     }
     
     public boolean isLoggedIn() {
-        return currentSession != null;
+        return accounts.getActive() != null;
     }
     
     // 內部類別
     private static class XSTSResponse {
         final String token;
         final String userHash;
+        final Instant expiresAt;
         
-        XSTSResponse(String token, String userHash) {
+        XSTSResponse(String token, String userHash, Instant expiresAt) {
             this.token = token;
             this.userHash = userHash;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    /**
+     * Refresh Token 已過期或被撤銷，需要重新登入
+     */
+    private static class SessionRevokedException extends Exception {
+        private static final long serialVersionUID = 1L;
+        
+        SessionRevokedException(String message) {
+            super(message);
         }
     }
     
     private static class MinecraftProfile {
         final String name;
         final String id;
+        final String skinUrl;
+        final String capeUrl;
         
-        MinecraftProfile(String name, String id) {
+        MinecraftProfile(String name, String id, String skinUrl, String capeUrl) {
             this.name = name;
             this.id = id;
+            this.skinUrl = skinUrl;
+            this.capeUrl = capeUrl;
         }
     }
     
@@ -466,17 +770,36 @@ public class MicrosoftAuthenticator {
         private final String uuid;
         private final String accessToken;
         private final String refreshToken;
+        private final String skinUrl;
+        private final String capeUrl;
+        private final boolean needsRelogin;
         
         public MinecraftSession(String username, String uuid, String accessToken, String refreshToken) {
+            this(username, uuid, accessToken, refreshToken, null, null);
+        }
+        
+        public MinecraftSession(String username, String uuid, String accessToken, String refreshToken,
+                                String skinUrl, String capeUrl) {
+            this(username, uuid, accessToken, refreshToken, skinUrl, capeUrl, false);
+        }
+        
+        public MinecraftSession(String username, String uuid, String accessToken, String refreshToken,
+                                String skinUrl, String capeUrl, boolean needsRelogin) {
             this.username = username;
             this.uuid = uuid;
             this.accessToken = accessToken;
             this.refreshToken = refreshToken;
+            this.skinUrl = skinUrl;
+            this.capeUrl = capeUrl;
+            this.needsRelogin = needsRelogin;
         }
         
         public String getUsername() { return username; }
         public String getUuid() { return uuid; }
         public String getAccessToken() { return accessToken; }
         public String getRefreshToken() { return refreshToken; }
+        public String getSkinUrl() { return skinUrl; }
+        public String getCapeUrl() { return capeUrl; }
+        public boolean needsRelogin() { return needsRelogin; }
     }
 }
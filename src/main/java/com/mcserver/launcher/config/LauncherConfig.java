@@ -35,6 +35,7 @@ public class LauncherConfig {
     private boolean fullscreen;
     private boolean autoLogin;
     private boolean checkUpdates;
+    private boolean offlineFirst; // 以本地已校驗的狀態立即就緒，網路檢查在背景進行
     private boolean updatePending;
     private String lastUsername;
     private String serverAddress;
@@ -47,13 +48,21 @@ public class LauncherConfig {
     private String githubToken;
     private boolean autoUpdate;
     private String updateChannel; // stable, beta, dev
+    private int updateCheckIntervalHours; // 兩次檢查啟動器更新的最短間隔，0 表示每次啟動都檢查
     
     // 模組配置
     private boolean autoLoadMods;
     private boolean enableModUpdates;
-    private String modUpdateSource;
+    private String modUpdateSource; // github, manifest
+    private String modManifestUrl;
+    private String modBundleUrl; // 首次安裝用的整包壓縮檔 (可選)
+    private String modSlotRulesUrl; // 遠端模組分類規則 (可選)
     
-    // Session 配置
+    // 認證端點 (留空使用正式服務，見 AuthEndpoints)
+    private String authBaseUrl;
+    private Map<String, String> authEndpoints;
+    
+    // 舊版 Session 配置 (只讀，啟動時遷移到加密的帳號庫 auth/accounts.json)
     private String sessionUsername;
     private String sessionUuid;
     private String sessionAccessToken;
@@ -93,6 +102,7 @@ public class LauncherConfig {
         this.fullscreen = false;
         this.autoLogin = true;
         this.checkUpdates = true;
+        this.offlineFirst = true;
         this.updatePending = false;
         this.lastUsername = "";
         this.serverAddress = "";
@@ -105,11 +115,17 @@ public class LauncherConfig {
         this.githubToken = ""; // 可選，用於私有倉庫
         this.autoUpdate = true;
         this.updateChannel = "stable";
+        this.updateCheckIntervalHours = 6;
+        this.authBaseUrl = "";
+        this.authEndpoints = new HashMap<>();
         
         // 模組默認配置
         this.autoLoadMods = true;
         this.enableModUpdates = true;
         this.modUpdateSource = "github";
+        this.modManifestUrl = "";
+        this.modBundleUrl = "";
+        this.modSlotRulesUrl = "";
     }
     
     /**
@@ -160,6 +176,9 @@ public class LauncherConfig {
             if (root.has("checkUpdates")) {
                 this.checkUpdates = root.get("checkUpdates").asBoolean();
             }
+            if (root.has("offlineFirst")) {
+                this.offlineFirst = root.get("offlineFirst").asBoolean();
+            }
             if (root.has("updatePending")) {
                 this.updatePending = root.get("updatePending").asBoolean();
             }
@@ -194,6 +213,9 @@ public class LauncherConfig {
                 if (github.has("updateChannel")) {
                     this.updateChannel = github.get("updateChannel").asText();
                 }
+                if (github.has("updateCheckIntervalHours")) {
+                    this.updateCheckIntervalHours = github.get("updateCheckIntervalHours").asInt();
+                }
             }
             
             // 載入模組配置
@@ -208,6 +230,28 @@ public class LauncherConfig {
                 if (mods.has("updateSource")) {
                     this.modUpdateSource = mods.get("updateSource").asText();
                 }
+                if (mods.has("manifestUrl")) {
+                    this.modManifestUrl = mods.get("manifestUrl").asText();
+                }
+                if (mods.has("bundleUrl")) {
+                    this.modBundleUrl = mods.get("bundleUrl").asText();
+                }
+                if (mods.has("slotRulesUrl")) {
+                    this.modSlotRulesUrl = mods.get("slotRulesUrl").asText();
+                }
+            }
+            
+            // 載入認證配置
+            if (root.has("auth")) {
+                JsonNode auth = root.get("auth");
+                if (auth.has("baseUrl")) {
+                    this.authBaseUrl = auth.get("baseUrl").asText();
+                }
+                if (auth.has("endpoints")) {
+                    this.authEndpoints = new HashMap<>();
+                    auth.get("endpoints").fields().forEachRemaining(
+                            entry -> this.authEndpoints.put(entry.getKey(), entry.getValue().asText()));
+                }
             }
             
             // 載入 Session 配置
@@ -245,6 +289,7 @@ public class LauncherConfig {
             config.put("fullscreen", fullscreen);
             config.put("autoLogin", autoLogin);
             config.put("checkUpdates", checkUpdates);
+            config.put("offlineFirst", offlineFirst);
             config.put("updatePending", updatePending);
             config.put("lastUsername", lastUsername);
             config.put("serverAddress", serverAddress);
@@ -258,6 +303,7 @@ public class LauncherConfig {
             github.put("token", githubToken);
             github.put("autoUpdate", autoUpdate);
             github.put("updateChannel", updateChannel);
+            github.put("updateCheckIntervalHours", updateCheckIntervalHours);
             config.put("github", github);
             
             // 模組配置
@@ -265,8 +311,17 @@ public class LauncherConfig {
             mods.put("autoLoad", autoLoadMods);
             mods.put("enableUpdates", enableModUpdates);
             mods.put("updateSource", modUpdateSource);
+            mods.put("manifestUrl", modManifestUrl);
+            mods.put("bundleUrl", modBundleUrl);
+            mods.put("slotRulesUrl", modSlotRulesUrl);
             config.put("mods", mods);
             
+            // 認證配置
+            Map<String, Object> auth = new HashMap<>();
+            auth.put("baseUrl", authBaseUrl);
+            auth.put("endpoints", authEndpoints);
+            config.put("auth", auth);
+            
             // 確保目錄存在
             Files.createDirectories(configFile.getParent());
             
@@ -513,6 +568,22 @@ public class LauncherConfig {
         this.updateChannel = updateChannel;
     }
     
+    public int getUpdateCheckIntervalHours() {
+        return updateCheckIntervalHours;
+    }
+    
+    public void setUpdateCheckIntervalHours(int updateCheckIntervalHours) {
+        this.updateCheckIntervalHours = updateCheckIntervalHours;
+    }
+    
+    public boolean isOfflineFirst() {
+        return offlineFirst;
+    }
+    
+    public void setOfflineFirst(boolean offlineFirst) {
+        this.offlineFirst = offlineFirst;
+    }
+    
     public boolean isAutoLoadMods() {
         return autoLoadMods;
     }
@@ -537,41 +608,48 @@ public class LauncherConfig {
         this.modUpdateSource = modUpdateSource;
     }
     
-    /**
-     * 保存用戶會話信息
-     */
-    public void saveSession(Object sessionObj) {
-        try {
-            // 使用反射获取字段，或者强制转换，这里假设我们知道它的结构
-            // 为了解耦，最好让 MicrosoftAuthenticator 传递明确的参数，或者使用接口
-            // 但这里为了快速修复，我们通过反射或者假设它是 MinecraftSession
-            
-            // 注意：由于 MinecraftSession 是内部类，且为了避免循环依赖问题
-            // 我们最好通过 getter 方法获取数据，但这里参数是 Object
-            
-            // 更好的方式是传入具体参数，但为了不破坏现有签名（如果有），
-            // 我们修改方法签名，接受具体参数，或者让 MicrosoftAuthenticator 直接设置 Config 字段
-            
-            // 让我们使用反射来获取数据，这样不需要引入 MicrosoftAuthenticator 类
-            java.lang.reflect.Method getUsername = sessionObj.getClass().getMethod("getUsername");
-            java.lang.reflect.Method getUuid = sessionObj.getClass().getMethod("getUuid");
-            java.lang.reflect.Method getAccessToken = sessionObj.getClass().getMethod("getAccessToken");
-            java.lang.reflect.Method getRefreshToken = sessionObj.getClass().getMethod("getRefreshToken");
-            
-            this.sessionUsername = (String) getUsername.invoke(sessionObj);
-            this.sessionUuid = (String) getUuid.invoke(sessionObj);
-            this.sessionAccessToken = (String) getAccessToken.invoke(sessionObj);
-            this.sessionRefreshToken = (String) getRefreshToken.invoke(sessionObj);
-            
-            save();
-            logger.info("Session saved for user: {}", sessionUsername);
-        } catch (Exception e) {
-            logger.error("Failed to save session", e);
-        }
+    public String getModManifestUrl() {
+        return modManifestUrl;
+    }
+    
+    public void setModManifestUrl(String modManifestUrl) {
+        this.modManifestUrl = modManifestUrl;
+    }
+    
+    public String getModBundleUrl() {
+        return modBundleUrl;
+    }
+    
+    public void setModBundleUrl(String modBundleUrl) {
+        this.modBundleUrl = modBundleUrl;
+    }
+    
+    public String getModSlotRulesUrl() {
+        return modSlotRulesUrl;
+    }
+    
+    public void setModSlotRulesUrl(String modSlotRulesUrl) {
+        this.modSlotRulesUrl = modSlotRulesUrl;
+    }
+    
+    public String getAuthBaseUrl() {
+        return authBaseUrl;
+    }
+    
+    public void setAuthBaseUrl(String authBaseUrl) {
+        this.authBaseUrl = authBaseUrl;
+    }
+    
+    public Map<String, String> getAuthEndpoints() {
+        return authEndpoints;
+    }
+    
+    public void setAuthEndpoints(Map<String, String> authEndpoints) {
+        this.authEndpoints = authEndpoints;
     }
     
     /**
-     * 清除用戶會話信息
+     * 清除舊版會話信息 (已遷移到帳號庫)
      */
     public void clearSession() {
         this.sessionUsername = "";
@@ -583,7 +661,7 @@ public class LauncherConfig {
     }
     
     /**
-     * 檢查是否有有效會話
+     * 檢查是否有尚未遷移的舊版會話
      */
     public boolean hasValidSession() {
         return sessionRefreshToken != null && !sessionRefreshToken.isEmpty();
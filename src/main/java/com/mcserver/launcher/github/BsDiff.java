@@ -0,0 +1,479 @@
+package com.mcserver.launcher.github;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * bsdiff 二進位差異 (BSDIFF40 格式，與 bsdiff/bspatch 命令列工具相容)
+ * 補丁由三段 bzip2 串流組成: 控制 (x, y, z)、與舊文件逐位元組相減的差異、以及全新的額外資料。
+ * 套用時逐段讀取補丁，舊文件只做隨機讀取、新文件以串流寫出，不需要把兩者整個載入記憶體。
+ */
+public final class BsDiff {
+    
+    private static final byte[] MAGIC = "BSDIFF40".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_SIZE = 32;
+    
+    private BsDiff() {
+    }
+    
+    /**
+     * 產生補丁 (發佈工具使用；記憶體約為舊文件大小的 9 倍)
+     */
+    public static void diff(byte[] oldData, byte[] newData, OutputStream out) throws IOException {
+        int[] index = new int[oldData.length + 1];
+        qsufsort(index, new int[oldData.length + 1], oldData);
+        
+        ByteArrayOutputStream ctrl = new ByteArrayOutputStream();
+        ByteArrayOutputStream diff = new ByteArrayOutputStream();
+        ByteArrayOutputStream extra = new ByteArrayOutputStream();
+        try (OutputStream ctrlOut = new BZip2CompressorOutputStream(ctrl);
+             OutputStream diffOut = new BufferedOutputStream(new BZip2CompressorOutputStream(diff));
+             OutputStream extraOut = new BufferedOutputStream(new BZip2CompressorOutputStream(extra))) {
+            
+            int oldSize = oldData.length;
+            int newSize = newData.length;
+            int scan = 0;
+            int len = 0;
+            int[] pos = new int[1];
+            int lastScan = 0;
+            int lastPos = 0;
+            int lastOffset = 0;
+            byte[] number = new byte[8];
+            
+            while (scan < newSize) {
+                int oldScore = 0;
+                int scsc = scan += len;
+                for (; scan < newSize; scan++) {
+                    len = search(index, oldData, newData, scan, 0, oldSize, pos);
+                    for (; scsc < scan + len; scsc++) {
+                        if (scsc + lastOffset < oldSize && oldData[scsc + lastOffset] == newData[scsc]) {
+                            oldScore++;
+                        }
+                    }
+                    if ((len == oldScore && len != 0) || len > oldScore + 8) {
+                        break;
+                    }
+                    if (scan + lastOffset < oldSize && oldData[scan + lastOffset] == newData[scan]) {
+                        oldScore--;
+                    }
+                }
+                
+                if (len != oldScore || scan == newSize) {
+                    // 向前延伸上一個匹配
+                    int s = 0;
+                    int bestForward = 0;
+                    int lenForward = 0;
+                    for (int i = 0; lastScan + i < scan && lastPos + i < oldSize; ) {
+                        if (oldData[lastPos + i] == newData[lastScan + i]) {
+                            s++;
+                        }
+                        i++;
+                        if (s * 2 - i > bestForward * 2 - lenForward) {
+                            bestForward = s;
+                            lenForward = i;
+                        }
+                    }
+                    
+                    // 向後延伸當前匹配
+                    int lenBack = 0;
+                    if (scan < newSize) {
+                        s = 0;
+                        int bestBack = 0;
+                        for (int i = 1; scan >= lastScan + i && pos[0] >= i; i++) {
+                            if (oldData[pos[0] - i] == newData[scan - i]) {
+                                s++;
+                            }
+                            if (s * 2 - i > bestBack * 2 - lenBack) {
+                                bestBack = s;
+                                lenBack = i;
+                            }
+                        }
+                    }
+                    
+                    // 兩者重疊時找出最佳分界
+                    if (lastScan + lenForward > scan - lenBack) {
+                        int overlap = (lastScan + lenForward) - (scan - lenBack);
+                        s = 0;
+                        int bestSplit = 0;
+                        int lenSplit = 0;
+                        for (int i = 0; i < overlap; i++) {
+                            if (newData[lastScan + lenForward - overlap + i] == oldData[lastPos + lenForward - overlap + i]) {
+                                s++;
+                            }
+                            if (newData[scan - lenBack + i] == oldData[pos[0] - lenBack + i]) {
+                                s--;
+                            }
+                            if (s > bestSplit) {
+                                bestSplit = s;
+                                lenSplit = i + 1;
+                            }
+                        }
+                        lenForward += lenSplit - overlap;
+                        lenBack -= lenSplit;
+                    }
+                    
+                    for (int i = 0; i < lenForward; i++) {
+                        diffOut.write(newData[lastScan + i] - oldData[lastPos + i]);
+                    }
+                    int extraLength = (scan - lenBack) - (lastScan + lenForward);
+                    extraOut.write(newData, lastScan + lenForward, extraLength);
+                    
+                    writeOffset(ctrlOut, number, lenForward);
+                    writeOffset(ctrlOut, number, extraLength);
+                    writeOffset(ctrlOut, number, (pos[0] - lenBack) - (lastPos + lenForward));
+                    
+                    lastScan = scan - lenBack;
+                    lastPos = pos[0] - lenBack;
+                    lastOffset = pos[0] - scan;
+                }
+            }
+        }
+        
+        byte[] header = new byte[HEADER_SIZE];
+        System.arraycopy(MAGIC, 0, header, 0, MAGIC.length);
+        encodeOffset(ctrl.size(), header, 8);
+        encodeOffset(diff.size(), header, 16);
+        encodeOffset(newData.length, header, 24);
+        out.write(header);
+        ctrl.writeTo(out);
+        diff.writeTo(out);
+        extra.writeTo(out);
+    }
+    
+    /**
+     * 把補丁套用到舊文件，新文件寫入 out
+     * @return 新文件大小
+     */
+    public static long patch(Path oldFile, Path patchFile, OutputStream out) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        try (InputStream in = Files.newInputStream(patchFile)) {
+            if (in.readNBytes(header, 0, HEADER_SIZE) != HEADER_SIZE) {
+                throw new IOException("補丁文件過短");
+            }
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header[i] != MAGIC[i]) {
+                throw new IOException("不是 BSDIFF40 補丁");
+            }
+        }
+        long ctrlLength = decodeOffset(header, 8);
+        long diffLength = decodeOffset(header, 16);
+        long newSize = decodeOffset(header, 24);
+        if (ctrlLength < 0 || diffLength < 0 || newSize < 0
+                || HEADER_SIZE + ctrlLength + diffLength > Files.size(patchFile)) {
+            throw new IOException("補丁標頭損壞");
+        }
+        
+        try (FileChannel oldChannel = FileChannel.open(oldFile, StandardOpenOption.READ);
+             InputStream ctrlIn = section(patchFile, HEADER_SIZE);
+             InputStream diffIn = section(patchFile, HEADER_SIZE + ctrlLength);
+             InputStream extraIn = section(patchFile, HEADER_SIZE + ctrlLength + diffLength)) {
+            
+            long oldSize = oldChannel.size();
+            byte[] number = new byte[8];
+            byte[] buffer = new byte[64 * 1024];
+            byte[] oldBuffer = new byte[buffer.length];
+            long newPos = 0;
+            long oldPos = 0;
+            
+            while (newPos < newSize) {
+                long diffCount = readOffset(ctrlIn, number);
+                long extraCount = readOffset(ctrlIn, number);
+                long seek = readOffset(ctrlIn, number);
+                if (diffCount < 0 || extraCount < 0 || newPos + diffCount + extraCount > newSize) {
+                    throw new IOException("補丁控制資料損壞");
+                }
+                
+                // 差異段: 補丁位元組加上舊文件對應位元組，超出舊文件範圍的部分視為 0
+                long remaining = diffCount;
+                while (remaining > 0) {
+                    int n = (int) Math.min(buffer.length, remaining);
+                    readFully(diffIn, buffer, n);
+                    readOld(oldChannel, oldSize, oldPos, oldBuffer, n);
+                    for (int i = 0; i < n; i++) {
+                        long at = oldPos + i;
+                        if (at >= 0 && at < oldSize) {
+                            buffer[i] += oldBuffer[i];
+                        }
+                    }
+                    out.write(buffer, 0, n);
+                    remaining -= n;
+                    oldPos += n;
+                    newPos += n;
+                }
+                
+                remaining = extraCount;
+                while (remaining > 0) {
+                    int n = (int) Math.min(buffer.length, remaining);
+                    readFully(extraIn, buffer, n);
+                    out.write(buffer, 0, n);
+                    remaining -= n;
+                    newPos += n;
+                }
+                oldPos += seek;
+            }
+            return newSize;
+        }
+    }
+    
+    /**
+     * 從 offset 開始的 bzip2 區段；區段標頭無效時關閉通道後拋出例外
+     */
+    private static InputStream section(Path patchFile, long offset) throws IOException {
+        FileChannel channel = FileChannel.open(patchFile, StandardOpenOption.READ);
+        try {
+            channel.position(offset);
+            return new BZip2CompressorInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * 讀取舊文件 [pos, pos + n) 中位於文件範圍內的部分到 buffer 對應位置
+     */
+    private static void readOld(FileChannel channel, long oldSize, long pos, byte[] buffer, int n) throws IOException {
+        long start = Math.max(pos, 0);
+        long end = Math.min(pos + n, oldSize);
+        if (start >= end) {
+            return;
+        }
+        ByteBuffer target = ByteBuffer.wrap(buffer, (int) (start - pos), (int) (end - start));
+        long at = start;
+        while (target.hasRemaining()) {
+            int read = channel.read(target, at);
+            if (read < 0) {
+                throw new EOFException("舊文件讀取中斷");
+            }
+            at += read;
+        }
+    }
+    
+    private static void readFully(InputStream in, byte[] buffer, int n) throws IOException {
+        if (in.readNBytes(buffer, 0, n) != n) {
+            throw new EOFException("補丁資料不完整");
+        }
+    }
+    
+    private static long readOffset(InputStream in, byte[] number) throws IOException {
+        readFully(in, number, 8);
+        return decodeOffset(number, 0);
+    }
+    
+    private static void writeOffset(OutputStream out, byte[] number, long value) throws IOException {
+        encodeOffset(value, number, 0);
+        out.write(number);
+    }
+    
+    /**
+     * bsdiff 的 64 位整數: 小端序的絕對值，最高位為符號位
+     */
+    private static long decodeOffset(byte[] buf, int offset) {
+        long value = buf[offset + 7] & 0x7F;
+        for (int i = 6; i >= 0; i--) {
+            value = (value << 8) | (buf[offset + i] & 0xFF);
+        }
+        return (buf[offset + 7] & 0x80) != 0 ? -value : value;
+    }
+    
+    private static void encodeOffset(long value, byte[] buf, int offset) {
+        long magnitude = Math.abs(value);
+        for (int i = 0; i < 8; i++) {
+            buf[offset + i] = (byte) (magnitude >>> (8 * i));
+        }
+        if (value < 0) {
+            buf[offset + 7] |= (byte) 0x80;
+        }
+    }
+    
+    // ---- 後綴數組 (Larsson-Sadakane qsufsort) ----
+    
+    private static void qsufsort(int[] index, int[] rank, byte[] data) {
+        int size = data.length;
+        int[] buckets = new int[256];
+        for (byte b : data) {
+            buckets[b & 0xFF]++;
+        }
+        for (int i = 1; i < 256; i++) {
+            buckets[i] += buckets[i - 1];
+        }
+        for (int i = 255; i > 0; i--) {
+            buckets[i] = buckets[i - 1];
+        }
+        buckets[0] = 0;
+        
+        for (int i = 0; i < size; i++) {
+            index[++buckets[data[i] & 0xFF]] = i;
+        }
+        index[0] = size;
+        for (int i = 0; i < size; i++) {
+            rank[i] = buckets[data[i] & 0xFF];
+        }
+        rank[size] = 0;
+        for (int i = 1; i < 256; i++) {
+            if (buckets[i] == buckets[i - 1] + 1) {
+                index[buckets[i]] = -1;
+            }
+        }
+        index[0] = -1;
+        
+        for (int h = 1; index[0] != -(size + 1); h += h) {
+            int len = 0;
+            int i = 0;
+            while (i < size + 1) {
+                if (index[i] < 0) {
+                    len -= index[i];
+                    i -= index[i];
+                } else {
+                    if (len != 0) {
+                        index[i - len] = -len;
+                    }
+                    len = rank[index[i]] + 1 - i;
+                    split(index, rank, i, len, h);
+                    i += len;
+                    len = 0;
+                }
+            }
+            if (len != 0) {
+                index[i - len] = -len;
+            }
+        }
+        
+        for (int i = 0; i < size + 1; i++) {
+            index[rank[i]] = i;
+        }
+    }
+    
+    private static void split(int[] index, int[] rank, int start, int len, int h) {
+        if (len < 16) {
+            int j;
+            for (int k = start; k < start + len; k += j) {
+                j = 1;
+                int x = rank[index[k] + h];
+                for (int i = 1; k + i < start + len; i++) {
+                    int value = rank[index[k + i] + h];
+                    if (value < x) {
+                        x = value;
+                        j = 0;
+                    }
+                    if (value == x) {
+                        swap(index, k + j, k + i);
+                        j++;
+                    }
+                }
+                for (int i = 0; i < j; i++) {
+                    rank[index[k + i]] = k + j - 1;
+                }
+                if (j == 1) {
+                    index[k] = -1;
+                }
+            }
+            return;
+        }
+        
+        int x = rank[index[start + len / 2] + h];
+        int jj = 0;
+        int kk = 0;
+        for (int i = start; i < start + len; i++) {
+            int value = rank[index[i] + h];
+            if (value < x) {
+                jj++;
+            }
+            if (value == x) {
+                kk++;
+            }
+        }
+        jj += start;
+        kk += jj;
+        
+        int i = start;
+        int j = 0;
+        int k = 0;
+        while (i < jj) {
+            int value = rank[index[i] + h];
+            if (value < x) {
+                i++;
+            } else if (value == x) {
+                swap(index, i, jj + j);
+                j++;
+            } else {
+                swap(index, i, kk + k);
+                k++;
+            }
+        }
+        while (jj + j < kk) {
+            if (rank[index[jj + j] + h] == x) {
+                j++;
+            } else {
+                swap(index, jj + j, kk + k);
+                k++;
+            }
+        }
+        
+        if (jj > start) {
+            split(index, rank, start, jj - start, h);
+        }
+        for (i = 0; i < kk - jj; i++) {
+            rank[index[jj + i]] = kk - 1;
+        }
+        if (jj == kk - 1) {
+            index[jj] = -1;
+        }
+        if (start + len > kk) {
+            split(index, rank, kk, start + len - kk, h);
+        }
+    }
+    
+    private static void swap(int[] array, int a, int b) {
+        int tmp = array[a];
+        array[a] = array[b];
+        array[b] = tmp;
+    }
+    
+    private static int matchLength(byte[] oldData, int oldStart, byte[] newData, int newStart) {
+        int i = 0;
+        while (oldStart + i < oldData.length && newStart + i < newData.length
+                && oldData[oldStart + i] == newData[newStart + i]) {
+            i++;
+        }
+        return i;
+    }
+    
+    /**
+     * 在後綴數組中二分查找與 newData[newStart..] 最長的匹配
+     */
+    private static int search(int[] index, byte[] oldData, byte[] newData, int newStart, int start, int end, int[] pos) {
+        while (end - start >= 2) {
+            int middle = start + (end - start) / 2;
+            if (compare(oldData, index[middle], newData, newStart) < 0) {
+                start = middle;
+            } else {
+                end = middle;
+            }
+        }
+        int x = matchLength(oldData, index[start], newData, newStart);
+        int y = matchLength(oldData, index[end], newData, newStart);
+        if (x > y) {
+            pos[0] = index[start];
+            return x;
+        }
+        pos[0] = index[end];
+        return y;
+    }
+    
+    private static int compare(byte[] oldData, int oldStart, byte[] newData, int newStart) {
+        int length = Math.min(oldData.length - oldStart, newData.length - newStart);
+        return Arrays.compareUnsigned(oldData, oldStart, oldStart + length, newData, newStart, newStart + length);
+    }
+}
@@ -0,0 +1,76 @@
+package com.mcserver.launcher.github;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 本地分塊倉庫
+ * 以 SHA-256 為名保存已下載的塊 (cache/chunks/ab/abcdef...)，同一個塊在多個文件或多次同步間只需下載一次。
+ */
+public class ChunkStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ChunkStore.class);
+    
+    private final Path root;
+    
+    public ChunkStore(Path root) {
+        this.root = root;
+    }
+    
+    public Path pathOf(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+    
+    public boolean contains(String sha256) {
+        return Files.isRegularFile(pathOf(sha256));
+    }
+    
+    /**
+     * 校驗後保存塊
+     */
+    public void put(String sha256, byte[] data) throws IOException {
+        String actual = HexFormat.of().formatHex(FastCdc.sha256().digest(data));
+        if (!actual.equalsIgnoreCase(sha256)) {
+            throw new IOException("分塊校驗失敗: " + sha256);
+        }
+        Path target = pathOf(sha256);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), sha256, ".tmp");
+        try {
+            Files.write(temp, data);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    /**
+     * 刪除不再被引用的塊
+     */
+    public void retainOnly(Set<String> referenced) {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(root)) {
+            List<Path> stale = stream.filter(Files::isRegularFile)
+                    .filter(p -> !referenced.contains(p.getFileName().toString()))
+                    .collect(Collectors.toList());
+            for (Path path : stale) {
+                Files.deleteIfExists(path);
+            }
+            if (!stale.isEmpty()) {
+                logger.info("已清理 {} 個不再使用的分塊", stale.size());
+            }
+        } catch (IOException e) {
+            logger.warn("無法清理分塊倉庫: {}", root, e);
+        }
+    }
+}
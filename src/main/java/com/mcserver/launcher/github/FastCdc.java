@@ -0,0 +1,144 @@
+package com.mcserver.launcher.github;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * FastCDC 內容定義分塊 (正規化分塊，最小 16KB、平均 64KB、最大 256KB)
+ * 分塊邊界由內容決定，文件中間插入或刪除資料只會影響附近的塊，其餘塊的雜湊保持不變。
+ * 發佈工具與啟動器必須使用完全相同的參數與 gear 表，因此兩者都使用本類。
+ */
+public final class FastCdc {
+    
+    public static final int MIN_SIZE = 16 * 1024;
+    public static final int AVG_SIZE = 64 * 1024;
+    public static final int MAX_SIZE = 256 * 1024;
+    
+    // 平均大小之前使用較難命中的遮罩，之後使用較易命中的遮罩，使塊大小集中在平均值附近
+    private static final long MASK_S = -1L << (64 - 18);
+    private static final long MASK_L = -1L << (64 - 14);
+    
+    private static final long[] GEAR = new long[256];
+    
+    static {
+        // SplitMix64，固定種子，保證各版本產生相同的表
+        long seed = 0x4D43_4C41_554E_4348L;
+        for (int i = 0; i < GEAR.length; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            long z = seed;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            GEAR[i] = z ^ (z >>> 31);
+        }
+    }
+    
+    /**
+     * 分塊回調
+     */
+    public interface ChunkHandler {
+        void accept(byte[] data, int offset, int length, String sha256) throws IOException;
+    }
+    
+    private FastCdc() {
+    }
+    
+    /**
+     * 讀取整個串流並分塊
+     * @param handler 每個塊的回調，可為 null
+     * @return 依序排列的塊
+     */
+    public static List<Chunk> split(InputStream in, ChunkHandler handler) throws IOException {
+        MessageDigest digest = sha256();
+        List<Chunk> chunks = new ArrayList<>();
+        byte[] buffer = new byte[MAX_SIZE * 2];
+        int start = 0;
+        int end = 0;
+        boolean eof = false;
+        
+        while (true) {
+            // 緩衝區中不足一個最大塊時補充資料
+            if (!eof && end - start < MAX_SIZE) {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                end -= start;
+                start = 0;
+                int n;
+                while (end < buffer.length && (n = in.read(buffer, end, buffer.length - end)) != -1) {
+                    end += n;
+                }
+                eof = end < buffer.length;
+            }
+            if (start == end) {
+                return chunks;
+            }
+            
+            int length = cut(buffer, start, end - start);
+            digest.update(buffer, start, length);
+            String hash = HexFormat.of().formatHex(digest.digest());
+            if (handler != null) {
+                handler.accept(buffer, start, length, hash);
+            }
+            chunks.add(new Chunk(hash, length));
+            start += length;
+        }
+    }
+    
+    /**
+     * 找出下一個分塊邊界，返回塊長度
+     */
+    static int cut(byte[] data, int offset, int available) {
+        if (available <= MIN_SIZE) {
+            return available;
+        }
+        int limit = Math.min(available, MAX_SIZE);
+        int normal = Math.min(AVG_SIZE, limit);
+        long fingerprint = 0;
+        int i = MIN_SIZE;
+        for (; i < normal; i++) {
+            fingerprint = (fingerprint << 1) + GEAR[data[offset + i] & 0xFF];
+            if ((fingerprint & MASK_S) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < limit; i++) {
+            fingerprint = (fingerprint << 1) + GEAR[data[offset + i] & 0xFF];
+            if ((fingerprint & MASK_L) == 0) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+    
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * 單個塊 (SHA-256 與長度)
+     */
+    public static final class Chunk {
+        private final String sha256;
+        private final int size;
+        
+        public Chunk(String sha256, int size) {
+            this.sha256 = sha256;
+            this.size = size;
+        }
+        
+        public String getSha256() {
+            return sha256;
+        }
+        
+        public int getSize() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.mcserver.launcher.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * 本地文件的雜湊索引 (git blob SHA-1 與 SHA-256)
+ * 以路徑為鍵，並記錄文件大小與修改時間；兩者皆未改變時直接使用快取的雜湊值，
+ * 避免每次同步都重新讀取整個 mods 資料夾。索引以 JSON 保存在啟動器目錄中。
+ * 同時記錄上次成功同步的版本 (提交 SHA 或清單雜湊) 及其文件清單，用於判斷是否可以跳過整個同步，
+ * 以及清單的 HTTP 快取驗證資訊 (ETag 等)。
+ */
+public class GitHashIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GitHashIndex.class);
+    
+    private final Path indexFile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private boolean dirty;
+    
+    // 上次成功同步的提交及當時寫入的文件
+    private String syncedCommit;
+    private List<String> syncedFiles = new ArrayList<>();
+    
+    // 同步寫入時的文件 SHA-256 (用於判斷玩家是否修改過文件)
+    private final Map<String, String> baselines = new HashMap<>();
+    
+    // 其他同步狀態 (例如清單的 ETag)
+    private final Map<String, String> state = new TreeMap<>();
+    
+    public GitHashIndex(Path indexFile) {
+        this.indexFile = indexFile;
+        load();
+    }
+    
+    private void load() {
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        try {
+            JsonNode root = objectMapper.readTree(Files.readString(indexFile));
+            JsonNode files = root.get("files");
+            if (files != null && files.isObject()) {
+                files.fields().forEachRemaining(field -> {
+                    JsonNode node = field.getValue();
+                    entries.put(field.getKey(), new Entry(
+                            node.get("size").asLong(),
+                            node.get("mtime").asLong(),
+                            node.hasNonNull("sha") ? node.get("sha").asText() : null,
+                            node.hasNonNull("sha256") ? node.get("sha256").asText() : null));
+                });
+            }
+            JsonNode baselineNode = root.get("baselines");
+            if (baselineNode != null && baselineNode.isObject()) {
+                baselineNode.fields().forEachRemaining(field -> baselines.put(field.getKey(), field.getValue().asText()));
+            }
+            JsonNode stateNode = root.get("state");
+            if (stateNode != null && stateNode.isObject()) {
+                stateNode.fields().forEachRemaining(field -> state.put(field.getKey(), field.getValue().asText()));
+            }
+            if (root.has("commit")) {
+                syncedCommit = root.get("commit").asText();
+                JsonNode synced = root.get("synced");
+                if (synced != null && synced.isArray()) {
+                    synced.forEach(node -> syncedFiles.add(node.asText()));
+                }
+            }
+            logger.debug("已載入雜湊索引，共 {} 個文件", entries.size());
+        } catch (Exception e) {
+            // 索引只是快取，損壞時重新計算即可
+            logger.warn("雜湊索引損壞，將重新建立: {}", indexFile, e);
+            entries.clear();
+            syncedCommit = null;
+            syncedFiles.clear();
+            baselines.clear();
+            state.clear();
+        }
+    }
+    
+    /**
+     * 記錄同步寫入 (或確認與遠端一致) 時的文件內容雜湊
+     */
+    public synchronized void setBaseline(Path file, String sha256) {
+        if (!Objects.equals(baselines.put(keyOf(file), sha256), sha256)) {
+            dirty = true;
+        }
+    }
+    
+    /**
+     * 文件自上次同步後是否被修改過；從未由同步寫入的文件視為已修改
+     */
+    public boolean isModifiedSinceSync(Path file) throws IOException {
+        String baseline;
+        synchronized (this) {
+            baseline = baselines.get(keyOf(file));
+        }
+        return baseline == null || !baseline.equalsIgnoreCase(getSha256(file));
+    }
+    
+    public synchronized String getState(String key) {
+        return state.get(key);
+    }
+    
+    public synchronized void setState(String key, String value) {
+        if (value == null ? state.remove(key) != null : !value.equals(state.put(key, value))) {
+            dirty = true;
+        }
+    }
+    
+    /**
+     * 判斷本地是否仍與指定版本一致：版本相同，且上次同步的文件都未被修改或刪除
+     * 只檢查文件大小與修改時間，不讀取文件內容 (文件狀態在鎖外讀取)
+     */
+    public boolean isSyncedTo(String commit) {
+        Map<String, Entry> expected = new LinkedHashMap<>();
+        synchronized (this) {
+            if (commit == null || !commit.equals(syncedCommit)) {
+                return false;
+            }
+            syncedFiles.forEach(key -> expected.put(key, entries.get(key)));
+        }
+        try {
+            for (Map.Entry<String, Entry> synced : expected.entrySet()) {
+                Path file = Paths.get(synced.getKey());
+                Entry entry = synced.getValue();
+                if (entry == null || !Files.exists(file)
+                        || Files.size(file) != entry.size
+                        || Files.getLastModifiedTime(file).toMillis() != entry.mtime) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * 上次成功同步的版本，狀態未知時為 null
+     */
+    public synchronized String getSyncedCommit() {
+        return syncedCommit;
+    }
+    
+    /**
+     * 記錄成功同步的版本 (傳入 null 表示狀態未知，下次必須完整比對)
+     */
+    public synchronized void markSynced(String commit, Collection<Path> files) {
+        syncedCommit = commit;
+        syncedFiles = new ArrayList<>();
+        if (commit != null) {
+            files.forEach(file -> syncedFiles.add(keyOf(file)));
+        }
+        dirty = true;
+    }
+    
+    /**
+     * 獲取文件的 git blob SHA-1，大小與修改時間未變時直接返回快取值
+     */
+    public String getBlobSha(Path file) throws IOException {
+        return lookup(file).sha;
+    }
+    
+    /**
+     * 獲取文件的 SHA-256，大小與修改時間未變時直接返回快取值
+     */
+    public String getSha256(Path file) throws IOException {
+        return lookup(file).sha256;
+    }
+    
+    /**
+     * 讀取文件狀態與計算雜湊都在鎖外進行，並行比對的多個目錄不會互相等待；鎖只保護索引本身
+     */
+    private Entry lookup(Path file) throws IOException {
+        String key = keyOf(file);
+        long size = Files.size(file);
+        long mtime = Files.getLastModifiedTime(file).toMillis();
+        
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.size == size && entry.mtime == mtime
+                && entry.sha != null && entry.sha256 != null) {
+            return entry;
+        }
+        
+        // 一次讀取同時計算兩種雜湊
+        Hashes hashes = computeHashes(file);
+        entry = new Entry(size, mtime, hashes.blobSha, hashes.sha256);
+        synchronized (this) {
+            entries.put(key, entry);
+            dirty = true;
+        }
+        return entry;
+    }
+    
+    /**
+     * 記錄已知雜湊值的文件 (例如剛下載並校驗過的文件)
+     */
+    public void put(Path file, Hashes hashes) throws IOException {
+        Entry entry = new Entry(Files.size(file), Files.getLastModifiedTime(file).toMillis(),
+                hashes.blobSha, hashes.sha256);
+        synchronized (this) {
+            entries.put(keyOf(file), entry);
+            dirty = true;
+        }
+    }
+    
+    /**
+     * 文件被移動後轉移其索引項 (大小與修改時間不變)
+     */
+    public synchronized void relocate(Path from, Path to) {
+        Entry entry = entries.remove(keyOf(from));
+        if (entry != null) {
+            entries.put(keyOf(to), entry);
+            dirty = true;
+        }
+        String baseline = baselines.remove(keyOf(from));
+        if (baseline != null) {
+            baselines.put(keyOf(to), baseline);
+        }
+    }
+    
+    public synchronized void remove(Path file) {
+        if (entries.remove(keyOf(file)) != null) {
+            dirty = true;
+        }
+    }
+    
+    /**
+     * 保存索引 (移除已不存在的文件)，無變更時不寫入
+     */
+    public synchronized void save() {
+        if (entries.keySet().removeIf(key -> !Files.exists(Paths.get(key)))) {
+            dirty = true;
+        }
+        if (baselines.keySet().removeIf(key -> !Files.exists(Paths.get(key)))) {
+            dirty = true;
+        }
+        if (!dirty) {
+            return;
+        }
+        
+        try {
+            Map<String, Object> files = new TreeMap<>();
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Map<String, Object> data = new LinkedHashMap<>();
+                data.put("size", e.getValue().size);
+                data.put("mtime", e.getValue().mtime);
+                data.put("sha", e.getValue().sha);
+                data.put("sha256", e.getValue().sha256);
+                files.put(e.getKey(), data);
+            }
+            
+            Files.createDirectories(indexFile.getParent());
+            Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            Map<String, Object> root = new LinkedHashMap<>();
+            if (syncedCommit != null) {
+                root.put("commit", syncedCommit);
+                root.put("synced", syncedFiles);
+            }
+            if (!state.isEmpty()) {
+                root.put("state", state);
+            }
+            if (!baselines.isEmpty()) {
+                root.put("baselines", new TreeMap<>(baselines));
+            }
+            root.put("files", files);
+            Files.writeString(temp, objectMapper.writeValueAsString(root));
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            logger.warn("無法保存雜湊索引: {}", indexFile, e);
+        }
+    }
+    
+    /**
+     * 計算 git blob SHA-1: sha1("blob " + 長度 + "\0" + 內容)，與 GitHub API 返回的 sha 一致
+     */
+    public static String computeBlobSha(Path file) throws IOException {
+        return computeHashes(file).blobSha;
+    }
+    
+    /**
+     * 一次讀取文件，同時計算 git blob SHA-1 與 SHA-256
+     */
+    public static Hashes computeHashes(Path file) throws IOException {
+        try {
+            MessageDigest blob = MessageDigest.getInstance("SHA-1");
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            blob.update(("blob " + Files.size(file) + "\0").getBytes(StandardCharsets.US_ASCII));
+            try (InputStream is = Files.newInputStream(file)) {
+                byte[] buffer = new byte[65536];
+                int bytesRead;
+                while ((bytesRead = is.read(buffer)) != -1) {
+                    blob.update(buffer, 0, bytesRead);
+                    sha256.update(buffer, 0, bytesRead);
+                }
+            }
+            return new Hashes(HexFormat.of().formatHex(blob.digest()), HexFormat.of().formatHex(sha256.digest()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+    
+    private static String keyOf(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+    
+    private static final class Entry {
+        final long size;
+        final long mtime;
+        final String sha;
+        final String sha256;
+        
+        Entry(long size, long mtime, String sha, String sha256) {
+            this.size = size;
+            this.mtime = mtime;
+            this.sha = sha;
+            this.sha256 = sha256;
+        }
+    }
+    
+    /**
+     * 文件的兩種雜湊值
+     */
+    public static final class Hashes {
+        private final String blobSha;
+        private final String sha256;
+        
+        public Hashes(String blobSha, String sha256) {
+            this.blobSha = blobSha;
+            this.sha256 = sha256;
+        }
+        
+        public String getBlobSha() {
+            return blobSha;
+        }
+        
+        public String getSha256() {
+            return sha256;
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.mcserver.launcher.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcserver.launcher.LauncherApplication;
+import com.mcserver.launcher.config.LauncherConfig;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 共用的 GitHub API 客戶端
+ * 所有 API 回應連同 ETag 保存在磁碟快取中，之後以 If-None-Match 發送條件請求；
+ * GitHub 不把 304 回應計入速率限制，因此內容未變更時啟動不會消耗任何配額。
+ * 同時追蹤 X-RateLimit-* 回應標頭：配額不足時非必要請求會拉開間隔或直接使用快取，
+ * 配額用盡時所有請求改用快取，直到重置時間。
+ */
+public class GitHubClient {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GitHubClient.class);
+    
+    public static final String API_BASE = "https://api.github.com";
+    
+    // 剛取得的回應在此時間內直接使用，不再發送請求 (例如同一次啟動中重複查詢)
+    private static final long FRESH_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    
+    // 剩餘配額低於此比例時開始拉開非必要請求的間隔
+    private static final double LOW_BUDGET_RATIO = 0.25;
+    
+    // 為必要請求保留的配額
+    private static final int RESERVED_BUDGET = 5;
+    
+    // 單次等待的上限，超過時改用快取或放棄
+    private static final long MAX_DEFER_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    
+    /**
+     * 請求的重要性
+     */
+    public enum Priority {
+        /** 使用者正在等待結果 (例如模組同步)，只在配額用盡時才改用快取 */
+        CRITICAL,
+        /** 背景檢查 (例如啟動器更新)，配額不足時延後或使用快取 */
+        BACKGROUND
+    }
+    
+    private final LauncherConfig config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CloseableHttpClient httpClient;
+    private final Path cacheDirectory;
+    private final Map<String, CachedResponse> memoryCache = new ConcurrentHashMap<>();
+    
+    // 速率限制狀態 (-1 表示尚未取得)
+    private int rateLimit = -1;
+    private int rateRemaining = -1;
+    private long rateResetMillis;
+    private long lastBackgroundRequestMillis;
+    
+    public GitHubClient(LauncherConfig config) {
+        this.config = config;
+        this.cacheDirectory = Paths.get(config.getLauncherDirectory(), "cache", "github");
+        this.httpClient = HttpClients.custom()
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofSeconds(30))
+                        .setResponseTimeout(Timeout.ofSeconds(30))
+                        .build())
+                .build();
+        loadRateLimit();
+    }
+    
+    /**
+     * 請求 API 並解析為 JSON
+     * @param path API 路徑，例如 "/repos/owner/repo/releases/latest"
+     * @return 回應內容；資源不存在 (404) 時返回 null
+     */
+    public JsonNode getJson(String path, Priority priority) throws IOException {
+        String body = get(path, "application/vnd.github+json", priority);
+        return body != null ? objectMapper.readTree(body) : null;
+    }
+    
+    /**
+     * 只讀取快取中的回應，不發送任何請求
+     * @return 上次取得的內容；沒有快取時返回 null
+     */
+    public JsonNode getCachedJson(String path) throws IOException {
+        String url = path.startsWith("http") ? path : API_BASE + path;
+        CachedResponse cached = readCache("application/vnd.github+json " + url);
+        return cached != null ? objectMapper.readTree(cached.body) : null;
+    }
+    
+    /**
+     * 請求 API 並返回原始文本
+     * @param accept Accept 標頭，例如 "application/vnd.github.sha"
+     * @return 回應內容；資源不存在 (404) 時返回 null
+     */
+    public String get(String path, String accept, Priority priority) throws IOException {
+        String url = path.startsWith("http") ? path : API_BASE + path;
+        String key = accept + " " + url;
+        CachedResponse cached = readCache(key);
+        
+        if (cached != null && System.currentTimeMillis() - cached.fetchedAt < FRESH_MILLIS) {
+            return cached.body;
+        }
+        if (!awaitBudget(priority)) {
+            if (cached != null) {
+                logger.info("GitHub 配額不足，使用快取的回應: {}", url);
+                return cached.body;
+            }
+            throw new RateLimitException(rateResetMillis);
+        }
+        
+        HttpGet get = new HttpGet(url);
+        get.setHeader("Accept", accept);
+        get.setHeader("User-Agent", "Minecraft-Launcher/" + LauncherApplication.getVersion());
+        get.setHeader("X-GitHub-Api-Version", "2022-11-28");
+        authorize(get);
+        if (cached != null && cached.etag != null) {
+            get.setHeader("If-None-Match", cached.etag);
+        }
+        
+        try {
+            return httpClient.execute(get, response -> {
+                updateRateLimit(response);
+                int code = response.getCode();
+                
+                if (code == 304 && cached != null) {
+                    logger.debug("GitHub 回應未變更: {}", url);
+                    writeCache(key, new CachedResponse(cached.etag, cached.body, System.currentTimeMillis()));
+                    return cached.body;
+                }
+                if (code == 404) {
+                    return null;
+                }
+                if ((code == 403 || code == 429) && isRateLimited(response)) {
+                    if (cached != null) {
+                        logger.warn("GitHub 速率限制已用盡，使用快取的回應: {}", url);
+                        return cached.body;
+                    }
+                    throw new RateLimitException(rateResetMillis);
+                }
+                if (code != 200) {
+                    throw new IOException("GitHub API 錯誤: HTTP " + code);
+                }
+                
+                String body = new String(response.getEntity().getContent().readAllBytes(), StandardCharsets.UTF_8);
+                Header etag = response.getFirstHeader("ETag");
+                writeCache(key, new CachedResponse(etag != null ? etag.getValue() : null, body, System.currentTimeMillis()));
+                return body;
+            });
+        } catch (RateLimitException e) {
+            throw e;
+        } catch (IOException e) {
+            // 離線時沿用上次的回應
+            if (cached != null) {
+                logger.warn("GitHub 請求失敗，使用快取的回應: {} ({})", url, e.getMessage());
+                return cached.body;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 為請求加入 Token (raw.githubusercontent.com 下載私有倉庫文件時也需要)
+     */
+    public void authorize(HttpRequest request) {
+        String token = config.getGithubToken();
+        if (token != null && !token.isBlank()) {
+            request.setHeader("Authorization", "Bearer " + token.trim());
+        }
+    }
+    
+    /**
+     * 剩餘配額，尚未取得時返回 -1
+     */
+    public synchronized int getRateRemaining() {
+        return rateRemaining;
+    }
+    
+    /**
+     * 依目前配額決定請求是否可以發送；非必要請求在配額偏低時平均分攤到重置前的剩餘時間
+     * @return false 表示應改用快取
+     */
+    private boolean awaitBudget(Priority priority) throws IOException {
+        long waitMillis;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (rateRemaining < 0 || now >= rateResetMillis) {
+                lastBackgroundRequestMillis = now;
+                return true;
+            }
+            if (rateRemaining == 0) {
+                return false;
+            }
+            if (priority == Priority.CRITICAL) {
+                return true;
+            }
+            if (rateRemaining <= RESERVED_BUDGET) {
+                return false;
+            }
+            if (rateRemaining >= rateLimit * LOW_BUDGET_RATIO) {
+                lastBackgroundRequestMillis = now;
+                return true;
+            }
+            
+            long spacing = (rateResetMillis - now) / (rateRemaining - RESERVED_BUDGET);
+            long next = lastBackgroundRequestMillis + spacing;
+            waitMillis = Math.max(0, next - now);
+            if (waitMillis > MAX_DEFER_MILLIS) {
+                return false;
+            }
+            lastBackgroundRequestMillis = now + waitMillis;
+        }
+        
+        if (waitMillis > 0) {
+            logger.debug("GitHub 配額偏低，延後 {} 毫秒發送背景請求", waitMillis);
+            try {
+                Thread.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("請求已中斷", e);
+            }
+        }
+        return true;
+    }
+    
+    private void updateRateLimit(ClassicHttpResponse response) {
+        Header limit = response.getFirstHeader("X-RateLimit-Limit");
+        Header remaining = response.getFirstHeader("X-RateLimit-Remaining");
+        Header reset = response.getFirstHeader("X-RateLimit-Reset");
+        if (remaining == null || reset == null) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                rateLimit = limit != null ? Integer.parseInt(limit.getValue()) : rateLimit;
+                rateRemaining = Integer.parseInt(remaining.getValue());
+                rateResetMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(reset.getValue()));
+            }
+            saveRateLimit();
+        } catch (NumberFormatException e) {
+            logger.debug("無法解析速率限制標頭", e);
+        }
+    }
+    
+    private boolean isRateLimited(ClassicHttpResponse response) {
+        Header remaining = response.getFirstHeader("X-RateLimit-Remaining");
+        Header retryAfter = response.getFirstHeader("Retry-After");
+        if (retryAfter != null) {
+            // 次級速率限制只提供 Retry-After
+            try {
+                synchronized (this) {
+                    rateRemaining = 0;
+                    rateResetMillis = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.getValue()));
+                }
+            } catch (NumberFormatException ignored) {
+            }
+            return true;
+        }
+        return remaining != null && "0".equals(remaining.getValue());
+    }
+    
+    private CachedResponse readCache(String key) {
+        CachedResponse cached = memoryCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Path file = cacheFile(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(file.toFile());
+            cached = new CachedResponse(
+                    node.hasNonNull("etag") ? node.get("etag").asText() : null,
+                    node.get("body").asText(),
+                    // 磁碟上的快取一律需要重新驗證
+                    0);
+            memoryCache.put(key, cached);
+            return cached;
+        } catch (Exception e) {
+            logger.debug("GitHub 快取損壞，忽略: {}", file, e);
+            return null;
+        }
+    }
+    
+    private void writeCache(String key, CachedResponse response) {
+        CachedResponse previous = memoryCache.put(key, response);
+        if (previous != null && previous.body.equals(response.body)
+                && Objects.equals(previous.etag, response.etag)) {
+            return;
+        }
+        Path file = cacheFile(key);
+        try {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("key", key);
+            data.put("etag", response.etag);
+            data.put("body", response.body);
+            writeAtomically(file, objectMapper.writeValueAsBytes(data));
+        } catch (IOException e) {
+            logger.warn("無法寫入 GitHub 快取: {}", file, e);
+        }
+    }
+    
+    private void loadRateLimit() {
+        Path file = cacheDirectory.resolve("rate-limit.json");
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(file.toFile());
+            rateLimit = node.path("limit").asInt(-1);
+            rateRemaining = node.path("remaining").asInt(-1);
+            rateResetMillis = node.path("reset").asLong(0);
+        } catch (Exception e) {
+            logger.debug("無法讀取速率限制狀態", e);
+        }
+    }
+    
+    private void saveRateLimit() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        synchronized (this) {
+            data.put("limit", rateLimit);
+            data.put("remaining", rateRemaining);
+            data.put("reset", rateResetMillis);
+        }
+        try {
+            writeAtomically(cacheDirectory.resolve("rate-limit.json"), objectMapper.writeValueAsBytes(data));
+        } catch (IOException e) {
+            logger.debug("無法保存速率限制狀態", e);
+        }
+    }
+    
+    private Path cacheFile(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return cacheDirectory.resolve(HexFormat.of().formatHex(digest) + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    private static final class CachedResponse {
+        final String etag;
+        final String body;
+        final long fetchedAt;
+        
+        CachedResponse(String etag, String body, long fetchedAt) {
+            this.etag = etag;
+            this.body = body;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+    
+    /**
+     * 速率限制已用盡且沒有可用的快取
+     */
+    public static class RateLimitException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        private final long resetMillis;
+        
+        public RateLimitException(long resetMillis) {
+            super("GitHub API 速率限制已用盡，請稍後再試或在設定中填寫 GitHub Token");
+            this.resetMillis = resetMillis;
+        }
+        
+        public long getResetMillis() {
+            return resetMillis;
+        }
+    }
+}
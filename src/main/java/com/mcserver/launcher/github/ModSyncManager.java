@@ -4,191 +4,1165 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mcserver.launcher.config.LauncherConfig;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * 模組同步管理器
- * 負責與 GitHub 倉庫進行增量更新 (Mods & ResourcePacks)
+ * 負責與 GitHub 倉庫 (或模組包清單) 進行增量更新。
+ * 同步範圍由 sync-rules.json 中的規則決定：每條規則把遠端路徑前綴對應到遊戲目錄下的本地目錄，
+ * 並指定 include / exclude 與更新策略，默認只同步 mods 與 resourcepacks。
  */
 public class ModSyncManager {
     
     private static final Logger logger = LoggerFactory.getLogger(ModSyncManager.class);
-    private static final String GITHUB_API_BASE = "https://api.github.com/repos";
+    private static final String GITHUB_RAW_BASE = "https://raw.githubusercontent.com";
+    
+    // 遊戲目錄下的暫存目錄名稱
+    private static final String STAGING_DIRECTORY = ".sync-staging";
+    
+    // 同步狀態中保存清單快取驗證資訊的鍵
+    private static final String STATE_MANIFEST_ETAG = "manifest.etag";
+    private static final String STATE_MANIFEST_LAST_MODIFIED = "manifest.lastModified";
+    
+    // 同時下載的文件數與單個文件的最大嘗試次數
+    private static final int DOWNLOAD_CONCURRENCY = 6;
+    
+    // 同時比對的同步目錄數 (比對時需要計算本地雜湊)
+    private static final int PLAN_CONCURRENCY = 3;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long INITIAL_BACKOFF_MS = 1000;
+    
+    // 需下載的位元組佔全部遠端文件的比例達到此值時 (例如首次安裝)，改用整包壓縮檔
+    private static final double BUNDLE_MIN_RATIO = 0.5;
+    
+    // 進度回調的最小間隔，避免逐位元組刷新 UI
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
     
     private final LauncherConfig config;
     private final ObjectMapper objectMapper;
     private final CloseableHttpClient httpClient;
+    private final GitHubClient github;
+    private final GitHashIndex hashIndex;
+    private final ChunkStore chunkStore;
+    private final ModpackGenerations generations;
+    private final ExecutorService downloadExecutor;
+    private final ExecutorService planExecutor;
+    private final List<SyncRule> rules;
+    // 記錄的同步版本附加目前規則的雜湊，規則改變後不會因遠端版本相同而跳過同步
+    private final String rulesSuffix;
+    
+    // 同步依序執行 (共用暫存目錄與雜湊索引)；每次同步有遞增的編號，取消會作用於編號不大於 cancelledUpTo 的同步，
+    // 因此排隊中的同步也會被取消，新的同步不會清除其他同步的取消狀態
+    private final Object syncLock = new Object();
+    private final AtomicLong runCounter = new AtomicLong();
+    private final AtomicLong cancelledUpTo = new AtomicLong();
+    private volatile long activeRun;
+    // 進行中的請求 (用於中止連線)
+    private final Set<HttpGet> activeRequests = ConcurrentHashMap.newKeySet();
     
-    public ModSyncManager(LauncherConfig config) {
+    public ModSyncManager(LauncherConfig config, GitHubClient github) {
         this.config = config;
+        this.github = github;
         this.objectMapper = new ObjectMapper();
-        this.httpClient = HttpClients.createDefault();
+        // 連線池：同一主機的連線在文件間重用
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnPerRoute(DOWNLOAD_CONCURRENCY)
+                        .setMaxConnTotal(DOWNLOAD_CONCURRENCY * 2)
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofSeconds(30))
+                        .setResponseTimeout(Timeout.ofSeconds(60))
+                        .build())
+                .build();
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.downloadExecutor = Executors.newFixedThreadPool(DOWNLOAD_CONCURRENCY, runnable -> {
+            Thread thread = new Thread(runnable, "sync-download-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.planExecutor = Executors.newFixedThreadPool(PLAN_CONCURRENCY, runnable -> {
+            Thread thread = new Thread(runnable, "sync-plan-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hashIndex = new GitHashIndex(Paths.get(config.getLauncherDirectory(), "sync-index.json"));
+        this.chunkStore = new ChunkStore(Paths.get(config.getLauncherDirectory(), "cache", "chunks"));
+        this.rules = loadRules(Paths.get(config.getLauncherDirectory(), "sync-rules.json"));
+        this.rulesSuffix = "@" + rulesHash(rules);
+        
+        List<Path> liveDirectories = new ArrayList<>();
+        rules.forEach(rule -> liveDirectories.add(localDirectoryOf(rule)));
+        // 暫存目錄放在遊戲目錄下，與同步目錄位於同一磁碟區，組裝新世代時可直接移動文件
+        Path gameDirectory = Paths.get(config.getMinecraftDirectory());
+        this.generations = new ModpackGenerations(gameDirectory.resolve(STAGING_DIRECTORY), gameDirectory, liveDirectories);
+        this.generations.recover();
+        removeLegacyStaging(Paths.get(config.getLauncherDirectory(), "sync-staging"));
     }
     
     /**
-     * 執行完整同步 (Mods 和 ResourcePacks)
+     * 舊版本把暫存目錄放在啟動器目錄下，其中的預先下載內容不再使用
+     */
+    private static void removeLegacyStaging(Path legacy) {
+        try {
+            ModpackGenerations.deleteRecursively(legacy);
+        } catch (IOException e) {
+            logger.debug("無法刪除舊暫存目錄: {}", legacy, e);
+        }
+    }
+    
+    /**
+     * 執行完整同步 (依同步規則)
+     * 先解析遠端版本 (分支最新提交，或模組包清單的雜湊)，與上次成功同步的版本相同且本地文件未被改動時直接結束；
+     * 否則取得完整文件列表 (一次 Git Trees API 請求，或已下載的清單)，並行比對所有同步目錄。
+     * 新文件由共用的下載排程下載到暫存目錄並全部校驗後，才以目錄替換的方式一次性套用，失敗時現有文件保持不變。
      * @param progressCallback 進度回調 (message, progress 0-100)
      */
     public CompletableFuture<Void> syncAll(Consumer<String> statusCallback, Consumer<Double> progressCallback) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                logger.info("開始同步模組與資源包...");
-                
-                // 同步 Mods
-                syncDirectory("mods", config.getModsDirectory(), statusCallback, progressCallback, 0, 50);
-                
-                // 同步 ResourcePacks
-                syncDirectory("resourcepacks", config.getResourcePacksDirectory(), statusCallback, progressCallback, 50, 100);
-                
-                statusCallback.accept("同步完成！");
-                progressCallback.accept(100.0);
-                
-            } catch (Exception e) {
-                logger.error("同步失敗", e);
-                throw new RuntimeException("同步失敗: " + e.getMessage());
+        return runSync(true, statusCallback, progressCallback).thenApply(applied -> null);
+    }
+    
+    /**
+     * 只下載並校驗更新到暫存目錄，不修改遊戲目錄 (可在遊戲運行時執行)
+     * 之後呼叫 {@link #syncAll} 時會直接使用已暫存的文件
+     * @return 是否有待套用的更新
+     */
+    public CompletableFuture<Boolean> prefetch(Consumer<String> statusCallback, Consumer<Double> progressCallback) {
+        return runSync(false, statusCallback, progressCallback);
+    }
+    
+    /**
+     * 本地文件是否仍與上次成功同步的版本一致，不發送任何網路請求 (只比對文件大小與修改時間)
+     * 一致時遊戲可以直接啟動，遠端檢查可改在背景以 {@link #prefetch} 進行
+     */
+    public boolean isLocallyVerified() {
+        String synced = hashIndex.getSyncedCommit();
+        return synced != null && synced.endsWith(rulesSuffix) && hashIndex.isSyncedTo(synced);
+    }
+    
+    /**
+     * 是否有可還原的上一世代模組
+     */
+    public boolean canRollback() {
+        return generations.hasPrevious();
+    }
+    
+    /**
+     * 還原到上次同步前的模組與資源包
+     * 先取消進行中與排隊中的同步，再取得同步鎖，避免與同步同時修改模組目錄與雜湊索引
+     */
+    public void rollback() throws IOException {
+        cancelSync();
+        synchronized (syncLock) {
+            generations.rollback();
+            // 本地已與記錄的版本不一致，下次同步需重新比對
+            hashIndex.markSynced(null, List.of());
+            hashIndex.save();
+        }
+    }
+    
+    /**
+     * 獲取目前的同步規則
+     */
+    public List<SyncRule> getRules() {
+        return rules;
+    }
+    
+    /**
+     * 載入同步規則，文件不存在時寫入默認規則以便編輯
+     */
+    private List<SyncRule> loadRules(Path rulesFile) {
+        try {
+            if (Files.exists(rulesFile)) {
+                List<SyncRule> loaded = SyncRule.fromJson(objectMapper.readTree(rulesFile.toFile()).get("rules"));
+                if (!loaded.isEmpty()) {
+                    return loaded;
+                }
+            } else {
+                List<Map<String, Object>> defaults = new ArrayList<>();
+                SyncRule.defaults().forEach(rule -> defaults.add(rule.toJson()));
+                Files.createDirectories(rulesFile.getParent());
+                Files.writeString(rulesFile, objectMapper.writerWithDefaultPrettyPrinter()
+                        .writeValueAsString(Map.of("rules", defaults)));
+            }
+        } catch (Exception e) {
+            logger.error("載入同步規則失敗，使用默認規則: {}", rulesFile, e);
+        }
+        return SyncRule.defaults();
+    }
+    
+    /**
+     * 同步規則的短雜湊 (規則的 JSON 表示的 SHA-256 前 12 位)
+     */
+    private String rulesHash(List<SyncRule> rules) {
+        try {
+            List<Map<String, Object>> data = new ArrayList<>();
+            rules.forEach(rule -> data.add(rule.toJson()));
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(data));
+            return HexFormat.of().formatHex(digest).substring(0, 12);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private Path localDirectoryOf(SyncRule rule) {
+        return Paths.get(config.getMinecraftDirectory()).resolve(rule.getLocalPath()).normalize();
+    }
+    
+    private CompletableFuture<Boolean> runSync(boolean apply, Consumer<String> statusCallback,
+                                               Consumer<Double> progressCallback) {
+        long run = runCounter.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> {
+            synchronized (syncLock) {
+                activeRun = run;
+                return runSyncLocked(apply, statusCallback, progressCallback);
             }
         });
     }
     
+    private boolean runSyncLocked(boolean apply, Consumer<String> statusCallback, Consumer<Double> progressCallback) {
+        try {
+            checkCancelled();
+            logger.info("開始同步，共 {} 條同步規則", rules.size());
+            statusCallback.accept("正在檢查更新...");
+            
+            boolean useManifest = isManifestSource();
+            String remoteVersion = useManifest ? fetchManifest() : resolveHeadCommit();
+            String syncedVersion = remoteVersion != null ? remoteVersion + rulesSuffix : null;
+            if (hashIndex.isSyncedTo(syncedVersion)) {
+                logger.info("遠端版本 {} 未變更，跳過同步", remoteVersion);
+                statusCallback.accept("模組與資源包已是最新版本");
+                progressCallback.accept(100.0);
+                return false;
+            }
+            
+            ModpackManifest manifest = useManifest ? readCachedManifest() : null;
+            List<RemoteFile> remoteTree = manifest != null ? remoteFilesOf(manifest) : fetchRemoteTree(remoteVersion);
+            
+            // 1. 並行比對所有同步目錄
+            List<CompletableFuture<RootPlan>> planFutures = new ArrayList<>();
+            for (SyncRule rule : rules) {
+                List<RemoteFile> remoteFiles = remoteTree != null ? filesOf(rule, remoteTree) : null;
+                planFutures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return planRoot(rule, remoteFiles, statusCallback);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, planExecutor));
+            }
+            List<RootPlan> plans = new ArrayList<>();
+            for (CompletableFuture<RootPlan> future : planFutures) {
+                try {
+                    plans.add(future.join());
+                } catch (CompletionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+            
+            // 2. 大部分文件都需要下載時先解壓整包壓縮檔，其餘 (或壓縮包中版本不符的) 文件再逐個下載
+            double downloadStart = 0;
+            long bundleBytes = 0;
+            String bundleUrl = manifest != null && manifest.getBundleUrl() != null
+                    ? manifest.getBundleUrl() : config.getModBundleUrl();
+            if (shouldUseBundle(bundleUrl, plans)) {
+                downloadStart = 60;
+                bundleBytes = extractBundle(bundleUrl, plans, statusCallback, progressCallback, 0, downloadStart);
+            }
+            
+            // 3. 所有目錄共用一個下載排程，下載到暫存目錄
+            downloadAll(plans, statusCallback, progressCallback, downloadStart, 90);
+            plans.forEach(plan -> {
+                logger.info("[{}] {}", plan.rule.getLocalPath(), plan.summary());
+                statusCallback.accept("[" + plan.rule.getLocalPath() + "] " + plan.summary());
+            });
+            reportTransfer(plans, bundleBytes, statusCallback);
+            
+            boolean changed = plans.stream().anyMatch(RootPlan::hasChanges);
+            if (!apply) {
+                statusCallback.accept(changed ? "更新已下載，將在下次同步時套用" : "模組與資源包已是最新版本");
+                progressCallback.accept(100.0);
+                return changed;
+            }
+            
+            // 4. 一次性替換有變更的目錄
+            if (changed) {
+                statusCallback.accept("正在套用更新...");
+                applyPlans(plans.stream().filter(RootPlan::hasChanges).collect(Collectors.toList()));
+            }
+            
+            // 只有從文件樹取得的完整清單才能作為下次跳過的依據
+            List<Path> syncedFiles = new ArrayList<>();
+            for (RootPlan plan : plans) {
+                for (String name : plan.synced) {
+                    Path file = plan.liveDir.resolve(name);
+                    syncedFiles.add(file);
+                    hashIndex.setBaseline(file, hashIndex.getSha256(file));
+                }
+            }
+            hashIndex.markSynced(remoteTree == null ? null : syncedVersion, syncedFiles);
+            if (manifest != null) {
+                // 只保留目前清單仍引用的塊
+                Set<String> referenced = new HashSet<>();
+                manifest.getFiles().stream().filter(entry -> entry.getChunks() != null)
+                        .forEach(entry -> entry.getChunks().forEach(chunk -> referenced.add(chunk.getSha256())));
+                chunkStore.retainOnly(referenced);
+            }
+            
+            statusCallback.accept("同步完成！");
+            progressCallback.accept(100.0);
+            return changed;
+            
+        } catch (CancellationException e) {
+            logger.info("同步已取消");
+            throw e;
+        } catch (Exception e) {
+            logger.error("同步失敗", e);
+            throw new RuntimeException("同步失敗: " + e.getMessage());
+        } finally {
+            hashIndex.save();
+        }
+    }
+    
     /**
-     * 同步單個目錄
+     * 取出屬於某條規則的遠端文件 (路徑轉為相對於該規則)
      */
-    private void syncDirectory(String remoteDirName, Path localDir, 
-                               Consumer<String> statusCallback, Consumer<Double> progressCallback,
-                               double startProgress, double endProgress) throws Exception {
+    private static List<RemoteFile> filesOf(SyncRule rule, List<RemoteFile> remoteTree) {
+        List<RemoteFile> files = new ArrayList<>();
+        for (RemoteFile file : remoteTree) {
+            String relative = rule.relativize(file.name);
+            if (relative != null && !relative.isEmpty()) {
+                RemoteFile copy = new RemoteFile(relative, file.size, file.downloadUrl, file.sha, file.sha256);
+                copy.chunks = file.chunks;
+                copy.chunkUrls = file.chunkUrls;
+                files.add(copy);
+            }
+        }
+        return files;
+    }
+    
+    /**
+     * 比對單個同步目錄 (包含子資料夾)，依規則的策略決定要下載、保留與刪除的文件
+     * @param remoteFiles 遠端文件 (路徑相對於該目錄)；為 null 時改用 Contents API 查詢
+     */
+    private RootPlan planRoot(SyncRule rule, List<RemoteFile> remoteFiles, Consumer<String> statusCallback) throws Exception {
+        Path liveDir = localDirectoryOf(rule);
+        statusCallback.accept("正在檢查 " + rule.getLocalPath() + "...");
+        Files.createDirectories(liveDir);
+        Path stagingDir = generations.getStagingDirectory(liveDir);
+        
+        // 1. 獲取遠端文件列表 (只保留規則範圍內的文件)
+        if (remoteFiles == null) {
+            remoteFiles = fetchRemoteFiles(rule.getRemotePrefix());
+        }
+        List<RemoteFile> inScope = remoteFiles.stream().filter(f -> rule.matches(f.name)).collect(Collectors.toList());
+        Set<String> remoteNames = inScope.stream().map(f -> f.name).collect(Collectors.toSet());
+        
+        // 2. 獲取本地文件列表 (以 / 分隔的相對路徑)
+        Set<String> localFilenames = listRelativeFiles(liveDir);
+        
+        // 3. 計算差異 (大小不同時無需計算雜湊)
+        RootPlan plan = new RootPlan(rule, liveDir, stagingDir);
+        for (RemoteFile remoteFile : inScope) {
+            Path localPath = liveDir.resolve(remoteFile.name);
+            plan.remoteBytes += remoteFile.size;
+            plan.keep.add(remoteFile.name);
+            if (!Files.exists(localPath)) {
+                plan.download(remoteFile);
+            } else if (isUpToDate(remoteFile, localPath)) {
+                plan.synced.add(remoteFile.name);
+            } else if (rule.shouldOverwrite(rule.getPolicy() == SyncRule.Policy.PRESERVE_MODIFIED
+                    && hashIndex.isModifiedSinceSync(localPath))) {
+                plan.download(remoteFile);
+            } else {
+                plan.preserved++;
+            }
+        }
         
-        statusCallback.accept("正在檢查 " + remoteDirName + "...");
-        Files.createDirectories(localDir);
+        // 規則範圍外的文件一律保留；範圍內但遠端沒有的文件只在鏡像策略下刪除
+        for (String filename : localFilenames) {
+            if (remoteNames.contains(filename)) {
+                continue;
+            }
+            if (rule.shouldDelete(filename)) {
+                plan.deleted++;
+            } else {
+                plan.keep.add(filename);
+            }
+        }
         
-        // 1. 獲取遠端文件列表
-        List<GitHubFile> remoteFiles = fetchRemoteFiles(remoteDirName);
-        Map<String, GitHubFile> remoteFileMap = remoteFiles.stream()
-                .collect(Collectors.toMap(f -> f.name, f -> f));
+        // 4. 清除暫存目錄中不再需要的舊文件，保留已下載且仍然有效的文件以便續傳
+        Set<String> needed = plan.toDownload.stream().map(f -> f.name).collect(Collectors.toSet());
+        for (String staged : listRelativeFiles(stagingDir)) {
+            if (!needed.contains(staged)) {
+                Files.deleteIfExists(stagingDir.resolve(staged));
+                hashIndex.remove(stagingDir.resolve(staged));
+            }
+        }
         
-        // 2. 獲取本地文件列表
-        Set<String> localFilenames;
-        try (Stream<Path> stream = Files.list(localDir)) {
-            localFilenames = stream
+        logger.info("[{}] 需下載: {}, 需刪除: {}, 保留已修改: {}",
+                rule.getLocalPath(), plan.toDownload.size(), plan.deleted, plan.preserved);
+        return plan;
+    }
+    
+    /**
+     * 以暫存文件組裝新世代並替換現有目錄，同時把雜湊索引中的暫存路徑移到最終路徑
+     */
+    private void applyPlans(List<RootPlan> plans) throws IOException {
+        Map<Path, Collection<String>> swap = new LinkedHashMap<>();
+        Map<Path, Path> relocated = new HashMap<>();
+        for (RootPlan plan : plans) {
+            for (RemoteFile file : plan.toDownload) {
+                relocated.put(plan.stagingDir.resolve(file.name), plan.liveDir.resolve(file.name));
+            }
+            swap.put(plan.liveDir, plan.keep);
+        }
+        
+        generations.swap(swap);
+        relocated.forEach(hashIndex::relocate);
+    }
+    
+    private boolean isUpToDate(RemoteFile remoteFile, Path localPath) throws IOException {
+        return Files.exists(localPath) && Files.size(localPath) == remoteFile.size
+                && remoteFile.matches(new GitHashIndex.Hashes(
+                        hashIndex.getBlobSha(localPath), hashIndex.getSha256(localPath)));
+    }
+    
+    private static Set<String> listRelativeFiles(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return Collections.emptySet();
+        }
+        try (Stream<Path> stream = Files.walk(dir)) {
+            return stream
                     .filter(Files::isRegularFile)
-                    .map(p -> p.getFileName().toString())
+                    .map(p -> dir.relativize(p).toString().replace('\\', '/'))
                     .collect(Collectors.toSet());
         }
+    }
+    
+    /**
+     * 取消進行中的同步，並中止所有正在下載的連線
+     */
+    public void cancelSync() {
+        cancelledUpTo.accumulateAndGet(runCounter.get(), Math::max);
+        activeRequests.forEach(HttpGet::cancel);
+    }
+    
+    private static boolean shouldUseBundle(String bundleUrl, List<RootPlan> plans) {
+        if (bundleUrl == null || bundleUrl.isBlank() || !ModpackBundle.isSupported(bundleUrl)) {
+            return false;
+        }
+        long downloadBytes = plans.stream().mapToLong(plan -> plan.totalBytes).sum();
+        long remoteBytes = plans.stream().mapToLong(plan -> plan.remoteBytes).sum();
+        return downloadBytes > 0 && downloadBytes >= remoteBytes * BUNDLE_MIN_RATIO;
+    }
+    
+    /**
+     * 以單次請求下載整包壓縮檔，邊下載邊把需要的文件解壓到暫存目錄
+     * 解壓出的文件之後仍由 {@link #downloadWithRetry} 校驗，不符的文件會重新逐個下載；
+     * 壓縮包下載失敗時只記錄警告，改為逐個下載
+     * @return 下載的壓縮包位元組數
+     */
+    private long extractBundle(String url, List<RootPlan> plans, Consumer<String> statusCallback,
+                               Consumer<Double> progressCallback, double startProgress, double endProgress) {
+        Map<String, Path> targets = new HashMap<>();
+        for (RootPlan plan : plans) {
+            String prefix = plan.rule.getRemotePrefix();
+            for (RemoteFile file : plan.toDownload) {
+                targets.put(prefix.isEmpty() ? file.name : prefix + "/" + file.name, plan.stagingDir.resolve(file.name));
+            }
+        }
         
-        // 3. 計算差異
-        List<GitHubFile> toDownload = new ArrayList<>();
-        List<String> toDelete = new ArrayList<>();
+        statusCallback.accept("正在下載模組包壓縮檔...");
+        HttpGet get = new HttpGet(url);
+        if (url.startsWith(GITHUB_RAW_BASE)) {
+            github.authorize(get);
+        }
+        activeRequests.add(get);
+        long[] bytesRead = new long[1];
+        try {
+            int extracted = httpClient.execute(get, response -> {
+                if (response.getCode() != 200) {
+                    throw new HttpStatusException(response.getCode());
+                }
+                long total = response.getEntity().getContentLength();
+                AtomicLong lastReport = new AtomicLong();
+                InputStream counting = new FilterInputStream(response.getEntity().getContent()) {
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int n = super.read(b, off, len);
+                        if (n > 0) {
+                            bytesRead[0] += n;
+                            long now = System.nanoTime();
+                            if (total > 0 && now - lastReport.get() >= PROGRESS_INTERVAL_NANOS) {
+                                lastReport.set(now);
+                                double fraction = Math.min(1.0, (double) bytesRead[0] / total);
+                                progressCallback.accept(startProgress + fraction * (endProgress - startProgress));
+                            }
+                        }
+                        return n;
+                    }
+                };
+                return ModpackBundle.extract(counting, url, path -> {
+                    checkCancelled();
+                    return targets.get(path);
+                });
+            });
+            logger.info("已從模組包壓縮檔解壓 {} / {} 個文件", extracted, targets.size());
+            progressCallback.accept(endProgress);
+        } catch (CancellationException e) {
+            throw e;
+        } catch (IOException e) {
+            checkCancelled();
+            logger.warn("無法使用模組包壓縮檔，改為逐個下載: {}", e.getMessage());
+            statusCallback.accept("模組包壓縮檔不可用，改為逐個下載");
+        } finally {
+            activeRequests.remove(get);
+        }
+        return bytesRead[0];
+    }
+    
+    /**
+     * 報告本次同步實際傳輸的位元組數，以及差異更新、分塊與整包壓縮檔節省的流量
+     */
+    private static void reportTransfer(List<RootPlan> plans, long bundleBytes, Consumer<String> statusCallback) {
+        long totalBytes = plans.stream().mapToLong(plan -> plan.totalBytes).sum();
+        if (totalBytes == 0) {
+            return;
+        }
+        long transferred = bundleBytes + plans.stream().mapToLong(plan -> plan.transferredBytes.get()).sum();
+        String report = String.format("本次傳輸 %.1f MB (更新內容 %.1f MB，節省 %.0f%%)",
+                transferred / 1048576.0, totalBytes / 1048576.0,
+                Math.max(0, 100.0 * (totalBytes - transferred) / totalBytes));
+        logger.info(report);
+        statusCallback.accept(report);
+    }
+    
+    /**
+     * 以有限並行度下載所有目錄的文件，按位元組回報總進度，並按目錄統計文件數與位元組數；
+     * 任一文件最終失敗時取消其餘下載
+     */
+    private void downloadAll(List<RootPlan> plans, Consumer<String> statusCallback, Consumer<Double> progressCallback,
+                             double startProgress, double endProgress) throws Exception {
+        long totalBytes = Math.max(1, plans.stream().mapToLong(plan -> plan.totalBytes).sum());
+        AtomicLong downloadedBytes = new AtomicLong();
+        AtomicLong lastReport = new AtomicLong();
         
-        // 檢查需要下載/更新的文件
-        for (GitHubFile remoteFile : remoteFiles) {
-            Path localPath = localDir.resolve(remoteFile.name);
-            if (!Files.exists(localPath) || Files.size(localPath) != remoteFile.size) {
-                toDownload.add(remoteFile);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (RootPlan plan : plans) {
+            for (RemoteFile file : plan.toDownload) {
+                Consumer<Long> onBytes = delta -> {
+                    plan.downloadedBytes.addAndGet(delta);
+                    long done = downloadedBytes.addAndGet(delta);
+                    long now = System.nanoTime();
+                    long last = lastReport.get();
+                    if (now - last >= PROGRESS_INTERVAL_NANOS && lastReport.compareAndSet(last, now)) {
+                        double fraction = Math.min(1.0, (double) done / totalBytes);
+                        progressCallback.accept(startProgress + fraction * (endProgress - startProgress));
+                    }
+                };
+                
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        plan.transferredBytes.addAndGet(downloadWithRetry(
+                                file, plan.stagingDir.resolve(file.name), plan.liveDir.resolve(file.name), onBytes));
+                        statusCallback.accept(String.format("[%s] 下載完成: %s (%d/%d, %.1f/%.1f MB)",
+                                plan.rule.getLocalPath(), file.name,
+                                plan.downloadedFiles.incrementAndGet(), plan.toDownload.size(),
+                                plan.downloadedBytes.get() / 1048576.0, plan.totalBytes / 1048576.0));
+                    } catch (CancellationException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, downloadExecutor));
             }
         }
+        if (futures.isEmpty()) {
+            return;
+        }
         
-        // 檢查需要刪除的文件
-        for (String filename : localFilenames) {
-            if (!remoteFileMap.containsKey(filename)) {
-                toDelete.add(filename);
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new));
+        // 任一失敗立即取消本次同步的其他下載，不必等待全部結束
+        futures.forEach(f -> f.whenComplete((r, ex) -> {
+            if (ex != null && !isCancelled()) {
+                cancelledUpTo.accumulateAndGet(activeRun, Math::max);
+                activeRequests.forEach(HttpGet::cancel);
+            }
+        }));
+        
+        try {
+            all.join();
+        } catch (CompletionException e) {
+            Throwable cause = firstFailure(futures);
+            if (cause instanceof CancellationException) {
+                throw (CancellationException) cause;
+            }
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+        progressCallback.accept(endProgress);
+    }
+    
+    /**
+     * 找出真正導致失敗的原因 (而非因連帶取消產生的例外)
+     */
+    private static Throwable firstFailure(List<CompletableFuture<Void>> futures) {
+        Throwable fallback = null;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException | CancellationException e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (!(cause instanceof CancellationException)) {
+                    return cause;
+                }
+                fallback = cause;
             }
         }
+        return fallback;
+    }
+    
+    /**
+     * 下載單個文件，失敗時以指數退避重試並校驗雜湊
+     * 有分塊清單時只下載本地沒有的塊；分塊下載失敗時改為完整下載
+     * @return 實際經由網路傳輸的位元組數
+     */
+    private long downloadWithRetry(RemoteFile file, Path destination, Path basis, Consumer<Long> onBytes) throws Exception {
+        Path partFile = destination.resolveSibling(destination.getFileName() + ".part");
+        Files.createDirectories(destination.getParent());
+        long backoff = INITIAL_BACKOFF_MS;
         
-        logger.info("[{}] 需下載: {}, 需刪除: {}", remoteDirName, toDownload.size(), toDelete.size());
+        // 上次預先下載時已暫存且校驗過的文件直接沿用
+        if (isUpToDate(file, destination)) {
+            onBytes.accept(file.size);
+            return 0;
+        }
         
-        // 4. 執行刪除
-        for (String filename : toDelete) {
-            statusCallback.accept("刪除舊文件: " + filename);
-            Files.deleteIfExists(localDir.resolve(filename));
+        // 大型 zip 先嘗試只下載變更的條目
+        if (file.chunks == null && ZipDelta.isCandidate(file.name, file.size) && Files.isRegularFile(basis)) {
+            long transferred = downloadZipDelta(file, basis, destination, partFile, onBytes);
+            if (transferred >= 0) {
+                return transferred;
+            }
         }
         
-        // 5. 執行下載
-        int totalOps = toDownload.size();
-        for (int i = 0; i < totalOps; i++) {
-            GitHubFile file = toDownload.get(i);
-            statusCallback.accept("下載: " + file.name);
-            
-            // 下載文件
-            downloadFile(file.downloadUrl, localDir.resolve(file.name));
+        // 本地沒有任何可沿用的塊時 (例如首次安裝) 整個下載，請求數更少
+        boolean useChunks = file.chunks != null && (Files.isRegularFile(basis)
+                || file.chunks.stream().anyMatch(chunk -> chunkStore.contains(chunk.getSha256())));
+        for (int attempt = 1; ; attempt++) {
+            checkCancelled();
+            long[] written = new long[1];
+            long transferred;
+            try {
+                Consumer<Long> counting = delta -> {
+                    written[0] += delta;
+                    onBytes.accept(delta);
+                };
+                if (useChunks) {
+                    transferred = assembleChunks(file, basis, partFile, counting);
+                } else {
+                    downloadFile(file.downloadUrl, partFile, counting);
+                    transferred = written[0];
+                }
+                
+                GitHashIndex.Hashes hashes = GitHashIndex.computeHashes(partFile);
+                if (!file.matches(hashes)) {
+                    throw new IOException("文件校驗失敗: " + file.name);
+                }
+                Files.move(partFile, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                hashIndex.put(destination, hashes);
+                return transferred;
+                
+            } catch (IOException e) {
+                // 撤回本次嘗試已計入的進度
+                onBytes.accept(-written[0]);
+                Files.deleteIfExists(partFile);
+                checkCancelled();
+                
+                if (useChunks) {
+                    // 已下載的塊保留在倉庫中，下次仍可沿用
+                    logger.info("分塊下載 {} 失敗，改為完整下載: {}", file.name, e.getMessage());
+                    useChunks = false;
+                    continue;
+                }
+                
+                if (attempt >= MAX_ATTEMPTS || !isRetryable(e)) {
+                    throw new IOException("下載失敗: " + file.name + " (" + e.getMessage() + ")", e);
+                }
+                long delay = backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+                logger.warn("下載 {} 失敗 (第 {} 次)，{} 毫秒後重試: {}", file.name, attempt, delay, e.getMessage());
+                Thread.sleep(delay);
+                backoff *= 2;
+            }
+        }
+    }
+    
+    /**
+     * 以本地舊版本為基礎，透過 Range 請求只下載 zip 中變更的條目
+     * 重組的文件必須與遠端逐位元組相同 (以雜湊校驗)，否則放棄並改為完整下載
+     * @return 實際傳輸的位元組數，失敗時返回 -1
+     */
+    private long downloadZipDelta(RemoteFile file, Path basis, Path destination, Path partFile,
+                                     Consumer<Long> onBytes) throws IOException {
+        long[] fetched = new long[1];
+        try {
+            ZipDelta.Result result = ZipDelta.rebuild(basis, file.size, (start, length, out) -> {
+                checkCancelled();
+                fetchRange(file.downloadUrl, start, length, out, delta -> {
+                    fetched[0] += delta;
+                    onBytes.accept(delta);
+                });
+            }, partFile);
             
-            // 更新進度
-            double currentProgress = startProgress + ((double)(i + 1) / totalOps) * (endProgress - startProgress);
-            progressCallback.accept(currentProgress);
+            GitHashIndex.Hashes hashes = GitHashIndex.computeHashes(partFile);
+            if (!file.matches(hashes)) {
+                throw new IOException("重組後的文件與遠端不符");
+            }
+            Files.move(partFile, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            hashIndex.put(destination, hashes);
+            // 未下載的部分直接計入進度
+            onBytes.accept(file.size - fetched[0]);
+            logger.info("差異更新 {}: 沿用 {} 個條目，下載 {} 個條目 ({} / {} 位元組)",
+                    file.name, result.reusedEntries, result.fetchedEntries, fetched[0], file.size);
+            return fetched[0];
+        } catch (IOException e) {
+            checkCancelled();
+            onBytes.accept(-fetched[0]);
+            Files.deleteIfExists(partFile);
+            logger.info("無法差異更新 {}，改為完整下載: {}", file.name, e.getMessage());
+            return -1;
         }
     }
     
-    private List<GitHubFile> fetchRemoteFiles(String path) throws Exception {
-        String repo = config.getGithubRepo();
-        String url = String.format("%s/%s/contents/%s", GITHUB_API_BASE, repo, path);
+    /**
+     * 以分塊組裝文件：塊依序取自分塊倉庫、本地舊版本 (以相同參數分塊後比對雜湊) 或遠端
+     * 完整性由呼叫端以整個文件的雜湊校驗
+     * @return 下載的位元組數
+     */
+    private long assembleChunks(RemoteFile file, Path basis, Path partFile, Consumer<Long> onBytes) throws IOException {
+        Set<String> needed = new HashSet<>();
+        file.chunks.forEach(chunk -> needed.add(chunk.getSha256()));
         
+        // 1. 本地舊版本中已有的塊 (雜湊 -> 位置)
+        Map<String, Long> basisOffsets = new HashMap<>();
+        if (Files.isRegularFile(basis)) {
+            long[] position = new long[1];
+            try (InputStream in = Files.newInputStream(basis)) {
+                FastCdc.split(in, (data, offset, length, sha256) -> {
+                    if (needed.contains(sha256)) {
+                        basisOffsets.putIfAbsent(sha256, position[0]);
+                    }
+                    position[0] += length;
+                });
+            }
+        }
+        
+        // 2. 下載缺少的塊到倉庫
+        long downloaded = 0;
+        Set<String> fetched = new HashSet<>();
+        for (FastCdc.Chunk chunk : file.chunks) {
+            String hash = chunk.getSha256();
+            if (basisOffsets.containsKey(hash) || chunkStore.contains(hash) || !fetched.add(hash)) {
+                continue;
+            }
+            checkCancelled();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(chunk.getSize());
+            downloadTo(file.chunkUrls.apply(hash), buffer, onBytes);
+            chunkStore.put(hash, buffer.toByteArray());
+            downloaded += chunk.getSize();
+        }
+        
+        // 3. 依序組裝
+        try (OutputStream out = Files.newOutputStream(partFile);
+             FileChannel basisChannel = basisOffsets.isEmpty() ? null : FileChannel.open(basis)) {
+            for (FastCdc.Chunk chunk : file.chunks) {
+                Long basisOffset = basisOffsets.get(chunk.getSha256());
+                if (basisOffset != null) {
+                    ByteBuffer data = ByteBuffer.allocate(chunk.getSize());
+                    while (data.hasRemaining()) {
+                        if (basisChannel.read(data, basisOffset + data.position()) < 0) {
+                            throw new IOException("本地文件在分塊期間被修改: " + basis);
+                        }
+                    }
+                    out.write(data.array());
+                } else {
+                    Files.copy(chunkStore.pathOf(chunk.getSha256()), out);
+                }
+            }
+        }
+        // 沿用的部分直接計入進度
+        onBytes.accept(file.size - downloaded);
+        logger.info("分塊下載 {}: {} 個塊中下載 {} 個 ({} / {} 位元組)",
+                file.name, file.chunks.size(), fetched.size(), downloaded, file.size);
+        return downloaded;
+    }
+    
+    /**
+     * 以 Range 請求下載 [start, start + length)，伺服器不支援範圍請求時拋出 IOException
+     */
+    private void fetchRange(String url, long start, long length, OutputStream out, Consumer<Long> onBytes) throws IOException {
         HttpGet get = new HttpGet(url);
-        if (config.getGithubToken() != null && !config.getGithubToken().isEmpty()) {
-            get.setHeader("Authorization", "token " + config.getGithubToken());
+        if (url.startsWith(GITHUB_RAW_BASE)) {
+            github.authorize(get);
+        }
+        get.setHeader("Range", "bytes=" + start + "-" + (start + length - 1));
+        activeRequests.add(get);
+        try {
+            httpClient.execute(get, response -> {
+                if (response.getCode() != 206) {
+                    throw new HttpStatusException(response.getCode());
+                }
+                var contentRange = response.getFirstHeader("Content-Range");
+                if (contentRange == null || !contentRange.getValue().startsWith("bytes " + start + "-")) {
+                    throw new IOException("伺服器返回的範圍不符");
+                }
+                long remaining = length;
+                byte[] buffer = new byte[65536];
+                try (InputStream in = response.getEntity().getContent()) {
+                    int bytesRead;
+                    while (remaining > 0 && (bytesRead = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                        out.write(buffer, 0, bytesRead);
+                        remaining -= bytesRead;
+                        onBytes.accept((long) bytesRead);
+                    }
+                }
+                if (remaining > 0) {
+                    throw new IOException("範圍請求提前結束");
+                }
+                return null;
+            });
+        } finally {
+            activeRequests.remove(get);
+        }
+    }
+    
+    private void checkCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("同步已取消");
+        }
+    }
+    
+    private boolean isCancelled() {
+        return activeRun <= cancelledUpTo.get();
+    }
+    
+    private static boolean isRetryable(IOException e) {
+        return !(e instanceof HttpStatusException) || ((HttpStatusException) e).isRetryable();
+    }
+    
+    /**
+     * 是否使用模組包清單作為同步來源 (mods.updateSource = "manifest")
+     */
+    private boolean isManifestSource() {
+        return "manifest".equalsIgnoreCase(config.getModUpdateSource())
+                && config.getModManifestUrl() != null && !config.getModManifestUrl().isBlank();
+    }
+    
+    /**
+     * 以條件請求下載模組包清單 (If-None-Match / If-Modified-Since)，並快取在啟動器目錄中
+     * 清單是靜態文件，不經過 GitHub API，因此不受 API 速率限制
+     * @return 清單版本 ("manifest:" + 清單內容的 SHA-256)
+     */
+    private String fetchManifest() throws Exception {
+        Path cached = manifestCacheFile();
+        HttpGet get = new HttpGet(config.getModManifestUrl());
+        if (Files.exists(cached)) {
+            String etag = hashIndex.getState(STATE_MANIFEST_ETAG);
+            String lastModified = hashIndex.getState(STATE_MANIFEST_LAST_MODIFIED);
+            if (etag != null) get.setHeader("If-None-Match", etag);
+            if (lastModified != null) get.setHeader("If-Modified-Since", lastModified);
         }
         
-        try (var response = httpClient.execute(get)) {
-            if (response.getCode() == 404) {
-                logger.warn("遠端目錄不存在: {}", path);
-                return Collections.emptyList();
+        return httpClient.execute(get, response -> {
+            if (response.getCode() == 304) {
+                logger.debug("模組包清單未變更");
+                return "manifest:" + sha256(Files.readAllBytes(cached));
             }
-            
             if (response.getCode() != 200) {
-                throw new Exception("GitHub API 錯誤: " + response.getCode());
+                throw new IOException("無法下載模組包清單: HTTP " + response.getCode());
             }
             
-            String json = new String(response.getEntity().getContent().readAllBytes());
-            JsonNode root = objectMapper.readTree(json);
+            byte[] body = response.getEntity().getContent().readAllBytes();
+            Files.createDirectories(cached.getParent());
+            Path temp = cached.resolveSibling(cached.getFileName() + ".tmp");
+            Files.write(temp, body);
+            Files.move(temp, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
             
-            List<GitHubFile> files = new ArrayList<>();
-            if (root.isArray()) {
-                for (JsonNode node : root) {
-                    if ("file".equals(node.get("type").asText())) {
-                        files.add(new GitHubFile(
-                            node.get("name").asText(),
-                            node.get("size").asLong(),
-                            node.get("download_url").asText(),
-                            node.get("sha").asText()
-                        ));
-                    }
+            var etag = response.getFirstHeader("ETag");
+            var lastModified = response.getFirstHeader("Last-Modified");
+            hashIndex.setState(STATE_MANIFEST_ETAG, etag != null ? etag.getValue() : null);
+            hashIndex.setState(STATE_MANIFEST_LAST_MODIFIED, lastModified != null ? lastModified.getValue() : null);
+            return "manifest:" + sha256(body);
+        });
+    }
+    
+    /**
+     * 讀取已快取的清單
+     */
+    private ModpackManifest readCachedManifest() throws IOException {
+        return ModpackManifest.parse(
+                objectMapper.readTree(manifestCacheFile().toFile()), URI.create(config.getModManifestUrl()));
+    }
+    
+    private static List<RemoteFile> remoteFilesOf(ModpackManifest manifest) {
+        List<RemoteFile> files = new ArrayList<>();
+        for (ModpackManifest.Entry entry : manifest.getFiles()) {
+            RemoteFile file = new RemoteFile(entry.getPath(), entry.getSize(), entry.getUrl(), null, entry.getSha256());
+            if (entry.getChunks() != null && manifest.getChunkBaseUrl() != null) {
+                file.chunks = entry.getChunks();
+                file.chunkUrls = manifest::chunkUrl;
+            }
+            files.add(file);
+        }
+        return files;
+    }
+    
+    private Path manifestCacheFile() {
+        return Paths.get(config.getLauncherDirectory(), "cache", ModpackManifest.DEFAULT_FILE_NAME);
+    }
+    
+    private static String sha256(byte[] data) throws IOException {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+    
+    /**
+     * 解析預設分支的最新提交 SHA (使用 sha 媒體類型，回應只有 40 個字元)
+     */
+    private String resolveHeadCommit() throws Exception {
+        String sha = github.get("/repos/" + config.getGithubRepo() + "/commits/HEAD",
+                "application/vnd.github.sha", GitHubClient.Priority.CRITICAL);
+        if (sha == null) {
+            throw new IOException("無法取得最新提交: 倉庫不存在或沒有權限");
+        }
+        return sha.trim();
+    }
+    
+    /**
+     * 以單次遞迴請求取得整棵文件樹
+     * 文件樹過大被截斷時返回 null，由呼叫端改用 Contents API
+     */
+    private List<RemoteFile> fetchRemoteTree(String commit) throws Exception {
+        String repo = config.getGithubRepo();
+        JsonNode root = github.getJson("/repos/" + repo + "/git/trees/" + commit + "?recursive=1",
+                GitHubClient.Priority.CRITICAL);
+        if (root == null) {
+            throw new IOException("無法取得文件樹: " + commit);
+        }
+        
+        if (root.path("truncated").asBoolean(false)) {
+            logger.warn("遠端文件樹過大被截斷，改為逐目錄查詢");
+            return null;
+        }
+        
+        List<RemoteFile> files = new ArrayList<>();
+        for (JsonNode node : root.path("tree")) {
+            if (!"blob".equals(node.path("type").asText())) {
+                continue;
+            }
+            String path = node.get("path").asText();
+            files.add(new RemoteFile(path, node.get("size").asLong(), rawUrl(repo, commit, path), node.get("sha").asText()));
+        }
+        return files;
+    }
+    
+    private static String rawUrl(String repo, String commit, String path) {
+        StringBuilder url = new StringBuilder(GITHUB_RAW_BASE).append('/').append(repo).append('/').append(commit);
+        for (String segment : path.split("/")) {
+            url.append('/').append(URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20"));
+        }
+        return url.toString();
+    }
+    
+    /**
+     * 以 Contents API 逐層列出遠端目錄 (文件樹被截斷時的備用方案)，返回的路徑相對於 path
+     */
+    private List<RemoteFile> fetchRemoteFiles(String path) throws Exception {
+        List<RemoteFile> files = new ArrayList<>();
+        fetchRemoteFiles(path, "", files);
+        return files;
+    }
+    
+    private void fetchRemoteFiles(String path, String relativePrefix, List<RemoteFile> files) throws Exception {
+        checkCancelled();
+        JsonNode root = github.getJson("/repos/" + config.getGithubRepo() + "/contents/" + path,
+                GitHubClient.Priority.CRITICAL);
+        if (root == null) {
+            logger.warn("遠端目錄不存在: {}", path);
+            return;
+        }
+        
+        if (root.isArray()) {
+            for (JsonNode node : root) {
+                String name = relativePrefix + node.get("name").asText();
+                String type = node.get("type").asText();
+                if ("file".equals(type)) {
+                    files.add(new RemoteFile(
+                        name,
+                        node.get("size").asLong(),
+                        node.get("download_url").asText(),
+                        node.get("sha").asText()
+                    ));
+                } else if ("dir".equals(type)) {
+                    fetchRemoteFiles(node.get("path").asText(), name + "/", files);
                 }
             }
-            return files;
         }
     }
     
-    private void downloadFile(String url, Path destination) throws Exception {
-        URL downloadUrl = new URL(url);
-        try (ReadableByteChannel rbc = Channels.newChannel(downloadUrl.openStream());
-             FileOutputStream fos = new FileOutputStream(destination.toFile())) {
-            fos.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE);
+    private void downloadFile(String url, Path destination, Consumer<Long> onBytes) throws IOException {
+        try (OutputStream out = Files.newOutputStream(destination)) {
+            downloadTo(url, out, onBytes);
         }
     }
     
-    private static class GitHubFile {
+    private void downloadTo(String url, OutputStream out, Consumer<Long> onBytes) throws IOException {
+        HttpGet get = new HttpGet(url);
+        if (url.startsWith(GITHUB_RAW_BASE)) {
+            github.authorize(get);
+        }
+        activeRequests.add(get);
+        try {
+            httpClient.execute(get, response -> {
+                if (response.getCode() != 200) {
+                    throw new HttpStatusException(response.getCode());
+                }
+                try (InputStream in = response.getEntity().getContent()) {
+                    byte[] buffer = new byte[65536];
+                    int bytesRead;
+                    while ((bytesRead = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, bytesRead);
+                        onBytes.accept((long) bytesRead);
+                    }
+                }
+                return null;
+            });
+        } finally {
+            activeRequests.remove(get);
+        }
+    }
+    
+    /**
+     * 非 200 回應；僅 429 與 5xx 值得重試
+     */
+    private static class HttpStatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        private final int statusCode;
+        
+        HttpStatusException(int statusCode) {
+            super("HTTP " + statusCode);
+            this.statusCode = statusCode;
+        }
+        
+        boolean isRetryable() {
+            return statusCode == 429 || statusCode >= 500;
+        }
+    }
+    
+    /**
+     * 單個同步目錄的計劃與統計
+     */
+    private static class RootPlan {
+        final SyncRule rule;
+        final Path liveDir;
+        final Path stagingDir;
+        
+        // 新世代中保留的全部文件 (相對路徑)，以及內容已與遠端一致的文件
+        final List<String> keep = new ArrayList<>();
+        final List<String> synced = new ArrayList<>();
+        final List<RemoteFile> toDownload = new ArrayList<>();
+        long totalBytes;
+        long remoteBytes;
+        int deleted;
+        int preserved;
+        
+        final AtomicInteger downloadedFiles = new AtomicInteger();
+        final AtomicLong downloadedBytes = new AtomicLong();
+        // 實際經由網路傳輸的位元組 (差異更新與分塊下載時小於文件大小)
+        final AtomicLong transferredBytes = new AtomicLong();
+        
+        RootPlan(SyncRule rule, Path liveDir, Path stagingDir) {
+            this.rule = rule;
+            this.liveDir = liveDir;
+            this.stagingDir = stagingDir;
+        }
+        
+        void download(RemoteFile file) {
+            toDownload.add(file);
+            synced.add(file.name);
+            totalBytes += file.size;
+        }
+        
+        boolean hasChanges() {
+            return !toDownload.isEmpty() || deleted > 0;
+        }
+        
+        String summary() {
+            return String.format("下載 %d 個文件 (%.1f MB，實際傳輸 %.1f MB)，刪除 %d 個，保留已修改 %d 個",
+                    toDownload.size(), totalBytes / 1048576.0, transferredBytes.get() / 1048576.0, deleted, preserved);
+        }
+    }
+    
+    /**
+     * 遠端文件；來自 GitHub 時帶有 git blob SHA-1，來自模組包清單時帶有 SHA-256
+     */
+    private static class RemoteFile {
         String name;
         long size;
         String downloadUrl;
         String sha;
+        String sha256;
+        
+        // 模組包清單提供的 FastCDC 分塊 (可選)
+        List<FastCdc.Chunk> chunks;
+        Function<String, String> chunkUrls;
         
-        GitHubFile(String name, long size, String downloadUrl, String sha) {
+        RemoteFile(String name, long size, String downloadUrl, String sha) {
+            this(name, size, downloadUrl, sha, null);
+        }
+        
+        RemoteFile(String name, long size, String downloadUrl, String sha, String sha256) {
             this.name = name;
             this.size = size;
             this.downloadUrl = downloadUrl;
             this.sha = sha;
+            this.sha256 = sha256;
+        }
+        
+        boolean matches(GitHashIndex.Hashes hashes) {
+            return sha256 != null ? sha256.equalsIgnoreCase(hashes.getSha256()) : sha.equals(hashes.getBlobSha());
         }
     }
 }
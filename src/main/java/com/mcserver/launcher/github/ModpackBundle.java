@@ -0,0 +1,149 @@
+package com.mcserver.launcher.github;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * 模組包壓縮包 (tar.xz / tar.gz / tar.zst)
+ * 發佈者把整個模組包打包成單一文件 (例如 GitHub Release 附件)，首次安裝時只需一次請求，
+ * 下載的同時逐個解壓到暫存目錄，避免數百個小文件各自的請求開銷。
+ * 壓縮包中的路徑與遠端倉庫 (或清單) 中的路徑相同，例如 "mods/jei.jar"。
+ */
+public final class ModpackBundle {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ModpackBundle.class);
+    
+    private ModpackBundle() {
+    }
+    
+    /**
+     * 是否支援此壓縮包格式 (依文件名判斷；zstd 需要 zstd-jni 在 classpath 上)
+     */
+    public static boolean isSupported(String name) {
+        String lower = stripQuery(name).toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".tar.zst") || lower.endsWith(".tzst")) {
+            return ZstdUtils.isZstdCompressionAvailable();
+        }
+        return lower.endsWith(".tar.xz") || lower.endsWith(".txz")
+                || lower.endsWith(".tar.gz") || lower.endsWith(".tgz")
+                || lower.endsWith(".tar");
+    }
+    
+    /**
+     * 以串流方式解壓，只寫出 targetOf 返回非 null 位置的文件
+     * 每個文件先寫入 .part 再改名，中斷時不會留下不完整的文件
+     * @param name 壓縮包文件名 (用於判斷壓縮格式)
+     * @param targetOf 壓縮包內路徑 -> 寫出位置，返回 null 表示略過
+     * @return 寫出的文件數
+     */
+    public static int extract(InputStream compressed, String name, Function<String, Path> targetOf) throws IOException {
+        int extracted = 0;
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(decompress(new BufferedInputStream(compressed), name))) {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextTarEntry()) != null) {
+                if (!entry.isFile()) {
+                    continue;
+                }
+                String path = normalize(entry.getName());
+                if (path == null) {
+                    logger.warn("略過壓縮包中的無效路徑: {}", entry.getName());
+                    continue;
+                }
+                Path target = targetOf.apply(path);
+                if (target == null) {
+                    continue;
+                }
+                
+                Files.createDirectories(target.getParent());
+                Path partFile = target.resolveSibling(target.getFileName() + ".part");
+                try (OutputStream out = Files.newOutputStream(partFile)) {
+                    tar.transferTo(out);
+                }
+                Files.move(partFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                extracted++;
+            }
+        }
+        return extracted;
+    }
+    
+    /**
+     * 把根目錄下的文件打包 (依文件名選擇壓縮格式，默認 xz)
+     * @param paths 相對於 root、以 / 分隔的路徑
+     */
+    public static void create(Path root, List<String> paths, Path output) throws IOException {
+        String lower = output.getFileName().toString().toLowerCase(Locale.ROOT);
+        Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        
+        try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(temp));
+             OutputStream compressed = lower.endsWith(".tar.gz") || lower.endsWith(".tgz")
+                     ? new GzipCompressorOutputStream(file)
+                     : new XZCompressorOutputStream(file, 6);
+             TarArchiveOutputStream tar = new TarArchiveOutputStream(compressed)) {
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            for (String path : paths) {
+                TarArchiveEntry entry = new TarArchiveEntry(root.resolve(path).toFile(), path);
+                tar.putArchiveEntry(entry);
+                Files.copy(root.resolve(path), tar);
+                tar.closeArchiveEntry();
+            }
+            tar.finish();
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    private static InputStream decompress(InputStream in, String name) throws IOException {
+        String lower = stripQuery(name).toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".tar.xz") || lower.endsWith(".txz")) {
+            return new XZCompressorInputStream(in);
+        }
+        if (lower.endsWith(".tar.gz") || lower.endsWith(".tgz")) {
+            return new GzipCompressorInputStream(in);
+        }
+        if (lower.endsWith(".tar.zst") || lower.endsWith(".tzst")) {
+            return new ZstdCompressorInputStream(in);
+        }
+        if (lower.endsWith(".tar")) {
+            return in;
+        }
+        throw new IOException("不支援的壓縮包格式: " + name);
+    }
+    
+    /**
+     * 正規化壓縮包內路徑，拒絕絕對路徑與 ".."
+     */
+    private static String normalize(String name) {
+        String path = name.replace('\\', '/');
+        while (path.startsWith("./")) {
+            path = path.substring(2);
+        }
+        if (path.isEmpty() || path.startsWith("/") || Arrays.asList(path.split("/")).contains("..")) {
+            return null;
+        }
+        return path;
+    }
+    
+    private static String stripQuery(String url) {
+        int query = url.indexOf('?');
+        return query >= 0 ? url.substring(0, query) : url;
+    }
+}
@@ -0,0 +1,223 @@
+package com.mcserver.launcher.github;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * 模組包世代管理
+ * 同步時新文件先下載到暫存目錄，全部校驗通過後才組裝出下一世代目錄 (未變更的文件以硬連結重用)，
+ * 再以目錄重新命名一次性替換現有目錄；被替換的世代保留為 .previous，可一鍵還原。
+ * 同步過程中不會修改正在使用的目錄，因此遊戲運行時也可以預先下載。
+ */
+public class ModpackGenerations {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ModpackGenerations.class);
+    
+    private static final String NEXT_SUFFIX = ".next";
+    private static final String PREVIOUS_SUFFIX = ".previous";
+    private static final String ROLLBACK_SUFFIX = ".rollback";
+    
+    private final Path stagingRoot;
+    private final Path baseDirectory;
+    private final List<Path> liveDirectories;
+    
+    /**
+     * @param stagingRoot 暫存根目錄，應與同步目錄位於同一磁碟區 (例如遊戲目錄下)，組裝時文件才能直接移動
+     * @param baseDirectory 遊戲目錄 (同步目錄的共同上層)
+     * @param liveDirectories 受管理的同步目錄
+     */
+    public ModpackGenerations(Path stagingRoot, Path baseDirectory, List<Path> liveDirectories) {
+        this.stagingRoot = stagingRoot;
+        this.baseDirectory = baseDirectory;
+        this.liveDirectories = List.copyOf(liveDirectories);
+    }
+    
+    /**
+     * 獲取目錄對應的暫存目錄 (保留相對於遊戲目錄的結構，避免同名目錄衝突)
+     */
+    public Path getStagingDirectory(Path liveDir) {
+        Path relative = liveDir.startsWith(baseDirectory) ? baseDirectory.relativize(liveDir) : liveDir.getFileName();
+        return stagingRoot.resolve(relative.toString());
+    }
+    
+    /**
+     * 修復上次被中斷的替換 (例如替換途中程式被關閉)
+     */
+    public void recover() {
+        for (Path liveDir : liveDirectories) {
+            try {
+                Path next = sibling(liveDir, NEXT_SUFFIX);
+                Path previous = sibling(liveDir, PREVIOUS_SUFFIX);
+                Path rollback = sibling(liveDir, ROLLBACK_SUFFIX);
+                
+                if (!Files.exists(liveDir)) {
+                    // 舊世代已移走但新世代尚未就位
+                    if (Files.isDirectory(next)) {
+                        Files.move(next, liveDir, StandardCopyOption.ATOMIC_MOVE);
+                        logger.warn("已完成中斷的同步替換: {}", liveDir);
+                    } else if (Files.isDirectory(rollback)) {
+                        Files.move(rollback, liveDir, StandardCopyOption.ATOMIC_MOVE);
+                        logger.warn("已復原中斷的還原操作: {}", liveDir);
+                    } else if (Files.isDirectory(previous)) {
+                        Files.move(previous, liveDir, StandardCopyOption.ATOMIC_MOVE);
+                        logger.warn("已恢復上一世代: {}", liveDir);
+                    }
+                }
+                if (Files.isDirectory(rollback) && !Files.exists(previous)) {
+                    Files.move(rollback, previous, StandardCopyOption.ATOMIC_MOVE);
+                }
+                deleteRecursively(next);
+                deleteRecursively(rollback);
+            } catch (IOException e) {
+                logger.error("無法修復同步目錄: {}", liveDir, e);
+            }
+        }
+    }
+    
+    /**
+     * 組裝並替換多個目錄的下一世代
+     * 先為所有目錄組裝好 .next，再依序重新命名；任何一步失敗都會還原已替換的目錄
+     * @param plans 每個目錄的完整文件清單 (相對路徑)；暫存目錄中有的文件使用新下載的版本，否則沿用現有文件
+     */
+    public void swap(Map<Path, Collection<String>> plans) throws IOException {
+        List<Path> swapped = new ArrayList<>();
+        try {
+            for (Map.Entry<Path, Collection<String>> plan : plans.entrySet()) {
+                assemble(plan.getKey(), plan.getValue());
+            }
+            
+            for (Path liveDir : plans.keySet()) {
+                Path next = sibling(liveDir, NEXT_SUFFIX);
+                Path previous = sibling(liveDir, PREVIOUS_SUFFIX);
+                
+                deleteRecursively(previous);
+                if (Files.exists(liveDir)) {
+                    Files.move(liveDir, previous, StandardCopyOption.ATOMIC_MOVE);
+                }
+                try {
+                    Files.move(next, liveDir, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    if (Files.exists(previous)) {
+                        Files.move(previous, liveDir, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                    throw e;
+                }
+                swapped.add(liveDir);
+            }
+        } catch (IOException e) {
+            // 已替換的目錄恢復為舊世代，保持各目錄一致
+            for (Path liveDir : swapped) {
+                try {
+                    swapWithPrevious(liveDir);
+                } catch (IOException restoreError) {
+                    logger.error("無法恢復目錄: {}", liveDir, restoreError);
+                }
+            }
+            throw e;
+        } finally {
+            for (Path liveDir : plans.keySet()) {
+                deleteRecursively(sibling(liveDir, NEXT_SUFFIX));
+            }
+        }
+        
+        deleteRecursively(stagingRoot);
+    }
+    
+    /**
+     * 在 .next 中組裝下一世代
+     */
+    private void assemble(Path liveDir, Collection<String> files) throws IOException {
+        Path next = sibling(liveDir, NEXT_SUFFIX);
+        Path staging = getStagingDirectory(liveDir);
+        deleteRecursively(next);
+        Files.createDirectories(next);
+        
+        for (String relative : files) {
+            Path target = next.resolve(relative);
+            Files.createDirectories(target.getParent());
+            
+            Path staged = staging.resolve(relative);
+            if (Files.exists(staged)) {
+                moveStaged(staged, target);
+                continue;
+            }
+            
+            Path current = liveDir.resolve(relative);
+            try {
+                Files.createLink(target, current);
+            } catch (IOException | UnsupportedOperationException e) {
+                // 不支援硬連結的文件系統 (例如 FAT32) 改為複製
+                Files.copy(current, target, StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        }
+    }
+    
+    /**
+     * 把暫存文件移入 .next；暫存目錄與同步目錄位於不同磁碟區時無法直接移動，改為複製後刪除
+     * (.next 尚未生效，這一步不需要原子性)
+     */
+    private static void moveStaged(Path staged, Path target) throws IOException {
+        try {
+            Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.copy(staged, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            Files.delete(staged);
+        }
+    }
+    
+    /**
+     * 是否有可還原的上一世代
+     */
+    public boolean hasPrevious() {
+        return liveDirectories.stream().anyMatch(dir -> Files.isDirectory(sibling(dir, PREVIOUS_SUFFIX)));
+    }
+    
+    /**
+     * 還原到上一世代 (目前世代保留為 .previous，可再次切換回來)
+     */
+    public void rollback() throws IOException {
+        for (Path liveDir : liveDirectories) {
+            if (Files.isDirectory(sibling(liveDir, PREVIOUS_SUFFIX))) {
+                swapWithPrevious(liveDir);
+                logger.info("已還原上一世代: {}", liveDir);
+            }
+        }
+    }
+    
+    private void swapWithPrevious(Path liveDir) throws IOException {
+        Path previous = sibling(liveDir, PREVIOUS_SUFFIX);
+        Path rollback = sibling(liveDir, ROLLBACK_SUFFIX);
+        deleteRecursively(rollback);
+        
+        if (Files.exists(liveDir)) {
+            Files.move(liveDir, rollback, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(previous, liveDir, StandardCopyOption.ATOMIC_MOVE);
+        if (Files.exists(rollback)) {
+            Files.move(rollback, previous, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+    
+    private static Path sibling(Path dir, String suffix) {
+        return dir.resolveSibling(dir.getFileName() + suffix);
+    }
+    
+    static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(path)) {
+            List<Path> paths = new ArrayList<>();
+            stream.forEach(paths::add);
+            Collections.reverse(paths);
+            for (Path p : paths) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.mcserver.launcher.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 模組包清單 (modpack-manifest.json)
+ * 由發佈者以本類的命令列工具從本地目錄生成，作為靜態文件放在任何網頁伺服器或 CDN 上，
+ * 玩家同步時只需一次條件請求即可取得所有文件的路徑、大小、SHA-256 與下載位址。
+ *
+ * 格式:
+ * {
+ *   "formatVersion": 1,
+ *   "bundle": "modpack.tar.xz",
+ *   "chunkBase": "chunks/",
+ *   "files": [{"path": "mods/jei.jar", "size": 123, "sha256": "...", "url": "...",
+ *              "chunks": [{"sha256": "...", "size": 65536}]}]
+ * }
+ * 清單不含生成時間，內容相同時重新生成的清單逐位元相同，清單雜湊 (即同步版本) 不會改變。
+ * 省略 url 時，下載位址為相對於清單位址的 path。bundle 為可選的整包壓縮檔 (見 {@link ModpackBundle})，供首次安裝使用。
+ * 大文件可附帶 FastCDC 分塊清單 (見 {@link FastCdc})，每個塊位於 chunkBase 下的 "ab/abcdef..."，
+ * 啟動器只需下載本地沒有的塊。
+ */
+public class ModpackManifest {
+    
+    public static final int FORMAT_VERSION = 1;
+    public static final String DEFAULT_FILE_NAME = "modpack-manifest.json";
+    
+    private static final Set<String> DEFAULT_DIRECTORIES = Set.of("mods", "resourcepacks");
+    
+    // 塊雜湊同時是本地倉庫的文件名與下載路徑，必須是 64 位十六進位
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-fA-F]{64}");
+    
+    // 小於此大小的文件不分塊 (整個下載的請求數更少)
+    private static final long CHUNK_MIN_FILE_SIZE = 1024 * 1024;
+    
+    private final List<Entry> files;
+    private final String bundleUrl;
+    private final String chunkBaseUrl;
+    
+    public ModpackManifest(List<Entry> files) {
+        this(files, null, null);
+    }
+    
+    public ModpackManifest(List<Entry> files, String bundleUrl, String chunkBaseUrl) {
+        this.files = List.copyOf(files);
+        this.bundleUrl = bundleUrl;
+        this.chunkBaseUrl = chunkBaseUrl;
+    }
+    
+    public List<Entry> getFiles() {
+        return files;
+    }
+    
+    /**
+     * 整包壓縮檔的下載位址，沒有時返回 null
+     */
+    public String getBundleUrl() {
+        return bundleUrl;
+    }
+    
+    /**
+     * 分塊的基底位址 (以 / 結尾)，沒有分塊時返回 null
+     */
+    public String getChunkBaseUrl() {
+        return chunkBaseUrl;
+    }
+    
+    /**
+     * 塊的下載位址
+     */
+    public String chunkUrl(String sha256) {
+        return chunkBaseUrl + sha256.substring(0, 2) + "/" + sha256;
+    }
+    
+    /**
+     * 解析清單，相對的下載位址以清單位址為基準解析
+     */
+    public static ModpackManifest parse(JsonNode root, URI manifestUri) throws IOException {
+        int version = root.path("formatVersion").asInt(FORMAT_VERSION);
+        if (version > FORMAT_VERSION) {
+            throw new IOException("不支援的清單格式版本: " + version);
+        }
+        
+        List<Entry> entries = new ArrayList<>();
+        for (JsonNode node : root.path("files")) {
+            String path = node.get("path").asText();
+            if (path.startsWith("/") || path.contains("\\") || Arrays.asList(path.split("/")).contains("..")) {
+                throw new IOException("清單中的路徑無效: " + path);
+            }
+            String url = node.hasNonNull("url")
+                    ? manifestUri.resolve(node.get("url").asText()).toString()
+                    : manifestUri.resolve(encodePath(path)).toString();
+            List<FastCdc.Chunk> chunks = null;
+            if (node.has("chunks")) {
+                chunks = new ArrayList<>();
+                for (JsonNode chunk : node.get("chunks")) {
+                    String sha256 = chunk.path("sha256").asText();
+                    if (!SHA256_HEX.matcher(sha256).matches()) {
+                        throw new IOException("清單中的分塊雜湊無效: " + path + " -> " + sha256);
+                    }
+                    chunks.add(new FastCdc.Chunk(sha256.toLowerCase(Locale.ROOT), chunk.get("size").asInt()));
+                }
+            }
+            entries.add(new Entry(path, node.get("size").asLong(), node.get("sha256").asText(), url, chunks));
+        }
+        String bundle = root.hasNonNull("bundle") ? manifestUri.resolve(root.get("bundle").asText()).toString() : null;
+        String chunkBase = root.hasNonNull("chunkBase")
+                ? manifestUri.resolve(withTrailingSlash(root.get("chunkBase").asText())).toString() : null;
+        return new ModpackManifest(entries, bundle, chunkBase);
+    }
+    
+    /**
+     * 從本地目錄生成清單
+     * @param root 模組包根目錄 (包含 mods、resourcepacks 等子目錄)
+     * @param directories 要納入的頂層目錄
+     * @param baseUrl 文件下載的基底位址，為 null 時省略 url (相對於清單位址)
+     */
+    public static ModpackManifest generate(Path root, Set<String> directories, String baseUrl) throws IOException {
+        return generate(root, directories, baseUrl, null);
+    }
+    
+    /**
+     * 從本地目錄生成清單，並把大文件分塊寫入 chunkDirectory
+     * @param chunkDirectory 分塊輸出目錄，為 null 時不分塊
+     */
+    public static ModpackManifest generate(Path root, Set<String> directories, String baseUrl,
+                                           Path chunkDirectory) throws IOException {
+        ChunkStore chunkStore = chunkDirectory != null ? new ChunkStore(chunkDirectory) : null;
+        List<Entry> entries = new ArrayList<>();
+        for (String directory : new TreeSet<>(directories)) {
+            Path dir = root.resolve(directory);
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(dir)) {
+                files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                String path = root.relativize(file).toString().replace('\\', '/');
+                String url = baseUrl != null ? stripTrailingSlash(baseUrl) + "/" + encodePath(path) : null;
+                List<FastCdc.Chunk> chunks = null;
+                if (chunkStore != null && Files.size(file) >= CHUNK_MIN_FILE_SIZE) {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        chunks = FastCdc.split(in, (data, offset, length, sha256) -> {
+                            if (!chunkStore.contains(sha256)) {
+                                chunkStore.put(sha256, Arrays.copyOfRange(data, offset, offset + length));
+                            }
+                        });
+                    }
+                }
+                entries.add(new Entry(path, Files.size(file), GitHashIndex.computeHashes(file).getSha256(), url, chunks));
+            }
+        }
+        String chunkBase = null;
+        if (chunkDirectory != null) {
+            chunkBase = baseUrl != null ? stripTrailingSlash(baseUrl) + "/chunks/" : "chunks/";
+        }
+        return new ModpackManifest(entries, null, chunkBase);
+    }
+    
+    public String toJson() throws IOException {
+        List<Map<String, Object>> fileList = new ArrayList<>();
+        for (Entry entry : files) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("path", entry.path);
+            data.put("size", entry.size);
+            data.put("sha256", entry.sha256);
+            if (entry.url != null) {
+                data.put("url", entry.url);
+            }
+            if (entry.chunks != null) {
+                List<Map<String, Object>> chunks = new ArrayList<>();
+                for (FastCdc.Chunk chunk : entry.chunks) {
+                    chunks.add(Map.of("sha256", chunk.getSha256(), "size", chunk.getSize()));
+                }
+                data.put("chunks", chunks);
+            }
+            fileList.add(data);
+        }
+        
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("formatVersion", FORMAT_VERSION);
+        if (bundleUrl != null) {
+            root.put("bundle", bundleUrl);
+        }
+        if (chunkBaseUrl != null) {
+            root.put("chunkBase", chunkBaseUrl);
+        }
+        root.put("files", fileList);
+        return new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(root);
+    }
+    
+    private static String encodePath(String path) {
+        StringJoiner joiner = new StringJoiner("/");
+        for (String segment : path.split("/")) {
+            joiner.add(URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20"));
+        }
+        return joiner.toString();
+    }
+    
+    private static String withTrailingSlash(String url) {
+        return url.endsWith("/") ? url : url + "/";
+    }
+    
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+    
+    /**
+     * 命令列工具
+     * 用法: java -jar launcher.jar generate-manifest <模組包目錄> [--base-url URL] [--output 文件] [--dirs mods,resourcepacks]
+     *       [--bundle modpack.tar.xz] [--chunks]
+     * 指定 --bundle 時同時在清單旁生成整包壓縮檔；指定 --chunks 時把大文件分塊寫入清單旁的 chunks 目錄
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            System.err.println("用法: generate-manifest <模組包目錄> [--base-url URL] [--output 文件] [--dirs mods,resourcepacks] [--bundle modpack.tar.xz] [--chunks]");
+            System.exit(1);
+        }
+        
+        Path root = Paths.get(args[0]).toAbsolutePath().normalize();
+        String baseUrl = null;
+        Path output = root.resolve(DEFAULT_FILE_NAME);
+        Set<String> directories = DEFAULT_DIRECTORIES;
+        String bundleName = null;
+        boolean chunked = false;
+        
+        for (int i = 1; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            if (args[i].equals("--chunks")) {
+                chunked = true;
+                continue;
+            }
+            switch (args[i]) {
+                case "--base-url" -> baseUrl = value;
+                case "--output" -> output = value != null ? Paths.get(value) : output;
+                case "--dirs" -> directories = value != null ? Set.of(value.split(",")) : directories;
+                case "--bundle" -> bundleName = value;
+                default -> {
+                    System.err.println("未知參數: " + args[i]);
+                    System.exit(1);
+                }
+            }
+            i++;
+        }
+        
+        Path chunkDirectory = chunked ? output.toAbsolutePath().resolveSibling("chunks") : null;
+        ModpackManifest manifest = generate(root, directories, baseUrl, chunkDirectory);
+        if (bundleName != null) {
+            if (!ModpackBundle.isSupported(bundleName)) {
+                System.err.println("不支援的壓縮包格式 (請使用 .tar.xz 或 .tar.gz): " + bundleName);
+                System.exit(1);
+            }
+            Path bundle = output.toAbsolutePath().resolveSibling(bundleName);
+            ModpackBundle.create(root, manifest.files.stream().map(Entry::getPath).collect(Collectors.toList()), bundle);
+            System.out.printf("已生成 %s: %.1f MB%n", bundle, Files.size(bundle) / 1024.0 / 1024.0);
+            String bundleUrl = baseUrl != null ? stripTrailingSlash(baseUrl) + "/" + encodePath(bundleName) : encodePath(bundleName);
+            manifest = new ModpackManifest(manifest.files, bundleUrl, manifest.chunkBaseUrl);
+        }
+        Files.writeString(output, manifest.toJson());
+        long totalBytes = manifest.files.stream().mapToLong(Entry::getSize).sum();
+        System.out.printf("已生成 %s: %d 個文件, 共 %.1f MB%n", output, manifest.files.size(), totalBytes / 1024.0 / 1024.0);
+        if (chunkDirectory != null) {
+            long chunkCount = manifest.files.stream().filter(e -> e.chunks != null).mapToLong(e -> e.chunks.size()).sum();
+            System.out.printf("已寫入分塊到 %s: %d 個塊%n", chunkDirectory, chunkCount);
+        }
+    }
+    
+    /**
+     * 清單中的單個文件
+     */
+    public static final class Entry {
+        private final String path;
+        private final long size;
+        private final String sha256;
+        private final String url;
+        private final List<FastCdc.Chunk> chunks;
+        
+        public Entry(String path, long size, String sha256, String url) {
+            this(path, size, sha256, url, null);
+        }
+        
+        public Entry(String path, long size, String sha256, String url, List<FastCdc.Chunk> chunks) {
+            this.path = path;
+            this.size = size;
+            this.sha256 = sha256;
+            this.url = url;
+            this.chunks = chunks != null ? List.copyOf(chunks) : null;
+        }
+        
+        public String getPath() {
+            return path;
+        }
+        
+        public long getSize() {
+            return size;
+        }
+        
+        public String getSha256() {
+            return sha256;
+        }
+        
+        public String getUrl() {
+            return url;
+        }
+        
+        /**
+         * 分塊清單，沒有分塊時返回 null
+         */
+        public List<FastCdc.Chunk> getChunks() {
+            return chunks;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.mcserver.launcher.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcserver.launcher.config.LauncherConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 啟動器版本目錄
+ * 以一次 /releases 列表請求取得所有版本 (經 {@link GitHubClient} 的 ETag 快取，未變更時為 304)，
+ * 兩次檢查之間至少間隔 updateCheckIntervalHours，期間只使用磁碟上的快取，不發送任何請求。
+ * 依更新通道從列表中選出版本號最高的發佈:
+ *   stable 只有正式版；beta 另外包含預覽版 (dev、nightly、snapshot 標籤除外)；dev 包含所有預覽版。
+ */
+public class ReleaseCatalog {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReleaseCatalog.class);
+    
+    private static final int PAGE_SIZE = 30;
+    
+    private final LauncherConfig config;
+    private final GitHubClient github;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path stateFile;
+    
+    public ReleaseCatalog(LauncherConfig config, GitHubClient github) {
+        this.config = config;
+        this.github = github;
+        this.stateFile = Paths.get(config.getLauncherDirectory(), "cache", "release-check.json");
+    }
+    
+    /**
+     * 取得版本列表：距上次檢查未滿間隔時只讀快取，否則發送一次條件請求
+     * 離線或配額不足時 {@link GitHubClient} 會返回快取的列表
+     */
+    public List<UpdateManager.GitHubRelease> getReleases() throws IOException {
+        String repo = config.getGithubRepo();
+        if (repo == null || repo.contains("YOUR_USERNAME")) {
+            logger.warn("GitHub 倉庫未配置");
+            return List.of();
+        }
+        String path = "/repos/" + repo + "/releases?per_page=" + PAGE_SIZE;
+        
+        if (!isCheckDue(repo)) {
+            JsonNode cached = github.getCachedJson(path);
+            if (cached != null) {
+                logger.debug("距上次檢查更新未滿 {} 小時，使用快取的版本列表", config.getUpdateCheckIntervalHours());
+                return parse(cached);
+            }
+        }
+        
+        JsonNode json = github.getJson(path, GitHubClient.Priority.BACKGROUND);
+        markChecked(repo);
+        return json != null ? parse(json) : List.of();
+    }
+    
+    /**
+     * 目前通道中版本號最高的發佈，沒有時返回 null
+     */
+    public UpdateManager.GitHubRelease getLatest() throws IOException {
+        return select(getReleases(), config.getUpdateChannel());
+    }
+    
+    static UpdateManager.GitHubRelease select(List<UpdateManager.GitHubRelease> releases, String channel) {
+        UpdateManager.GitHubRelease best = null;
+        for (UpdateManager.GitHubRelease release : releases) {
+            if (!isInChannel(release, channel)) {
+                continue;
+            }
+            if (best == null || UpdateManager.compareVersions(versionOf(release), versionOf(best)) > 0) {
+                best = release;
+            }
+        }
+        return best;
+    }
+    
+    static String versionOf(UpdateManager.GitHubRelease release) {
+        return release.tagName.replaceFirst("^[vV]", "");
+    }
+    
+    private static boolean isInChannel(UpdateManager.GitHubRelease release, String channel) {
+        if (!release.prerelease) {
+            return true;
+        }
+        String tag = release.tagName.toLowerCase(Locale.ROOT);
+        switch (channel != null ? channel.toLowerCase(Locale.ROOT) : "stable") {
+            case "dev":
+                return true;
+            case "beta":
+                return !(tag.contains("dev") || tag.contains("nightly") || tag.contains("snapshot"));
+            default:
+                return false;
+        }
+    }
+    
+    private List<UpdateManager.GitHubRelease> parse(JsonNode json) {
+        List<UpdateManager.GitHubRelease> releases = new ArrayList<>();
+        for (JsonNode node : json) {
+            if (node.path("draft").asBoolean(false)) {
+                continue;
+            }
+            try {
+                releases.add(UpdateManager.parseGitHubRelease(node));
+            } catch (RuntimeException e) {
+                logger.debug("略過無法解析的版本: {}", node.path("tag_name").asText(), e);
+            }
+        }
+        return releases;
+    }
+    
+    private boolean isCheckDue(String repo) {
+        long interval = TimeUnit.HOURS.toMillis(Math.max(0, config.getUpdateCheckIntervalHours()));
+        if (interval == 0 || !Files.isRegularFile(stateFile)) {
+            return true;
+        }
+        try {
+            JsonNode state = objectMapper.readTree(stateFile.toFile());
+            long elapsed = System.currentTimeMillis() - state.path("checkedAt").asLong(0);
+            return !repo.equals(state.path("repo").asText()) || elapsed < 0 || elapsed >= interval;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+    
+    private void markChecked(String repo) {
+        try {
+            Files.createDirectories(stateFile.getParent());
+            Files.write(stateFile, objectMapper.writeValueAsBytes(
+                    Map.of("repo", repo, "checkedAt", System.currentTimeMillis())));
+        } catch (IOException e) {
+            logger.debug("無法保存更新檢查時間", e);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.mcserver.launcher.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * 同步規則
+ * 將遠端路徑前綴對應到本地目錄 (相對於遊戲目錄)，以 glob 篩選要同步的文件，並指定更新策略。
+ * glob 以相對於該目錄、以 / 分隔的路徑比對，例如 "*.jar"、"options.txt"、"defaults/**"。
+ */
+public final class SyncRule {
+    
+    /**
+     * 更新策略
+     */
+    public enum Policy {
+        /** 與遠端完全一致：更新已變更的文件並刪除遠端沒有的文件 */
+        MIRROR,
+        /** 只新增本地缺少的文件，不覆蓋也不刪除 */
+        ADD_ONLY,
+        /** 新增缺少的文件；已存在的文件只有在玩家未修改過時才更新，從不刪除 */
+        PRESERVE_MODIFIED
+    }
+    
+    private final String remotePrefix;
+    private final String localPath;
+    private final Policy policy;
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final List<PathMatcher> includeMatchers;
+    private final List<PathMatcher> excludeMatchers;
+    
+    public SyncRule(String remotePrefix, String localPath, Policy policy, List<String> includes, List<String> excludes) {
+        this.remotePrefix = trimSlashes(remotePrefix);
+        this.localPath = trimSlashes(localPath);
+        this.policy = policy;
+        this.includes = List.copyOf(includes);
+        this.excludes = List.copyOf(excludes);
+        this.includeMatchers = includes.stream().map(SyncRule::matcher).toList();
+        this.excludeMatchers = excludes.stream().map(SyncRule::matcher).toList();
+    }
+    
+    /**
+     * 默認規則：mods 與 resourcepacks 完全鏡像
+     */
+    public static List<SyncRule> defaults() {
+        return List.of(
+            new SyncRule("mods", "mods", Policy.MIRROR, List.of(), List.of()),
+            new SyncRule("resourcepacks", "resourcepacks", Policy.MIRROR, List.of(), List.of())
+        );
+    }
+    
+    /**
+     * 從 JSON 解析規則
+     * 格式: [{"remote": "config", "local": "config", "policy": "PRESERVE_MODIFIED", "include": [...], "exclude": [...]}]
+     */
+    public static List<SyncRule> fromJson(JsonNode rulesNode) {
+        List<SyncRule> rules = new ArrayList<>();
+        if (rulesNode != null && rulesNode.isArray()) {
+            for (JsonNode node : rulesNode) {
+                String remote = node.path("remote").asText();
+                String local = node.hasNonNull("local") ? node.get("local").asText() : remote;
+                if (local.isBlank()) {
+                    throw new IllegalArgumentException("同步規則必須指定本地目錄");
+                }
+                Policy policy = Policy.valueOf(node.path("policy").asText(Policy.MIRROR.name()).toUpperCase(Locale.ROOT));
+                rules.add(new SyncRule(remote, local, policy, readStrings(node.get("include")), readStrings(node.get("exclude"))));
+            }
+        }
+        return rules;
+    }
+    
+    public Map<String, Object> toJson() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("remote", remotePrefix);
+        data.put("local", localPath);
+        data.put("policy", policy.name());
+        if (!includes.isEmpty()) data.put("include", includes);
+        if (!excludes.isEmpty()) data.put("exclude", excludes);
+        return data;
+    }
+    
+    /**
+     * 文件 (相對於此規則目錄的路徑) 是否由此規則管理
+     * 未指定 include 時包含全部文件；exclude 優先
+     */
+    public boolean matches(String relativePath) {
+        Path path = Paths.get(relativePath);
+        for (PathMatcher exclude : excludeMatchers) {
+            if (exclude.matches(path)) {
+                return false;
+            }
+        }
+        if (includeMatchers.isEmpty()) {
+            return true;
+        }
+        for (PathMatcher include : includeMatchers) {
+            if (include.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 本地已存在但與遠端不同的文件是否以遠端版本覆蓋
+     * @param modifiedSinceSync 玩家是否在上次同步後修改過該文件 (只有 PRESERVE_MODIFIED 參考此值)
+     */
+    public boolean shouldOverwrite(boolean modifiedSinceSync) {
+        return switch (policy) {
+            case MIRROR -> true;
+            case PRESERVE_MODIFIED -> !modifiedSinceSync;
+            case ADD_ONLY -> false;
+        };
+    }
+    
+    /**
+     * 遠端沒有的本地文件是否刪除：只有鏡像策略會刪除，且只刪除規則範圍內的文件
+     */
+    public boolean shouldDelete(String relativePath) {
+        return policy == Policy.MIRROR && matches(relativePath);
+    }
+    
+    /**
+     * 將遠端完整路徑轉換為相對於此規則的路徑，不屬於此規則時返回 null
+     */
+    public String relativize(String remotePath) {
+        if (remotePrefix.isEmpty()) {
+            return remotePath;
+        }
+        if (remotePath.startsWith(remotePrefix + "/")) {
+            return remotePath.substring(remotePrefix.length() + 1);
+        }
+        return null;
+    }
+    
+    public String getRemotePrefix() {
+        return remotePrefix;
+    }
+    
+    public String getLocalPath() {
+        return localPath;
+    }
+    
+    public Policy getPolicy() {
+        return policy;
+    }
+    
+    public List<String> getIncludes() {
+        return includes;
+    }
+    
+    public List<String> getExcludes() {
+        return excludes;
+    }
+    
+    private static PathMatcher matcher(String glob) {
+        return FileSystems.getDefault().getPathMatcher("glob:" + glob);
+    }
+    
+    private static String trimSlashes(String path) {
+        String trimmed = path == null ? "" : path.trim().replace('\\', '/');
+        while (trimmed.startsWith("/")) trimmed = trimmed.substring(1);
+        while (trimmed.endsWith("/")) trimmed = trimmed.substring(0, trimmed.length() - 1);
+        return trimmed;
+    }
+    
+    private static List<String> readStrings(JsonNode node) {
+        List<String> values = new ArrayList<>();
+        if (node != null && node.isArray()) {
+            node.forEach(value -> values.add(value.asText()));
+        }
+        return values;
+    }
+}
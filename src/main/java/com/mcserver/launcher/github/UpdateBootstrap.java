@@ -0,0 +1,230 @@
+package com.mcserver.launcher.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcserver.launcher.LauncherApplication;
+import com.mcserver.launcher.config.LauncherConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 啟動器更新的引導步驟
+ * 新版本在上次運行時已於背景下載並校驗到 updates/<版本>/ (見 {@link UpdateManager#stageUpdate})，
+ * 啟動時先把 pending.json 原子地改名為 current.json 完成切換，然後在同一進程中以獨立的類加載器執行新版本。
+ * 安裝目錄中的 jar 從不被覆蓋，因此不需要重啟腳本，下載損壞也不會影響正在使用的版本。
+ *
+ * updates/
+ *   pending.json   已校驗、等待下次啟動切換的版本 {"version", "file", "size", "sha256"}
+ *   current.json   目前使用的版本
+ *   1.0.1/MCL.jar  版本槽
+ *   staging/       下載中的文件
+ */
+public final class UpdateBootstrap {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UpdateBootstrap.class);
+    
+    // 由引導步驟啟動的新版本不再嘗試引導
+    private static final String BOOTSTRAPPED_PROPERTY = "launcher.bootstrapped";
+    private static final String MAIN_CLASS = "com.mcserver.launcher.LauncherMain";
+    
+    static final String PENDING_FILE = "pending.json";
+    static final String CURRENT_FILE = "current.json";
+    static final String STAGING_DIRECTORY = "staging";
+    
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    
+    private UpdateBootstrap() {
+    }
+    
+    public static Path updatesDirectory(LauncherConfig config) {
+        return Paths.get(config.getLauncherDirectory(), "updates");
+    }
+    
+    /**
+     * 切換到已暫存的版本並執行它
+     * @return 已由新版本處理 (調用者應直接返回) 時返回 true，應繼續啟動內建版本時返回 false
+     */
+    public static boolean launchStaged(String[] args) throws Exception {
+        if (Boolean.getBoolean(BOOTSTRAPPED_PROPERTY)) {
+            return false;
+        }
+        
+        Path updates;
+        StagedVersion current;
+        try {
+            LauncherConfig config = new LauncherConfig();
+            updates = updatesDirectory(config);
+            if (promotePending(updates)) {
+                config.setUpdatePending(false);
+                config.save();
+            }
+            current = read(updates.resolve(CURRENT_FILE));
+        } catch (IOException e) {
+            logger.warn("無法讀取已暫存的更新，使用內建版本", e);
+            return false;
+        }
+        if (current == null || !UpdateManager.isNewerVersion(LauncherApplication.getVersion(), current.version)) {
+            return false;
+        }
+        
+        Path jar = updates.resolve(current.file);
+        if (!Files.isRegularFile(jar) || Files.size(jar) != current.size) {
+            logger.warn("版本 {} 的文件已遺失或損壞，使用內建版本", current.version);
+            Files.deleteIfExists(updates.resolve(CURRENT_FILE));
+            return false;
+        }
+        
+        logger.info("啟動已更新的版本 {}: {}", current.version, jar);
+        Method main;
+        try {
+            // 父加載器為平台類加載器，新版本的所有類 (包括依賴) 都從新 jar 載入
+            URLClassLoader loader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, ClassLoader.getPlatformClassLoader());
+            main = loader.loadClass(MAIN_CLASS).getMethod("main", String[].class);
+            Thread.currentThread().setContextClassLoader(loader);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.error("無法載入版本 {}，使用內建版本", current.version, e);
+            Files.deleteIfExists(updates.resolve(CURRENT_FILE));
+            return false;
+        }
+        
+        System.setProperty(BOOTSTRAPPED_PROPERTY, "true");
+        try {
+            main.invoke(null, (Object) args);
+        } catch (InvocationTargetException e) {
+            // 新版本無法運行時回滾，下次啟動使用內建版本
+            logger.error("版本 {} 運行失敗，下次啟動將回到內建版本", current.version, e.getCause());
+            Files.deleteIfExists(updates.resolve(CURRENT_FILE));
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+        return true;
+    }
+    
+    /**
+     * 記錄已校驗的新版本，下次啟動時切換
+     * @param file 已下載並校驗的文件 (會被移動到版本槽)
+     */
+    static void stage(Path updates, String version, Path file, String sha256) throws IOException {
+        Path slot = updates.resolve(version);
+        Files.createDirectories(slot);
+        Path target = slot.resolve(file.getFileName().toString());
+        Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+        
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("version", version);
+        data.put("file", updates.relativize(target).toString().replace('\\', '/'));
+        data.put("size", Files.size(target));
+        data.put("sha256", sha256);
+        Path temp = updates.resolve(PENDING_FILE + ".tmp");
+        Files.writeString(temp, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(data));
+        Files.move(temp, updates.resolve(PENDING_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * 指定版本是否已暫存或正在使用
+     */
+    static boolean isStaged(Path updates, String version) {
+        for (String name : new String[]{PENDING_FILE, CURRENT_FILE}) {
+            try {
+                StagedVersion staged = read(updates.resolve(name));
+                if (staged != null && staged.version.equals(version) && Files.isRegularFile(updates.resolve(staged.file))) {
+                    return true;
+                }
+            } catch (IOException e) {
+                logger.debug("無法讀取 {}", name, e);
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 校驗 pending 版本並切換為 current，然後清理不再使用的版本槽
+     * @return 發生切換時返回 true
+     */
+    private static boolean promotePending(Path updates) throws IOException {
+        Path pendingFile = updates.resolve(PENDING_FILE);
+        StagedVersion pending = read(pendingFile);
+        if (pending == null) {
+            return false;
+        }
+        
+        Path jar = updates.resolve(pending.file);
+        boolean valid = Files.isRegularFile(jar) && Files.size(jar) == pending.size
+                && GitHashIndex.computeHashes(jar).getSha256().equalsIgnoreCase(pending.sha256);
+        if (!valid) {
+            logger.warn("暫存的版本 {} 校驗失敗，已丟棄", pending.version);
+            Files.deleteIfExists(pendingFile);
+            Files.deleteIfExists(jar);
+            return false;
+        }
+        
+        Files.move(pendingFile, updates.resolve(CURRENT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("已切換到版本 {}", pending.version);
+        removeStaleSlots(updates, Set.of(STAGING_DIRECTORY, slotOf(pending.file)));
+        return true;
+    }
+    
+    private static void removeStaleSlots(Path updates, Set<String> keep) {
+        try (Stream<Path> slots = Files.list(updates)) {
+            for (Path slot : (Iterable<Path>) slots.filter(Files::isDirectory)::iterator) {
+                if (keep.contains(slot.getFileName().toString())) {
+                    continue;
+                }
+                try (Stream<Path> files = Files.walk(slot)) {
+                    for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                        Files.deleteIfExists(path);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // 舊版本可能仍被其他啟動器進程使用，下次再清理
+            logger.debug("無法清理舊版本", e);
+        }
+    }
+    
+    private static String slotOf(String file) {
+        int slash = file.indexOf('/');
+        return slash >= 0 ? file.substring(0, slash) : file;
+    }
+    
+    private static StagedVersion read(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        JsonNode root = objectMapper.readTree(file.toFile());
+        String path = root.path("file").asText("");
+        if (path.isEmpty() || path.startsWith("/") || path.contains("..")) {
+            throw new IOException("無效的版本記錄: " + file);
+        }
+        return new StagedVersion(root.path("version").asText(), path,
+                root.path("size").asLong(-1), root.path("sha256").asText());
+    }
+    
+    private static final class StagedVersion {
+        private final String version;
+        private final String file;
+        private final long size;
+        private final String sha256;
+        
+        private StagedVersion(String version, String file, long size, String sha256) {
+            this.version = version;
+            this.file = file;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+    }
+}
@@ -5,21 +5,34 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mcserver.launcher.LauncherApplication;
 import com.mcserver.launcher.config.LauncherConfig;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.zip.ZipFile;
 
 /**
  * GitHub 更新管理器
@@ -29,189 +42,416 @@ public class UpdateManager {
     
     private static final Logger logger = LoggerFactory.getLogger(UpdateManager.class);
     
-    // GitHub API Base URL
-    private static final String GITHUB_API_BASE = "https://api.github.com/repos";
-    private static final String GITHUB_BASE_URL = "https://github.com";
+    // 版本號會作為目錄名使用
+    private static final Pattern SAFE_VERSION = Pattern.compile("[0-9A-Za-z._-]+");
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-fA-F]{64}");
+    
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_DOWNLOAD_ATTEMPTS = 4;
     
     private final LauncherConfig config;
-    private final ObjectMapper objectMapper;
+    private final GitHubClient github;
     private final CloseableHttpClient httpClient;
+    private final ReleaseCatalog catalog;
+    private final ExecutorService updateExecutor;
     
-    public UpdateManager(LauncherConfig config) {
+    public UpdateManager(LauncherConfig config, GitHubClient github) {
         this.config = config;
-        this.objectMapper = new ObjectMapper();
-        this.httpClient = HttpClients.createDefault();
+        this.github = github;
+        this.httpClient = HttpClients.custom()
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofSeconds(30))
+                        .setResponseTimeout(Timeout.ofSeconds(60))
+                        .build())
+                .build();
+        this.catalog = new ReleaseCatalog(config, github);
+        this.updateExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "launcher-update");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
     }
     
     /**
-     * 檢查是否有新版本可用
-     * @return 如果有新版本返回 true
+     * 在背景查找設定通道中比當前版本新的發佈
+     * 版本列表來自 {@link ReleaseCatalog}：檢查間隔內只讀快取，否則最多發送一次條件請求
+     * @return 新版本；已是最新或沒有可用版本時為 null
      */
-    public boolean checkForUpdates() throws Exception {
-        logger.info("檢查 GitHub 更新...");
-        
-        GitHubRelease latestRelease = getLatestRelease();
-        if (latestRelease == null) {
-            logger.warn("無法獲取最新版本信息");
-            return false;
-        }
-        
-        String currentVersion = LauncherApplication.getVersion();
-        String latestVersion = latestRelease.tagName.replace("v", "");
-        
-        logger.info("當前版本: {}, 最新版本: {}", currentVersion, latestVersion);
-        
-        return isNewerVersion(currentVersion, latestVersion);
+    public CompletableFuture<GitHubRelease> findUpdate() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                logger.info("檢查 GitHub 更新...");
+                GitHubRelease latestRelease = catalog.getLatest();
+                if (latestRelease == null) {
+                    logger.warn("無法獲取最新版本信息");
+                    return null;
+                }
+                
+                String currentVersion = LauncherApplication.getVersion();
+                String latestVersion = ReleaseCatalog.versionOf(latestRelease);
+                logger.info("當前版本: {}, 最新版本: {} ({} 通道)", currentVersion, latestVersion, config.getUpdateChannel());
+                
+                return isNewerVersion(currentVersion, latestVersion) ? latestRelease : null;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, updateExecutor);
     }
     
     /**
-     * 獲取最新版本信息
+     * 獲取設定通道中的最新版本信息 (可能來自快取)
      */
-    public GitHubRelease getLatestRelease() throws Exception {
-        String repo = config.getGithubRepo();
-        if (repo == null || repo.contains("YOUR_USERNAME")) {
-            logger.warn("GitHub 倉庫未配置");
-            return null;
-        }
-
-        String apiUrl = String.format("%s/%s/releases/latest", GITHUB_API_BASE, repo);
-        logger.debug("Checking for updates from: {}", apiUrl);
-
-        HttpGet get = new HttpGet(apiUrl);
-        get.setHeader("Accept", "application/vnd.github.v3+json");
-        get.setHeader("User-Agent", "Minecraft-Launcher/" + LauncherApplication.getVersion());
-        
-        try (var response = httpClient.execute(get)) {
-            if (response.getCode() != 200) {
-                if (response.getCode() == 404) {
-                    logger.warn("找不到發布版本 (404)");
-                    return null;
-                }
-                throw new Exception("GitHub API 請求失敗: " + response.getCode());
-            }
-            
-            String responseBody = new String(response.getEntity().getContent().readAllBytes());
-            JsonNode json = objectMapper.readTree(responseBody);
-            
-            return parseGitHubRelease(json);
-        }
+    public GitHubRelease getLatestRelease() throws IOException {
+        return catalog.getLatest();
     }
     
-    private GitHubRelease parseGitHubRelease(JsonNode json) {
+    static GitHubRelease parseGitHubRelease(JsonNode json) {
         String tagName = json.get("tag_name").asText();
-        String name = json.get("name").asText();
-        String body = json.get("body").asText();
-        boolean prerelease = json.get("prerelease").asBoolean();
+        String name = json.path("name").asText(tagName);
+        String body = json.path("body").asText("");
+        boolean prerelease = json.path("prerelease").asBoolean(false);
         
-        String downloadUrl = null;
+        JsonNode download = null;
+        Map<String, String> assetUrls = new HashMap<>();
         JsonNode assets = json.get("assets");
         if (assets != null && assets.isArray()) {
             for (JsonNode asset : assets) {
                 String assetName = asset.get("name").asText();
-                // 尋找 .jar 或 .exe 文件
-                if (assetName.endsWith(".jar") || assetName.endsWith(".exe")) {
-                    downloadUrl = asset.get("browser_download_url").asText();
-                    break;
+                assetUrls.put(assetName, asset.get("browser_download_url").asText());
+                // 尋找 .jar 或 .exe 文件 (jar 優先，可在背景更新)
+                if (assetName.endsWith(".jar") && (download == null || !download.get("name").asText().endsWith(".jar"))) {
+                    download = asset;
+                } else if (assetName.endsWith(".exe") && download == null) {
+                    download = asset;
                 }
             }
         }
         
-        return new GitHubRelease(tagName, name, body, downloadUrl, prerelease);
+        String downloadUrl = download != null ? download.get("browser_download_url").asText() : null;
+        long downloadSize = download != null ? download.path("size").asLong(-1) : -1;
+        // GitHub 為附件提供的摘要，格式為 "sha256:..."
+        String digest = download != null ? download.path("digest").asText("") : "";
+        String downloadSha256 = digest.startsWith("sha256:") ? digest.substring("sha256:".length()) : null;
+        
+        return new GitHubRelease(tagName, name, body, downloadUrl, prerelease, assetUrls, downloadSize, downloadSha256);
     }
     
     /**
-     * 下載並應用更新
+     * 在背景下載新版本並校驗到暫存槽，下次啟動時由 {@link UpdateBootstrap} 切換
+     * 下載在低優先級執行緒上進行，不會鎖定介面，也不會替換正在使用的 jar
      * @param release 要下載的版本
      * @param progressCallback 進度回調
+     * @return 已暫存 (或先前已暫存) 時返回 true
      */
-    public CompletableFuture<Void> downloadAndApplyUpdate(GitHubRelease release, Consumer<Integer> progressCallback) {
-        return CompletableFuture.runAsync(() -> {
+    public CompletableFuture<Boolean> stageUpdate(GitHubRelease release, Consumer<Integer> progressCallback) {
+        return CompletableFuture.supplyAsync(() -> {
             try {
-                logger.info("開始下載更新: {}", release.tagName);
-                
                 if (release.downloadUrl == null || release.downloadUrl.isEmpty()) {
                     throw new Exception("沒有可用的下載連結");
                 }
                 
-                // 創建臨時下載目錄
-                Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"), "launcher-update");
-                Files.createDirectories(tempDir);
+                String version = release.tagName.replaceFirst("^v", "");
+                if (!SAFE_VERSION.matcher(version).matches()) {
+                    throw new Exception("無效的版本號: " + release.tagName);
+                }
                 
-                // 確定文件名
+                // 確定文件名 (只有 jar 可以由引導步驟直接載入)
                 String fileName = release.downloadUrl.substring(release.downloadUrl.lastIndexOf('/') + 1);
-                Path downloadPath = tempDir.resolve(fileName);
+                if (!fileName.endsWith(".jar")) {
+                    logger.warn("版本 {} 沒有 jar 附件，無法在背景更新: {}", release.tagName, fileName);
+                    return false;
+                }
+                
+                Path updates = UpdateBootstrap.updatesDirectory(config);
+                if (UpdateBootstrap.isStaged(updates, version)) {
+                    logger.info("版本 {} 已下載，等待下次啟動", version);
+                    return true;
+                }
+                
+                logger.info("開始在背景下載更新: {}", release.tagName);
+                Path staging = updates.resolve(UpdateBootstrap.STAGING_DIRECTORY);
+                Files.createDirectories(staging);
+                Path downloadPath = staging.resolve(fileName);
                 
-                // 下載文件
-                downloadFile(release.downloadUrl, downloadPath, progressCallback);
+                // 優先下載補丁並套用到當前 jar，不可用或失敗時下載完整文件
+                String sha256 = downloadPatched(release, fileName, downloadPath, progressCallback);
+                if (sha256 == null) {
+                    String expectedSha256 = publishedSha256(release, fileName);
+                    if (expectedSha256 == null) {
+                        logger.warn("版本 {} 沒有發佈校驗和，只能校驗文件大小", release.tagName);
+                    }
+                    sha256 = downloadFile(release.downloadUrl, downloadPath, release.downloadSize, expectedSha256,
+                            progressCallback);
+                }
+                verifyLauncherJar(downloadPath);
                 
-                // 應用更新
-                applyUpdate(downloadPath);
+                UpdateBootstrap.stage(updates, version, downloadPath, sha256);
+                config.setUpdatePending(true);
+                config.save();
                 
-                logger.info("更新完成: {}", release.tagName);
+                logger.info("版本 {} 已下載並校驗，將在下次啟動時套用", version);
+                return true;
                 
             } catch (Exception e) {
-                logger.error("更新失敗", e);
+                logger.error("背景更新失敗", e);
                 throw new RuntimeException(e);
             }
-        });
+        }, updateExecutor);
     }
     
-    private void downloadFile(String url, Path destination, Consumer<Integer> progressCallback) throws Exception {
-        logger.info("下載文件: {} -> {}", url, destination);
+    /**
+     * 確認文件是可載入的啟動器 jar
+     */
+    private void verifyLauncherJar(Path file) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            if (zip.getEntry("com/mcserver/launcher/LauncherMain.class") == null) {
+                throw new IOException("下載的文件不是啟動器 jar");
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+    
+    /**
+     * 通過 bsdiff 補丁生成新版本文件
+     * 依當前 jar 的 SHA-256 從補丁索引中選出最小的補丁，以串流方式套用並校驗結果的 SHA-256
+     * @return 成功生成並通過校驗時返回結果的 SHA-256，否則返回 null
+     */
+    private String downloadPatched(GitHubRelease release, String fileName, Path destination,
+                                    Consumer<Integer> progressCallback) {
+        String patchIndexUrl = release.assetUrls.get(UpdatePatches.INDEX_NAME);
+        String currentJarPath = getCurrentJarPath();
+        if (patchIndexUrl == null || currentJarPath == null || !Files.isRegularFile(Paths.get(currentJarPath))) {
+            return null;
+        }
+        Path currentJar = Paths.get(currentJarPath);
+        Path patchFile = destination.resolveSibling(destination.getFileName() + ".bsdiff");
         
-        URL downloadUrl = new URL(url);
-        try (ReadableByteChannel rbc = Channels.newChannel(downloadUrl.openStream());
-             FileOutputStream fos = new FileOutputStream(destination.toFile())) {
+        try {
+            UpdatePatches index = UpdatePatches.parse(new ObjectMapper().readTree(fetchText(patchIndexUrl)));
+            if (!index.getTargetName().equals(fileName)) {
+                logger.warn("補丁索引的目標 {} 與下載文件 {} 不符", index.getTargetName(), fileName);
+                return null;
+            }
             
-            // 獲取文件大小
-            long fileSize = downloadUrl.openConnection().getContentLengthLong();
+            UpdatePatches.Patch patch = index.select(GitHashIndex.computeHashes(currentJar).getSha256());
+            String patchUrl = patch != null ? release.assetUrls.get(patch.getName()) : null;
+            if (patchUrl == null) {
+                logger.info("沒有適用於當前版本的補丁，下載完整文件");
+                return null;
+            }
             
-            // 下載文件並報告進度
-            long bytesTransferred = 0;
-            long chunkSize = 8192;
+            logger.info("下載補丁: {} ({} KB)", patch.getName(), patch.getSize() / 1024);
+            downloadFile(patchUrl, patchFile, patch.getSize(), null, progressCallback);
             
-            while (bytesTransferred < fileSize) {
-                long transferred = fos.getChannel().transferFrom(rbc, bytesTransferred, chunkSize);
-                if (transferred == 0) break;
-                
-                bytesTransferred += transferred;
-                
-                if (progressCallback != null && fileSize > 0) {
-                    int progress = (int) ((bytesTransferred * 100) / fileSize);
-                    progressCallback.accept(progress);
-                }
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (OutputStream out = new DigestOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(destination)), digest)) {
+                BsDiff.patch(currentJar, patchFile, out);
+            }
+            String actual = HexFormat.of().formatHex(digest.digest());
+            if (!actual.equalsIgnoreCase(index.getTargetSha256())) {
+                throw new IOException("補丁結果校驗失敗: " + actual);
+            }
+            
+            logger.info("已通過補丁生成 {}: 下載 {} KB，完整文件 {} KB",
+                    fileName, Files.size(patchFile) / 1024, Files.size(destination) / 1024);
+            return actual;
+        } catch (Exception e) {
+            logger.warn("補丁更新失敗，改為下載完整文件", e);
+            try {
+                Files.deleteIfExists(destination);
+            } catch (IOException ignored) {
+            }
+            return null;
+        } finally {
+            try {
+                Files.deleteIfExists(patchFile);
+            } catch (IOException ignored) {
             }
         }
-        
-        logger.info("文件下載完成: {}", destination);
     }
     
-    private void applyUpdate(Path updateFile) throws Exception {
-        logger.info("應用更新: {}", updateFile);
+    /**
+     * 下載文件 (單一連線，以直接緩衝區串流寫入並同時計算 SHA-256)
+     * 中斷時保留 .part 文件與伺服器的驗證器 (ETag 或 Last-Modified)，重試或下次下載時以 Range 請求續傳
+     * @param expectedSize 預期大小，未知時為 -1
+     * @param expectedSha256 預期的 SHA-256，未知時為 null
+     * @return 文件的 SHA-256
+     */
+    private String downloadFile(String url, Path destination, long expectedSize, String expectedSha256,
+                                Consumer<Integer> progressCallback) throws IOException {
+        logger.info("下載文件: {} -> {}", url, destination);
+        Path partFile = destination.resolveSibling(destination.getFileName() + ".part");
+        Path validatorFile = destination.resolveSibling(destination.getFileName() + ".part.validator");
+        ProgressReporter progress = new ProgressReporter(progressCallback);
         
-        // 獲取當前 JAR 文件路徑
-        String currentJarPath = getCurrentJarPath();
-        if (currentJarPath == null) {
-            throw new Exception("無法確定當前 JAR 文件路徑");
+        IOException lastError = null;
+        for (int attempt = 1; attempt <= MAX_DOWNLOAD_ATTEMPTS; attempt++) {
+            try {
+                boolean resumed = Files.isRegularFile(partFile) && Files.isRegularFile(validatorFile);
+                String sha256 = transfer(url, partFile, validatorFile, expectedSize, progress);
+                if ((expectedSize >= 0 && Files.size(partFile) != expectedSize)
+                        || (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(sha256))) {
+                    // 丟棄整個文件；只有續傳的結果值得從頭再試一次
+                    Files.deleteIfExists(partFile);
+                    Files.deleteIfExists(validatorFile);
+                    if (!resumed) {
+                        throw new ChecksumException("下載的文件校驗失敗: " + sha256);
+                    }
+                    throw new IOException("續傳的文件校驗失敗，將從頭下載: " + sha256);
+                }
+                Files.move(partFile, destination, StandardCopyOption.REPLACE_EXISTING);
+                Files.deleteIfExists(validatorFile);
+                logger.info("文件下載完成: {}", destination);
+                return sha256;
+            } catch (ChecksumException e) {
+                throw e;
+            } catch (HttpStatusException e) {
+                if (!e.isRetryable()) {
+                    throw e;
+                }
+                lastError = e;
+            } catch (IOException e) {
+                lastError = e;
+            }
+            
+            logger.warn("下載中斷 (第 {} 次): {}", attempt, lastError.getMessage());
+            if (attempt < MAX_DOWNLOAD_ATTEMPTS) {
+                try {
+                    Thread.sleep(1000L << attempt);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("下載已中斷");
+                }
+            }
         }
+        throw lastError;
+    }
+    
+    /**
+     * 單次傳輸：有可續傳的 .part 時從其末尾繼續，否則從頭開始
+     */
+    private String transfer(String url, Path partFile, Path validatorFile, long expectedSize,
+                            ProgressReporter progress) throws IOException {
+        String validator = Files.isRegularFile(validatorFile) ? Files.readString(validatorFile).trim() : "";
+        long resumeFrom = Files.isRegularFile(partFile) && !validator.isEmpty() ? Files.size(partFile) : 0;
         
-        Path currentJar = Paths.get(currentJarPath);
-        Path backupJar = Paths.get(currentJarPath + ".backup");
-        
-        // 創建備份
-        Files.copy(currentJar, backupJar, StandardCopyOption.REPLACE_EXISTING);
-        logger.info("已創建備份: {}", backupJar);
-        
-        // 替換文件
-        Files.copy(updateFile, currentJar, StandardCopyOption.REPLACE_EXISTING);
-        logger.info("已替換文件: {}", currentJar);
-        
-        // 創建重啟腳本
-        createRestartScript(currentJarPath);
+        HttpGet get = new HttpGet(url);
+        get.setHeader("User-Agent", "Minecraft-Launcher/" + LauncherApplication.getVersion());
+        if (resumeFrom > 0) {
+            // 文件在伺服器上已變更時 If-Range 使伺服器返回完整的 200 回應
+            get.setHeader("Range", "bytes=" + resumeFrom + "-");
+            get.setHeader("If-Range", validator);
+        }
         
-        // 標記需要重啟
-        config.setUpdatePending(true);
-        config.save();
+        return httpClient.execute(get, response -> {
+            int code = response.getCode();
+            long start;
+            if (code == 206 && resumeFrom > 0) {
+                Header contentRange = response.getFirstHeader("Content-Range");
+                if (contentRange == null || !contentRange.getValue().startsWith("bytes " + resumeFrom + "-")) {
+                    throw new IOException("伺服器返回的範圍不符");
+                }
+                start = resumeFrom;
+                logger.info("從 {} KB 處續傳: {}", resumeFrom / 1024, url);
+            } else if (code == 200) {
+                start = 0;
+            } else {
+                if (code == 416) {
+                    // 續傳位置無效，下一次嘗試從頭下載
+                    Files.deleteIfExists(validatorFile);
+                }
+                throw new HttpStatusException(code);
+            }
+            
+            Header etag = response.getFirstHeader("ETag");
+            Header lastModified = response.getFirstHeader("Last-Modified");
+            String newValidator = etag != null && !etag.getValue().startsWith("W/") ? etag.getValue()
+                    : lastModified != null ? lastModified.getValue() : null;
+            if (newValidator != null) {
+                Files.writeString(validatorFile, newValidator);
+            } else {
+                Files.deleteIfExists(validatorFile);
+            }
+            
+            MessageDigest digest = FastCdc.sha256();
+            if (start > 0) {
+                try (InputStream existing = Files.newInputStream(partFile)) {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int n;
+                    while ((n = existing.read(buffer)) != -1) {
+                        digest.update(buffer, 0, n);
+                    }
+                }
+            }
+            
+            long contentLength = response.getEntity().getContentLength();
+            long total = contentLength >= 0 ? start + contentLength : expectedSize;
+            long written = start;
+            OpenOption mode = start > 0 ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+            try (ReadableByteChannel source = Channels.newChannel(response.getEntity().getContent());
+                 FileChannel target = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    written += buffer.remaining();
+                    digest.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                    buffer.clear();
+                    progress.report(written, total);
+                }
+            }
+            if (contentLength >= 0 && written != total) {
+                throw new IOException("下載提前結束: " + written + " / " + total);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        });
+    }
+    
+    /**
+     * 與 Release 一起發佈的 SHA-256
+     * 依序使用 GitHub 提供的附件摘要、"<文件名>.sha256" 附件、SHA256SUMS 附件，都沒有時返回 null
+     */
+    private String publishedSha256(GitHubRelease release, String fileName) {
+        if (release.downloadSha256 != null) {
+            return release.downloadSha256;
+        }
+        for (String checksumName : new String[]{fileName + ".sha256", "SHA256SUMS", "SHA256SUMS.txt"}) {
+            String url = release.assetUrls.get(checksumName);
+            if (url == null) {
+                continue;
+            }
+            try {
+                for (String line : fetchText(url).split("\\R")) {
+                    // 格式為 "<sha256>" 或 "<sha256>  <文件名>" (sha256sum 輸出，文件名前可能有 *)
+                    String[] parts = line.trim().split("\\s+");
+                    boolean matches = parts.length == 1 ? checksumName.endsWith(".sha256")
+                            : parts.length == 2 && parts[1].replaceFirst("^\\*", "").equals(fileName);
+                    if (matches && SHA256_HEX.matcher(parts[0]).matches()) {
+                        return parts[0];
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("無法讀取校驗和文件 {}: {}", checksumName, e.getMessage());
+            }
+        }
+        return null;
+    }
+    
+    private String fetchText(String url) throws IOException {
+        HttpGet get = new HttpGet(url);
+        get.setHeader("User-Agent", "Minecraft-Launcher/" + LauncherApplication.getVersion());
+        return httpClient.execute(get, response -> {
+            if (response.getCode() != 200) {
+                throw new HttpStatusException(response.getCode());
+            }
+            return EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        });
     }
     
     private String getCurrentJarPath() {
@@ -224,86 +464,71 @@ public class UpdateManager {
         }
     }
     
-    private void createRestartScript(String jarPath) throws IOException {
-        String os = System.getProperty("os.name").toLowerCase();
-        Path scriptPath;
-        String scriptContent;
-        
-        if (os.contains("win")) {
-            // Windows 批次檔
-            scriptPath = Paths.get("restart-launcher.bat");
-            // 使用 start 命令異步啟動新進程，確保當前進程能順利退出
-            // 嘗試檢測是否有 MCL.exe 包裝器
-            File exeFile = new File("MCL.exe");
-            String launchCmd = exeFile.exists() ? "start \"\" \"MCL.exe\"" : "start \"\" javaw -jar \"" + jarPath + "\"";
-            
-            scriptContent = "@echo off\r\n" +
-                    "echo Waiting for launcher to exit...\r\n" +
-                    "timeout /t 2 /nobreak > nul\r\n" +
-                    "echo Restarting launcher...\r\n" +
-                    launchCmd + "\r\n" +
-                    "del \"%~f0\"\r\n" + 
-                    "exit\r\n";
-        } else {
-            // Unix/Linux shell 腳本
-            scriptPath = Paths.get("restart-launcher.sh");
-            scriptContent = "#!/bin/bash\n" +
-                    "echo 'Waiting for launcher to exit...'\n" +
-                    "sleep 2\n" +
-                    "echo 'Restarting launcher...'\n" +
-                    "java -jar \"" + jarPath + "\" &\n" +
-                    "rm \"$0\"\n";
-        }
-        
-        Files.write(scriptPath, scriptContent.getBytes());
-        
-        // 設置執行權限 (Unix/Linux)
-        if (!os.contains("win")) {
-            scriptPath.toFile().setExecutable(true);
-        }
-        
-        logger.info("已創建重啟腳本: {}", scriptPath);
-        
-        // 執行重啟腳本
-        if (os.contains("win")) {
-             Runtime.getRuntime().exec("cmd /c start \"\" \"" + scriptPath.toString() + "\"");
-        } else {
-             Runtime.getRuntime().exec(new String[]{"/bin/bash", scriptPath.toString()});
-        }
-        
-        // 退出當前應用程序
-        System.exit(0);
-    }
-    
     /**
      * 比較版本號
      * @param current 當前版本
      * @param latest 最新版本
      * @return 如果最新版本更新返回 true
      */
-    private boolean isNewerVersion(String current, String latest) {
-        try {
-            String[] currentParts = current.split("\\.");
-            String[] latestParts = latest.split("\\.");
-            
-            int maxLength = Math.max(currentParts.length, latestParts.length);
-            
-            for (int i = 0; i < maxLength; i++) {
-                int currentPart = i < currentParts.length ? Integer.parseInt(currentParts[i]) : 0;
-                int latestPart = i < latestParts.length ? Integer.parseInt(latestParts[i]) : 0;
-                
-                if (latestPart > currentPart) {
-                    return true;
-                } else if (latestPart < currentPart) {
-                    return false;
-                }
+    static boolean isNewerVersion(String current, String latest) {
+        return compareVersions(latest, current) > 0;
+    }
+    
+    /**
+     * 比較兩個版本號 (例如 1.2.0、1.2.0-beta.2)
+     * 主版本部分逐段按數值比較；相同時正式版高於預覽版，預覽版之間逐段比較 (數字按數值，其餘按字母)
+     * @return 負數、0 或正數，分別表示 a 低於、等於或高於 b
+     */
+    static int compareVersions(String a, String b) {
+        // 去掉建置資訊 (+ 之後)，再以第一個 - 分開主版本與預覽標識
+        String[] aSplit = a.replaceFirst("\\+.*$", "").split("-", 2);
+        String[] bSplit = b.replaceFirst("\\+.*$", "").split("-", 2);
+        String[] aParts = aSplit[0].split("\\.");
+        String[] bParts = bSplit[0].split("\\.");
+        
+        int maxLength = Math.max(aParts.length, bParts.length);
+        for (int i = 0; i < maxLength; i++) {
+            long aPart = i < aParts.length ? leadingNumber(aParts[i]) : 0;
+            long bPart = i < bParts.length ? leadingNumber(bParts[i]) : 0;
+            if (aPart != bPart) {
+                return Long.compare(aPart, bPart);
             }
-            
-            return false; // 版本相同
-        } catch (NumberFormatException e) {
-            logger.warn("版本號格式錯誤，無法比較: {} vs {}", current, latest);
-            return false;
         }
+        
+        boolean aPre = aSplit.length > 1 && !aSplit[1].isEmpty();
+        boolean bPre = bSplit.length > 1 && !bSplit[1].isEmpty();
+        if (aPre != bPre) {
+            return aPre ? -1 : 1;
+        }
+        if (!aPre) {
+            return 0;
+        }
+        String[] aIds = aSplit[1].split("\\.");
+        String[] bIds = bSplit[1].split("\\.");
+        for (int i = 0; i < Math.min(aIds.length, bIds.length); i++) {
+            boolean aNumeric = aIds[i].matches("\\d+");
+            boolean bNumeric = bIds[i].matches("\\d+");
+            int result;
+            if (aNumeric && bNumeric) {
+                result = Long.compare(Long.parseLong(aIds[i]), Long.parseLong(bIds[i]));
+            } else if (aNumeric != bNumeric) {
+                result = aNumeric ? -1 : 1;
+            } else {
+                result = aIds[i].compareTo(bIds[i]);
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(aIds.length, bIds.length);
+    }
+    
+    private static long leadingNumber(String part) {
+        int end = 0;
+        while (end < part.length() && end < 18 && Character.isDigit(part.charAt(end))) {
+            end++;
+        }
+        return end > 0 ? Long.parseLong(part.substring(0, end)) : 0;
     }
     
     /**
@@ -326,6 +551,64 @@ public class UpdateManager {
         });
     }
     
+    /**
+     * 節流的進度回報：百分比有變化且距上次回報超過 100ms 時才回調 (100% 總是回報)
+     */
+    private static final class ProgressReporter {
+        private static final long INTERVAL_NANOS = 100_000_000L;
+        
+        private final Consumer<Integer> callback;
+        private int lastPercent = -1;
+        private long lastReportNanos;
+        
+        ProgressReporter(Consumer<Integer> callback) {
+            this.callback = callback;
+        }
+        
+        void report(long done, long total) {
+            if (callback == null || total <= 0) {
+                return;
+            }
+            int percent = (int) Math.min(100, done * 100 / total);
+            long now = System.nanoTime();
+            if (percent == lastPercent || (percent < 100 && now - lastReportNanos < INTERVAL_NANOS)) {
+                return;
+            }
+            lastPercent = percent;
+            lastReportNanos = now;
+            callback.accept(percent);
+        }
+    }
+    
+    /**
+     * 非 200/206 回應；僅 408、429、5xx 與 416 值得重試 (416 時已刪除續傳記錄，下一次從頭下載)
+     */
+    private static class HttpStatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        private final int statusCode;
+        
+        HttpStatusException(int statusCode) {
+            super("HTTP " + statusCode);
+            this.statusCode = statusCode;
+        }
+        
+        boolean isRetryable() {
+            return statusCode == 408 || statusCode == 416 || statusCode == 429 || statusCode >= 500;
+        }
+    }
+    
+    /**
+     * 完整下載的文件與發佈的校驗和不符 (重試也不會改變結果)
+     */
+    private static class ChecksumException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        ChecksumException(String message) {
+            super(message);
+        }
+    }
+    
     /**
      * GitHub 版本信息類
      */
@@ -335,13 +618,26 @@ public class UpdateManager {
         public final String body;
         public final String downloadUrl;
         public final boolean prerelease;
+        // 附件名稱 -> 下載位址 (包含補丁與補丁索引)
+        public final Map<String, String> assetUrls;
+        // 下載文件的大小 (未知為 -1) 與 SHA-256 (未知為 null)
+        public final long downloadSize;
+        public final String downloadSha256;
         
         public GitHubRelease(String tagName, String name, String body, String downloadUrl, boolean prerelease) {
+            this(tagName, name, body, downloadUrl, prerelease, Map.of(), -1, null);
+        }
+        
+        public GitHubRelease(String tagName, String name, String body, String downloadUrl, boolean prerelease,
+                             Map<String, String> assetUrls, long downloadSize, String downloadSha256) {
             this.tagName = tagName;
             this.name = name;
             this.body = body;
             this.downloadUrl = downloadUrl;
             this.prerelease = prerelease;
+            this.assetUrls = Map.copyOf(assetUrls);
+            this.downloadSize = downloadSize;
+            this.downloadSha256 = downloadSha256;
         }
         
         @Override
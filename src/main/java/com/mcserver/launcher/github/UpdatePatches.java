@@ -0,0 +1,228 @@
+package com.mcserver.launcher.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 啟動器更新補丁索引 (update-patches.json，作為 Release 附件發佈)
+ * 列出從舊版本升級到本版本的 bsdiff 補丁 (見 {@link BsDiff})，以舊 jar 的 SHA-256 識別來源版本，
+ * 因此自行編譯或被修改過的 jar 不會套用到錯誤的補丁。
+ *
+ * 格式:
+ * {
+ *   "formatVersion": 1,
+ *   "target": {"name": "MCL.jar", "size": 123, "sha256": "..."},
+ *   "patches": [{"from": "舊 jar 的 sha256", "version": "1.2.0", "name": "MCL.jar.from-1.2.0.bsdiff", "size": 4567}]
+ * }
+ */
+public class UpdatePatches {
+    
+    public static final int FORMAT_VERSION = 1;
+    public static final String INDEX_NAME = "update-patches.json";
+    
+    private static final Pattern VERSION_PATTERN = Pattern.compile("(\\d+(?:\\.\\d+)+)");
+    
+    private final String targetName;
+    private final long targetSize;
+    private final String targetSha256;
+    private final List<Patch> patches;
+    
+    public UpdatePatches(String targetName, long targetSize, String targetSha256, List<Patch> patches) {
+        this.targetName = targetName;
+        this.targetSize = targetSize;
+        this.targetSha256 = targetSha256;
+        this.patches = List.copyOf(patches);
+    }
+    
+    public String getTargetName() {
+        return targetName;
+    }
+    
+    public long getTargetSize() {
+        return targetSize;
+    }
+    
+    public String getTargetSha256() {
+        return targetSha256;
+    }
+    
+    public List<Patch> getPatches() {
+        return patches;
+    }
+    
+    /**
+     * 選出可套用到指定 jar 的最小補丁，沒有時返回 null
+     */
+    public Patch select(String currentSha256) {
+        return patches.stream()
+                .filter(p -> p.fromSha256.equalsIgnoreCase(currentSha256))
+                .min(Comparator.comparingLong(Patch::getSize))
+                .orElse(null);
+    }
+    
+    public static UpdatePatches parse(JsonNode root) throws IOException {
+        int version = root.path("formatVersion").asInt(FORMAT_VERSION);
+        if (version > FORMAT_VERSION) {
+            throw new IOException("不支援的補丁索引格式版本: " + version);
+        }
+        JsonNode target = root.path("target");
+        if (!target.hasNonNull("name") || !target.hasNonNull("sha256")) {
+            throw new IOException("補丁索引缺少 target");
+        }
+        List<Patch> patches = new ArrayList<>();
+        for (JsonNode node : root.path("patches")) {
+            patches.add(new Patch(node.get("from").asText(), node.path("version").asText(null),
+                    node.get("name").asText(), node.get("size").asLong()));
+        }
+        return new UpdatePatches(target.get("name").asText(), target.path("size").asLong(-1),
+                target.get("sha256").asText(), patches);
+    }
+    
+    public String toJson() throws IOException {
+        List<Map<String, Object>> patchList = new ArrayList<>();
+        for (Patch patch : patches) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("from", patch.fromSha256);
+            if (patch.fromVersion != null) {
+                data.put("version", patch.fromVersion);
+            }
+            data.put("name", patch.name);
+            data.put("size", patch.size);
+            patchList.add(data);
+        }
+        Map<String, Object> target = new LinkedHashMap<>();
+        target.put("name", targetName);
+        target.put("size", targetSize);
+        target.put("sha256", targetSha256);
+        
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("formatVersion", FORMAT_VERSION);
+        root.put("target", target);
+        root.put("patches", patchList);
+        return new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(root);
+    }
+    
+    /**
+     * 命令列工具
+     * 用法: java -jar launcher.jar generate-patches <新版本 jar> <舊版本 jar>... [--output 目錄]
+     * 舊版本 jar 的文件名中若含版本號 (例如 MCL-1.2.0.jar)，補丁名稱會使用該版本號，否則使用雜湊前綴。
+     * 把輸出目錄中的 .bsdiff、update-patches.json 與 .sha256 連同新版本 jar 一起上傳到 Release。
+     */
+    public static void main(String[] args) throws Exception {
+        List<Path> olds = new ArrayList<>();
+        Path output = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--output") && i + 1 < args.length) {
+                output = Paths.get(args[++i]);
+            } else if (args[i].startsWith("--")) {
+                System.err.println("未知參數: " + args[i]);
+                System.exit(1);
+            } else {
+                olds.add(Paths.get(args[i]));
+            }
+        }
+        if (olds.size() < 2) {
+            System.err.println("用法: generate-patches <新版本 jar> <舊版本 jar>... [--output 目錄]");
+            System.exit(1);
+        }
+        Path newJar = olds.remove(0);
+        String targetName = newJar.getFileName().toString();
+        if (output == null) {
+            output = newJar.toAbsolutePath().resolveSibling("patches");
+        }
+        Files.createDirectories(output);
+        
+        byte[] newData = Files.readAllBytes(newJar);
+        List<Patch> patches = new ArrayList<>();
+        for (Path old : olds) {
+            byte[] oldData = Files.readAllBytes(old);
+            String fromSha256 = GitHashIndex.computeHashes(old).getSha256();
+            String fromVersion = versionOf(old.getFileName().toString());
+            String name = targetName + ".from-" + (fromVersion != null ? fromVersion : fromSha256.substring(0, 12)) + ".bsdiff";
+            Path patchFile = output.resolve(name);
+            writePatch(oldData, newData, patchFile);
+            patches.add(new Patch(fromSha256, fromVersion, name, Files.size(patchFile)));
+            System.out.printf("已生成 %s: %.1f KB (完整文件 %.1f MB)%n", patchFile, Files.size(patchFile) / 1024.0,
+                    newData.length / 1024.0 / 1024.0);
+        }
+        
+        String targetSha256 = GitHashIndex.computeHashes(newJar).getSha256();
+        UpdatePatches index = new UpdatePatches(targetName, newData.length, targetSha256, patches);
+        Path indexFile = output.resolve(INDEX_NAME);
+        Files.writeString(indexFile, index.toJson());
+        System.out.printf("已生成 %s: %d 個補丁%n", indexFile, patches.size());
+        // 完整下載時使用的校驗和 (sha256sum 格式)
+        Path checksumFile = output.resolve(targetName + ".sha256");
+        Files.writeString(checksumFile, targetSha256 + "  " + targetName + "\n");
+        System.out.printf("已生成 %s%n", checksumFile);
+    }
+    
+    private static void writePatch(byte[] oldData, byte[] newData, Path patchFile) throws Exception {
+        Path temp = patchFile.resolveSibling(patchFile.getFileName() + ".tmp");
+        // 後綴排序為遞迴實現，在較大的執行緒堆疊上執行以免高度重複的資料造成堆疊溢位
+        IOException[] failure = new IOException[1];
+        Thread worker = new Thread(null, () -> {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                BsDiff.diff(oldData, newData, out);
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        }, "bsdiff", 256L * 1024 * 1024);
+        worker.start();
+        worker.join();
+        if (failure[0] != null) {
+            Files.deleteIfExists(temp);
+            throw failure[0];
+        }
+        Files.move(temp, patchFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    private static String versionOf(String fileName) {
+        Matcher matcher = VERSION_PATTERN.matcher(fileName);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+    
+    /**
+     * 單個補丁
+     */
+    public static final class Patch {
+        private final String fromSha256;
+        private final String fromVersion;
+        private final String name;
+        private final long size;
+        
+        public Patch(String fromSha256, String fromVersion, String name, long size) {
+            this.fromSha256 = fromSha256;
+            this.fromVersion = fromVersion;
+            this.name = name;
+            this.size = size;
+        }
+        
+        public String getFromSha256() {
+            return fromSha256;
+        }
+        
+        public String getFromVersion() {
+            return fromVersion;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public long getSize() {
+            return size;
+        }
+    }
+}
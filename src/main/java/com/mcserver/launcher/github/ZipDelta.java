@@ -0,0 +1,340 @@
+package com.mcserver.launcher.github;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Zip 文件的條目級差異更新
+ * 先以 Range 請求取得遠端 zip 的中央目錄，與本地舊版本逐條目比對 (名稱、CRC32、大小、壓縮方式與時間)；
+ * 未變更的條目直接從本地文件原樣複製 (不重新壓縮)，變更的條目只下載其位元組範圍，
+ * 依遠端的排列順序重組出與遠端逐位元組相同的文件，最後由呼叫端以整個文件的雜湊校驗。
+ */
+final class ZipDelta {
+    
+    // 只對足夠大的 zip 使用差異更新，小文件直接下載更快
+    static final long MIN_SIZE = 4L * 1024 * 1024;
+    
+    // EOCD (22 位元組) 加上最長 64KB 的註解
+    private static final int MAX_EOCD_SEARCH = 22 + 65535;
+    
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int CD_SIGNATURE = 0x02014b50;
+    
+    /**
+     * 遠端範圍讀取
+     */
+    interface RangeFetcher {
+        /**
+         * 讀取 [start, start + length) 並寫入 out
+         */
+        void fetch(long start, long length, OutputStream out) throws IOException;
+    }
+    
+    /**
+     * 重組結果統計
+     */
+    static final class Result {
+        final int reusedEntries;
+        final int fetchedEntries;
+        
+        Result(int reusedEntries, int fetchedEntries) {
+            this.reusedEntries = reusedEntries;
+            this.fetchedEntries = fetchedEntries;
+        }
+    }
+    
+    private ZipDelta() {
+    }
+    
+    static boolean isCandidate(String name, long size) {
+        return size >= MIN_SIZE && name.toLowerCase(Locale.ROOT).endsWith(".zip");
+    }
+    
+    /**
+     * 以本地舊版本為基礎重組遠端 zip
+     * @param basis 本地舊版本
+     * @param remoteSize 遠端文件大小
+     * @param output 輸出文件 (會被覆蓋)
+     * @return 統計；遠端或本地不是有效 zip 時拋出 IOException
+     */
+    static Result rebuild(Path basis, long remoteSize, RangeFetcher fetcher, Path output) throws IOException {
+        // 1. 取得遠端尾部 (EOCD 與通常整個中央目錄)
+        long tailStart = Math.max(0, remoteSize - MAX_EOCD_SEARCH);
+        RemoteSource remote = new RemoteSource(fetcher, tailStart, fetchBytes(fetcher, tailStart, (int) (remoteSize - tailStart)));
+        List<Entry> remoteEntries = readCentralDirectory(remote, remoteSize);
+        long remoteCdOffset = remote.cdOffset;
+        
+        // 2. 讀取本地中央目錄
+        try (FileChannel local = FileChannel.open(basis, StandardOpenOption.READ)) {
+            LocalSource localSource = new LocalSource(local);
+            List<Entry> localEntries = readCentralDirectory(localSource, local.size());
+            assignSegments(localEntries, localSource.cdOffset);
+            assignSegments(remoteEntries, remoteCdOffset);
+            
+            Map<String, Entry> localByName = new HashMap<>();
+            for (Entry entry : localEntries) {
+                localByName.put(entry.name, entry);
+            }
+            
+            // 3. 依遠端順序組合操作：複製本地片段或下載遠端片段 (相鄰的下載合併為一次請求)
+            int reused = 0;
+            int fetched = 0;
+            try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                OutputStream outStream = Channels.newOutputStream(out);
+                long pendingStart = -1;
+                long pendingLength = 0;
+                
+                long firstOffset = remoteEntries.isEmpty() ? remoteCdOffset : remoteEntries.get(0).offset;
+                if (firstOffset > 0) {
+                    pendingStart = 0;
+                    pendingLength = firstOffset;
+                }
+                
+                for (Entry entry : remoteEntries) {
+                    Entry same = localByName.get(entry.name);
+                    if (same != null && same.sameContentAs(entry) && same.segmentLength == entry.segmentLength) {
+                        if (pendingLength > 0) {
+                            remote.copy(pendingStart, pendingLength, outStream);
+                            pendingLength = 0;
+                        }
+                        copyFully(local, same.offset, same.segmentLength, out);
+                        reused++;
+                    } else {
+                        if (pendingLength == 0) {
+                            pendingStart = entry.offset;
+                        }
+                        pendingLength += entry.segmentLength;
+                        fetched++;
+                    }
+                }
+                
+                // 中央目錄與結尾記錄
+                if (pendingLength == 0) {
+                    pendingStart = remoteCdOffset;
+                }
+                pendingLength += remoteSize - remoteCdOffset;
+                remote.copy(pendingStart, pendingLength, outStream);
+                outStream.flush();
+            }
+            return new Result(reused, fetched);
+        }
+    }
+    
+    private static void assignSegments(List<Entry> entries, long cdOffset) throws IOException {
+        entries.sort(Comparator.comparingLong(e -> e.offset));
+        for (int i = 0; i < entries.size(); i++) {
+            long end = i + 1 < entries.size() ? entries.get(i + 1).offset : cdOffset;
+            entries.get(i).segmentLength = end - entries.get(i).offset;
+            if (entries.get(i).segmentLength < 30) {
+                throw new IOException("zip 條目位置無效: " + entries.get(i).name);
+            }
+        }
+    }
+    
+    private static void copyFully(FileChannel source, long position, long length, FileChannel target) throws IOException {
+        long copied = 0;
+        while (copied < length) {
+            long n = source.transferTo(position + copied, length - copied, target);
+            if (n <= 0) {
+                throw new IOException("本地 zip 文件被截斷");
+            }
+            copied += n;
+        }
+    }
+    
+    /**
+     * 解析中央目錄 (支援 ZIP64)，並記錄中央目錄的位置
+     */
+    private static List<Entry> readCentralDirectory(Source source, long size) throws IOException {
+        int searchLength = (int) Math.min(size, MAX_EOCD_SEARCH);
+        ByteBuffer tail = source.read(size - searchLength, searchLength);
+        int eocd = -1;
+        for (int i = searchLength - 22; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIGNATURE) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            throw new IOException("找不到 zip 結尾記錄");
+        }
+        
+        long entryCount = Short.toUnsignedInt(tail.getShort(eocd + 10));
+        long cdSize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+        long cdOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+        
+        if (cdOffset == 0xFFFFFFFFL || cdSize == 0xFFFFFFFFL || entryCount == 0xFFFF) {
+            int locator = eocd - 20;
+            if (locator < 0 || tail.getInt(locator) != ZIP64_LOCATOR_SIGNATURE) {
+                throw new IOException("找不到 ZIP64 結尾記錄");
+            }
+            ByteBuffer zip64 = source.read(tail.getLong(locator + 8), 56);
+            if (zip64.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+                throw new IOException("ZIP64 結尾記錄無效");
+            }
+            entryCount = zip64.getLong(32);
+            cdSize = zip64.getLong(40);
+            cdOffset = zip64.getLong(48);
+        }
+        if (cdOffset + cdSize > size || cdSize > Integer.MAX_VALUE) {
+            throw new IOException("zip 中央目錄位置無效");
+        }
+        source.cdOffset = cdOffset;
+        
+        ByteBuffer cd = source.read(cdOffset, (int) cdSize);
+        List<Entry> entries = new ArrayList<>();
+        int pos = 0;
+        for (long i = 0; i < entryCount; i++) {
+            if (pos + 46 > cd.limit() || cd.getInt(pos) != CD_SIGNATURE) {
+                throw new IOException("zip 中央目錄損壞");
+            }
+            Entry entry = new Entry();
+            entry.method = Short.toUnsignedInt(cd.getShort(pos + 10));
+            entry.dosTime = Integer.toUnsignedLong(cd.getInt(pos + 12));
+            entry.crc = Integer.toUnsignedLong(cd.getInt(pos + 16));
+            entry.compressedSize = Integer.toUnsignedLong(cd.getInt(pos + 20));
+            entry.size = Integer.toUnsignedLong(cd.getInt(pos + 24));
+            int nameLength = Short.toUnsignedInt(cd.getShort(pos + 28));
+            int extraLength = Short.toUnsignedInt(cd.getShort(pos + 30));
+            int commentLength = Short.toUnsignedInt(cd.getShort(pos + 32));
+            entry.offset = Integer.toUnsignedLong(cd.getInt(pos + 42));
+            
+            byte[] name = new byte[nameLength];
+            cd.get(pos + 46, name);
+            entry.name = new String(name, StandardCharsets.UTF_8);
+            readZip64Extra(cd, pos + 46 + nameLength, extraLength, entry);
+            
+            entries.add(entry);
+            pos += 46 + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+    
+    private static void readZip64Extra(ByteBuffer cd, int start, int length, Entry entry) {
+        int pos = start;
+        while (pos + 4 <= start + length) {
+            int id = Short.toUnsignedInt(cd.getShort(pos));
+            int size = Short.toUnsignedInt(cd.getShort(pos + 2));
+            if (id == 0x0001) {
+                int field = pos + 4;
+                if (entry.size == 0xFFFFFFFFL) {
+                    entry.size = cd.getLong(field);
+                    field += 8;
+                }
+                if (entry.compressedSize == 0xFFFFFFFFL) {
+                    entry.compressedSize = cd.getLong(field);
+                    field += 8;
+                }
+                if (entry.offset == 0xFFFFFFFFL) {
+                    entry.offset = cd.getLong(field);
+                }
+                return;
+            }
+            pos += 4 + size;
+        }
+    }
+    
+    private static byte[] fetchBytes(RangeFetcher fetcher, long start, int length) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(length);
+        fetcher.fetch(start, length, buffer);
+        if (buffer.size() != length) {
+            throw new IOException("範圍請求返回的長度不符");
+        }
+        return buffer.toByteArray();
+    }
+    
+    private static final class Entry {
+        String name;
+        int method;
+        long dosTime;
+        long crc;
+        long compressedSize;
+        long size;
+        long offset;
+        long segmentLength;
+        
+        boolean sameContentAs(Entry other) {
+            return crc == other.crc && size == other.size && compressedSize == other.compressedSize
+                    && method == other.method && dosTime == other.dosTime;
+        }
+    }
+    
+    /**
+     * 可隨機讀取的 zip 來源
+     */
+    private abstract static class Source {
+        long cdOffset;
+        
+        abstract ByteBuffer read(long position, int length) throws IOException;
+    }
+    
+    private static final class LocalSource extends Source {
+        private final FileChannel channel;
+        
+        LocalSource(FileChannel channel) {
+            this.channel = channel;
+        }
+        
+        @Override
+        ByteBuffer read(long position, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("本地 zip 文件被截斷");
+                }
+            }
+            return buffer.flip();
+        }
+    }
+    
+    /**
+     * 遠端來源；已取得的尾部直接從記憶體讀取，其餘範圍才發送請求
+     */
+    private static final class RemoteSource extends Source {
+        private final RangeFetcher fetcher;
+        private final long tailStart;
+        private final byte[] tail;
+        
+        RemoteSource(RangeFetcher fetcher, long tailStart, byte[] tail) {
+            this.fetcher = fetcher;
+            this.tailStart = tailStart;
+            this.tail = tail;
+        }
+        
+        @Override
+        ByteBuffer read(long position, int length) throws IOException {
+            byte[] bytes = position >= tailStart
+                    ? Arrays.copyOfRange(tail, (int) (position - tailStart), (int) (position - tailStart) + length)
+                    : fetchBytes(fetcher, position, length);
+            return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        
+        /**
+         * 把遠端範圍寫入 out
+         */
+        void copy(long start, long length, OutputStream out) throws IOException {
+            if (start >= tailStart) {
+                out.write(tail, (int) (start - tailStart), (int) length);
+                return;
+            }
+            // 範圍的後半段已在尾部緩衝中時只下載前半段
+            long networkLength = Math.min(length, tailStart - start);
+            fetcher.fetch(start, networkLength, out);
+            if (networkLength < length) {
+                out.write(tail, 0, (int) (length - networkLength));
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.mcserver.launcher.image;
+
+import javafx.scene.image.Image;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 記憶體圖片快取
+ * 以像素佔用的位元組數 (寬 x 高 x 4) 計算容量的 LRU 快取，超出預算時淘汰最久未使用的圖片
+ */
+public class ImageCache {
+    
+    private final long maxBytes;
+    private final LinkedHashMap<String, Image> images = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+    
+    public ImageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+    
+    public synchronized Image get(String key) {
+        return images.get(key);
+    }
+    
+    public synchronized void put(String key, Image image) {
+        if (image == null) {
+            return;
+        }
+        
+        Image previous = images.put(key, image);
+        if (previous != null) {
+            currentBytes -= sizeOf(previous);
+        }
+        currentBytes += sizeOf(image);
+        
+        // 淘汰最久未使用的圖片，但保留剛放入的這一張
+        Iterator<Map.Entry<String, Image>> it = images.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Image> eldest = it.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            currentBytes -= sizeOf(eldest.getValue());
+            it.remove();
+        }
+    }
+    
+    public synchronized void remove(String key) {
+        Image removed = images.remove(key);
+        if (removed != null) {
+            currentBytes -= sizeOf(removed);
+        }
+    }
+    
+    public synchronized void clear() {
+        images.clear();
+        currentBytes = 0;
+    }
+    
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+    
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+    
+    private static long sizeOf(Image image) {
+        return (long) Math.ceil(image.getWidth()) * (long) Math.ceil(image.getHeight()) * 4L;
+    }
+}
@@ -0,0 +1,341 @@
+package com.mcserver.launcher.image;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 玩家皮膚與披風服務
+ * 材質 URL 的最後一段是內容雜湊 (textures.minecraft.net/texture/<hash>)，內容永不改變，
+ * 因此每個材質只下載一次並以雜湊為鍵保存在磁碟快取，之後不需要任何重新驗證請求。
+ * 頭像 (臉部 + 帽子層) 與披風正面在背景線程以 {@link PixelReader} 直接逐像素渲染到 {@link WritableImage}，
+ * 放入記憶體 {@link ImageCache} 後，切換帳號或顯示帳號列表時可在 UI 線程上直接命中，離線時從磁碟快取重新渲染。
+ */
+public class ProfileTextureService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProfileTextureService.class);
+    
+    // 記憶體快取預設容量 (4 MB，約 250 個 64px 頭像)
+    public static final long DEFAULT_MEMORY_BYTES = 4L * 1024 * 1024;
+    
+    private static final Pattern TEXTURE_HASH = Pattern.compile("[0-9a-fA-F]{32,128}");
+    private static final int MAX_TEXTURE_BYTES = 1024 * 1024;
+    
+    private final Path cacheDirectory;
+    private final ImageCache memoryCache;
+    private final CloseableHttpClient httpClient;
+    private final ExecutorService executor;
+    // 同一材質的並行請求共用一次下載
+    private final Map<String, CompletableFuture<Path>> downloads = new ConcurrentHashMap<>();
+    
+    public ProfileTextureService(Path cacheDirectory) {
+        this(cacheDirectory, new ImageCache(DEFAULT_MEMORY_BYTES));
+    }
+    
+    public ProfileTextureService(Path cacheDirectory, ImageCache memoryCache) {
+        this.cacheDirectory = cacheDirectory;
+        this.memoryCache = memoryCache;
+        this.httpClient = HttpClients.custom()
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofSeconds(10))
+                        .setResponseTimeout(Timeout.ofSeconds(15))
+                        .build())
+                .build();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "texture-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+    
+    /**
+     * 記憶體中已渲染的頭像，沒有時返回 null (可在 UI 線程上調用)
+     */
+    public Image getCachedAvatar(String skinUrl, int size) {
+        return skinUrl != null ? memoryCache.get(avatarKey(skinUrl, size)) : null;
+    }
+    
+    /**
+     * 請求頭像：記憶體命中時立即回調，否則在背景從磁碟快取或網路載入並渲染，完成後在 UI 線程回調
+     */
+    public void requestAvatar(String skinUrl, int size, Consumer<Image> callback) {
+        request(avatarKey(skinUrl, size), skinUrl, callback, skin -> renderHead(skin, size));
+    }
+    
+    /**
+     * 記憶體中已渲染的披風正面，沒有時返回 null (可在 UI 線程上調用)
+     */
+    public Image getCachedCape(String capeUrl, int height) {
+        return capeUrl != null ? memoryCache.get(capeKey(capeUrl, height)) : null;
+    }
+    
+    /**
+     * 請求披風正面，高度為 height
+     */
+    public void requestCape(String capeUrl, int height, Consumer<Image> callback) {
+        request(capeKey(capeUrl, height), capeUrl, callback, cape -> renderCapeFront(cape, height));
+    }
+    
+    /**
+     * 預先下載並渲染頭像 (例如帳號刷新後)，之後的切換不需要等待網路
+     */
+    public void prefetchAvatar(String skinUrl, int size) {
+        if (skinUrl != null && getCachedAvatar(skinUrl, size) == null) {
+            request(avatarKey(skinUrl, size), skinUrl, image -> { }, skin -> renderHead(skin, size));
+        }
+    }
+    
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            logger.debug("關閉材質下載客戶端失敗", e);
+        }
+    }
+    
+    private void request(String key, String url, Consumer<Image> callback, Renderer renderer) {
+        if (url == null || url.isBlank()) {
+            return;
+        }
+        Image cached = memoryCache.get(key);
+        if (cached != null) {
+            callback.accept(cached);
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                Image image = memoryCache.get(key);
+                if (image == null) {
+                    image = renderer.render(decode(fetch(url), url));
+                    memoryCache.put(key, image);
+                }
+                Image result = image;
+                Platform.runLater(() -> callback.accept(result));
+            } catch (Exception e) {
+                logger.debug("無法載入材質: {}", url, e);
+            }
+        });
+    }
+    
+    /**
+     * 材質文件：磁碟快取命中時直接返回，否則下載一次
+     */
+    private Path fetch(String url) throws IOException {
+        String key = textureKey(url);
+        Path file = cacheDirectory.resolve(key.substring(0, 2)).resolve(key + ".png");
+        if (Files.isRegularFile(file)) {
+            return file;
+        }
+        CompletableFuture<Path> download = new CompletableFuture<>();
+        CompletableFuture<Path> existing = downloads.putIfAbsent(key, download);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            download.complete(download(url, file));
+        } catch (IOException | RuntimeException e) {
+            download.completeExceptionally(e);
+        } finally {
+            downloads.remove(key);
+        }
+        return join(download);
+    }
+    
+    private Path download(String url, Path file) throws IOException {
+        HttpGet get = new HttpGet(secure(url));
+        byte[] data = httpClient.execute(get, response -> {
+            if (response.getCode() != 200) {
+                throw new IOException("HTTP " + response.getCode() + ": " + url);
+            }
+            byte[] body = EntityUtils.toByteArray(response.getEntity(), MAX_TEXTURE_BYTES);
+            if (body == null || body.length == 0) {
+                throw new IOException("材質內容為空: " + url);
+            }
+            return body;
+        });
+        
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), "texture", ".tmp");
+        try {
+            Files.write(temp, data);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.debug("已下載材質: {} ({} 位元組)", url, data.length);
+        return file;
+    }
+    
+    private static Path join(CompletableFuture<Path> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+    
+    /**
+     * 在目前 (背景) 線程同步解碼材質
+     */
+    private static Image decode(Path file, String url) throws IOException {
+        Image texture;
+        try (InputStream in = Files.newInputStream(file)) {
+            texture = new Image(in);
+        }
+        if (texture.isError() || texture.getPixelReader() == null || texture.getWidth() < 64) {
+            throw new IOException("無法解碼材質: " + url, texture.getException());
+        }
+        return texture;
+    }
+    
+    /**
+     * 頭像 = 臉部 (8,8)-(16,16) 加上帽子層 (40,8)-(48,16)，以最近鄰取樣放大保持像素風格
+     * 舊版 64x32 皮膚的帽子層常被填滿不透明色，這種情況下只繪製臉部
+     */
+    static Image renderHead(Image skin, int size) {
+        PixelReader reader = skin.getPixelReader();
+        int scale = Math.max(1, (int) skin.getWidth() / 64);
+        int face = 8 * scale;
+        boolean legacy = (int) skin.getHeight() * 2 == (int) skin.getWidth();
+        boolean hat = !legacy || hasTransparency(reader, 40 * scale, 8 * scale, face);
+        
+        WritableImage head = new WritableImage(size, size);
+        PixelWriter writer = head.getPixelWriter();
+        for (int y = 0; y < size; y++) {
+            int sy = y * face / size;
+            for (int x = 0; x < size; x++) {
+                int sx = x * face / size;
+                int argb = reader.getArgb(8 * scale + sx, 8 * scale + sy);
+                if (hat) {
+                    argb = over(reader.getArgb(40 * scale + sx, 8 * scale + sy), argb);
+                }
+                writer.setArgb(x, y, argb);
+            }
+        }
+        return head;
+    }
+    
+    /**
+     * 披風正面位於 (1,1)，大小 10x16 (以 64x32 為基準)，以最近鄰取樣縮放到指定高度
+     */
+    static Image renderCapeFront(Image cape, int height) {
+        PixelReader reader = cape.getPixelReader();
+        int scale = Math.max(1, (int) cape.getWidth() / 64);
+        int width = Math.max(1, height * 10 / 16);
+        
+        WritableImage front = new WritableImage(width, height);
+        PixelWriter writer = front.getPixelWriter();
+        for (int y = 0; y < height; y++) {
+            int sy = y * 16 * scale / height;
+            for (int x = 0; x < width; x++) {
+                int sx = x * 10 * scale / width;
+                writer.setArgb(x, y, reader.getArgb(scale + sx, scale + sy));
+            }
+        }
+        return front;
+    }
+    
+    private static boolean hasTransparency(PixelReader reader, int x, int y, int size) {
+        for (int dy = 0; dy < size; dy++) {
+            for (int dx = 0; dx < size; dx++) {
+                if ((reader.getArgb(x + dx, y + dy) >>> 24) < 0xFF) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 把 top 以 alpha 疊加到 bottom 上 (非預乘 ARGB)
+     */
+    static int over(int top, int bottom) {
+        int topAlpha = top >>> 24;
+        if (topAlpha == 0xFF) {
+            return top;
+        }
+        if (topAlpha == 0) {
+            return bottom;
+        }
+        int bottomAlpha = bottom >>> 24;
+        // 輸出 alpha (乘以 255)
+        int outAlpha = topAlpha * 255 + bottomAlpha * (255 - topAlpha);
+        int result = (outAlpha + 127) / 255 << 24;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int topChannel = top >>> shift & 0xFF;
+            int bottomChannel = bottom >>> shift & 0xFF;
+            int channel = (topChannel * topAlpha * 255 + bottomChannel * bottomAlpha * (255 - topAlpha)) / outAlpha;
+            result |= channel << shift;
+        }
+        return result;
+    }
+    
+    private static String avatarKey(String skinUrl, int size) {
+        return textureKey(skinUrl) + "-head-" + size;
+    }
+    
+    private static String capeKey(String capeUrl, int height) {
+        return textureKey(capeUrl) + "-cape-" + height;
+    }
+    
+    /**
+     * 材質鍵：URL 最後一段為雜湊時直接使用，否則使用整個 URL 的 SHA-256
+     */
+    static String textureKey(String url) {
+        String path = URI.create(url).getPath();
+        String last = path != null ? path.substring(path.lastIndexOf('/') + 1) : "";
+        if (TEXTURE_HASH.matcher(last).matches()) {
+            return last.toLowerCase();
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(url.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * 用戶資料中的材質 URL 為 http，同一主機也提供 https
+     */
+    private static String secure(String url) {
+        return url.startsWith("http://textures.minecraft.net/") ? "https://" + url.substring("http://".length()) : url;
+    }
+    
+    @FunctionalInterface
+    private interface Renderer {
+        Image render(Image texture);
+    }
+}
@@ -0,0 +1,362 @@
+package com.mcserver.launcher.image;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 縮圖服務
+ * 在背景線程池中從模組 JAR、資源包 ZIP 及截圖資料夾提取圖片並縮放到固定尺寸，
+ * 結果存放在兩層快取中：以位元組計算容量的記憶體 LRU，以及以內容雜湊為鍵的磁碟快取。
+ * 列表儲存格可延遲請求縮圖，並在儲存格被重用 (捲出畫面) 時取消請求。
+ */
+public class ThumbnailService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+    
+    // 記憶體快取預設容量 (32 MB)
+    public static final long DEFAULT_MEMORY_BYTES = 32L * 1024 * 1024;
+    
+    private static final Pattern TOML_LOGO = Pattern.compile("logoFile\\s*=\\s*[\"']([^\"']+)[\"']");
+    private static final Pattern JSON_LOGO = Pattern.compile("\"logoFile\"\\s*:\\s*\"([^\"]+)\"");
+    private static final List<String> FALLBACK_LOGOS = List.of("logo.png", "icon.png", "pack.png");
+    
+    /**
+     * 縮圖尺寸
+     */
+    public enum Size {
+        SMALL(32),
+        MEDIUM(64),
+        LARGE(256);
+        
+        private final int pixels;
+        
+        Size(int pixels) {
+            this.pixels = pixels;
+        }
+        
+        public int getPixels() {
+            return pixels;
+        }
+    }
+    
+    private final Path cacheDirectory;
+    private final ImageCache memoryCache;
+    private final ThreadPoolExecutor executor;
+    
+    // 來源位置 -> 內容雜湊鍵，讓已載入過的縮圖可在 UI 線程上直接命中記憶體快取
+    private final Map<String, String> resolvedKeys = new ConcurrentHashMap<>();
+    
+    public ThumbnailService(Path cacheDirectory) {
+        this(cacheDirectory, new ImageCache(DEFAULT_MEMORY_BYTES));
+    }
+    
+    public ThumbnailService(Path cacheDirectory, ImageCache memoryCache) {
+        this.cacheDirectory = cacheDirectory;
+        this.memoryCache = memoryCache;
+        
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        AtomicInteger counter = new AtomicInteger();
+        // 後進先出：捲動列表時最新可見的儲存格優先處理
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingDeque<>() {
+                    @Override
+                    public boolean offer(Runnable runnable) {
+                        return super.offerFirst(runnable);
+                    }
+                },
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-worker-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+    
+    /**
+     * 請求模組 JAR 的 Logo (mods.toml / mcmod.info 中的 logoFile)
+     */
+    public ThumbnailRequest requestModLogo(Path jarFile, Size size, Consumer<Image> callback) {
+        return request("mod", jarFile, size, callback, () -> extractModLogo(jarFile));
+    }
+    
+    /**
+     * 請求資源包的 pack.png (支援 ZIP 與資料夾形式)
+     */
+    public ThumbnailRequest requestPackIcon(Path pack, Size size, Consumer<Image> callback) {
+        return request("pack", pack, size, callback, () -> readPackIcon(pack));
+    }
+    
+    /**
+     * 請求截圖縮圖 (screenshots 資料夾中的 PNG)
+     */
+    public ThumbnailRequest requestScreenshot(Path screenshot, Size size, Consumer<Image> callback) {
+        return request("screenshot", screenshot, size, callback, () -> readScreenshot(screenshot));
+    }
+    
+    /**
+     * 使指定文件的已解析快取鍵失效 (文件被替換或刪除時呼叫)
+     */
+    public void invalidate(Path file) {
+        String suffix = ":" + file.toAbsolutePath();
+        resolvedKeys.keySet().removeIf(key -> key.contains(suffix + ":"));
+    }
+    
+    public ImageCache getMemoryCache() {
+        return memoryCache;
+    }
+    
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    private ThumbnailRequest request(String kind, Path source, Size size, Consumer<Image> callback,
+                                     SourceReader reader) {
+        ThumbnailRequest request = new ThumbnailRequest();
+        String locator = kind + ":" + source.toAbsolutePath() + ":" + size.getPixels();
+        
+        // 快速路徑：已在記憶體中則直接返回
+        String resolved = resolvedKeys.get(locator);
+        if (resolved != null) {
+            Image cached = memoryCache.get(resolved);
+            if (cached != null) {
+                callback.accept(cached);
+                return request;
+            }
+        }
+        
+        request.future = executor.submit(() -> {
+            if (request.isCancelled()) {
+                return;
+            }
+            try {
+                Image image = load(locator, size, reader, request);
+                if (image != null && !request.isCancelled()) {
+                    Platform.runLater(() -> {
+                        if (!request.isCancelled()) {
+                            callback.accept(image);
+                        }
+                    });
+                }
+            } catch (Exception e) {
+                logger.debug("無法載入縮圖: {}", source, e);
+            }
+        });
+        return request;
+    }
+    
+    private Image load(String locator, Size size, SourceReader reader, ThumbnailRequest request) throws IOException {
+        byte[] sourceBytes = reader.read();
+        if (sourceBytes == null || sourceBytes.length == 0 || request.isCancelled()) {
+            return null;
+        }
+        
+        String key = sha256(sourceBytes) + "-" + size.getPixels();
+        resolvedKeys.put(locator, key);
+        
+        // 第一層：記憶體
+        Image image = memoryCache.get(key);
+        if (image != null) {
+            return image;
+        }
+        
+        // 第二層：磁碟
+        Path diskFile = cacheDirectory.resolve(key.substring(0, 2)).resolve(key + ".png");
+        if (Files.exists(diskFile)) {
+            image = new Image(new ByteArrayInputStream(Files.readAllBytes(diskFile)));
+            if (!image.isError()) {
+                memoryCache.put(key, image);
+                return image;
+            }
+        }
+        
+        // 解碼並縮放
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(sourceBytes));
+        if (decoded == null || request.isCancelled()) {
+            return null;
+        }
+        byte[] png = encodePng(scale(decoded, size.getPixels()));
+        writeToDisk(diskFile, png);
+        
+        image = new Image(new ByteArrayInputStream(png));
+        memoryCache.put(key, image);
+        return image;
+    }
+    
+    private byte[] extractModLogo(Path jarFile) throws IOException {
+        try (ZipFile zip = new ZipFile(jarFile.toFile())) {
+            String logoPath = null;
+            
+            for (String metadata : List.of("META-INF/neoforge.mods.toml", "META-INF/mods.toml")) {
+                byte[] toml = readEntry(zip, metadata);
+                if (toml != null) {
+                    logoPath = findLogo(TOML_LOGO, new String(toml));
+                    if (logoPath != null) break;
+                }
+            }
+            if (logoPath == null) {
+                byte[] mcmod = readEntry(zip, "mcmod.info");
+                if (mcmod != null) {
+                    logoPath = findLogo(JSON_LOGO, new String(mcmod));
+                }
+            }
+            
+            if (logoPath != null) {
+                byte[] logo = readEntry(zip, logoPath.startsWith("/") ? logoPath.substring(1) : logoPath);
+                if (logo != null) {
+                    return logo;
+                }
+            }
+            for (String fallback : FALLBACK_LOGOS) {
+                byte[] logo = readEntry(zip, fallback);
+                if (logo != null) {
+                    return logo;
+                }
+            }
+            return null;
+        }
+    }
+    
+    static byte[] readPackIcon(Path pack) throws IOException {
+        if (Files.isDirectory(pack)) {
+            Path icon = pack.resolve("pack.png");
+            return Files.isRegularFile(icon) ? Files.readAllBytes(icon) : null;
+        }
+        try (ZipFile zip = new ZipFile(pack.toFile())) {
+            return readEntry(zip, "pack.png");
+        }
+    }
+    
+    static byte[] readScreenshot(Path screenshot) throws IOException {
+        return Files.isRegularFile(screenshot) ? Files.readAllBytes(screenshot) : null;
+    }
+    
+    private static String findLogo(Pattern pattern, String content) {
+        Matcher m = pattern.matcher(content);
+        return m.find() && !m.group(1).isBlank() ? m.group(1) : null;
+    }
+    
+    private static byte[] readEntry(ZipFile zip, String name) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        if (entry == null || entry.isDirectory()) {
+            return null;
+        }
+        try (InputStream is = zip.getInputStream(entry)) {
+            return is.readAllBytes();
+        }
+    }
+    
+    /**
+     * 等比例縮放到不超過 target x target
+     * 像素風格的小圖使用最近鄰插值放大，大圖以逐步減半的雙線性插值縮小以保持品質
+     */
+    private static BufferedImage scale(BufferedImage source, int target) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min((double) target / width, (double) target / height);
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        
+        if (ratio >= 1.0) {
+            return resize(source, targetWidth, targetHeight, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        }
+        
+        BufferedImage current = source;
+        int w = width;
+        int h = height;
+        while (w / 2 >= targetWidth && h / 2 >= targetHeight) {
+            w /= 2;
+            h /= 2;
+            current = resize(current, w, h, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        }
+        if (w != targetWidth || h != targetHeight) {
+            current = resize(current, targetWidth, targetHeight, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        }
+        return current;
+    }
+    
+    private static BufferedImage resize(BufferedImage source, int width, int height, Object interpolation) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+    
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+    
+    private static void writeToDisk(Path target, byte[] data) {
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), "thumb", ".tmp");
+            Files.write(temp, data);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.debug("無法寫入縮圖磁碟快取: {}", target, e);
+        }
+    }
+    
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    @FunctionalInterface
+    private interface SourceReader {
+        byte[] read() throws IOException;
+    }
+    
+    /**
+     * 縮圖請求句柄，可在儲存格被重用時取消
+     */
+    public static final class ThumbnailRequest {
+        private volatile boolean cancelled;
+        private volatile Future<?> future;
+        
+        public void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+        
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,511 @@
+package com.mcserver.launcher.mod;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 批量模組匯入器
+ * 接受多個文件、資料夾或 ZIP 壓縮包，並行分析所有模組，依內容雜湊去重，
+ * 偵測同一模組 ID 的版本升級，自動分配插口，最後以單一交易提交。
+ */
+public class ModImporter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ModImporter.class);
+    
+    private static final String STAGING_SUFFIX = ".importing";
+    private static final String BACKUP_SUFFIX = ".replaced";
+    
+    private final ModManager modManager;
+    
+    /**
+     * 匯入項目的處理方式
+     */
+    public enum Action {
+        ADD("新增"),
+        UPGRADE("升級"),
+        DOWNGRADE("降級"),
+        DUPLICATE("重複"),
+        CONFLICT("檔名衝突"),
+        INVALID("無效");
+        
+        private final String displayName;
+        
+        Action(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        public String getDisplayName() {
+            return displayName;
+        }
+        
+        /**
+         * 此類型的項目是否可被提交
+         */
+        public boolean isInstallable() {
+            return this == ADD || this == UPGRADE || this == DOWNGRADE;
+        }
+    }
+    
+    ModImporter(ModManager modManager) {
+        this.modManager = modManager;
+    }
+    
+    /**
+     * 分析要匯入的來源並產生匯入計劃
+     * @param sources 模組 JAR、資料夾或 ZIP 壓縮包
+     * @param fallbackSlotId 無法自動分類時使用的插口 (可為 null)
+     * @param progressCallback 分析進度回調 (0.0 - 1.0)
+     */
+    public CompletableFuture<ImportPlan> analyze(List<Path> sources, String fallbackSlotId,
+                                                 Consumer<Double> progressCallback) {
+        return CompletableFuture.supplyAsync(() -> {
+            ImportPlan plan = new ImportPlan();
+            try {
+                List<Path> jars = collectJars(sources, plan);
+                plan.items.addAll(analyzeParallel(jars, progressCallback));
+                resolveActions(plan.items, fallbackSlotId);
+                logger.info("匯入計劃: {} 個文件, {}", jars.size(), plan.getSummary());
+                return plan;
+            } catch (Exception e) {
+                plan.close();
+                throw new CompletionException(e);
+            }
+        });
+    }
+    
+    /**
+     * 展開來源：資料夾遞迴搜尋 *.jar，ZIP 解壓其中的 *.jar 到暫存目錄
+     */
+    private List<Path> collectJars(List<Path> sources, ImportPlan plan) throws IOException {
+        List<Path> jars = new ArrayList<>();
+        for (Path source : sources) {
+            String name = source.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (Files.isDirectory(source)) {
+                try (Stream<Path> walk = Files.walk(source)) {
+                    walk.filter(Files::isRegularFile)
+                        .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".jar"))
+                        .sorted()
+                        .forEach(jars::add);
+                }
+            } else if (name.endsWith(".zip")) {
+                jars.addAll(extractJars(source, plan.tempDirectory()));
+            } else if (name.endsWith(".jar")) {
+                jars.add(source);
+            } else {
+                logger.warn("略過不支援的文件: {}", source);
+            }
+        }
+        return jars;
+    }
+    
+    private List<Path> extractJars(Path zip, Path tempDir) throws IOException {
+        List<Path> extracted = new ArrayList<>();
+        Path target = Files.createTempDirectory(tempDir, "zip");
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().toLowerCase(Locale.ROOT).endsWith(".jar")) {
+                    continue;
+                }
+                // 只取檔名，避免壓縮包內的路徑穿越
+                String fileName = Paths.get(entry.getName()).getFileName().toString();
+                Path out = target.resolve(fileName);
+                if (Files.exists(out)) {
+                    out = Files.createTempDirectory(target, "dup").resolve(fileName);
+                }
+                try (InputStream is = zipFile.getInputStream(entry)) {
+                    Files.copy(is, out);
+                }
+                extracted.add(out);
+            }
+        }
+        return extracted;
+    }
+    
+    private List<ImportItem> analyzeParallel(List<Path> jars, Consumer<Double> progressCallback) {
+        if (jars.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        int threads = Math.max(1, Math.min(jars.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "mod-import-analyzer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        try {
+            AtomicInteger done = new AtomicInteger();
+            List<CompletableFuture<ImportItem>> futures = jars.stream()
+                    .map(jar -> CompletableFuture.supplyAsync(() -> {
+                        ImportItem item = new ImportItem(jar);
+                        try {
+                            item.mod = modManager.analyzeModFile(jar);
+                            if (item.mod == null) {
+                                item.action = Action.INVALID;
+                            }
+                        } catch (Exception e) {
+                            logger.warn("無法分析模組文件: {}", jar.getFileName(), e);
+                            item.action = Action.INVALID;
+                        }
+                        if (progressCallback != null) {
+                            progressCallback.accept((double) done.incrementAndGet() / jars.size());
+                        }
+                        return item;
+                    }, executor))
+                    .collect(Collectors.toList());
+            
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * 依內容雜湊與模組 ID 決定每個項目的處理方式，並分配插口
+     */
+    private void resolveActions(List<ImportItem> items, String fallbackSlotId) {
+        ModRegistry.Snapshot snapshot = modManager.getRegistry().snapshot();
+        Set<String> seenChecksums = new HashSet<>();
+        Map<String, ImportItem> batchByModId = new HashMap<>();
+        Set<String> batchFileNames = new HashSet<>();
+        Set<String> claimedCustomSlots = new HashSet<>();
+        
+        for (ImportItem item : items) {
+            if (item.action == Action.INVALID) {
+                continue;
+            }
+            ModInfo mod = item.mod;
+            
+            // 內容完全相同：已安裝或批次內重複
+            if (snapshot.findByChecksum(mod.getChecksum()) != null || !seenChecksums.add(mod.getChecksum())) {
+                item.action = Action.DUPLICATE;
+                continue;
+            }
+            
+            // 批次內同一模組的多個版本只保留最新的
+            ImportItem sameInBatch = batchByModId.get(mod.getModId());
+            if (sameInBatch != null) {
+                if (compareVersions(mod.getVersion(), sameInBatch.mod.getVersion()) > 0) {
+                    sameInBatch.action = Action.DUPLICATE;
+                    sameInBatch.selected = false;
+                    batchFileNames.remove(sameInBatch.mod.getFileName());
+                } else {
+                    item.action = Action.DUPLICATE;
+                    continue;
+                }
+            }
+            batchByModId.put(mod.getModId(), item);
+            
+            ModInfo installed = snapshot.findByModId(mod.getModId());
+            if (installed != null) {
+                // 原地替換：沿用已安裝模組所在的插口
+                item.existing = installed;
+                item.targetSlotId = snapshot.findSlotOf(installed.getFileName()).getId();
+                item.action = compareVersions(mod.getVersion(), installed.getVersion()) >= 0
+                        ? Action.UPGRADE : Action.DOWNGRADE;
+                item.selected = item.action == Action.UPGRADE;
+            } else {
+                ModSlot slot = modManager.classifyMod(mod);
+                if (slot == null && fallbackSlotId != null) {
+                    slot = modManager.getModSlot(fallbackSlotId);
+                }
+                if (slot == null) {
+                    slot = modManager.findEmptyCustomSlot(claimedCustomSlots);
+                }
+                if (slot == null) {
+                    item.action = Action.INVALID;
+                    continue;
+                }
+                if (slot.getCategory() == ModSlot.Category.CUSTOM) {
+                    claimedCustomSlots.add(slot.getId());
+                }
+                item.targetSlotId = slot.getId();
+                item.action = Action.ADD;
+                item.selected = true;
+            }
+            
+            // 目標檔名已被其他模組佔用
+            String fileName = mod.getFileName();
+            boolean occupiedOnDisk = Files.exists(modManager.getModsDirectory().resolve(fileName))
+                    && (item.existing == null || !item.existing.getFileName().equals(fileName));
+            if (occupiedOnDisk || !batchFileNames.add(fileName)) {
+                item.action = Action.CONFLICT;
+                item.selected = false;
+            }
+        }
+    }
+    
+    /**
+     * 提交匯入計劃
+     * 先將所有選取的文件複製到暫存檔，全部成功後才依序就位並替換舊版本；
+     * 任何一步失敗都會回滾，mods 目錄與插口配置保持原狀。
+     */
+    public CompletableFuture<ImportResult> commit(ImportPlan plan) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<ImportItem> selected = plan.items.stream()
+                    .filter(item -> item.selected && item.action.isInstallable())
+                    .collect(Collectors.toList());
+            Path modsDirectory = modManager.getModsDirectory();
+            
+            Map<ImportItem, Path> staged = new LinkedHashMap<>();
+            Map<Path, Path> backups = new LinkedHashMap<>();
+            List<Path> placed = new ArrayList<>();
+            
+            try {
+                // 1. 複製到暫存檔
+                for (ImportItem item : selected) {
+                    Path staging = modsDirectory.resolve(item.mod.getFileName() + STAGING_SUFFIX);
+                    Files.copy(item.source, staging, StandardCopyOption.REPLACE_EXISTING);
+                    staged.put(item, staging);
+                }
+                
+                // 2. 備份將被替換的舊版本
+                for (ImportItem item : selected) {
+                    if (item.existing != null) {
+                        Path old = modsDirectory.resolve(item.existing.getFileName());
+                        if (Files.exists(old)) {
+                            Path backup = modsDirectory.resolve(item.existing.getFileName() + BACKUP_SUFFIX);
+                            Files.move(old, backup, StandardCopyOption.REPLACE_EXISTING);
+                            backups.put(old, backup);
+                        }
+                    }
+                }
+                
+                // 3. 暫存檔就位
+                for (Map.Entry<ImportItem, Path> entry : staged.entrySet()) {
+                    Path target = modsDirectory.resolve(entry.getKey().mod.getFileName());
+                    Files.move(entry.getValue(), target, StandardCopyOption.ATOMIC_MOVE);
+                    placed.add(target);
+                }
+            } catch (IOException e) {
+                logger.error("匯入失敗，正在回滾", e);
+                rollback(staged.values(), placed, backups);
+                plan.close();
+                return new ImportResult(0, 0, selected.size(), e.getMessage());
+            } catch (RuntimeException e) {
+                // 非預期的錯誤同樣回滾，並讓 future 以例外完成
+                logger.error("匯入失敗，正在回滾", e);
+                rollback(staged.values(), placed, backups);
+                plan.close();
+                throw e;
+            }
+            
+            // 4. 以單一交易更新註冊表並保存一次配置
+            int[] counts = new int[2];
+            try {
+                modManager.getRegistry().update(() -> {
+                    for (ImportItem item : selected) {
+                        ModSlot slot = modManager.getModSlot(item.targetSlotId);
+                        if (item.existing != null) {
+                            ModSlot owner = modManager.getRegistry().findSlotOf(item.existing.getFileName());
+                            if (owner != null) {
+                                owner.removeMod(item.existing.getFileName());
+                            }
+                            counts[1]++;
+                        } else {
+                            counts[0]++;
+                        }
+                        slot.addMod(item.mod);
+                    }
+                });
+            } catch (RuntimeException e) {
+                logger.error("更新模組註冊表失敗，正在回滾", e);
+                rollback(List.of(), placed, backups);
+                throw e;
+            } finally {
+                plan.close();
+            }
+            
+            for (Path backup : backups.values()) {
+                try {
+                    Files.deleteIfExists(backup);
+                } catch (IOException e) {
+                    logger.warn("無法刪除舊版本備份: {}", backup, e);
+                }
+            }
+            
+            try {
+                modManager.saveModSlots();
+            } catch (IOException e) {
+                logger.error("保存插口配置失敗", e);
+            }
+            
+            int skipped = plan.items.size() - selected.size();
+            logger.info("匯入完成: 新增 {}, 替換 {}, 略過 {}", counts[0], counts[1], skipped);
+            return new ImportResult(counts[0], counts[1], skipped, null);
+        });
+    }
+    
+    private void rollback(Collection<Path> staged, List<Path> placed, Map<Path, Path> backups) {
+        for (Path path : staged) {
+            deleteQuietly(path);
+        }
+        for (Path path : placed) {
+            deleteQuietly(path);
+        }
+        for (Map.Entry<Path, Path> entry : backups.entrySet()) {
+            try {
+                Files.move(entry.getValue(), entry.getKey(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                logger.error("無法還原舊版本: {}", entry.getKey(), e);
+            }
+        }
+    }
+    
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("無法刪除文件: {}", path, e);
+        }
+    }
+    
+    /**
+     * 比較版本號，數字段按數值比較，其餘按字串比較
+     */
+    static int compareVersions(String a, String b) {
+        String[] left = (a == null ? "" : a).split("[.\\-+_]");
+        String[] right = (b == null ? "" : b).split("[.\\-+_]");
+        
+        for (int i = 0; i < Math.max(left.length, right.length); i++) {
+            String l = i < left.length ? left[i] : "0";
+            String r = i < right.length ? right[i] : "0";
+            int result;
+            if (l.matches("\\d+") && r.matches("\\d+")) {
+                result = new java.math.BigInteger(l).compareTo(new java.math.BigInteger(r));
+            } else {
+                result = l.compareToIgnoreCase(r);
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * 匯入項目
+     */
+    public static class ImportItem {
+        private final Path source;
+        private ModInfo mod;
+        private ModInfo existing;
+        private String targetSlotId;
+        private Action action;
+        private boolean selected;
+        
+        ImportItem(Path source) {
+            this.source = source;
+        }
+        
+        public Path getSource() { return source; }
+        public ModInfo getMod() { return mod; }
+        public ModInfo getExisting() { return existing; }
+        public String getTargetSlotId() { return targetSlotId; }
+        public Action getAction() { return action; }
+        public boolean isSelected() { return selected; }
+        
+        public void setSelected(boolean selected) {
+            this.selected = selected && action != null && action.isInstallable();
+        }
+    }
+    
+    /**
+     * 匯入計劃，持有解壓 ZIP 用的暫存目錄
+     */
+    public static class ImportPlan implements AutoCloseable {
+        private final List<ImportItem> items = new ArrayList<>();
+        private Path tempDirectory;
+        
+        public List<ImportItem> getItems() {
+            return Collections.unmodifiableList(items);
+        }
+        
+        public List<ImportItem> getItems(Action action) {
+            return items.stream().filter(item -> item.action == action).collect(Collectors.toList());
+        }
+        
+        /**
+         * 設定是否原地替換所有已安裝的舊版本
+         */
+        public void setReplaceExisting(boolean replace) {
+            for (ImportItem item : items) {
+                if (item.action == Action.UPGRADE) {
+                    item.setSelected(replace);
+                }
+            }
+        }
+        
+        public String getSummary() {
+            Map<Action, Long> counts = items.stream()
+                    .filter(item -> item.action != null)
+                    .collect(Collectors.groupingBy(item -> item.action, () -> new EnumMap<>(Action.class), Collectors.counting()));
+            return counts.entrySet().stream()
+                    .map(entry -> entry.getKey().getDisplayName() + " " + entry.getValue())
+                    .collect(Collectors.joining(", "));
+        }
+        
+        private Path tempDirectory() throws IOException {
+            if (tempDirectory == null) {
+                tempDirectory = Files.createTempDirectory("mod-import");
+            }
+            return tempDirectory;
+        }
+        
+        /**
+         * 清理暫存目錄
+         */
+        @Override
+        public void close() {
+            if (tempDirectory == null) {
+                return;
+            }
+            try (Stream<Path> walk = Files.walk(tempDirectory)) {
+                walk.sorted(Comparator.reverseOrder()).forEach(ModImporter::deleteQuietly);
+            } catch (IOException e) {
+                logger.warn("無法清理暫存目錄: {}", tempDirectory, e);
+            }
+            tempDirectory = null;
+        }
+    }
+    
+    /**
+     * 匯入結果
+     */
+    public static class ImportResult {
+        private final int added;
+        private final int replaced;
+        private final int skipped;
+        private final String error;
+        
+        ImportResult(int added, int replaced, int skipped, String error) {
+            this.added = added;
+            this.replaced = replaced;
+            this.skipped = skipped;
+            this.error = error;
+        }
+        
+        public int getAdded() { return added; }
+        public int getReplaced() { return replaced; }
+        public int getSkipped() { return skipped; }
+        public String getError() { return error; }
+        
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+}
@@ -6,8 +6,18 @@ import com.mcserver.launcher.config.LauncherConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
@@ -27,17 +37,37 @@ public class ModManager {
     private final Path modSlotsConfig;
     private final ObjectMapper objectMapper;
     
-    // 模組插口配置
-    private Map<String, ModSlot> modSlots;
+    // 模組插口與索引 (可從背景線程安全地修改)
+    private final ModRegistry registry;
+    private final ModSearchIndex searchIndex;
+    private final ModImporter importer;
+    
+    // 已編譯的分類規則，可在不重新掃描的情況下熱替換
+    private volatile SlotRules slotRules = SlotRules.defaults();
+    
+    // 插口載入與模組掃描 (第一次呼叫 initialize 時開始)
+    private CompletableFuture<Void> initialization;
     
     public ModManager(LauncherConfig config) {
         this.config = config;
         this.modsDirectory = Paths.get(config.getMinecraftDirectory(), "mods");
         this.modSlotsConfig = Paths.get(config.getLauncherDirectory(), "mod-slots.json");
         this.objectMapper = new ObjectMapper();
-        this.modSlots = new HashMap<>();
-        
-        initializeModSlots();
+        this.registry = new ModRegistry();
+        this.searchIndex = new ModSearchIndex();
+        this.searchIndex.attach(registry);
+        this.importer = new ModImporter(this);
+    }
+    
+    /**
+     * 在背景線程載入插口配置並掃描現有模組 (讀取每個 JAR 的元數據並計算 SHA-256)
+     * 只執行一次，重複呼叫返回同一個 future；完成前插口與模組列表為空
+     */
+    public synchronized CompletableFuture<Void> initialize() {
+        if (initialization == null) {
+            initialization = CompletableFuture.runAsync(this::initializeModSlots);
+        }
+        return initialization;
     }
     
     /**
@@ -54,7 +84,7 @@ public class ModManager {
             // 掃描現有模組
             scanExistingMods();
             
-            logger.info("模組管理器初始化完成，共 {} 個插口", modSlots.size());
+            logger.info("模組管理器初始化完成，共 {} 個插口", registry.getSlots().size());
             
         } catch (Exception e) {
             logger.error("模組管理器初始化失敗", e);
@@ -69,11 +99,16 @@ public class ModManager {
             String json = Files.readString(modSlotsConfig);
             JsonNode root = objectMapper.readTree(json);
             
+            JsonNode rulesNode = root.get("rules");
+            if (rulesNode != null) {
+                slotRules = SlotRules.fromJson(rulesNode);
+            }
+            
             JsonNode slotsNode = root.get("slots");
             if (slotsNode != null && slotsNode.isArray()) {
                 for (JsonNode slotNode : slotsNode) {
                     ModSlot slot = parseModSlot(slotNode);
-                    modSlots.put(slot.getId(), slot);
+                    registry.putSlot(slot);
                 }
             }
         } else {
@@ -88,30 +123,30 @@ public class ModManager {
      */
     private void createDefaultModSlots() {
         // 核心模組插口
-        modSlots.put("core", new ModSlot("core", "核心模組", "必需的核心功能模組", true, ModSlot.Category.CORE));
+        registry.putSlot(new ModSlot("core", "核心模組", "必需的核心功能模組", true, ModSlot.Category.CORE));
         
         // 優化模組插口
-        modSlots.put("optimization", new ModSlot("optimization", "優化模組", "性能優化相關模組", false, ModSlot.Category.OPTIMIZATION));
+        registry.putSlot(new ModSlot("optimization", "優化模組", "性能優化相關模組", false, ModSlot.Category.OPTIMIZATION));
         
         // 功能模組插口
-        modSlots.put("utility", new ModSlot("utility", "實用工具", "實用功能模組", false, ModSlot.Category.UTILITY));
+        registry.putSlot(new ModSlot("utility", "實用工具", "實用功能模組", false, ModSlot.Category.UTILITY));
         
         // 裝飾模組插口
-        modSlots.put("decoration", new ModSlot("decoration", "裝飾模組", "美化和裝飾相關模組", false, ModSlot.Category.DECORATION));
+        registry.putSlot(new ModSlot("decoration", "裝飾模組", "美化和裝飾相關模組", false, ModSlot.Category.DECORATION));
         
         // 技術模組插口
-        modSlots.put("technology", new ModSlot("technology", "科技模組", "科技和機械相關模組", false, ModSlot.Category.TECHNOLOGY));
+        registry.putSlot(new ModSlot("technology", "科技模組", "科技和機械相關模組", false, ModSlot.Category.TECHNOLOGY));
         
         // 魔法模組插口
-        modSlots.put("magic", new ModSlot("magic", "魔法模組", "魔法和神秘相關模組", false, ModSlot.Category.MAGIC));
+        registry.putSlot(new ModSlot("magic", "魔法模組", "魔法和神秘相關模組", false, ModSlot.Category.MAGIC));
         
         // 冒險模組插口
-        modSlots.put("adventure", new ModSlot("adventure", "冒險模組", "冒險和探索相關模組", false, ModSlot.Category.ADVENTURE));
+        registry.putSlot(new ModSlot("adventure", "冒險模組", "冒險和探索相關模組", false, ModSlot.Category.ADVENTURE));
         
         // 自定義插口 1-5
         for (int i = 1; i <= 5; i++) {
             String id = "custom" + i;
-            modSlots.put(id, new ModSlot(id, "自定義插口 " + i, "可自由配置的模組插口", false, ModSlot.Category.CUSTOM));
+            registry.putSlot(new ModSlot(id, "自定義插口 " + i, "可自由配置的模組插口", false, ModSlot.Category.CUSTOM));
         }
     }
     
@@ -144,7 +179,17 @@ public class ModManager {
         String description = node.has("description") ? node.get("description").asText() : "";
         boolean enabled = node.has("enabled") ? node.get("enabled").asBoolean() : true;
         
-        return new ModInfo(fileName, modId, name, version, description, enabled);
+        ModInfo mod = new ModInfo(fileName, modId, name, version, description, enabled);
+        if (node.has("fileSize")) {
+            mod.setFileSize(node.get("fileSize").asLong());
+        }
+        if (node.has("checksum")) {
+            mod.setChecksum(node.get("checksum").asText());
+        }
+        if (node.has("author")) {
+            mod.setAuthor(node.get("author").asText());
+        }
+        return mod;
     }
     
     /**
@@ -173,7 +218,16 @@ public class ModManager {
     /**
      * 分析模組文件獲取信息
      */
-    private ModInfo analyzeModFile(Path modFile) throws IOException {
+    ModInfo analyzeModFile(Path modFile) throws IOException {
+        ModInfo modInfo = readModMetadata(modFile);
+        if (modInfo != null) {
+            modInfo.setFileSize(Files.size(modFile));
+            modInfo.setChecksum(calculateChecksum(modFile));
+        }
+        return modInfo;
+    }
+    
+    private ModInfo readModMetadata(Path modFile) throws IOException {
         try (ZipFile zipFile = new ZipFile(modFile.toFile())) {
             // 查找 mcmod.info 或 mods.toml
             ZipEntry mcmodInfo = zipFile.getEntry("mcmod.info");
@@ -203,7 +257,14 @@ public class ModManager {
                 String version = modNode.get("version").asText();
                 String description = modNode.has("description") ? modNode.get("description").asText() : "";
                 
-                return new ModInfo(fileName, modId, name, version, description, true);
+                ModInfo mod = new ModInfo(fileName, modId, name, version, description, true);
+                JsonNode authorList = modNode.get("authorList");
+                if (authorList != null && authorList.isArray() && authorList.size() > 0) {
+                    List<String> authors = new ArrayList<>();
+                    authorList.forEach(author -> authors.add(author.asText()));
+                    mod.setAuthor(String.join(", ", authors));
+                }
+                return mod;
             }
         } catch (Exception e) {
             logger.warn("解析舊版模組信息失敗: {}", fileName, e);
@@ -221,10 +282,13 @@ public class ModManager {
             String name = extractTomlValue(content, "displayName");
             String version = extractTomlValue(content, "version");
             String description = extractTomlValue(content, "description");
+            String authors = extractTomlValue(content, "authors");
             
             if (modId != null && name != null) {
-                return new ModInfo(fileName, modId, name, version != null ? version : "unknown", 
+                ModInfo mod = new ModInfo(fileName, modId, name, version != null ? version : "unknown", 
                         description != null ? description : "", true);
+                mod.setAuthor(authors);
+                return mod;
             }
         } catch (Exception e) {
             logger.warn("解析新版模組信息失敗: {}", fileName, e);
@@ -233,6 +297,25 @@ public class ModManager {
         return null;
     }
     
+    /**
+     * 計算文件內容的 SHA-256，用於內容雜湊索引
+     */
+    private String calculateChecksum(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream is = Files.newInputStream(file)) {
+                byte[] buffer = new byte[65536];
+                int bytesRead;
+                while ((bytesRead = is.read(buffer)) != -1) {
+                    digest.update(buffer, 0, bytesRead);
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+    
     private String extractTomlValue(String content, String key) {
         String pattern = key + "\\s*=\\s*\"([^\"]*)\"|" + key + "\\s*=\\s*'([^']*)'";
         java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
@@ -249,56 +332,11 @@ public class ModManager {
      * 將模組分配到合適的插口
      */
     private void assignModToSlot(ModInfo modInfo) {
-        // 根據模組 ID 或名稱判斷類別
-        String modId = modInfo.getModId().toLowerCase();
-        String name = modInfo.getName().toLowerCase();
-        
-        ModSlot targetSlot = null;
-        
-        // 核心模組
-        if (modId.contains("forge") || modId.contains("core") || modId.contains("api")) {
-            targetSlot = modSlots.get("core");
-        }
-        // 優化模組
-        else if (modId.contains("optifine") || modId.contains("performance") || 
-                 name.contains("優化") || name.contains("fps")) {
-            targetSlot = modSlots.get("optimization");
-        }
-        // 實用工具
-        else if (modId.contains("jei") || modId.contains("waila") || modId.contains("utility") ||
-                 name.contains("工具") || name.contains("實用")) {
-            targetSlot = modSlots.get("utility");
-        }
-        // 科技模組
-        else if (modId.contains("tech") || modId.contains("machine") || modId.contains("industrial") ||
-                 name.contains("科技") || name.contains("機械")) {
-            targetSlot = modSlots.get("technology");
-        }
-        // 魔法模組
-        else if (modId.contains("magic") || modId.contains("thaumcraft") || modId.contains("botania") ||
-                 name.contains("魔法") || name.contains("神秘")) {
-            targetSlot = modSlots.get("magic");
-        }
-        // 冒險模組
-        else if (modId.contains("adventure") || modId.contains("dungeon") || modId.contains("biome") ||
-                 name.contains("冒險") || name.contains("探索")) {
-            targetSlot = modSlots.get("adventure");
-        }
-        // 裝飾模組
-        else if (modId.contains("decoration") || modId.contains("furniture") || modId.contains("chisel") ||
-                 name.contains("裝飾") || name.contains("美化")) {
-            targetSlot = modSlots.get("decoration");
-        }
+        ModSlot targetSlot = classifyMod(modInfo);
         
         // 如果沒有找到合適的插口，分配到第一個可用的自定義插口
         if (targetSlot == null) {
-            for (int i = 1; i <= 5; i++) {
-                ModSlot customSlot = modSlots.get("custom" + i);
-                if (customSlot.getMods().isEmpty()) {
-                    targetSlot = customSlot;
-                    break;
-                }
-            }
+            targetSlot = findEmptyCustomSlot(Collections.emptySet());
         }
         
         if (targetSlot != null) {
@@ -309,18 +347,140 @@ public class ModManager {
         }
     }
     
+    /**
+     * 根據模組 ID 或名稱判斷所屬插口，無法判斷時返回 null
+     */
+    ModSlot classifyMod(ModInfo modInfo) {
+        String slotId = slotRules.classify(modInfo.getModId(), modInfo.getName());
+        return slotId != null ? registry.getSlot(slotId) : null;
+    }
+    
+    /**
+     * 獲取目前的分類規則
+     */
+    public SlotRules getSlotRules() {
+        return slotRules;
+    }
+    
+    /**
+     * 替換分類規則並保存，只影響之後新增的模組，已分配的模組保持不變
+     */
+    public void setSlotRules(SlotRules rules) throws IOException {
+        this.slotRules = rules;
+        saveModSlots();
+        logger.info("已套用 {} 條模組分類規則", rules.getRules().size());
+    }
+    
+    /**
+     * 從 mod-slots.json 重新載入分類規則 (用戶手動編輯後呼叫)，文件中沒有規則時保留現有規則
+     */
+    public boolean reloadSlotRules() {
+        try {
+            if (!Files.exists(modSlotsConfig)) {
+                return false;
+            }
+            JsonNode rulesNode = objectMapper.readTree(Files.readString(modSlotsConfig)).get("rules");
+            if (rulesNode == null) {
+                return false;
+            }
+            slotRules = SlotRules.fromJson(rulesNode);
+            logger.info("已重新載入 {} 條模組分類規則", slotRules.getRules().size());
+            return true;
+        } catch (Exception e) {
+            logger.error("重新載入模組分類規則失敗", e);
+            return false;
+        }
+    }
+    
+    /**
+     * 從遠端清單載入分類規則
+     * 清單可為規則陣列，或包含 "rules" 欄位的物件；下載或解析失敗時保留現有規則
+     */
+    public CompletableFuture<Boolean> loadSlotRulesFromUrl(String url) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (CloseableHttpClient client = HttpClients.custom()
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(Timeout.ofSeconds(30))
+                            .setResponseTimeout(Timeout.ofSeconds(30))
+                            .build())
+                    .build()) {
+                String body = client.execute(new HttpGet(url), response -> {
+                    if (response.getCode() != 200) {
+                        logger.warn("無法下載模組分類規則: HTTP {}", response.getCode());
+                        return null;
+                    }
+                    return EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+                });
+                if (body == null) {
+                    return false;
+                }
+                
+                // 缺少 rules 欄位時 fromJson 會拋出例外，現有規則保持不變
+                JsonNode root = objectMapper.readTree(body);
+                setSlotRules(SlotRules.fromJson(root.isArray() ? root : root.get("rules")));
+                return true;
+                
+            } catch (Exception e) {
+                logger.error("載入遠端模組分類規則失敗: {}", url, e);
+                return false;
+            }
+        });
+    }
+    
+    /**
+     * 查找第一個空的自定義插口
+     * @param claimed 已被預留 (例如批量匯入中) 的插口 ID
+     */
+    ModSlot findEmptyCustomSlot(Set<String> claimed) {
+        for (int i = 1; i <= 5; i++) {
+            ModSlot customSlot = registry.getSlot("custom" + i);
+            if (customSlot != null && customSlot.isEmpty() && !claimed.contains(customSlot.getId())) {
+                return customSlot;
+            }
+        }
+        return null;
+    }
+    
     /**
      * 獲取所有模組插口
      */
     public Map<String, ModSlot> getModSlots() {
-        return new HashMap<>(modSlots);
+        return registry.getSlots();
     }
     
     /**
      * 獲取指定插口
      */
     public ModSlot getModSlot(String slotId) {
-        return modSlots.get(slotId);
+        return registry.getSlot(slotId);
+    }
+    
+    /**
+     * 獲取模組註冊表 (提供 O(1) 的索引查詢)
+     */
+    public ModRegistry getRegistry() {
+        return registry;
+    }
+    
+    /**
+     * 獲取批量匯入器
+     */
+    public ModImporter getImporter() {
+        return importer;
+    }
+    
+    /**
+     * 獲取 mods 目錄
+     */
+    public Path getModsDirectory() {
+        return modsDirectory;
+    }
+    
+    /**
+     * 獲取模組全文搜尋索引
+     */
+    public ModSearchIndex getSearchIndex() {
+        return searchIndex;
     }
     
     /**
@@ -329,7 +489,7 @@ public class ModManager {
     public CompletableFuture<Boolean> addModToSlot(String slotId, Path modFile, Consumer<Integer> progressCallback) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                ModSlot slot = modSlots.get(slotId);
+                ModSlot slot = registry.getSlot(slotId);
                 if (slot == null) {
                     logger.error("插口不存在: {}", slotId);
                     return false;
@@ -347,8 +507,8 @@ public class ModManager {
                 Files.copy(modFile, targetPath, StandardCopyOption.REPLACE_EXISTING);
                 
                 // 更新模組信息中的文件名
-                modInfo = new ModInfo(targetPath.getFileName().toString(), modInfo.getModId(), 
-                        modInfo.getName(), modInfo.getVersion(), modInfo.getDescription(), true);
+                modInfo.setFileName(targetPath.getFileName().toString());
+                modInfo.setEnabled(true);
                 
                 // 添加到插口
                 slot.addMod(modInfo);
@@ -371,7 +531,7 @@ public class ModManager {
      */
     public boolean removeModFromSlot(String slotId, String modFileName) {
         try {
-            ModSlot slot = modSlots.get(slotId);
+            ModSlot slot = registry.getSlot(slotId);
             if (slot == null) {
                 logger.error("插口不存在: {}", slotId);
                 return false;
@@ -408,7 +568,7 @@ public class ModManager {
      */
     public boolean toggleMod(String slotId, String modFileName, boolean enabled) {
         try {
-            ModSlot slot = modSlots.get(slotId);
+            ModSlot slot = registry.getSlot(slotId);
             if (slot == null) {
                 return false;
             }
@@ -418,28 +578,24 @@ public class ModManager {
                 return false;
             }
             
-            // 更新模組狀態
-            mod.setEnabled(enabled);
-            
             // 重命名文件 (禁用時添加 .disabled 後綴)
             Path currentPath = modsDirectory.resolve(modFileName);
-            Path newPath;
+            String newFileName;
             
             if (enabled) {
                 // 啟用：移除 .disabled 後綴
-                String newFileName = modFileName.replace(".disabled", "");
-                newPath = modsDirectory.resolve(newFileName);
-                mod.setFileName(newFileName);
+                newFileName = modFileName.replace(".disabled", "");
             } else {
                 // 禁用：添加 .disabled 後綴
-                String newFileName = modFileName + ".disabled";
-                newPath = modsDirectory.resolve(newFileName);
-                mod.setFileName(newFileName);
+                newFileName = modFileName + ".disabled";
             }
+            Path newPath = modsDirectory.resolve(newFileName);
             
+            // 先移動文件，成功後才更新註冊表，失敗時註冊表保持原狀
             if (Files.exists(currentPath)) {
                 Files.move(currentPath, newPath, StandardCopyOption.REPLACE_EXISTING);
             }
+            slot.renameMod(modFileName, newFileName, enabled);
             
             // 保存配置
             saveModSlots();
@@ -456,11 +612,11 @@ public class ModManager {
     /**
      * 保存模組插口配置
      */
-    private void saveModSlots() throws IOException {
+    synchronized void saveModSlots() throws IOException {
         Map<String, Object> config = new HashMap<>();
         List<Map<String, Object>> slots = new ArrayList<>();
         
-        for (ModSlot slot : modSlots.values()) {
+        for (ModSlot slot : registry.getSlots().values()) {
             Map<String, Object> slotData = new HashMap<>();
             slotData.put("id", slot.getId());
             slotData.put("name", slot.getName());
@@ -476,7 +632,14 @@ public class ModManager {
                 modData.put("name", mod.getName());
                 modData.put("version", mod.getVersion());
                 modData.put("description", mod.getDescription());
+                if (mod.getAuthor() != null) {
+                    modData.put("author", mod.getAuthor());
+                }
                 modData.put("enabled", mod.isEnabled());
+                modData.put("fileSize", mod.getFileSize());
+                if (mod.getChecksum() != null) {
+                    modData.put("checksum", mod.getChecksum());
+                }
                 mods.add(modData);
             }
             slotData.put("mods", mods);
@@ -485,6 +648,7 @@ public class ModManager {
         }
         
         config.put("slots", slots);
+        config.put("rules", slotRules.toJson());
         
         String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(config);
         Files.writeString(modSlotsConfig, json);
@@ -494,24 +658,20 @@ public class ModManager {
      * 獲取所有已安裝的模組
      */
     public List<ModInfo> getAllMods() {
-        List<ModInfo> allMods = new ArrayList<>();
-        for (ModSlot slot : modSlots.values()) {
-            allMods.addAll(slot.getMods());
-        }
-        return allMods;
+        return registry.getAllMods();
     }
     
     /**
      * 獲取啟用的模組數量
      */
     public int getEnabledModCount() {
-        return (int) getAllMods().stream().filter(ModInfo::isEnabled).count();
+        return registry.snapshot().getEnabledModCount();
     }
     
     /**
      * 獲取模組總數
      */
     public int getTotalModCount() {
-        return getAllMods().size();
+        return registry.snapshot().getTotalModCount();
     }
 }
\ No newline at end of file
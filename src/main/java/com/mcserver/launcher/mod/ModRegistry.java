@@ -0,0 +1,245 @@
+package com.mcserver.launcher.mod;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 模組註冊表
+ * 集中管理所有插口與模組，並維護文件名、模組 ID、插口及內容雜湊的次級索引。
+ * 寫入端以單一鎖串行化並重建快照，讀取端 (UI) 只讀取已發布的不可變快照，無需加鎖。
+ */
+public class ModRegistry {
+    
+    private final Object writeLock = new Object();
+    
+    // 插口註冊順序 (受 writeLock 保護)
+    private final Map<String, ModSlot> slots = new LinkedHashMap<>();
+    
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    
+    // 批次更新期間延後重建 (受 writeLock 保護)
+    private int batchDepth;
+    private boolean dirty;
+    
+    private final List<Consumer<Snapshot>> listeners = new CopyOnWriteArrayList<>();
+    
+    /**
+     * 註冊或替換插口
+     */
+    public void putSlot(ModSlot slot) {
+        synchronized (writeLock) {
+            ModSlot previous = slots.put(slot.getId(), slot);
+            if (previous != null && previous != slot) {
+                previous.setChangeListener(null);
+            }
+            slot.setChangeListener(this::rebuild);
+            rebuildLocked();
+        }
+    }
+    
+    /**
+     * 註冊快照變更監聽器 (立即以目前快照回調一次)
+     * 監聽器在寫入鎖內依序呼叫，不得反過來修改註冊表
+     */
+    public void addListener(Consumer<Snapshot> listener) {
+        synchronized (writeLock) {
+            listeners.add(listener);
+            listener.accept(snapshot);
+        }
+    }
+    
+    public void removeListener(Consumer<Snapshot> listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * 移除所有插口
+     */
+    public void clear() {
+        synchronized (writeLock) {
+            slots.values().forEach(slot -> slot.setChangeListener(null));
+            slots.clear();
+            rebuildLocked();
+        }
+    }
+    
+    /**
+     * 以單一交易執行多項變更，期間讀取端只會看到變更前或變更後的快照
+     */
+    public void update(Runnable mutation) {
+        synchronized (writeLock) {
+            batchDepth++;
+            try {
+                mutation.run();
+            } finally {
+                batchDepth--;
+                if (batchDepth == 0 && dirty) {
+                    rebuildLocked();
+                }
+            }
+        }
+    }
+    
+    /**
+     * 重建索引並發布新快照 (插口內容變更時由插口回調)
+     */
+    void rebuild() {
+        synchronized (writeLock) {
+            if (batchDepth > 0) {
+                dirty = true;
+                return;
+            }
+            rebuildLocked();
+        }
+    }
+    
+    private void rebuildLocked() {
+        dirty = false;
+        Map<String, ModInfo> byFileName = new HashMap<>();
+        Map<String, ModInfo> byModId = new HashMap<>();
+        Map<String, ModInfo> byChecksum = new HashMap<>();
+        Map<String, ModSlot> slotByFileName = new HashMap<>();
+        Map<String, ModSlot> slotByModId = new HashMap<>();
+        List<ModInfo> allMods = new ArrayList<>();
+        
+        for (ModSlot slot : slots.values()) {
+            for (ModInfo mod : slot.getMods()) {
+                allMods.add(mod);
+                byFileName.put(mod.getFileName(), mod);
+                slotByFileName.put(mod.getFileName(), slot);
+                byModId.putIfAbsent(mod.getModId(), mod);
+                slotByModId.putIfAbsent(mod.getModId(), slot);
+                if (mod.getChecksum() != null && !mod.getChecksum().isEmpty()) {
+                    byChecksum.putIfAbsent(mod.getChecksum(), mod);
+                }
+            }
+        }
+        
+        snapshot = new Snapshot(
+                Collections.unmodifiableMap(new LinkedHashMap<>(slots)),
+                List.copyOf(allMods),
+                Collections.unmodifiableMap(byFileName),
+                Collections.unmodifiableMap(byModId),
+                Collections.unmodifiableMap(byChecksum),
+                Collections.unmodifiableMap(slotByFileName),
+                Collections.unmodifiableMap(slotByModId)
+        );
+        
+        for (Consumer<Snapshot> listener : listeners) {
+            listener.accept(snapshot);
+        }
+    }
+    
+    /**
+     * 獲取目前發布的快照
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+    
+    public Map<String, ModSlot> getSlots() {
+        return snapshot.slots;
+    }
+    
+    public ModSlot getSlot(String slotId) {
+        return snapshot.slots.get(slotId);
+    }
+    
+    public List<ModInfo> getAllMods() {
+        return snapshot.allMods;
+    }
+    
+    public ModInfo findByFileName(String fileName) {
+        return snapshot.byFileName.get(fileName);
+    }
+    
+    public ModInfo findByModId(String modId) {
+        return snapshot.byModId.get(modId);
+    }
+    
+    public ModInfo findByChecksum(String checksum) {
+        return snapshot.byChecksum.get(checksum);
+    }
+    
+    /**
+     * 查詢模組所在的插口
+     */
+    public ModSlot findSlotOf(String fileName) {
+        return snapshot.slotByFileName.get(fileName);
+    }
+    
+    public ModSlot findSlotOfModId(String modId) {
+        return snapshot.slotByModId.get(modId);
+    }
+    
+    /**
+     * 註冊表的不可變快照
+     */
+    public static final class Snapshot {
+        
+        static final Snapshot EMPTY = new Snapshot(Map.of(), List.of(), Map.of(), Map.of(), Map.of(), Map.of(), Map.of());
+        
+        private final Map<String, ModSlot> slots;
+        private final List<ModInfo> allMods;
+        private final Map<String, ModInfo> byFileName;
+        private final Map<String, ModInfo> byModId;
+        private final Map<String, ModInfo> byChecksum;
+        private final Map<String, ModSlot> slotByFileName;
+        private final Map<String, ModSlot> slotByModId;
+        
+        private Snapshot(Map<String, ModSlot> slots, List<ModInfo> allMods,
+                         Map<String, ModInfo> byFileName, Map<String, ModInfo> byModId,
+                         Map<String, ModInfo> byChecksum, Map<String, ModSlot> slotByFileName,
+                         Map<String, ModSlot> slotByModId) {
+            this.slots = slots;
+            this.allMods = allMods;
+            this.byFileName = byFileName;
+            this.byModId = byModId;
+            this.byChecksum = byChecksum;
+            this.slotByFileName = slotByFileName;
+            this.slotByModId = slotByModId;
+        }
+        
+        public Map<String, ModSlot> getSlots() {
+            return slots;
+        }
+        
+        public List<ModInfo> getAllMods() {
+            return allMods;
+        }
+        
+        public ModInfo findByFileName(String fileName) {
+            return byFileName.get(fileName);
+        }
+        
+        public ModInfo findByModId(String modId) {
+            return byModId.get(modId);
+        }
+        
+        public ModInfo findByChecksum(String checksum) {
+            return byChecksum.get(checksum);
+        }
+        
+        public ModSlot findSlotOf(String fileName) {
+            return slotByFileName.get(fileName);
+        }
+        
+        public int getTotalModCount() {
+            return allMods.size();
+        }
+        
+        /**
+         * 啟用狀態可由 UI 直接切換，因此在讀取時計算而非快取
+         */
+        public int getEnabledModCount() {
+            int count = 0;
+            for (ModInfo mod : allMods) {
+                if (mod.isEnabled()) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.mcserver.launcher.mod;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 模組全文搜尋索引
+ * 對模組名稱、ID、作者與描述建立倒排索引，支援前綴與模糊查詢並依相關度排序。
+ * 中日韓文字以單字與雙字組 (bigram) 建立索引，因此「優化」、「科技」等繁中名稱也能被搜尋。
+ * 透過 {@link ModRegistry} 的快照監聽器增量更新，只處理新增與移除的模組。
+ */
+public class ModSearchIndex {
+    
+    // 欄位權重
+    private static final float NAME_WEIGHT = 4.0f;
+    private static final float MOD_ID_WEIGHT = 3.0f;
+    private static final float AUTHOR_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    
+    // 匹配類型係數
+    private static final float EXACT_FACTOR = 1.0f;
+    private static final float PREFIX_FACTOR = 0.6f;
+    private static final float FUZZY_FACTOR = 0.3f;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // 詞項 -> (模組 -> 權重)，有序以便前綴查詢
+    private final TreeMap<String, Map<ModInfo, Float>> postings = new TreeMap<>();
+    
+    // 模組 -> 已索引的詞項 (用於移除)；以物件身分為鍵，因為 ModInfo.equals 只比較 ID 與版本
+    private final Map<ModInfo, Map<String, Float>> documents = new IdentityHashMap<>();
+    
+    /**
+     * 綁定到註冊表，之後隨快照變更自動增量更新
+     */
+    public void attach(ModRegistry registry) {
+        registry.addListener(this::sync);
+    }
+    
+    /**
+     * 與註冊表快照同步：只索引新出現的模組並移除已消失的模組
+     */
+    void sync(ModRegistry.Snapshot snapshot) {
+        Set<ModInfo> current = Collections.newSetFromMap(new IdentityHashMap<>());
+        current.addAll(snapshot.getAllMods());
+        
+        lock.writeLock().lock();
+        try {
+            List<ModInfo> removed = new ArrayList<>();
+            for (ModInfo mod : documents.keySet()) {
+                if (!current.contains(mod)) {
+                    removed.add(mod);
+                }
+            }
+            removed.forEach(this::removeLocked);
+            
+            for (ModInfo mod : current) {
+                if (!documents.containsKey(mod)) {
+                    addLocked(mod);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 加入或重新索引單個模組
+     */
+    public void add(ModInfo mod) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(mod);
+            addLocked(mod);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(ModInfo mod) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(mod);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void addLocked(ModInfo mod) {
+        Map<String, Float> terms = new HashMap<>();
+        indexField(terms, mod.getName(), NAME_WEIGHT);
+        indexField(terms, mod.getModId(), MOD_ID_WEIGHT);
+        indexField(terms, mod.getAuthor(), AUTHOR_WEIGHT);
+        indexField(terms, mod.getDescription(), DESCRIPTION_WEIGHT);
+        
+        documents.put(mod, terms);
+        for (Map.Entry<String, Float> entry : terms.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new IdentityHashMap<>()).put(mod, entry.getValue());
+        }
+    }
+    
+    private void removeLocked(ModInfo mod) {
+        Map<String, Float> terms = documents.remove(mod);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<ModInfo, Float> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(mod);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+    
+    private void indexField(Map<String, Float> terms, String text, float weight) {
+        for (String term : tokenize(text, true)) {
+            terms.merge(term, weight, Math::max);
+        }
+    }
+    
+    /**
+     * 搜尋模組
+     * 每個查詢詞都必須命中 (AND)，拉丁字詞支援前綴與拼寫容錯，結果依分數排序
+     * @param query 使用者輸入
+     * @param limit 最多返回的結果數
+     */
+    public List<ModInfo> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query, false);
+        if (queryTerms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        lock.readLock().lock();
+        try {
+            Map<ModInfo, Float> scores = null;
+            for (String queryTerm : queryTerms) {
+                Map<ModInfo, Float> termScores = matchTerm(queryTerm);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    for (Map.Entry<ModInfo, Float> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            
+            List<Map.Entry<ModInfo, Float>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<ModInfo, Float>comparingByValue().reversed()
+                    .thenComparing(entry -> entry.getKey().getDisplayName(), String.CASE_INSENSITIVE_ORDER));
+            
+            List<ModInfo> results = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (int i = 0; i < ranked.size() && i < limit; i++) {
+                results.add(ranked.get(i).getKey());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 計算單個查詢詞對各模組的最佳匹配分數
+     */
+    private Map<ModInfo, Float> matchTerm(String queryTerm) {
+        Map<ModInfo, Float> scores = new IdentityHashMap<>();
+        
+        // 完全匹配與前綴匹配
+        for (Map.Entry<String, Map<ModInfo, Float>> entry : postings.tailMap(queryTerm, true).entrySet()) {
+            String term = entry.getKey();
+            if (!term.startsWith(queryTerm)) {
+                break;
+            }
+            float factor = term.length() == queryTerm.length() ? EXACT_FACTOR : PREFIX_FACTOR;
+            collect(scores, entry.getValue(), factor);
+        }
+        
+        // 沒有任何前綴命中時才進行模糊匹配，避免輸入過程中結果跳動
+        if (scores.isEmpty() && queryTerm.length() >= 3 && !isCjk(queryTerm.codePointAt(0))) {
+            int maxDistance = queryTerm.length() >= 7 ? 2 : 1;
+            for (Map.Entry<String, Map<ModInfo, Float>> entry : postings.entrySet()) {
+                String term = entry.getKey();
+                if (Math.abs(term.length() - queryTerm.length()) <= maxDistance
+                        && withinEditDistance(queryTerm, term, maxDistance)) {
+                    collect(scores, entry.getValue(), FUZZY_FACTOR);
+                }
+            }
+        }
+        
+        return scores;
+    }
+    
+    private void collect(Map<ModInfo, Float> scores, Map<ModInfo, Float> docs, float factor) {
+        for (Map.Entry<ModInfo, Float> doc : docs.entrySet()) {
+            scores.merge(doc.getKey(), doc.getValue() * factor, Math::max);
+        }
+    }
+    
+    /**
+     * 有上限的編輯距離判斷 (含相鄰字元互換)，超過上限立即返回
+     */
+    private static boolean withinEditDistance(String a, String b, int maxDistance) {
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return false;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()] <= maxDistance;
+    }
+    
+    /**
+     * 分詞
+     * 拉丁字母與數字按分隔符及駝峰拆分 (同時保留完整字詞)；中日韓文字拆為單字及雙字組。
+     * 查詢時中日韓連續文字只使用雙字組 (單字查詢除外)，以提高精確度。
+     */
+    static List<String> tokenize(String text, boolean forIndex) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        Set<String> tokens = new LinkedHashSet<>();
+        StringBuilder word = new StringBuilder();
+        StringBuilder cjkRun = new StringBuilder();
+        
+        for (int i = 0; i < normalized.length(); ) {
+            int cp = normalized.codePointAt(i);
+            i += Character.charCount(cp);
+            
+            if (isCjk(cp)) {
+                flushWord(word, tokens, forIndex);
+                cjkRun.appendCodePoint(cp);
+            } else if (Character.isLetterOrDigit(cp)) {
+                flushCjk(cjkRun, tokens, forIndex);
+                word.appendCodePoint(cp);
+            } else {
+                flushWord(word, tokens, forIndex);
+                flushCjk(cjkRun, tokens, forIndex);
+            }
+        }
+        flushWord(word, tokens, forIndex);
+        flushCjk(cjkRun, tokens, forIndex);
+        
+        return new ArrayList<>(tokens);
+    }
+    
+    private static void flushWord(StringBuilder word, Set<String> tokens, boolean forIndex) {
+        if (word.length() == 0) {
+            return;
+        }
+        String raw = word.toString();
+        tokens.add(raw.toLowerCase(Locale.ROOT));
+        
+        // 駝峰拆分，例如 JustEnoughItems -> just, enough, items
+        if (forIndex) {
+            int start = 0;
+            for (int i = 1; i < raw.length(); i++) {
+                if (Character.isUpperCase(raw.charAt(i)) && Character.isLowerCase(raw.charAt(i - 1))) {
+                    tokens.add(raw.substring(start, i).toLowerCase(Locale.ROOT));
+                    start = i;
+                }
+            }
+            if (start > 0) {
+                tokens.add(raw.substring(start).toLowerCase(Locale.ROOT));
+            }
+        }
+        word.setLength(0);
+    }
+    
+    private static void flushCjk(StringBuilder run, Set<String> tokens, boolean forIndex) {
+        if (run.length() == 0) {
+            return;
+        }
+        int[] cps = run.codePoints().toArray();
+        if (forIndex || cps.length == 1) {
+            for (int cp : cps) {
+                tokens.add(new String(Character.toChars(cp)));
+            }
+        }
+        for (int i = 0; i + 1 < cps.length; i++) {
+            tokens.add(new String(cps, i, 2));
+        }
+        run.setLength(0);
+    }
+    
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL
+                || script == Character.UnicodeScript.BOPOMOFO;
+    }
+}
@@ -13,7 +13,12 @@ public class ModSlot {
     private final String description;
     private final boolean required;
     private final Category category;
-    private final List<ModInfo> mods;
+    
+    // 寫入時複製：讀取端直接使用不可變快照，無需加鎖
+    private volatile List<ModInfo> mods;
+    private volatile Map<String, ModInfo> modsByFileName;
+    private volatile Map<String, ModInfo> modsById;
+    private volatile Runnable changeListener;
     
     /**
      * 模組類別枚舉
@@ -51,7 +56,9 @@ public class ModSlot {
         this.description = description;
         this.required = required;
         this.category = category;
-        this.mods = new ArrayList<>();
+        this.mods = List.of();
+        this.modsByFileName = Map.of();
+        this.modsById = Map.of();
     }
     
     /**
@@ -62,46 +69,82 @@ public class ModSlot {
             return false;
         }
         
-        // 檢查是否已存在相同的模組
-        if (mods.stream().anyMatch(m -> m.getModId().equals(mod.getModId()))) {
-            return false;
+        synchronized (this) {
+            // 檢查是否已存在相同的模組
+            if (modsById.containsKey(mod.getModId())) {
+                return false;
+            }
+            
+            List<ModInfo> updated = new ArrayList<>(mods);
+            updated.add(mod);
+            publish(updated);
         }
-        
-        return mods.add(mod);
+        fireChanged();
+        return true;
     }
     
     /**
      * 從插口移除模組
      */
     public boolean removeMod(String fileName) {
-        return mods.removeIf(mod -> mod.getFileName().equals(fileName));
+        ModInfo target = modsByFileName.get(fileName);
+        return target != null && remove(target);
     }
     
     /**
      * 根據模組 ID 移除模組
      */
     public boolean removeModById(String modId) {
-        return mods.removeIf(mod -> mod.getModId().equals(modId));
+        ModInfo target = modsById.get(modId);
+        return target != null && remove(target);
+    }
+    
+    private boolean remove(ModInfo target) {
+        synchronized (this) {
+            List<ModInfo> updated = new ArrayList<>(mods);
+            if (!updated.remove(target)) {
+                return false;
+            }
+            publish(updated);
+        }
+        fireChanged();
+        return true;
+    }
+    
+    /**
+     * 重新命名插口中的模組文件並更新啟用狀態 (例如啟用/禁用時加減 .disabled 後綴)
+     * 以副本取代原物件，已發布的快照不受影響
+     */
+    public boolean renameMod(String oldFileName, String newFileName, boolean enabled) {
+        synchronized (this) {
+            ModInfo mod = modsByFileName.get(oldFileName);
+            if (mod == null) {
+                return false;
+            }
+            ModInfo renamed = mod.copy();
+            renamed.setFileName(newFileName);
+            renamed.setEnabled(enabled);
+            
+            List<ModInfo> updated = new ArrayList<>(mods);
+            updated.set(updated.indexOf(mod), renamed);
+            publish(updated);
+        }
+        fireChanged();
+        return true;
     }
     
     /**
      * 獲取指定文件名的模組
      */
     public ModInfo getMod(String fileName) {
-        return mods.stream()
-                .filter(mod -> mod.getFileName().equals(fileName))
-                .findFirst()
-                .orElse(null);
+        return modsByFileName.get(fileName);
     }
     
     /**
      * 根據模組 ID 獲取模組
      */
     public ModInfo getModById(String modId) {
-        return mods.stream()
-                .filter(mod -> mod.getModId().equals(modId))
-                .findFirst()
-                .orElse(null);
+        return modsById.get(modId);
     }
     
     /**
@@ -150,7 +193,39 @@ public class ModSlot {
      * 清空插口中的所有模組
      */
     public void clearMods() {
-        mods.clear();
+        synchronized (this) {
+            publish(List.of());
+        }
+        fireChanged();
+    }
+    
+    /**
+     * 發布新的模組列表與索引，呼叫端須持有本物件的鎖
+     */
+    private void publish(List<ModInfo> updated) {
+        Map<String, ModInfo> byFileName = new HashMap<>();
+        Map<String, ModInfo> byId = new HashMap<>();
+        for (ModInfo mod : updated) {
+            byFileName.put(mod.getFileName(), mod);
+            byId.put(mod.getModId(), mod);
+        }
+        this.modsByFileName = Collections.unmodifiableMap(byFileName);
+        this.modsById = Collections.unmodifiableMap(byId);
+        this.mods = List.copyOf(updated);
+    }
+    
+    /**
+     * 通知監聽者插口內容已變更 (必須在鎖外呼叫，避免與註冊表的鎖互相等待)
+     */
+    private void fireChanged() {
+        Runnable listener = changeListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+    
+    void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
     }
     
     /**
@@ -206,8 +281,11 @@ public class ModSlot {
         return category;
     }
     
+    /**
+     * 獲取插口中的模組 (不可變快照，可安全地在任意線程迭代)
+     */
     public List<ModInfo> getMods() {
-        return new ArrayList<>(mods);
+        return mods;
     }
     
     @Override
@@ -0,0 +1,309 @@
+package com.mcserver.launcher.mod;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * 模組插口分類規則
+ * 規則依序排列 (越前面優先權越高)，每條規則可包含精確模組 ID、模組 ID 關鍵字、名稱關鍵字及正則表達式。
+ * 規則編譯後為不可變物件：精確 ID 以雜湊表查詢，關鍵字合併成 Aho-Corasick 自動機，
+ * 因此每個模組只需掃描一次 ID 與名稱即可完成分類，與規則數量無關。
+ */
+public final class SlotRules {
+    
+    private final List<Rule> rules;
+    
+    // 精確模組 ID -> 最高優先權的規則索引
+    private final Map<String, Integer> exactIds;
+    private final Automaton idKeywords;
+    private final Automaton nameKeywords;
+    
+    // 正則規則較昂貴，只在比目前最佳結果優先權更高時才檢查
+    private final int[] patternRuleIndexes;
+    
+    private SlotRules(List<Rule> rules) {
+        this.rules = List.copyOf(rules);
+        
+        Map<String, Integer> exact = new HashMap<>();
+        Automaton.Builder idBuilder = new Automaton.Builder();
+        Automaton.Builder nameBuilder = new Automaton.Builder();
+        List<Integer> patternRules = new ArrayList<>();
+        
+        for (int i = 0; i < this.rules.size(); i++) {
+            Rule rule = this.rules.get(i);
+            for (String modId : rule.modIds) {
+                exact.putIfAbsent(modId, i);
+            }
+            for (String keyword : rule.idKeywords) {
+                idBuilder.add(keyword, i);
+            }
+            for (String keyword : rule.nameKeywords) {
+                nameBuilder.add(keyword, i);
+            }
+            if (!rule.patterns.isEmpty()) {
+                patternRules.add(i);
+            }
+        }
+        
+        this.exactIds = Map.copyOf(exact);
+        this.idKeywords = idBuilder.build();
+        this.nameKeywords = nameBuilder.build();
+        this.patternRuleIndexes = patternRules.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    /**
+     * 編譯規則
+     */
+    public static SlotRules compile(List<Rule> rules) {
+        return new SlotRules(rules);
+    }
+    
+    /**
+     * 從 JSON 陣列解析並編譯規則
+     * 格式: [{"slot": "core", "modIds": [...], "idKeywords": [...], "nameKeywords": [...], "patterns": [...]}]
+     */
+    public static SlotRules fromJson(JsonNode rulesNode) {
+        // 缺少規則陣列時拒絕，而不是當作空規則集清除所有分類
+        if (rulesNode == null || !rulesNode.isArray()) {
+            throw new IllegalArgumentException("分類規則必須是陣列");
+        }
+        List<Rule> rules = new ArrayList<>();
+        for (JsonNode node : rulesNode) {
+            JsonNode slot = node.get("slot");
+            if (slot == null || slot.asText().isBlank()) {
+                throw new IllegalArgumentException("分類規則缺少 slot 欄位");
+            }
+            rules.add(new Rule(slot.asText(),
+                    readStrings(node.get("modIds")),
+                    readStrings(node.get("idKeywords")),
+                    readStrings(node.get("nameKeywords")),
+                    readStrings(node.get("patterns"))));
+        }
+        return compile(rules);
+    }
+    
+    /**
+     * 內建的默認規則
+     */
+    public static SlotRules defaults() {
+        return compile(List.of(
+            new Rule("core", List.of(), List.of("forge", "core", "api"), List.of(), List.of()),
+            new Rule("optimization", List.of(), List.of("optifine", "performance"), List.of("優化", "fps"), List.of()),
+            new Rule("utility", List.of(), List.of("jei", "waila", "utility"), List.of("工具", "實用"), List.of()),
+            new Rule("technology", List.of(), List.of("tech", "machine", "industrial"), List.of("科技", "機械"), List.of()),
+            new Rule("magic", List.of(), List.of("magic", "thaumcraft", "botania"), List.of("魔法", "神秘"), List.of()),
+            new Rule("adventure", List.of(), List.of("adventure", "dungeon", "biome"), List.of("冒險", "探索"), List.of()),
+            new Rule("decoration", List.of(), List.of("decoration", "furniture", "chisel"), List.of("裝飾", "美化"), List.of())
+        ));
+    }
+    
+    /**
+     * 判斷模組所屬插口，沒有規則命中時返回 null
+     */
+    public String classify(String modId, String name) {
+        String id = modId != null ? modId.toLowerCase(Locale.ROOT) : "";
+        String displayName = name != null ? name.toLowerCase(Locale.ROOT) : "";
+        
+        Integer exact = exactIds.get(id);
+        int best = exact != null ? exact : Integer.MAX_VALUE;
+        if (best > 0) {
+            best = Math.min(best, idKeywords.firstMatch(id, best));
+        }
+        if (best > 0) {
+            best = Math.min(best, nameKeywords.firstMatch(displayName, best));
+        }
+        
+        for (int index : patternRuleIndexes) {
+            if (index >= best) {
+                break;
+            }
+            for (Pattern pattern : rules.get(index).compiledPatterns) {
+                if (pattern.matcher(id).find() || pattern.matcher(displayName).find()) {
+                    best = index;
+                    break;
+                }
+            }
+        }
+        
+        return best == Integer.MAX_VALUE ? null : rules.get(best).slotId;
+    }
+    
+    public List<Rule> getRules() {
+        return rules;
+    }
+    
+    /**
+     * 轉為可序列化的結構 (寫入 mod-slots.json)
+     */
+    public List<Map<String, Object>> toJson() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Rule rule : rules) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("slot", rule.slotId);
+            if (!rule.modIds.isEmpty()) data.put("modIds", rule.modIds);
+            if (!rule.idKeywords.isEmpty()) data.put("idKeywords", rule.idKeywords);
+            if (!rule.nameKeywords.isEmpty()) data.put("nameKeywords", rule.nameKeywords);
+            if (!rule.patterns.isEmpty()) data.put("patterns", rule.patterns);
+            result.add(data);
+        }
+        return result;
+    }
+    
+    private static List<String> readStrings(JsonNode node) {
+        List<String> values = new ArrayList<>();
+        if (node != null && node.isArray()) {
+            for (JsonNode value : node) {
+                if (!value.asText().isEmpty()) {
+                    values.add(value.asText());
+                }
+            }
+        }
+        return values;
+    }
+    
+    /**
+     * 單條分類規則 (所有比對皆不分大小寫)
+     */
+    public static final class Rule {
+        private final String slotId;
+        private final List<String> modIds;
+        private final List<String> idKeywords;
+        private final List<String> nameKeywords;
+        private final List<String> patterns;
+        private final List<Pattern> compiledPatterns;
+        
+        public Rule(String slotId, List<String> modIds, List<String> idKeywords,
+                    List<String> nameKeywords, List<String> patterns) {
+            this.slotId = slotId;
+            this.modIds = lowerCase(modIds);
+            this.idKeywords = lowerCase(idKeywords);
+            this.nameKeywords = lowerCase(nameKeywords);
+            this.patterns = List.copyOf(patterns);
+            this.compiledPatterns = patterns.stream()
+                    .map(p -> Pattern.compile(p, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE))
+                    .toList();
+        }
+        
+        private static List<String> lowerCase(List<String> values) {
+            return values.stream().map(v -> v.toLowerCase(Locale.ROOT)).toList();
+        }
+        
+        public String getSlotId() {
+            return slotId;
+        }
+        
+        public List<String> getModIds() {
+            return modIds;
+        }
+        
+        public List<String> getIdKeywords() {
+            return idKeywords;
+        }
+        
+        public List<String> getNameKeywords() {
+            return nameKeywords;
+        }
+        
+        public List<String> getPatterns() {
+            return patterns;
+        }
+    }
+    
+    /**
+     * Aho-Corasick 自動機
+     * 每個狀態記錄經由失敗鏈可到達的所有關鍵字中最小的規則索引
+     */
+    static final class Automaton {
+        private final List<Map<Character, Integer>> transitions;
+        private final int[] fail;
+        private final int[] output;
+        
+        private Automaton(List<Map<Character, Integer>> transitions, int[] fail, int[] output) {
+            this.transitions = transitions;
+            this.fail = fail;
+            this.output = output;
+        }
+        
+        /**
+         * 掃描文本，返回命中的最小規則索引 (不小於 bound 時返回 Integer.MAX_VALUE)
+         */
+        int firstMatch(String text, int bound) {
+            int best = Integer.MAX_VALUE;
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                Integer next;
+                while ((next = transitions.get(state).get(c)) == null && state != 0) {
+                    state = fail[state];
+                }
+                state = next != null ? next : 0;
+                if (output[state] < best) {
+                    best = output[state];
+                    if (best == 0) {
+                        break;
+                    }
+                }
+            }
+            return best < bound ? best : Integer.MAX_VALUE;
+        }
+        
+        static final class Builder {
+            private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+            private final List<Integer> output = new ArrayList<>();
+            
+            Builder() {
+                newState();
+            }
+            
+            private int newState() {
+                transitions.add(new HashMap<>());
+                output.add(Integer.MAX_VALUE);
+                return transitions.size() - 1;
+            }
+            
+            void add(String keyword, int ruleIndex) {
+                int state = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    char c = keyword.charAt(i);
+                    Integer next = transitions.get(state).get(c);
+                    if (next == null) {
+                        next = newState();
+                        transitions.get(state).put(c, next);
+                    }
+                    state = next;
+                }
+                output.set(state, Math.min(output.get(state), ruleIndex));
+            }
+            
+            Automaton build() {
+                int size = transitions.size();
+                int[] fail = new int[size];
+                int[] out = new int[size];
+                for (int i = 0; i < size; i++) {
+                    out[i] = output.get(i);
+                }
+                
+                // 廣度優先建立失敗鏈，並將失敗狀態的輸出合併進來
+                Deque<Integer> queue = new ArrayDeque<>(transitions.get(0).values());
+                while (!queue.isEmpty()) {
+                    int state = queue.poll();
+                    for (Map.Entry<Character, Integer> edge : transitions.get(state).entrySet()) {
+                        int child = edge.getValue();
+                        int f = fail[state];
+                        Integer target;
+                        while ((target = transitions.get(f).get(edge.getKey())) == null && f != 0) {
+                            f = fail[f];
+                        }
+                        fail[child] = target != null && target != child ? target : 0;
+                        out[child] = Math.min(out[child], out[fail[child]]);
+                        queue.add(child);
+                    }
+                }
+                
+                return new Automaton(List.copyOf(transitions), fail, out);
+            }
+        }
+    }
+}
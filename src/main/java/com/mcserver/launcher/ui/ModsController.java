@@ -1,9 +1,13 @@
 package com.mcserver.launcher.ui;
 
+import com.mcserver.launcher.image.ThumbnailService;
+import com.mcserver.launcher.mod.ModImporter;
 import com.mcserver.launcher.mod.ModInfo;
 import com.mcserver.launcher.mod.ModManager;
 import com.mcserver.launcher.mod.ModSlot;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -11,6 +15,10 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.CheckBoxTableCell;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.DragEvent;
+import javafx.scene.input.Dragboard;
+import javafx.scene.input.TransferMode;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import org.slf4j.Logger;
@@ -22,6 +30,7 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -39,6 +48,7 @@ public class ModsController implements Initializable {
     @FXML private Button enableAllButton;
     @FXML private Button disableAllButton;
     @FXML private Button refreshButton;
+    @FXML private TextField searchField;
     
     // 左側插槽列表
     @FXML private ListView<ModSlot> slotsListView;
@@ -54,6 +64,7 @@ public class ModsController implements Initializable {
     // 模組表格
     @FXML private TitledPane modsPane;
     @FXML private TableView<ModInfo> modsTableView;
+    @FXML private TableColumn<ModInfo, ModInfo> modIconColumn;
     @FXML private TableColumn<ModInfo, Boolean> modEnabledColumn;
     @FXML private TableColumn<ModInfo, String> modNameColumn;
     @FXML private TableColumn<ModInfo, String> modVersionColumn;
@@ -71,10 +82,14 @@ public class ModsController implements Initializable {
     @FXML private Button closeButton;
     
     private ModManager modManager;
+    private ThumbnailService thumbnailService;
     private Stage dialogStage;
     private ObservableList<ModSlot> slotsList;
     private ObservableList<ModInfo> modsList;
     
+    // 搜尋結果上限
+    private static final int SEARCH_RESULT_LIMIT = 200;
+    
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         logger.info("初始化模組管理對話框");
@@ -119,7 +134,13 @@ public class ModsController implements Initializable {
         });
         
         slotsListView.getSelectionModel().selectedItemProperty().addListener(
-            (observable, oldValue, newValue) -> updateSlotDetails(newValue)
+            (observable, oldValue, newValue) -> {
+                // 切換插槽時結束搜尋
+                if (isSearching()) {
+                    searchField.clear();
+                }
+                updateSlotDetails(newValue);
+            }
         );
     }
     
@@ -127,6 +148,10 @@ public class ModsController implements Initializable {
      * 設置模組表格視圖
      */
     private void setupModsTableView() {
+        // 圖示列 (延遲載入，儲存格被重用時取消未完成的請求)
+        modIconColumn.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue()));
+        modIconColumn.setCellFactory(column -> new ModIconCell());
+        
         // 啟用狀態列
         modEnabledColumn.setCellValueFactory(cellData -> 
             new SimpleBooleanProperty(cellData.getValue().isEnabled())
@@ -164,6 +189,7 @@ public class ModsController implements Initializable {
         enableAllButton.setOnAction(e -> handleEnableAll());
         disableAllButton.setOnAction(e -> handleDisableAll());
         refreshButton.setOnAction(e -> handleRefresh());
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> applySearch(newValue));
         
         enableModButton.setOnAction(e -> handleEnableMod());
         disableModButton.setOnAction(e -> handleDisableMod());
@@ -172,6 +198,12 @@ public class ModsController implements Initializable {
         
         applyButton.setOnAction(e -> handleApply());
         closeButton.setOnAction(e -> handleClose());
+        
+        // 拖放匯入：接受多個 JAR、資料夾或 ZIP
+        modsTableView.setOnDragOver(this::handleDragOver);
+        modsTableView.setOnDragDropped(this::handleDragDropped);
+        slotsListView.setOnDragOver(this::handleDragOver);
+        slotsListView.setOnDragDropped(this::handleDragDropped);
     }
     
     /**
@@ -179,7 +211,30 @@ public class ModsController implements Initializable {
      */
     public void setModManager(ModManager modManager) {
         this.modManager = modManager;
-        loadModSlots();
+        CompletableFuture<Void> initialization = modManager.initialize();
+        if (initialization.isDone()) {
+            loadModSlots();
+            return;
+        }
+        
+        // 第一次開啟時模組仍在背景掃描，先顯示提示，掃描完成後才載入插槽
+        slotsListView.setPlaceholder(new Label("正在掃描模組..."));
+        addModButton.setDisable(true);
+        refreshButton.setDisable(true);
+        initialization.whenComplete((ignored, error) -> Platform.runLater(() -> {
+            slotsListView.setPlaceholder(null);
+            addModButton.setDisable(false);
+            refreshButton.setDisable(false);
+            loadModSlots();
+        }));
+    }
+    
+    /**
+     * 設置縮圖服務 (未設置時不顯示模組圖示)
+     */
+    public void setThumbnailService(ThumbnailService thumbnailService) {
+        this.thumbnailService = thumbnailService;
+        modsTableView.refresh();
     }
     
     /**
@@ -229,6 +284,26 @@ public class ModsController implements Initializable {
         modsPane.setText("插槽中的模組 (" + slot.getModCount() + ")");
     }
     
+    /**
+     * 即時搜尋所有插槽中的模組 (輸入時逐字更新)
+     */
+    private void applySearch(String query) {
+        if (modManager == null) return;
+        
+        if (query == null || query.isBlank()) {
+            updateSlotDetails(slotsListView.getSelectionModel().getSelectedItem());
+            return;
+        }
+        
+        List<ModInfo> results = modManager.getSearchIndex().search(query, SEARCH_RESULT_LIMIT);
+        modsList.setAll(results);
+        modsPane.setText("搜尋結果 (" + results.size() + ")");
+    }
+    
+    private boolean isSearching() {
+        return searchField != null && searchField.getText() != null && !searchField.getText().isBlank();
+    }
+    
     /**
      * 清空插槽詳細信息
      */
@@ -272,23 +347,129 @@ public class ModsController implements Initializable {
      */
     @FXML
     private void handleAddMod() {
-        ModSlot selectedSlot = slotsListView.getSelectionModel().getSelectedItem();
-        if (selectedSlot == null) {
-            showAlert("請先選擇一個插槽", Alert.AlertType.WARNING);
-            return;
-        }
-        
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("選擇模組文件");
-        fileChooser.getExtensionFilters().add(
-            new FileChooser.ExtensionFilter("Minecraft 模組", "*.jar")
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Minecraft 模組", "*.jar", "*.zip"),
+            new FileChooser.ExtensionFilter("Minecraft 模組 (JAR)", "*.jar"),
+            new FileChooser.ExtensionFilter("模組壓縮包 (ZIP)", "*.zip")
         );
         
         List<File> selectedFiles = fileChooser.showOpenMultipleDialog(dialogStage);
         if (selectedFiles != null && !selectedFiles.isEmpty()) {
-            for (File file : selectedFiles) {
-                addModToSlot(selectedSlot, file.toPath());
+            importMods(selectedFiles.stream().map(File::toPath).collect(Collectors.toList()));
+        }
+    }
+    
+    private void handleDragOver(DragEvent event) {
+        if (event.getDragboard().hasFiles() && modManager != null) {
+            event.acceptTransferModes(TransferMode.COPY);
+        }
+        event.consume();
+    }
+    
+    private void handleDragDropped(DragEvent event) {
+        Dragboard dragboard = event.getDragboard();
+        boolean accepted = dragboard.hasFiles() && modManager != null;
+        if (accepted) {
+            importMods(dragboard.getFiles().stream().map(File::toPath).collect(Collectors.toList()));
+        }
+        event.setDropCompleted(accepted);
+        event.consume();
+    }
+    
+    /**
+     * 批量匯入模組
+     * 並行分析後顯示匯入計劃，確認後以單一交易提交；無法自動分類的模組放入目前選中的插槽
+     */
+    private void importMods(List<Path> sources) {
+        ModSlot selectedSlot = slotsListView.getSelectionModel().getSelectedItem();
+        String fallbackSlotId = selectedSlot != null ? selectedSlot.getId() : null;
+        ModImporter importer = modManager.getImporter();
+        
+        statusLabel.setText("正在分析模組...");
+        importer.analyze(sources, fallbackSlotId, progress ->
+            javafx.application.Platform.runLater(() ->
+                statusLabel.setText(String.format("正在分析模組... %.0f%%", progress * 100)))
+        ).whenComplete((plan, error) -> javafx.application.Platform.runLater(() -> {
+            if (error != null) {
+                statusLabel.setText("模組分析失敗");
+                showAlert("分析模組失敗: " + error.getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
+            confirmImport(importer, plan);
+        }));
+    }
+    
+    private void confirmImport(ModImporter importer, ModImporter.ImportPlan plan) {
+        List<ModImporter.ImportItem> added = plan.getItems(ModImporter.Action.ADD);
+        List<ModImporter.ImportItem> upgrades = plan.getItems(ModImporter.Action.UPGRADE);
+        List<ModImporter.ImportItem> downgrades = plan.getItems(ModImporter.Action.DOWNGRADE);
+        
+        if (added.isEmpty() && upgrades.isEmpty() && downgrades.isEmpty()) {
+            plan.close();
+            statusLabel.setText("沒有可匯入的模組");
+            showAlert("沒有可匯入的模組 (" + plan.getSummary() + ")", Alert.AlertType.INFORMATION);
+            return;
+        }
+        
+        StringBuilder content = new StringBuilder();
+        content.append("匯入計劃: ").append(plan.getSummary()).append("\n");
+        if (!upgrades.isEmpty()) {
+            content.append("\n可升級的模組:\n");
+            for (ModImporter.ImportItem item : upgrades) {
+                content.append("  ").append(item.getMod().getDisplayName()).append(": ")
+                       .append(item.getExisting().getVersion()).append(" → ")
+                       .append(item.getMod().getVersion()).append("\n");
+            }
+        }
+        if (!downgrades.isEmpty()) {
+            content.append("\n較舊的版本將被略過: ").append(downgrades.size()).append(" 個\n");
+        }
+        
+        ButtonType importAndReplace = new ButtonType("匯入並替換舊版", ButtonBar.ButtonData.OK_DONE);
+        ButtonType importOnly = new ButtonType("僅匯入新模組", ButtonBar.ButtonData.OTHER);
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("批量匯入");
+        alert.setHeaderText("共 " + (added.size() + upgrades.size()) + " 個模組可匯入");
+        alert.setContentText(content.toString());
+        alert.getButtonTypes().setAll(
+            upgrades.isEmpty() ? List.of(ButtonType.OK, ButtonType.CANCEL)
+                               : List.of(importAndReplace, importOnly, ButtonType.CANCEL));
+        
+        ButtonType result = alert.showAndWait().orElse(ButtonType.CANCEL);
+        if (result == ButtonType.CANCEL) {
+            plan.close();
+            statusLabel.setText("已取消匯入");
+            return;
+        }
+        plan.setReplaceExisting(result == importAndReplace);
+        
+        statusLabel.setText("正在匯入模組...");
+        importer.commit(plan).whenComplete((importResult, error) -> javafx.application.Platform.runLater(() -> {
+            if (error != null) {
+                // 非預期的錯誤 (文件操作已回滾)，重新載入以顯示實際狀態
+                statusLabel.setText("匯入失敗");
+                showAlert("匯入模組時發生錯誤: " + error.getMessage(), Alert.AlertType.ERROR);
+                loadModSlots();
+                return;
+            }
+            if (importResult.isSuccess()) {
+                // 被替換的文件可能沿用相同檔名，舊的圖示不能再從快取命中
+                upgrades.forEach(item -> invalidateThumbnail(item.getExisting().getFileName()));
+                statusLabel.setText(String.format("匯入完成: 新增 %d, 替換 %d, 略過 %d",
+                        importResult.getAdded(), importResult.getReplaced(), importResult.getSkipped()));
+                loadModSlots();
+            } else {
+                statusLabel.setText("匯入失敗，已還原");
+                showAlert("匯入失敗，所有變更已還原: " + importResult.getError(), Alert.AlertType.ERROR);
             }
+        }));
+    }
+    
+    private void invalidateThumbnail(String fileName) {
+        if (thumbnailService != null && modManager != null) {
+            thumbnailService.invalidate(modManager.getModsDirectory().resolve(fileName));
         }
     }
     
@@ -353,6 +534,8 @@ public class ModsController implements Initializable {
      */
     @FXML
     private void handleRefresh() {
+        // 重新讀取 mod-slots.json，用戶手動編輯的分類規則立即生效
+        modManager.reloadSlotRules();
         loadModSlots();
         statusLabel.setText("已重新整理模組列表");
     }
@@ -391,7 +574,10 @@ public class ModsController implements Initializable {
     @FXML
     private void handleRemoveFromSlot() {
         ModInfo selectedMod = modsTableView.getSelectionModel().getSelectedItem();
-        ModSlot selectedSlot = slotsListView.getSelectionModel().getSelectedItem();
+        // 搜尋結果可能來自其他插槽，因此以註冊表查詢模組實際所在的插槽
+        ModSlot selectedSlot = selectedMod != null
+                ? modManager.getRegistry().findSlotOf(selectedMod.getFileName())
+                : null;
         
         if (selectedMod != null && selectedSlot != null) {
             Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
@@ -402,6 +588,7 @@ public class ModsController implements Initializable {
             if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
                 boolean success = modManager.removeModFromSlot(selectedSlot.getId(), selectedMod.getFileName());
                 if (success) {
+                    invalidateThumbnail(selectedMod.getFileName());
                     refreshCurrentSlot();
                     statusLabel.setText("已移除模組: " + selectedMod.getName());
                 } else {
@@ -461,6 +648,13 @@ public class ModsController implements Initializable {
      * 重新整理當前選中的插槽
      */
     private void refreshCurrentSlot() {
+        if (isSearching()) {
+            applySearch(searchField.getText());
+            slotsListView.refresh();
+            updateModCount();
+            return;
+        }
+        
         ModSlot selectedSlot = slotsListView.getSelectionModel().getSelectedItem();
         if (selectedSlot != null) {
             updateSlotDetails(selectedSlot);
@@ -479,4 +673,40 @@ public class ModsController implements Initializable {
         alert.setContentText(message);
         alert.showAndWait();
     }
+    
+    /**
+     * 模組圖示儲存格
+     */
+    private class ModIconCell extends TableCell<ModInfo, ModInfo> {
+        
+        private final ImageView imageView = new ImageView();
+        private ThumbnailService.ThumbnailRequest pendingRequest;
+        
+        ModIconCell() {
+            imageView.setFitWidth(ThumbnailService.Size.SMALL.getPixels());
+            imageView.setFitHeight(ThumbnailService.Size.SMALL.getPixels());
+            imageView.setPreserveRatio(true);
+        }
+        
+        @Override
+        protected void updateItem(ModInfo mod, boolean empty) {
+            super.updateItem(mod, empty);
+            
+            // 儲存格被重用或捲出畫面，取消上一個請求
+            if (pendingRequest != null) {
+                pendingRequest.cancel();
+                pendingRequest = null;
+            }
+            imageView.setImage(null);
+            
+            if (empty || mod == null || thumbnailService == null || modManager == null) {
+                setGraphic(null);
+                return;
+            }
+            
+            setGraphic(imageView);
+            Path jarFile = modManager.getModsDirectory().resolve(mod.getFileName());
+            pendingRequest = thumbnailService.requestModLogo(jarFile, ThumbnailService.Size.SMALL, imageView::setImage);
+        }
+    }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.mcserver.launcher.ui;
 
 import com.mcserver.launcher.config.LauncherConfig;
+import com.mcserver.launcher.github.ModSyncManager;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -12,8 +14,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BooleanSupplier;
 
 /**
  * 設定對話框控制器
@@ -39,6 +46,7 @@ public class SettingsController implements Initializable {
     @FXML private CheckBox checkUpdatesCheckBox;
     @FXML private CheckBox autoLoadModsCheckBox;
     @FXML private TextField githubRepoField;
+    @FXML private Button rollbackModsButton;
     
     // 按鈕
     @FXML private Button resetButton;
@@ -46,6 +54,8 @@ public class SettingsController implements Initializable {
     @FXML private Button saveButton;
     
     private LauncherConfig config;
+    private ModSyncManager modSyncManager;
+    private BooleanSupplier gameRunning = () -> false;
     private Stage dialogStage;
     private boolean okClicked = false;
     
@@ -56,6 +66,7 @@ public class SettingsController implements Initializable {
         setupSpinners();
         setupComboBoxes();
         setupEventHandlers();
+        rollbackModsButton.setDisable(true);
     }
     
     /**
@@ -87,6 +98,7 @@ public class SettingsController implements Initializable {
         resetButton.setOnAction(e -> handleReset());
         cancelButton.setOnAction(e -> handleCancel());
         saveButton.setOnAction(e -> handleSave());
+        rollbackModsButton.setOnAction(e -> handleRollbackMods());
     }
     
     /**
@@ -97,6 +109,21 @@ public class SettingsController implements Initializable {
         loadConfigValues();
     }
     
+    /**
+     * 設置模組同步管理器 (用於還原上一版模組)
+     */
+    public void setModSyncManager(ModSyncManager modSyncManager) {
+        this.modSyncManager = modSyncManager;
+        rollbackModsButton.setDisable(modSyncManager == null || !modSyncManager.canRollback());
+    }
+    
+    /**
+     * 設置遊戲運行狀態 (遊戲運行時模組文件正在使用，不能還原)
+     */
+    public void setGameRunning(BooleanSupplier gameRunning) {
+        this.gameRunning = gameRunning;
+    }
+    
     /**
      * 設置對話框舞台
      */
@@ -208,6 +235,59 @@ public class SettingsController implements Initializable {
         githubRepoField.setText("ken-aa-cpu/minecraft-launcher");
     }
     
+    /**
+     * 還原到上次同步前的模組與資源包
+     */
+    private void handleRollbackMods() {
+        if (gameRunning.getAsBoolean()) {
+            Alert running = new Alert(Alert.AlertType.WARNING);
+            running.setTitle("還原模組");
+            running.setHeaderText(null);
+            running.setContentText("遊戲正在運行中，請先關閉遊戲再還原模組");
+            running.showAndWait();
+            return;
+        }
+        
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("還原模組");
+        alert.setHeaderText("還原上一版模組");
+        alert.setContentText("將模組與資源包還原到上次同步前的版本，下次同步時會再次更新。確定要還原嗎？");
+        
+        if (alert.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+            return;
+        }
+        // 還原需等待進行中的同步結束並搬移文件，不能在 UI 線程上執行
+        rollbackModsButton.setDisable(true);
+        CompletableFuture.runAsync(() -> {
+            try {
+                modSyncManager.rollback();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((ignored, error) -> Platform.runLater(() -> {
+            rollbackModsButton.setDisable(!modSyncManager.canRollback());
+            if (error == null) {
+                Alert done = new Alert(Alert.AlertType.INFORMATION);
+                done.setTitle("還原模組");
+                done.setHeaderText(null);
+                done.setContentText("已還原上一版模組");
+                done.showAndWait();
+                return;
+            }
+            Throwable cause = error;
+            while ((cause instanceof CompletionException || cause instanceof UncheckedIOException)
+                    && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            logger.error("還原模組失敗", cause);
+            Alert failed = new Alert(Alert.AlertType.ERROR);
+            failed.setTitle("還原模組");
+            failed.setHeaderText("還原失敗");
+            failed.setContentText(cause.getMessage());
+            failed.showAndWait();
+        }));
+    }
+    
     /**
      * 取消設定
      */
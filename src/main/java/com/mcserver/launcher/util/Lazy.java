@@ -0,0 +1,51 @@
+package com.mcserver.launcher.util;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 延遲初始化的值
+ * 第一次調用 {@link #get()} 時才建立實例，之後返回同一實例；多個線程同時調用時只會建立一次。
+ */
+public final class Lazy<T> implements Supplier<T> {
+    
+    private final Supplier<T> factory;
+    private volatile T value;
+    
+    private Lazy(Supplier<T> factory) {
+        this.factory = factory;
+    }
+    
+    public static <T> Lazy<T> of(Supplier<T> factory) {
+        return new Lazy<>(factory);
+    }
+    
+    @Override
+    public T get() {
+        T result = value;
+        if (result == null) {
+            synchronized (this) {
+                result = value;
+                if (result == null) {
+                    result = factory.get();
+                    value = result;
+                }
+            }
+        }
+        return result;
+    }
+    
+    public boolean isInitialized() {
+        return value != null;
+    }
+    
+    /**
+     * 已建立時才執行 (例如關閉資源)，不會因此觸發初始化
+     */
+    public void ifInitialized(Consumer<T> action) {
+        T result = value;
+        if (result != null) {
+            action.accept(result);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.mcserver.launcher.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 啟動任務排程
+ * 啟動任務以依賴關係宣告 (依賴必須先宣告，因此不會形成循環)，依賴都完成後立即執行，互不依賴的任務並行執行。
+ * 需要操作界面的任務在 UI 執行器上執行，其餘在背景線程執行。
+ * 任務失敗時只略過依賴它的任務，其他分支照常進行；每個任務記錄開始時間與耗時 (相對於視窗建立)，
+ * 用於量測啟動器從開啟到可操作所需的時間。
+ */
+public class StartupOrchestrator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StartupOrchestrator.class);
+    
+    private static final int MAX_THREADS = 4;
+    
+    /**
+     * 任務結果
+     */
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED, SKIPPED, CANCELLED
+    }
+    
+    private final long originNanos;
+    private final Executor uiExecutor;
+    private final ExecutorService executor;
+    // 按宣告順序排列
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+    private volatile boolean cancelled;
+    private boolean started;
+    
+    /**
+     * @param originNanos 計時起點 ({@link System#nanoTime()})，例如視窗開始建立的時間
+     * @param uiExecutor 界面任務的執行器 (例如 Platform::runLater)
+     */
+    public StartupOrchestrator(long originNanos, Executor uiExecutor) {
+        this.originNanos = originNanos;
+        this.uiExecutor = uiExecutor;
+        AtomicInteger counter = new AtomicInteger();
+        int threads = Math.max(2, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "startup-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * 在背景線程執行的任務
+     */
+    public StartupOrchestrator task(String name, Runnable action, String... dependsOn) {
+        return add(name, false, wrap(action), dependsOn);
+    }
+    
+    /**
+     * 在 UI 執行器上執行的任務
+     */
+    public StartupOrchestrator uiTask(String name, Runnable action, String... dependsOn) {
+        return add(name, true, wrap(action), dependsOn);
+    }
+    
+    /**
+     * 在背景線程開始的非同步任務，返回的 future 完成時任務才算完成
+     */
+    public StartupOrchestrator asyncTask(String name, Supplier<? extends CompletionStage<?>> action, String... dependsOn) {
+        return add(name, false, action, dependsOn);
+    }
+    
+    private synchronized StartupOrchestrator add(String name, boolean ui, Supplier<? extends CompletionStage<?>> action,
+                                                 String... dependsOn) {
+        if (started) {
+            throw new IllegalStateException("啟動任務已開始執行，不能再加入任務: " + name);
+        }
+        if (tasks.containsKey(name)) {
+            throw new IllegalArgumentException("重複的啟動任務: " + name);
+        }
+        List<Task> dependencies = new ArrayList<>();
+        for (String dependency : dependsOn) {
+            Task task = tasks.get(dependency);
+            if (task == null) {
+                throw new IllegalArgumentException("啟動任務 " + name + " 依賴未宣告的任務: " + dependency);
+            }
+            dependencies.add(task);
+        }
+        tasks.put(name, new Task(name, ui, action, dependencies));
+        return this;
+    }
+    
+    /**
+     * 開始執行所有任務
+     * @return 所有任務結束 (無論成功與否) 時完成
+     */
+    public synchronized CompletableFuture<Void> start() {
+        if (started) {
+            throw new IllegalStateException("啟動任務已開始執行");
+        }
+        started = true;
+        for (Task task : tasks.values()) {
+            CompletableFuture<?>[] dependencies = task.dependencies.stream()
+                    .map(dependency -> dependency.future)
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(dependencies).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    task.finish(Status.SKIPPED, error);
+                } else {
+                    schedule(task);
+                }
+            });
+        }
+        CompletableFuture<?>[] all = tasks.values().stream().map(task -> task.future).toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(all)
+                .handle((ignored, error) -> null)
+                .thenRun(() -> {
+                    executor.shutdown();
+                    logger.info("啟動任務完成 ({} ms):\n{}", elapsedMillis(), summary());
+                });
+    }
+    
+    /**
+     * 取消尚未開始的任務，執行中的背景任務會被中斷
+     */
+    public void cancel() {
+        cancelled = true;
+        executor.shutdownNow();
+        for (Task task : tasks.values()) {
+            if (task.getStatus() == Status.PENDING) {
+                task.finish(Status.CANCELLED, new CancellationException("啟動已取消"));
+            }
+        }
+    }
+    
+    /**
+     * 自計時起點經過的毫秒數
+     */
+    public long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - originNanos);
+    }
+    
+    /**
+     * 各任務的計時，按開始時間排序
+     */
+    public List<TaskTiming> getTimings() {
+        List<TaskTiming> timings = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            timings.add(task.timing());
+        }
+        // 未執行的任務排在最後
+        timings.sort(Comparator.comparingLong(timing -> timing.getStartMillis() < 0 ? Long.MAX_VALUE : timing.getStartMillis()));
+        return timings;
+    }
+    
+    /**
+     * 多行摘要，例如 "  auth-load            +120 ms     35 ms  startup-2"
+     */
+    public String summary() {
+        StringJoiner joiner = new StringJoiner("\n");
+        for (TaskTiming timing : getTimings()) {
+            if (timing.getStatus() == Status.COMPLETED) {
+                joiner.add(String.format("  %-20s +%5d ms  %5d ms  %s", timing.getName(), timing.getStartMillis(),
+                        timing.getDurationMillis(), timing.getThread()));
+            } else {
+                joiner.add(String.format("  %-20s %s", timing.getName(), timing.getStatus()));
+            }
+        }
+        return joiner.toString();
+    }
+    
+    private void schedule(Task task) {
+        if (cancelled) {
+            task.finish(Status.CANCELLED, new CancellationException("啟動已取消"));
+            return;
+        }
+        try {
+            (task.ui ? uiExecutor : executor).execute(task::run);
+        } catch (RejectedExecutionException e) {
+            task.finish(Status.CANCELLED, e);
+        }
+    }
+    
+    private static Supplier<CompletionStage<?>> wrap(Runnable action) {
+        return () -> {
+            action.run();
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+    
+    private final class Task {
+        private final String name;
+        private final boolean ui;
+        private final Supplier<? extends CompletionStage<?>> action;
+        private final List<Task> dependencies;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private volatile Status status = Status.PENDING;
+        private volatile long startNanos;
+        private volatile long endNanos;
+        private volatile String thread;
+        
+        Task(String name, boolean ui, Supplier<? extends CompletionStage<?>> action, List<Task> dependencies) {
+            this.name = name;
+            this.ui = ui;
+            this.action = action;
+            this.dependencies = dependencies;
+        }
+        
+        Status getStatus() {
+            return status;
+        }
+        
+        void run() {
+            synchronized (this) {
+                if (status != Status.PENDING) {
+                    return;
+                }
+                status = Status.RUNNING;
+            }
+            startNanos = System.nanoTime();
+            thread = Thread.currentThread().getName();
+            try {
+                action.get().whenComplete((ignored, error) -> finish(error == null ? Status.COMPLETED : failure(), error));
+            } catch (Throwable e) {
+                finish(failure(), e);
+            }
+        }
+        
+        // 取消時被中斷的任務記為取消而非失敗
+        private Status failure() {
+            return cancelled ? Status.CANCELLED : Status.FAILED;
+        }
+        
+        void finish(Status result, Throwable error) {
+            synchronized (this) {
+                if (status == Status.COMPLETED || status == Status.FAILED
+                        || status == Status.SKIPPED || status == Status.CANCELLED) {
+                    return;
+                }
+                status = result;
+            }
+            endNanos = System.nanoTime();
+            if (result == Status.COMPLETED) {
+                logger.debug("啟動任務 {} 完成 ({} ms)", name, TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos));
+                future.complete(null);
+                return;
+            }
+            if (result == Status.FAILED) {
+                logger.warn("啟動任務 {} 失敗: {}", name, error != null ? error.getMessage() : null);
+                logger.debug("啟動任務 {} 失敗", name, error);
+            } else {
+                logger.debug("啟動任務 {}: {}", name, result);
+            }
+            future.completeExceptionally(error != null ? error : new CancellationException(name));
+        }
+        
+        TaskTiming timing() {
+            long start = startNanos != 0 ? TimeUnit.NANOSECONDS.toMillis(startNanos - originNanos) : -1;
+            long duration = startNanos != 0 && endNanos != 0 ? TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos) : -1;
+            return new TaskTiming(name, status, start, duration, thread);
+        }
+    }
+    
+    /**
+     * 單個任務的計時 (時間相對於計時起點，未執行時為 -1)
+     */
+    public static final class TaskTiming {
+        private final String name;
+        private final Status status;
+        private final long startMillis;
+        private final long durationMillis;
+        private final String thread;
+        
+        private TaskTiming(String name, Status status, long startMillis, long durationMillis, String thread) {
+            this.name = name;
+            this.status = status;
+            this.startMillis = startMillis;
+            this.durationMillis = durationMillis;
+            this.thread = thread;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public Status getStatus() {
+            return status;
+        }
+        
+        public long getStartMillis() {
+            return startMillis;
+        }
+        
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+        
+        public long getEndMillis() {
+            return startMillis >= 0 && durationMillis >= 0 ? startMillis + durationMillis : -1;
+        }
+        
+        public String getThread() {
+            return thread;
+        }
+    }
+}
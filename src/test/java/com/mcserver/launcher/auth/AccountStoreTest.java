@@ -0,0 +1,105 @@
+package com.mcserver.launcher.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 金鑰遺失或損毀時，無法解密的帳號必須原樣保留，且不能以新金鑰覆蓋
+ */
+class AccountStoreTest {
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void roundTripsAccounts() throws IOException {
+        AccountStore store = new AccountStore(dir);
+        store.put(tokens("Steve", "uuid-steve"));
+        store.put(tokens("Alex", "uuid-alex"));
+        
+        AccountStore reloaded = new AccountStore(dir);
+        reloaded.load();
+        assertEquals(2, reloaded.getAccounts().size());
+        assertEquals("uuid-steve", reloaded.getActiveId());
+        assertEquals("Alex", reloaded.get("uuid-alex").getProfile().getUsername());
+        assertFalse(Files.readString(dir.resolve("accounts.json")).contains("access-uuid-steve"));
+    }
+    
+    @Test
+    void keepsUndecryptableAccountsWhenKeyIsMissing() throws IOException {
+        AccountStore store = new AccountStore(dir);
+        store.put(tokens("Steve", "uuid-steve"));
+        String original = Files.readString(dir.resolve("accounts.json"));
+        Path keyFile = dir.resolve("accounts.key");
+        Path keyBackup = Files.move(keyFile, dir.resolve("accounts.key.bak"));
+        
+        AccountStore locked = new AccountStore(dir);
+        locked.load();
+        assertTrue(locked.isEmpty());
+        
+        // 不產生新金鑰，新帳號無法保存，原有條目不變
+        assertThrows(IOException.class, () -> locked.put(tokens("Alex", "uuid-alex")));
+        assertFalse(Files.exists(keyFile));
+        assertEquals(original, Files.readString(dir.resolve("accounts.json")));
+        
+        // 恢復金鑰後帳號可再次使用
+        Files.move(keyBackup, keyFile);
+        AccountStore restored = new AccountStore(dir);
+        restored.load();
+        assertEquals("Steve", restored.getActive().getProfile().getUsername());
+    }
+    
+    @Test
+    void writesUndecryptableEntriesBackUnchanged() throws IOException {
+        AccountStore store = new AccountStore(dir);
+        store.put(tokens("Steve", "uuid-steve"));
+        store.put(tokens("Alex", "uuid-alex"));
+        
+        // 竄改其中一個條目，使其無法解密
+        Path file = dir.resolve("accounts.json");
+        String tampered = Files.readString(file).replace("\"uuid\" : \"uuid-alex\"", "\"uuid\" : \"uuid-alex2\"");
+        assertNotEquals(tampered, Files.readString(file));
+        Files.writeString(file, tampered);
+        
+        AccountStore reloaded = new AccountStore(dir);
+        reloaded.load();
+        assertEquals(1, reloaded.getAccounts().size());
+        reloaded.put(tokens("Herobrine", "uuid-herobrine"));
+        
+        String saved = Files.readString(file);
+        assertTrue(saved.contains("\"uuid-alex2\""));
+        assertTrue(saved.contains("\"Alex\""));
+        
+        // 登出無法解密的帳號時才從文件中移除
+        reloaded.remove("uuid-alex2");
+        assertFalse(Files.readString(file).contains("uuid-alex2"));
+    }
+    
+    @Test
+    void doesNotOverwriteCorruptKey() throws IOException {
+        AccountStore store = new AccountStore(dir);
+        store.put(tokens("Steve", "uuid-steve"));
+        Path keyFile = dir.resolve("accounts.key");
+        Files.writeString(keyFile, "not a key");
+        
+        AccountStore corrupt = new AccountStore(dir);
+        corrupt.load();
+        assertTrue(corrupt.isEmpty());
+        assertThrows(IOException.class, () -> corrupt.put(tokens("Alex", "uuid-alex")));
+        assertEquals("not a key", Files.readString(keyFile));
+    }
+    
+    private static AuthTokens tokens(String username, String uuid) {
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        return new AuthTokens("refresh-" + uuid, null, null, null, "hash",
+                new UserProfile(username, uuid, "access-" + uuid, "refresh-" + uuid, expiresAt));
+    }
+}
@@ -0,0 +1,180 @@
+package com.mcserver.launcher.auth;
+
+import com.mcserver.launcher.config.LauncherConfig;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 以本地樁服務驗證認證請求的重試、重試預算、Retry-After 與 Device Code 輪詢的 slow_down
+ */
+class AuthHttpClientTest {
+    
+    @TempDir
+    Path dir;
+    
+    private HttpServer server;
+    private AuthEndpoints endpoints;
+    // 依序返回的回應，用完後重複最後一個
+    private final Deque<StubResponse> script = new ArrayDeque<>();
+    private final List<Long> requestTimes = new ArrayList<>();
+    private String originalHome;
+    
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            StubResponse response;
+            synchronized (script) {
+                requestTimes.add(System.nanoTime());
+                response = script.size() > 1 ? script.poll() : script.peek();
+            }
+            byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getRequestBody().readAllBytes();
+            if (response.retryAfter != null) {
+                exchange.getResponseHeaders().add("Retry-After", response.retryAfter);
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(response.status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        endpoints = AuthEndpoints.defaults().rebase("http://127.0.0.1:" + server.getAddress().getPort());
+        
+        // 避免讀寫真實用戶目錄中的配置
+        originalHome = System.getProperty("user.home");
+        System.setProperty("user.home", dir.toString());
+    }
+    
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        System.setProperty("user.home", originalHome);
+    }
+    
+    @Test
+    void retriesServerErrors() throws IOException {
+        respond(500, "0", "{}");
+        respond(502, "0", "{}");
+        respond(200, null, "{\"ok\": true}");
+        
+        try (AuthHttpClient client = new AuthHttpClient(1)) {
+            AuthHttpClient.Response response = client.execute(AuthHttpClient.Hop.XBOX_LIVE,
+                    new HttpPost(endpoints.getXboxAuthUrl()));
+            assertEquals(200, response.getStatus());
+            assertEquals("{\"ok\": true}", response.getBody());
+            assertEquals(3, requestCount());
+            assertEquals(2, client.getStats().get(AuthHttpClient.Hop.XBOX_LIVE).getRetries());
+        }
+    }
+    
+    @Test
+    void returnsClientErrorsWithoutRetry() throws IOException {
+        respond(400, null, "{\"error\": \"invalid_grant\"}");
+        
+        try (AuthHttpClient client = new AuthHttpClient(1)) {
+            AuthHttpClient.Response response = client.execute(AuthHttpClient.Hop.MICROSOFT_TOKEN,
+                    new HttpPost(endpoints.getTokenUrl()));
+            assertEquals(400, response.getStatus());
+            assertEquals(1, requestCount());
+        }
+    }
+    
+    @Test
+    void stopsRetryingWhenBudgetIsExhausted() throws IOException {
+        respond(503, "0", "{}");
+        
+        try (AuthHttpClient client = new AuthHttpClient(1)) {
+            // 每次請求最多嘗試 3 次，前 5 次請求用完每分鐘 10 次的重試預算
+            for (int i = 0; i < 5; i++) {
+                assertEquals(503, client.execute(AuthHttpClient.Hop.XSTS, new HttpPost(endpoints.getXstsUrl())).getStatus());
+            }
+            assertEquals(15, requestCount());
+            
+            assertEquals(503, client.execute(AuthHttpClient.Hop.XSTS, new HttpPost(endpoints.getXstsUrl())).getStatus());
+            assertEquals(16, requestCount());
+            assertEquals(10, client.getStats().get(AuthHttpClient.Hop.XSTS).getRetries());
+        }
+    }
+    
+    @Test
+    void honoursRetryAfter() throws IOException {
+        respond(429, "1", "{}");
+        respond(200, null, "{}");
+        
+        try (AuthHttpClient client = new AuthHttpClient(1)) {
+            assertEquals(200, client.execute(AuthHttpClient.Hop.MINECRAFT_LOGIN,
+                    new HttpPost(endpoints.getMinecraftLoginUrl())).getStatus());
+            assertEquals(2, requestCount());
+            assertTrue(gapMillis(0) >= 900, "Retry-After 未被遵守: " + gapMillis(0) + " ms");
+        }
+    }
+    
+    @Test
+    void slowDownIncreasesPollInterval() throws Exception {
+        respond(400, null, "{\"error\": \"authorization_pending\"}");
+        respond(400, null, "{\"error\": \"slow_down\"}");
+        respond(200, null, "{\"access_token\": \"access\", \"refresh_token\": \"refresh\", \"expires_in\": 3600}");
+        
+        LauncherConfig config = new LauncherConfig();
+        config.setLauncherDirectory(dir.resolve("launcher").toString());
+        MicrosoftAuthenticator authenticator = new MicrosoftAuthenticator(config, endpoints);
+        
+        MicrosoftAuthenticator.TokenResponse token = authenticator.pollForToken(
+                new MicrosoftAuthenticator.DeviceCodeResponse("device", "USER", "https://example.com", 60, 0));
+        assertEquals("access", token.accessToken);
+        assertEquals("refresh", token.refreshToken);
+        assertEquals(3, requestCount());
+        // authorization_pending 不改變間隔；slow_down 之後的輪詢間隔增加 5 秒
+        assertTrue(gapMillis(0) < 4000, "authorization_pending 不應增加間隔: " + gapMillis(0) + " ms");
+        assertTrue(gapMillis(1) >= 4900, "slow_down 後間隔未增加: " + gapMillis(1) + " ms");
+    }
+    
+    private void respond(int status, String retryAfter, String body) {
+        synchronized (script) {
+            script.add(new StubResponse(status, retryAfter, body));
+        }
+    }
+    
+    private int requestCount() {
+        synchronized (script) {
+            return requestTimes.size();
+        }
+    }
+    
+    private long gapMillis(int index) {
+        synchronized (script) {
+            return (requestTimes.get(index + 1) - requestTimes.get(index)) / 1_000_000;
+        }
+    }
+    
+    private static final class StubResponse {
+        final int status;
+        final String retryAfter;
+        final String body;
+        
+        StubResponse(int status, String retryAfter, String body) {
+            this.status = status;
+            this.retryAfter = retryAfter;
+            this.body = body;
+        }
+    }
+}
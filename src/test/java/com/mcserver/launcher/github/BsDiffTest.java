@@ -0,0 +1,108 @@
+package com.mcserver.launcher.github;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BsDiffTest {
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void patchReproducesNewFile() throws IOException {
+        byte[] oldData = randomBytes(1, 200_000);
+        byte[] newData = Arrays.copyOf(oldData, oldData.length + 5000);
+        // 修改、插入與附加資料
+        System.arraycopy(randomBytes(2, 300), 0, newData, 50_000, 300);
+        System.arraycopy(oldData, 100_000, newData, 100_700, oldData.length - 100_000);
+        System.arraycopy(randomBytes(3, 700), 0, newData, 100_000, 700);
+        
+        assertArrayEquals(newData, roundTrip(oldData, newData));
+    }
+    
+    @Test
+    void patchFromEmptyOldFile() throws IOException {
+        byte[] newData = "new file".repeat(100).getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(newData, roundTrip(new byte[0], newData));
+    }
+    
+    @Test
+    void rejectsTruncatedPatch() throws IOException {
+        Path oldFile = write("old", randomBytes(4, 1000));
+        Path patch = write("patch", Arrays.copyOf(diff(randomBytes(4, 1000), randomBytes(5, 1000)), 20));
+        
+        assertThrows(IOException.class, () -> BsDiff.patch(oldFile, patch, new ByteArrayOutputStream()));
+    }
+    
+    @Test
+    void rejectsWrongMagic() throws IOException {
+        byte[] oldData = randomBytes(6, 1000);
+        byte[] patchData = diff(oldData, randomBytes(7, 1000));
+        patchData[0] = 'X';
+        Path oldFile = write("old", oldData);
+        Path patch = write("patch", patchData);
+        
+        assertThrows(IOException.class, () -> BsDiff.patch(oldFile, patch, new ByteArrayOutputStream()));
+    }
+    
+    @Test
+    void rejectsSectionLengthsBeyondFile() throws IOException {
+        byte[] oldData = randomBytes(8, 1000);
+        byte[] patchData = diff(oldData, randomBytes(9, 1000));
+        // 控制區段長度 (偏移 8) 超出文件
+        patchData[14] = 0x7F;
+        Path oldFile = write("old", oldData);
+        Path patch = write("patch", patchData);
+        
+        assertThrows(IOException.class, () -> BsDiff.patch(oldFile, patch, new ByteArrayOutputStream()));
+    }
+    
+    @Test
+    void rejectsCorruptSection() throws IOException {
+        byte[] oldData = randomBytes(10, 1000);
+        byte[] patchData = diff(oldData, randomBytes(11, 1000));
+        // 破壞控制區段的 bzip2 標頭
+        patchData[32] = 0;
+        patchData[33] = 0;
+        Path oldFile = write("old", oldData);
+        Path patch = write("patch", patchData);
+        
+        assertThrows(IOException.class, () -> BsDiff.patch(oldFile, patch, new ByteArrayOutputStream()));
+        // 通道已關閉，補丁文件可以刪除 (Windows 上未關閉的通道會阻止刪除)
+        Files.delete(patch);
+    }
+    
+    private byte[] roundTrip(byte[] oldData, byte[] newData) throws IOException {
+        Path oldFile = write("old", oldData);
+        Path patch = write("patch", diff(oldData, newData));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(newData.length, BsDiff.patch(oldFile, patch, out));
+        return out.toByteArray();
+    }
+    
+    private static byte[] diff(byte[] oldData, byte[] newData) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BsDiff.diff(oldData, newData, out);
+        return out.toByteArray();
+    }
+    
+    private Path write(String name, byte[] data) throws IOException {
+        return Files.write(dir.resolve(name), data);
+    }
+    
+    private static byte[] randomBytes(long seed, int length) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
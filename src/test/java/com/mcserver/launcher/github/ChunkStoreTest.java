@@ -0,0 +1,51 @@
+package com.mcserver.launcher.github;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkStoreTest {
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void putVerifiesHash() throws IOException {
+        ChunkStore store = new ChunkStore(dir);
+        byte[] data = "chunk".getBytes(StandardCharsets.UTF_8);
+        String sha256 = sha256(data);
+        
+        store.put(sha256, data);
+        assertTrue(store.contains(sha256));
+        assertArrayEquals(data, Files.readAllBytes(store.pathOf(sha256)));
+        
+        String wrong = sha256("other".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> store.put(wrong, data));
+        assertFalse(store.contains(wrong));
+    }
+    
+    @Test
+    void retainOnlyDeletesUnreferencedChunks() throws IOException {
+        ChunkStore store = new ChunkStore(dir);
+        byte[] kept = "kept".getBytes(StandardCharsets.UTF_8);
+        byte[] stale = "stale".getBytes(StandardCharsets.UTF_8);
+        store.put(sha256(kept), kept);
+        store.put(sha256(stale), stale);
+        
+        store.retainOnly(Set.of(sha256(kept)));
+        assertTrue(store.contains(sha256(kept)));
+        assertFalse(store.contains(sha256(stale)));
+    }
+    
+    private static String sha256(byte[] data) {
+        return HexFormat.of().formatHex(FastCdc.sha256().digest(data));
+    }
+}
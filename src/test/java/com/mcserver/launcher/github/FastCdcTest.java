@@ -0,0 +1,83 @@
+package com.mcserver.launcher.github;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分塊邊界由內容決定：插入資料只影響插入點所在的塊
+ */
+class FastCdcTest {
+    
+    @Test
+    void chunksCoverInputWithinSizeLimits() throws IOException {
+        byte[] data = randomBytes(1, 3 * 1024 * 1024 + 123);
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        List<FastCdc.Chunk> chunks = FastCdc.split(new ByteArrayInputStream(data),
+                (buffer, offset, length, sha256) -> joined.write(buffer, offset, length));
+        
+        assertArrayEquals(data, joined.toByteArray());
+        for (int i = 0; i < chunks.size() - 1; i++) {
+            int size = chunks.get(i).getSize();
+            assertTrue(size >= FastCdc.MIN_SIZE && size <= FastCdc.MAX_SIZE, "塊大小超出範圍: " + size);
+        }
+    }
+    
+    @Test
+    void insertionOnlyChangesNearbyChunks() throws IOException {
+        byte[] original = randomBytes(2, 4 * 1024 * 1024);
+        int insertAt = 2 * 1024 * 1024 + 777;
+        byte[] inserted = randomBytes(3, 1000);
+        byte[] modified = new byte[original.length + inserted.length];
+        System.arraycopy(original, 0, modified, 0, insertAt);
+        System.arraycopy(inserted, 0, modified, insertAt, inserted.length);
+        System.arraycopy(original, insertAt, modified, insertAt + inserted.length, original.length - insertAt);
+        
+        List<FastCdc.Chunk> chunks = FastCdc.split(new ByteArrayInputStream(original), null);
+        List<String> before = hashes(chunks);
+        List<String> after = hashes(FastCdc.split(new ByteArrayInputStream(modified), null));
+        
+        // 插入點之前的塊完全相同
+        int prefix = 0;
+        long offset = 0;
+        while (offset + chunks.get(prefix).getSize() <= insertAt) {
+            offset += chunks.get(prefix).getSize();
+            prefix++;
+        }
+        assertEquals(before.subList(0, prefix), after.subList(0, prefix));
+        
+        // 邊界在插入點之後很快重新對齊，只有少數塊改變
+        int suffix = 0;
+        while (suffix < before.size() && suffix < after.size()
+                && before.get(before.size() - 1 - suffix).equals(after.get(after.size() - 1 - suffix))) {
+            suffix++;
+        }
+        int changed = before.size() - prefix - suffix;
+        assertTrue(changed >= 1 && changed <= 2, "改變的塊數: " + changed);
+        assertTrue(after.size() - prefix - suffix <= 2);
+    }
+    
+    @Test
+    void splitIsDeterministic() throws IOException {
+        byte[] data = randomBytes(4, 1024 * 1024);
+        assertEquals(hashes(FastCdc.split(new ByteArrayInputStream(data), null)),
+                hashes(FastCdc.split(new ByteArrayInputStream(data), null)));
+    }
+    
+    private static List<String> hashes(List<FastCdc.Chunk> chunks) {
+        return chunks.stream().map(FastCdc.Chunk::getSha256).collect(Collectors.toList());
+    }
+    
+    private static byte[] randomBytes(long seed, int length) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,55 @@
+package com.mcserver.launcher.github;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 清單中的路徑與分塊雜湊在解析時驗證，不能逃出同步目錄或分塊倉庫
+ */
+class ModpackManifestTest {
+    
+    private static final URI MANIFEST_URI = URI.create("https://cdn.example.com/pack/modpack-manifest.json");
+    private static final String HASH = "AB" + "0123456789abcdef".repeat(3) + "0123456789abcd";
+    
+    @Test
+    void parsesChunksAndNormalizesHash() throws IOException {
+        ModpackManifest manifest = parse(HASH);
+        
+        String sha256 = manifest.getFiles().get(0).getChunks().get(0).getSha256();
+        assertEquals(HASH.toLowerCase(), sha256);
+        assertEquals("https://cdn.example.com/pack/chunks/ab/" + sha256, manifest.chunkUrl(sha256));
+    }
+    
+    @Test
+    void rejectsInvalidChunkHashes() {
+        assertThrows(IOException.class, () -> parse("a"));
+        assertThrows(IOException.class, () -> parse(""));
+        assertThrows(IOException.class, () -> parse("../x"));
+        assertThrows(IOException.class, () -> parse("../" + HASH.substring(3)));
+        assertThrows(IOException.class, () -> parse(HASH + "0"));
+        assertThrows(IOException.class, () -> parse(HASH.substring(1) + "g"));
+    }
+    
+    @Test
+    void rejectsEscapingPaths() {
+        assertThrows(IOException.class, () -> parseFile("../options.txt"));
+        assertThrows(IOException.class, () -> parseFile("/mods/jei.jar"));
+        assertThrows(IOException.class, () -> parseFile("mods\\jei.jar"));
+    }
+    
+    private static ModpackManifest parse(String chunkHash) throws IOException {
+        return ModpackManifest.parse(new ObjectMapper().readTree("{\"chunkBase\": \"chunks\", \"files\": [{"
+                + "\"path\": \"mods/big.jar\", \"size\": 10, \"sha256\": \"" + HASH + "\","
+                + "\"chunks\": [{\"sha256\": \"" + chunkHash + "\", \"size\": 10}]}]}"), MANIFEST_URI);
+    }
+    
+    private static ModpackManifest parseFile(String path) throws IOException {
+        return ModpackManifest.parse(new ObjectMapper().readTree("{\"files\": [{\"path\": \""
+                + path.replace("\\", "\\\\") + "\", \"size\": 10, \"sha256\": \"" + HASH + "\"}]}"), MANIFEST_URI);
+    }
+}
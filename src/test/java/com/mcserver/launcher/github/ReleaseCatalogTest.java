@@ -0,0 +1,50 @@
+package com.mcserver.launcher.github;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReleaseCatalogTest {
+    
+    private static final List<UpdateManager.GitHubRelease> RELEASES = List.of(
+            release("v1.1.0", false),
+            release("v1.2.0-beta.2", true),
+            release("v1.2.0-dev.5", true),
+            release("v1.0.0", false),
+            release("v1.2.0-beta.10", true));
+    
+    @Test
+    void stableChannelSkipsPrereleases() {
+        assertEquals("v1.1.0", ReleaseCatalog.select(RELEASES, "stable").tagName);
+        assertEquals("v1.1.0", ReleaseCatalog.select(RELEASES, null).tagName);
+    }
+    
+    @Test
+    void betaChannelSkipsDevBuilds() {
+        assertEquals("v1.2.0-beta.10", ReleaseCatalog.select(RELEASES, "beta").tagName);
+    }
+    
+    @Test
+    void devChannelIncludesAllPrereleases() {
+        // dev.5 與 beta.10 比較時 "beta" < "dev"
+        assertEquals("v1.2.0-dev.5", ReleaseCatalog.select(RELEASES, "DEV").tagName);
+    }
+    
+    @Test
+    void stableReleasePreferredOverOlderPrerelease() {
+        List<UpdateManager.GitHubRelease> releases = List.of(release("v1.2.0-beta.1", true), release("v1.2.0", false));
+        assertEquals("v1.2.0", ReleaseCatalog.select(releases, "beta").tagName);
+    }
+    
+    @Test
+    void returnsNullWhenNothingMatches() {
+        assertNull(ReleaseCatalog.select(List.of(release("v2.0.0-beta.1", true)), "stable"));
+        assertNull(ReleaseCatalog.select(List.of(), "dev"));
+    }
+    
+    private static UpdateManager.GitHubRelease release(String tag, boolean prerelease) {
+        return new UpdateManager.GitHubRelease(tag, tag, "", "https://example.com/" + tag + ".jar", prerelease);
+    }
+}
@@ -0,0 +1,78 @@
+package com.mcserver.launcher.github;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * glob 篩選以規則目錄為基準，exclude 優先；各策略決定覆蓋與刪除
+ */
+class SyncRuleTest {
+    
+    @Test
+    void matchesIncludeAndExcludeGlobs() {
+        SyncRule rule = new SyncRule("config", "config", SyncRule.Policy.MIRROR,
+                List.of("*.toml", "defaults/**"), List.of("defaults/local/**", "client.toml"));
+        
+        assertTrue(rule.matches("server.toml"));
+        assertTrue(rule.matches("defaults/a/b.json"));
+        assertFalse(rule.matches("client.toml"));
+        assertFalse(rule.matches("defaults/local/keys.txt"));
+        assertFalse(rule.matches("options.txt"));
+        // * 不跨越目錄
+        assertFalse(rule.matches("sub/server.toml"));
+    }
+    
+    @Test
+    void matchesEverythingWithoutIncludes() {
+        SyncRule rule = new SyncRule("mods", "mods", SyncRule.Policy.MIRROR, List.of(), List.of("*.disabled"));
+        
+        assertTrue(rule.matches("sodium.jar"));
+        assertTrue(rule.matches("nested/extra.jar"));
+        assertFalse(rule.matches("jei.jar.disabled"));
+    }
+    
+    @Test
+    void mirrorOverwritesAndDeletes() {
+        SyncRule rule = new SyncRule("mods", "mods", SyncRule.Policy.MIRROR, List.of("*.jar"), List.of());
+        
+        assertTrue(rule.shouldOverwrite(false));
+        assertTrue(rule.shouldOverwrite(true));
+        assertTrue(rule.shouldDelete("old.jar"));
+        // 規則範圍外的文件不刪除
+        assertFalse(rule.shouldDelete("notes.txt"));
+    }
+    
+    @Test
+    void addOnlyNeverOverwritesOrDeletes() {
+        SyncRule rule = new SyncRule("config", "config", SyncRule.Policy.ADD_ONLY, List.of(), List.of());
+        
+        assertFalse(rule.shouldOverwrite(false));
+        assertFalse(rule.shouldOverwrite(true));
+        assertFalse(rule.shouldDelete("server.toml"));
+    }
+    
+    @Test
+    void preserveModifiedOnlyOverwritesUntouchedFiles() {
+        SyncRule rule = new SyncRule("config", "config", SyncRule.Policy.PRESERVE_MODIFIED, List.of(), List.of());
+        
+        assertTrue(rule.shouldOverwrite(false));
+        assertFalse(rule.shouldOverwrite(true));
+        assertFalse(rule.shouldDelete("server.toml"));
+    }
+    
+    @Test
+    void parsesJsonAndRelativizes() throws IOException {
+        List<SyncRule> rules = SyncRule.fromJson(new ObjectMapper().readTree(
+                "[{\"remote\": \"/overrides/config/\", \"local\": \"config\", \"policy\": \"preserve_modified\"}]"));
+        
+        SyncRule rule = rules.get(0);
+        assertEquals(SyncRule.Policy.PRESERVE_MODIFIED, rule.getPolicy());
+        assertEquals("server.toml", rule.relativize("overrides/config/server.toml"));
+        assertNull(rule.relativize("overrides/configs/server.toml"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.mcserver.launcher.github;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateManagerTest {
+    
+    @Test
+    void comparesNumericSegments() {
+        assertTrue(UpdateManager.compareVersions("1.10.0", "1.9.0") > 0);
+        assertTrue(UpdateManager.compareVersions("1.2", "1.2.1") < 0);
+        assertEquals(0, UpdateManager.compareVersions("1.2", "1.2.0"));
+    }
+    
+    @Test
+    void prereleaseIsLowerThanRelease() {
+        assertTrue(UpdateManager.compareVersions("1.2.0-beta.2", "1.2.0") < 0);
+        assertTrue(UpdateManager.compareVersions("1.2.0", "1.2.0-rc.1") > 0);
+        assertTrue(UpdateManager.compareVersions("1.2.0-beta.2", "1.1.9") > 0);
+    }
+    
+    @Test
+    void comparesPrereleaseIdentifiers() {
+        assertTrue(UpdateManager.compareVersions("1.2.0-beta.2", "1.2.0-beta.10") < 0);
+        assertTrue(UpdateManager.compareVersions("1.2.0-alpha", "1.2.0-beta") < 0);
+        assertTrue(UpdateManager.compareVersions("1.2.0-beta", "1.2.0-beta.1") < 0);
+        // 數字標識低於文字標識
+        assertTrue(UpdateManager.compareVersions("1.2.0-1", "1.2.0-beta") < 0);
+    }
+    
+    @Test
+    void ignoresBuildMetadata() {
+        assertEquals(0, UpdateManager.compareVersions("1.2.0+build.5", "1.2.0+build.9"));
+        assertEquals(0, UpdateManager.compareVersions("1.2.0+abc", "1.2.0"));
+        assertTrue(UpdateManager.compareVersions("1.2.0-beta.1+build.3", "1.2.0") < 0);
+    }
+    
+    @Test
+    void isNewerVersion() {
+        assertTrue(UpdateManager.isNewerVersion("1.0.0", "1.0.1"));
+        assertFalse(UpdateManager.isNewerVersion("1.0.1", "1.0.1"));
+        assertFalse(UpdateManager.isNewerVersion("1.0.1", "1.0.1-beta.1"));
+    }
+}
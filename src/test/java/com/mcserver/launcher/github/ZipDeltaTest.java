@@ -0,0 +1,115 @@
+package com.mcserver.launcher.github;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 重組出的文件必須與遠端 zip 逐位元組相同，且未變更的條目從本地複製
+ */
+class ZipDeltaTest {
+    
+    // 固定時間，相同內容的條目在兩個版本中完全一致
+    private static final long ENTRY_TIME = 1_700_000_000_000L;
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void rebuildsChangedEntry() throws IOException {
+        Map<String, byte[]> local = entries();
+        Map<String, byte[]> remote = new LinkedHashMap<>(local);
+        remote.put("assets/b.txt", "changed".getBytes(StandardCharsets.UTF_8));
+        
+        ZipDelta.Result result = rebuild(local, remote);
+        assertEquals(2, result.reusedEntries);
+        assertEquals(1, result.fetchedEntries);
+    }
+    
+    @Test
+    void rebuildsAddedEntry() throws IOException {
+        Map<String, byte[]> local = entries();
+        Map<String, byte[]> remote = new LinkedHashMap<>(local);
+        remote.put("assets/d.bin", randomBytes(4, 20_000));
+        
+        ZipDelta.Result result = rebuild(local, remote);
+        assertEquals(3, result.reusedEntries);
+        assertEquals(1, result.fetchedEntries);
+    }
+    
+    @Test
+    void rebuildsRemovedEntry() throws IOException {
+        Map<String, byte[]> local = entries();
+        Map<String, byte[]> remote = new LinkedHashMap<>(local);
+        remote.remove("assets/b.txt");
+        
+        ZipDelta.Result result = rebuild(local, remote);
+        assertEquals(2, result.reusedEntries);
+        assertEquals(0, result.fetchedEntries);
+    }
+    
+    @Test
+    void rejectsInvalidRemote() throws IOException {
+        Path basis = dir.resolve("basis.zip");
+        Files.write(basis, zip(entries()));
+        byte[] remote = randomBytes(5, 1000);
+        
+        assertThrows(IOException.class, () -> ZipDelta.rebuild(basis, remote.length,
+                (start, length, out) -> out.write(remote, (int) start, (int) length), dir.resolve("out.zip")));
+    }
+    
+    /**
+     * 重組並確認與遠端 zip 相同
+     */
+    private ZipDelta.Result rebuild(Map<String, byte[]> localEntries, Map<String, byte[]> remoteEntries) throws IOException {
+        Path basis = dir.resolve("basis.zip");
+        Path output = dir.resolve("out.zip");
+        Files.write(basis, zip(localEntries));
+        byte[] remote = zip(remoteEntries);
+        
+        ZipDelta.Result result = ZipDelta.rebuild(basis, remote.length,
+                (start, length, out) -> out.write(remote, (int) start, (int) length), output);
+        assertArrayEquals(remote, Files.readAllBytes(output));
+        return result;
+    }
+    
+    private static Map<String, byte[]> entries() {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("assets/a.bin", randomBytes(1, 50_000));
+        entries.put("assets/b.txt", "original".repeat(1000).getBytes(StandardCharsets.UTF_8));
+        entries.put("pack.mcmeta", randomBytes(3, 300));
+        return entries;
+    }
+    
+    private static byte[] zip(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                zipEntry.setTime(ENTRY_TIME);
+                zip.putNextEntry(zipEntry);
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+    
+    private static byte[] randomBytes(long seed, int length) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
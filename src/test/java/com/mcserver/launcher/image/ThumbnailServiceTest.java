@@ -0,0 +1,67 @@
+package com.mcserver.launcher.image;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 資源包圖示須能從 ZIP 與資料夾讀取，截圖直接讀取原始文件
+ */
+class ThumbnailServiceTest {
+    
+    private static final byte[] ICON = {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3};
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void readsPackIconFromZip() throws IOException {
+        Path pack = dir.resolve("faithful.zip");
+        try (OutputStream out = Files.newOutputStream(pack); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("pack.mcmeta"));
+            zip.write("{}".getBytes());
+            zip.putNextEntry(new ZipEntry("pack.png"));
+            zip.write(ICON);
+        }
+        
+        assertArrayEquals(ICON, ThumbnailService.readPackIcon(pack));
+    }
+    
+    @Test
+    void readsPackIconFromFolder() throws IOException {
+        Path pack = Files.createDirectories(dir.resolve("faithful"));
+        Files.write(pack.resolve("pack.png"), ICON);
+        
+        assertArrayEquals(ICON, ThumbnailService.readPackIcon(pack));
+    }
+    
+    @Test
+    void missingPackIconReturnsNull() throws IOException {
+        Path folder = Files.createDirectories(dir.resolve("plain"));
+        Path zipped = dir.resolve("plain.zip");
+        try (OutputStream out = Files.newOutputStream(zipped); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("pack.mcmeta"));
+            zip.write("{}".getBytes());
+        }
+        
+        assertNull(ThumbnailService.readPackIcon(folder));
+        assertNull(ThumbnailService.readPackIcon(zipped));
+    }
+    
+    @Test
+    void readsScreenshot() throws IOException {
+        Path screenshots = Files.createDirectories(dir.resolve("screenshots"));
+        Path shot = Files.write(screenshots.resolve("2024-01-01_12.00.00.png"), ICON);
+        
+        assertArrayEquals(ICON, ThumbnailService.readScreenshot(shot));
+        assertNull(ThumbnailService.readScreenshot(screenshots.resolve("missing.png")));
+    }
+}
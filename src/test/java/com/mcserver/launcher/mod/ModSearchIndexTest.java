@@ -0,0 +1,96 @@
+package com.mcserver.launcher.mod;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 索引須隨註冊表快照增量同步，並支援拼寫容錯與中日韓文字查詢
+ */
+class ModSearchIndexTest {
+    
+    private ModRegistry registry;
+    private ModSlot slot;
+    private ModSearchIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        registry = new ModRegistry();
+        slot = new ModSlot("utility", "實用工具", "", false, ModSlot.Category.UTILITY);
+        registry.putSlot(slot);
+        index = new ModSearchIndex();
+        index.attach(registry);
+    }
+    
+    @Test
+    void tracksAddAndRemove() {
+        slot.addMod(mod("jei.jar", "jei", "JustEnoughItems", "物品查詢"));
+        assertEquals(1, index.size());
+        assertEquals("jei.jar", first("enough").getFileName());
+        
+        slot.removeMod("jei.jar");
+        assertEquals(0, index.size());
+        assertTrue(index.search("enough", 10).isEmpty());
+    }
+    
+    @Test
+    void tracksRename() {
+        slot.addMod(mod("jei.jar", "jei", "JustEnoughItems", "物品查詢"));
+        slot.renameMod("jei.jar", "jei.jar.disabled", false);
+        
+        assertEquals(1, index.size());
+        ModInfo found = first("jei");
+        assertEquals("jei.jar.disabled", found.getFileName());
+        assertFalse(found.isEnabled());
+    }
+    
+    @Test
+    void toleratesTypos() {
+        slot.addMod(mod("sodium.jar", "sodium", "Sodium", "渲染優化"));
+        slot.addMod(mod("lithium.jar", "lithium", "Lithium", "伺服器優化"));
+        
+        // 替換一個字元
+        assertEquals("sodium", first("sodiun").getModId());
+        // 相鄰字元互換
+        assertEquals("lithium", first("lihtium").getModId());
+        // 長度 7 以上允許兩處錯誤
+        assertEquals("lithium", first("lotheum").getModId());
+        // 超過上限不應命中
+        assertTrue(index.search("sxdxxm", 10).isEmpty());
+    }
+    
+    @Test
+    void matchesCjkUnigramsAndBigrams() {
+        slot.addMod(mod("sodium.jar", "sodium", "Sodium", "渲染優化模組"));
+        slot.addMod(mod("create.jar", "create", "Create", "機械科技模組"));
+        
+        assertEquals("sodium", first("優化").getModId());
+        assertEquals("create", first("科技").getModId());
+        assertEquals(2, index.search("模", 10).size());
+        // 查詢的雙字組必須相鄰出現
+        assertTrue(index.search("優技", 10).isEmpty());
+    }
+    
+    @Test
+    void requiresEveryQueryTerm() {
+        slot.addMod(mod("sodium.jar", "sodium", "Sodium", "渲染優化"));
+        slot.addMod(mod("create.jar", "create", "Create", "機械科技"));
+        
+        List<ModInfo> results = index.search("create 科技", 10);
+        assertEquals(1, results.size());
+        assertTrue(index.search("create 優化", 10).isEmpty());
+    }
+    
+    private ModInfo first(String query) {
+        List<ModInfo> results = index.search(query, 10);
+        assertFalse(results.isEmpty(), query);
+        return results.get(0);
+    }
+    
+    private static ModInfo mod(String fileName, String modId, String name, String description) {
+        return new ModInfo(fileName, modId, name, "1.0", description, true);
+    }
+}
@@ -0,0 +1,90 @@
+package com.mcserver.launcher.mod;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 規則依順序決定優先權，與命中方式 (精確 ID、關鍵字、正則) 無關
+ */
+class SlotRulesTest {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    @Test
+    void earlierRuleWinsAcrossMatchKinds() {
+        SlotRules keywordFirst = SlotRules.compile(List.of(
+                rule("utility", List.of(), List.of("jei"), List.of(), List.of()),
+                rule("core", List.of("jei"), List.of(), List.of(), List.of())));
+        assertEquals("utility", keywordFirst.classify("jei", "Just Enough Items"));
+        
+        SlotRules exactFirst = SlotRules.compile(List.of(
+                rule("core", List.of("jei"), List.of(), List.of(), List.of()),
+                rule("utility", List.of(), List.of("jei"), List.of(), List.of())));
+        assertEquals("core", exactFirst.classify("JEI", "Just Enough Items"));
+        
+        SlotRules patternFirst = SlotRules.compile(List.of(
+                rule("magic", List.of(), List.of(), List.of(), List.of("^j.i$")),
+                rule("core", List.of("jei"), List.of(), List.of(), List.of()),
+                rule("utility", List.of(), List.of("jei"), List.of(), List.of())));
+        assertEquals("magic", patternFirst.classify("jei", ""));
+        
+        SlotRules patternLast = SlotRules.compile(List.of(
+                rule("utility", List.of(), List.of("jei"), List.of(), List.of()),
+                rule("magic", List.of(), List.of(), List.of(), List.of("^j.i$"))));
+        assertEquals("utility", patternLast.classify("jei", ""));
+    }
+    
+    @Test
+    void overlappingKeywordsUseRuleOrder() {
+        // forge 在文本中先出現，但 core 所在的規則優先權較高
+        SlotRules coreFirst = SlotRules.compile(List.of(
+                rule("core", List.of(), List.of("core"), List.of(), List.of()),
+                rule("technology", List.of(), List.of("forge"), List.of(), List.of())));
+        assertEquals("core", coreFirst.classify("forgecore", ""));
+        
+        SlotRules forgeFirst = SlotRules.compile(List.of(
+                rule("technology", List.of(), List.of("forge"), List.of(), List.of()),
+                rule("core", List.of(), List.of("core"), List.of(), List.of())));
+        assertEquals("technology", forgeFirst.classify("forgecore", ""));
+        
+        // 走到 cord 的前綴 cor 後失配，需經由失敗鏈才能命中 re
+        SlotRules suffix = SlotRules.compile(List.of(
+                rule("magic", List.of(), List.of("re"), List.of(), List.of()),
+                rule("core", List.of(), List.of("cord"), List.of(), List.of())));
+        assertEquals("magic", suffix.classify("forgecore", ""));
+        
+        assertEquals("core", SlotRules.defaults().classify("forgecore", "Forge Core"));
+    }
+    
+    @Test
+    void matchesCjkNameKeywords() {
+        SlotRules rules = SlotRules.defaults();
+        
+        assertEquals("technology", rules.classify("create", "機械動力"));
+        assertEquals("magic", rules.classify("ars_nouveau", "新生魔藝 魔法"));
+        assertEquals("decoration", rules.classify("supplementaries", "家具美化"));
+        assertNull(rules.classify("create", "動力"));
+    }
+    
+    @Test
+    void fromJsonRejectsMissingRulesArray() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> SlotRules.fromJson(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> SlotRules.fromJson(MAPPER.readTree("{\"slot\": \"core\"}")));
+        assertThrows(IllegalArgumentException.class,
+                () -> SlotRules.fromJson(MAPPER.readTree("[{\"idKeywords\": [\"core\"]}]")));
+        
+        SlotRules rules = SlotRules.fromJson(MAPPER.readTree("[{\"slot\": \"core\", \"idKeywords\": [\"Core\"]}]"));
+        assertEquals("core", rules.classify("ForgeCore", ""));
+    }
+    
+    private static SlotRules.Rule rule(String slot, List<String> modIds, List<String> idKeywords,
+                                       List<String> nameKeywords, List<String> patterns) {
+        return new SlotRules.Rule(slot, modIds, idKeywords, nameKeywords, patterns);
+    }
+}